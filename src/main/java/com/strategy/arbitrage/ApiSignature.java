@@ -1,39 +1,24 @@
 package com.strategy.arbitrage;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ApiSignature {
 
+    /** 密钥 → 签名器，每个密钥只做一次 Mac 初始化。 */
+    private static final Map<String, HmacSigner> signers = new ConcurrentHashMap<>();
+
+    public static HmacSigner signer(String secret) {
+        return signers.computeIfAbsent(secret, HmacSigner::new);
+    }
+
     // OKX / Bitget 使用 HMAC-SHA256
     public static String hmacSha256(String message, String secret) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec keySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            mac.init(keySpec);
-            byte[] hmacBytes = mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hmacBytes);
-        } catch (Exception e) {
-            throw new RuntimeException("HMAC-SHA256 failed", e);
-        }
+        return signer(secret).base64(message);
     }
 
     // Binance 使用 HMAC-SHA256，但返回 Hex（小写）
     public static String hmacSha256Hex(String message, String secret) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec keySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            mac.init(keySpec);
-            byte[] hmacBytes = mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hmacBytes) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-        } catch (Exception e) {
-            throw new RuntimeException("HMAC-SHA256 Hex failed", e);
-        }
+        return signer(secret).hex(message);
     }
-}
\ No newline at end of file
+}
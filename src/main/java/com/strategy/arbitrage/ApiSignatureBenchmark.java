@@ -0,0 +1,96 @@
+package com.strategy.arbitrage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.function.UnaryOperator;
+
+/**
+ * 三个交易所签名方式的开销对比：改造前每次 getInstance + init、逐字节 String.format，与 {@link HmacSigner} 的缓存签名器。
+ * <p>
+ * 用法：{@code java ... ApiSignatureBenchmark [迭代次数]}，输出每次签名的平均纳秒数和当前线程分配字节数。
+ */
+public class ApiSignatureBenchmark {
+
+    private static final String SECRET = "jUSZTT7kzVyqAmzBRptl79Jmz8mck18C61H83fsq3Bo0CsxgZHmQd2sim918WFaX";
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        // 与各服务下单时拼接的待签名串一致
+        String bnQuery = "symbol=BTCUSDT&side=BUY&positionSide=LONG&type=MARKET&quantity=0.015&timestamp=" + System.currentTimeMillis();
+        String bgBody = "{\"symbol\":\"BTCUSDT\",\"productType\":\"USDT-FUTURES\",\"marginMode\":\"crossed\",\"marginCoin\":\"USDT\","
+                + "\"size\":\"0.015\",\"side\":\"buy\",\"tradeSide\":\"open\",\"orderType\":\"market\"}";
+        String bgPreSign = System.currentTimeMillis() + "POST" + "/api/v2/mix/order/place-order" + bgBody;
+        String okxBody = "{\"instId\":\"BTC-USDT-SWAP\",\"tdMode\":\"cross\",\"side\":\"buy\",\"posSide\":\"long\","
+                + "\"ordType\":\"market\",\"sz\":\"1.5\",\"px\":\"65000.1\"}";
+        String okxPreSign = Instant.now().toString() + "POST" + "/api/v5/trade/order" + okxBody;
+
+        System.out.printf("%-8s %14s %14s %14s %14s%n", "scheme", "legacy ns/op", "cached ns/op", "legacy B/op", "cached B/op");
+        run("binance", iterations, m -> legacyHex(m, SECRET), m -> ApiSignature.hmacSha256Hex(m, SECRET), bnQuery);
+        run("bitget", iterations, m -> legacyBase64(m, SECRET), m -> ApiSignature.hmacSha256(m, SECRET), bgPreSign);
+        run("okx", iterations, m -> legacyBase64(m, SECRET), m -> ApiSignature.hmacSha256(m, SECRET), okxPreSign);
+    }
+
+    private static void run(String scheme, int iterations, UnaryOperator<String> legacy, UnaryOperator<String> cached, String message) {
+        if (!legacy.apply(message).equals(cached.apply(message))) {
+            throw new IllegalStateException(scheme + " 签名结果不一致");
+        }
+        // 预热
+        measure(legacy, message, iterations);
+        measure(cached, message, iterations);
+
+        double[] legacyCost = measure(legacy, message, iterations);
+        double[] cachedCost = measure(cached, message, iterations);
+        System.out.printf(Locale.ROOT, "%-8s %14.0f %14.0f %14.0f %14.0f%n", scheme,
+                legacyCost[0], cachedCost[0], legacyCost[1], cachedCost[1]);
+    }
+
+    /** [平均纳秒, 平均分配字节]。 */
+    private static double[] measure(UnaryOperator<String> signer, String message, int iterations) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        int sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            sink += signer.apply(message).length();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        if (sink < 0) {
+            System.out.println(sink);
+        }
+        return new double[]{(double) elapsed / iterations, (double) allocated / iterations};
+    }
+
+    // ── 改造前的实现 ──────────────────────────────────────────────────────────
+
+    private static String legacyBase64(String message, String secret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return Base64.getEncoder().encodeToString(mac.doFinal(message.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String legacyHex(String message, String secret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : mac.doFinal(message.getBytes(StandardCharsets.UTF_8))) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
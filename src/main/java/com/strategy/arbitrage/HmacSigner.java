@@ -0,0 +1,111 @@
+package com.strategy.arbitrage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * 绑定单个密钥的 HMAC-SHA256 签名器。
+ * <p>
+ * 每个线程持有一份已 init 的 Mac（由原型 clone，不重复 getInstance / init）以及复用的输入、摘要、编码缓冲区，
+ * 一次签名除返回的 String 外不再分配对象（消息含非 ASCII 字符时退回 getBytes）。
+ */
+public final class HmacSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int DIGEST_LENGTH = 32;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final Base64.Encoder BASE64 = Base64.getEncoder();
+
+    private final SecretKeySpec key;
+    private final Mac prototype;
+    private final ThreadLocal<State> state;
+
+    public HmacSigner(String secret) {
+        key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(key);
+        } catch (Exception e) {
+            throw new RuntimeException("HMAC-SHA256 init failed", e);
+        }
+        state = ThreadLocal.withInitial(() -> new State(newMac()));
+    }
+
+    /** Binance：小写十六进制。 */
+    public String hex(String message) {
+        State s = digest(message);
+        char[] chars = s.hex;
+        for (int i = 0; i < DIGEST_LENGTH; i++) {
+            int b = s.digest[i] & 0xff;
+            chars[i * 2] = HEX[b >>> 4];
+            chars[i * 2 + 1] = HEX[b & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    /** OKX / Bitget：Base64。 */
+    public String base64(String message) {
+        State s = digest(message);
+        int length = BASE64.encode(s.digest, s.base64);
+        return new String(s.base64, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    // ── 内部 ──────────────────────────────────────────────────────────────────
+
+    private State digest(String message) {
+        State s = state.get();
+        try {
+            int length = message.length();
+            if (s.input.length < length) {
+                s.input = Arrays.copyOf(s.input, Math.max(length, s.input.length * 2));
+            }
+            byte[] input = s.input;
+            for (int i = 0; i < length; i++) {
+                char c = message.charAt(i);
+                if (c >= 0x80) {
+                    // 非 ASCII，按 UTF-8 完整编码
+                    s.mac.update(message.getBytes(StandardCharsets.UTF_8));
+                    s.mac.doFinal(s.digest, 0);
+                    return s;
+                }
+                input[i] = (byte) c;
+            }
+            s.mac.update(input, 0, length);
+            s.mac.doFinal(s.digest, 0);
+            return s;
+        } catch (Exception e) {
+            // doFinal 异常时 Mac 会被重置，可以继续使用
+            throw new RuntimeException("HMAC-SHA256 failed", e);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            // 个别 Provider 不支持 clone，退回重新创建
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (Exception ex) {
+                throw new RuntimeException("HMAC-SHA256 init failed", ex);
+            }
+        }
+    }
+
+    private static final class State {
+        private final Mac mac;
+        private byte[] input = new byte[256];
+        private final byte[] digest = new byte[DIGEST_LENGTH];
+        private final char[] hex = new char[DIGEST_LENGTH * 2];
+        private final byte[] base64 = new byte[(DIGEST_LENGTH + 2) / 3 * 4];
+
+        private State(Mac mac) {
+            this.mac = mac;
+        }
+    }
+}
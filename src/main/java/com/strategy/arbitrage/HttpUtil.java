@@ -1,17 +1,257 @@
 package com.strategy.arbitrage;
 
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.ratelimit.RateGovernor;
+import com.strategy.arbitrage.ratelimit.RateTag;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * HTTP 传输层。每个交易所（以及 Telegram）使用独立的连接池和 Dispatcher，
+ * 某个交易所变慢或打满并发不会拖累其他交易所的下单；优先协商 HTTP/2，不支持时回落 HTTP/1.1。
+ * <p>
+ * 超时和连接池参数由 {@link #configure(Settings)} 在启动时按配置重建，之后调用 {@link #prewarm} 预先完成 TLS 握手。
+ * <p>
+ * {@link #sendAsync} 基于 enqueue，不占用调用方线程；整个调用受 callTimeout 约束，
+ * 对返回的 future 调用 cancel 或 orTimeout 超时会同时取消底层请求。
+ * <p>
+ * 交易所请求都经过 {@link RateGovernor} 限流，权重和优先级由请求上的 {@link RateTag} 决定。
+ */
+@Slf4j
 public class HttpUtil {
-    public static final OkHttpClient client = new OkHttpClient();
 
-    public static Response send(String method, String url, RequestBody body, Headers headers) throws Exception {
+    private static final String TELEGRAM = "telegram";
+    private static final String DEFAULT = "default";
+
+    private static volatile Settings settings = new Settings();
+    private static final Map<String, OkHttpClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * 通用客户端，用于不属于任何交易所的请求（如行情、订单 WebSocket 的基础配置）。
+     * 与各交易所客户端一样由 {@link #configure} 重建，调用方应在配置完成后再取。
+     */
+    public static OkHttpClient defaultClient() {
+        return clients.computeIfAbsent(DEFAULT, venue -> build(venue, settings, null));
+    }
+
+    public static OkHttpClient client(ExchangeEnum exchange) {
+        return clients.computeIfAbsent(exchange.getAbbr(), venue -> build(venue, settings, exchange));
+    }
+
+    public static OkHttpClient telegramClient() {
+        return clients.computeIfAbsent(TELEGRAM, venue -> build(venue, settings, null));
+    }
+
+    public static Response send(ExchangeEnum exchange, String method, String url, RequestBody body, Headers headers) throws Exception {
+        return client(exchange).newCall(request(method, url, body, headers)).execute();
+    }
+
+    public static Request request(String method, String url, RequestBody body, Headers headers) {
+        return request(method, url, body, headers, RateTag.DEFAULT);
+    }
+
+    public static Request request(String method, String url, RequestBody body, Headers headers, RateTag tag) {
         body = body == null ? RequestBody.create("", MediaType.parse("application/json")) : body;
-        Request request = new Request.Builder()
+        return new Request.Builder()
                 .url(url)
                 .headers(headers)
                 .method(method, body)
+                .tag(RateTag.class, tag)
+                .build();
+    }
+
+    /**
+     * 异步发送请求，在该交易所的 Dispatcher 线程中解析响应体。
+     * 网络错误或 parser 抛出的异常交给 onError 处理：返回值作为降级结果，抛出则 future 以该异常结束。
+     */
+    public static <T> CompletableFuture<T> sendAsync(ExchangeEnum exchange, Request request,
+                                                     BodyParser<T> parser, Function<Throwable, T> onError) {
+        return enqueue(exchange, request, body -> parser.parse(body.string()), onError);
+    }
+
+    /** 同 {@link #sendAsync}，parser 直接读取响应体字节流，用于大体积响应的流式解码。 */
+    public static <T> CompletableFuture<T> streamAsync(ExchangeEnum exchange, Request request,
+                                                       StreamParser<T> parser, Function<Throwable, T> onError) {
+        return enqueue(exchange, request, body -> parser.parse(body.byteStream()), onError);
+    }
+
+    /** 同步等待异步结果，CompletionException 解包为原始的 RuntimeException，保持同步接口原有的异常类型。 */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    public interface BodyParser<T> {
+        T parse(String body) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface StreamParser<T> {
+        T parse(InputStream body) throws Exception;
+    }
+
+    /** 按配置重建各交易所客户端，应在发出第一个请求之前调用。 */
+    public static synchronized void configure(Settings newSettings) {
+        settings = newSettings;
+        clients.values().forEach(HttpUtil::shutdown);
+        clients.clear();
+    }
+
+    /**
+     * 异步请求一次轻量接口，让连接池里预先留下已完成 TLS 握手的连接。
+     * 结果只记录日志，失败不影响启动。
+     */
+    public static void prewarm(ExchangeEnum exchange, String url) {
+        prewarm(exchange.getAbbr(), client(exchange), url);
+    }
+
+    public static void prewarmTelegram(String url) {
+        prewarm(TELEGRAM, telegramClient(), url);
+    }
+
+    // ── 内部 ──────────────────────────────────────────────────────────────────
+
+    private interface ResponseParser<T> {
+        T parse(ResponseBody body) throws Exception;
+    }
+
+    /** 先向 {@link RateGovernor} 申请配额，拿到后再 enqueue；排队期间 future 已结束（取消或超时）则不再发出。 */
+    private static <T> CompletableFuture<T> enqueue(ExchangeEnum exchange, Request request,
+                                                    ResponseParser<T> parser, Function<Throwable, T> onError) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<Void> permit = RateGovernor.acquire(exchange, RateTag.of(request));
+        if (permit.isDone()) {
+            dispatch(exchange, request, parser, onError, future);
+        } else {
+            permit.thenRun(() -> {
+                if (!future.isDone()) {
+                    dispatch(exchange, request, parser, onError, future);
+                }
+            });
+        }
+        return future;
+    }
+
+    private static <T> void dispatch(ExchangeEnum exchange, Request request, ResponseParser<T> parser,
+                                     Function<Throwable, T> onError, CompletableFuture<T> future) {
+        Call call = client(exchange).newCall(RateGovernor.granted(request));
+        // 调用方 cancel 或 orTimeout 使 future 提前结束时，一并取消底层请求
+        future.whenComplete((result, e) -> {
+            if (e != null) {
+                call.cancel();
+            }
+        });
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    future.complete(parser.parse(response.body()));
+                } catch (Throwable e) {
+                    fail(future, e, onError);
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                fail(future, e, onError);
+            }
+        });
+    }
+
+    private static void prewarm(String venue, OkHttpClient venueClient, String url) {
+        long start = System.currentTimeMillis();
+        venueClient.newCall(new Request.Builder().url(url).get().build()).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+                log.info("🔥 {} 连接预热完成 {} {}ms protocol={}", venue, response.code(),
+                        System.currentTimeMillis() - start, response.protocol());
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                log.warn("⚠️ {} 连接预热失败: {}", venue, e.getMessage());
+            }
+        });
+    }
+
+    private static <T> void fail(CompletableFuture<T> future, Throwable e, Function<Throwable, T> onError) {
+        if (future.isDone()) {
+            // 已被调用方取消或超时
+            return;
+        }
+        try {
+            future.complete(onError.apply(e));
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+    }
+
+    /** exchange 不为空时挂上该交易所的限流拦截器。 */
+    private static OkHttpClient build(String venue, Settings s, ExchangeEnum exchange) {
+        AtomicInteger index = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), r -> {
+            Thread t = new Thread(r, "http-" + venue + "-" + index.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Dispatcher dispatcher = new Dispatcher(executor);
+        dispatcher.setMaxRequests(s.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(s.getMaxRequestsPerHost());
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder();
+        if (exchange != null) {
+            builder.addInterceptor(RateGovernor.interceptor(exchange));
+        }
+        return builder
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(s.getMaxIdleConnections(), s.getKeepAliveSeconds(), TimeUnit.SECONDS))
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(s.getConnectTimeoutMs(), TimeUnit.MILLISECONDS)
+                .readTimeout(s.getReadTimeoutMs(), TimeUnit.MILLISECONDS)
+                .writeTimeout(s.getWriteTimeoutMs(), TimeUnit.MILLISECONDS)
+                .callTimeout(s.getCallTimeoutMs(), TimeUnit.MILLISECONDS)
+                .retryOnConnectionFailure(true)
                 .build();
-        return client.newCall(request).execute();
     }
-}
\ No newline at end of file
+
+    private static void shutdown(OkHttpClient old) {
+        old.dispatcher().executorService().shutdown();
+        old.connectionPool().evictAll();
+    }
+
+    /** 连接参数，默认值与 application.yml 中 http.* 一致。 */
+    @Data
+    public static class Settings {
+        private long connectTimeoutMs = 3_000;
+        private long readTimeoutMs = 10_000;
+        private long writeTimeoutMs = 10_000;
+        private long callTimeoutMs = 15_000;
+        private int maxIdleConnections = 8;
+        private long keepAliveSeconds = 300;
+        private int maxRequests = 64;
+        private int maxRequestsPerHost = 16;
+    }
+}
@@ -0,0 +1,357 @@
+package com.strategy.arbitrage.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.market.SymbolRegistry;
+import com.strategy.arbitrage.model.FundingRate;
+import com.strategy.arbitrage.model.Price;
+import com.strategy.arbitrage.model.TickerLimit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 交易所大体积行情接口（全量 ticker / 资金费率 / 合约规则）的流式解码。
+ * <p>
+ * 直接在响应体的字节流上用 Jackson 流式解析器逐字段读取，填充到 {@link Price} / {@link FundingRate} / {@link TickerLimit}，
+ * 不再先读成整个字符串、再建一棵 JSONArray/JSONObject 树。不需要的字段（如 exchangeInfo 里的 rateLimits、assets）直接跳过。
+ * 字段含义与原 org.json 解析一致，对比见 {@link PayloadDecoderBenchmark}。
+ */
+public final class PayloadDecoder {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private PayloadDecoder() {
+    }
+
+    // ── Binance ───────────────────────────────────────────────────────────────
+
+    /** /fapi/v1/ticker/24hr，单个合约时根节点是对象。 */
+    public static List<Price> bnPrices(InputStream in) throws IOException {
+        try (JsonParser p = FACTORY.createParser(in)) {
+            List<Price> result = new ArrayList<>();
+            forEachObject(p, p.nextToken(), () -> addIfPresent(result, price(p, ExchangeEnum.BINANCE,
+                    "symbol", "lastPrice", "openPrice", "highPrice", "lowPrice")));
+            return result;
+        }
+    }
+
+    /** /fapi/v1/premiumIndex，结算间隔取自 fundingInfo，缺省 8 小时。 */
+    public static List<FundingRate> bnFundingRates(InputStream in, Map<String, Long> symbol2Interval) throws IOException {
+        try (JsonParser p = FACTORY.createParser(in)) {
+            List<FundingRate> result = new ArrayList<>();
+            forEachObject(p, p.nextToken(), () -> {
+                FundingRate fundingRate = new FundingRate();
+                fundingRate.setExchange(ExchangeEnum.BINANCE.getAbbr());
+                String field;
+                while ((field = p.nextFieldName()) != null) {
+                    p.nextToken();
+                    switch (field) {
+                        case "symbol" -> fundingRate.setSymbol(SymbolRegistry.canonical(ExchangeEnum.BINANCE, p.getText()));
+                        case "lastFundingRate" -> fundingRate.setRate(p.getValueAsDouble());
+                        case "nextFundingTime" -> fundingRate.setNextFundingTime(p.getValueAsLong());
+                        default -> p.skipChildren();
+                    }
+                }
+                if (fundingRate.getSymbol() != null) {
+                    fundingRate.setInterval(symbol2Interval.getOrDefault(fundingRate.getSymbol(), 8L));
+                    result.add(fundingRate);
+                }
+            });
+            return result;
+        }
+    }
+
+    /** /fapi/v1/exchangeInfo，只读 symbols[].filters 中的 LOT_SIZE 和 PRICE_FILTER。 */
+    public static List<TickerLimit> bnTickerLimits(InputStream in) throws IOException {
+        try (JsonParser p = FACTORY.createParser(in)) {
+            List<TickerLimit> result = new ArrayList<>();
+            expect(p, p.nextToken(), JsonToken.START_OBJECT);
+            String field;
+            while ((field = p.nextFieldName()) != null) {
+                JsonToken token = p.nextToken();
+                if (!"symbols".equals(field)) {
+                    p.skipChildren();
+                    continue;
+                }
+                forEachObject(p, token, () -> addIfPresent(result, bnTickerLimit(p)));
+            }
+            return result;
+        }
+    }
+
+    private static TickerLimit bnTickerLimit(JsonParser p) throws IOException {
+        String instId = null;
+        double[] lotSize = null;
+        double tickSize = 0;
+        String field;
+        while ((field = p.nextFieldName()) != null) {
+            JsonToken token = p.nextToken();
+            if ("symbol".equals(field)) {
+                instId = p.getText();
+            } else if ("filters".equals(field)) {
+                expect(p, token, JsonToken.START_ARRAY);
+                while (p.nextToken() == JsonToken.START_OBJECT) {
+                    // filterType 不保证出现在最前面，先把可能用到的字段都读出来
+                    String filterType = null;
+                    double minQty = 0, maxQty = 0, stepSize = 0, filterTickSize = 0;
+                    String name;
+                    while ((name = p.nextFieldName()) != null) {
+                        p.nextToken();
+                        switch (name) {
+                            case "filterType" -> filterType = p.getText();
+                            case "minQty" -> minQty = p.getValueAsDouble();
+                            case "maxQty" -> maxQty = p.getValueAsDouble();
+                            case "stepSize" -> stepSize = p.getValueAsDouble();
+                            case "tickSize" -> filterTickSize = p.getValueAsDouble();
+                            default -> p.skipChildren();
+                        }
+                    }
+                    if ("LOT_SIZE".equals(filterType)) {
+                        lotSize = new double[]{minQty, maxQty, stepSize};
+                    } else if ("PRICE_FILTER".equals(filterType)) {
+                        tickSize = filterTickSize;
+                    }
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+        if (instId == null || lotSize == null) {
+            return null;
+        }
+        TickerLimit tickerLimit = new TickerLimit();
+        tickerLimit.setSymbol(SymbolRegistry.canonical(ExchangeEnum.BINANCE, instId));
+        tickerLimit.setInstId(instId);
+        tickerLimit.setMinQty(lotSize[0]);
+        tickerLimit.setMaxQty(lotSize[1]);
+        tickerLimit.setStepSize(lotSize[2]);
+        tickerLimit.setTickSize(tickSize);
+        return tickerLimit;
+    }
+
+    // ── Bitget ────────────────────────────────────────────────────────────────
+
+    /** /api/v2/mix/market/ticker(s)。 */
+    public static List<Price> bgPrices(InputStream in) throws IOException {
+        List<Price> result = new ArrayList<>();
+        readEnvelope(in, ExchangeEnum.BITGET, (p, token) -> forEachObject(p, token, () -> addIfPresent(result,
+                price(p, ExchangeEnum.BITGET, "symbol", "lastPr", "high24h", "low24h", "open24h"))));
+        return result;
+    }
+
+    /** /api/v2/mix/market/current-fund-rate。 */
+    public static List<FundingRate> bgFundingRates(InputStream in) throws IOException {
+        List<FundingRate> result = new ArrayList<>();
+        readEnvelope(in, ExchangeEnum.BITGET, (p, token) -> forEachObject(p, token, () -> {
+            FundingRate fundingRate = new FundingRate();
+            fundingRate.setExchange(ExchangeEnum.BITGET.getAbbr());
+            String field;
+            while ((field = p.nextFieldName()) != null) {
+                p.nextToken();
+                switch (field) {
+                    case "symbol" -> fundingRate.setSymbol(SymbolRegistry.canonical(ExchangeEnum.BITGET, p.getText()));
+                    case "fundingRate" -> fundingRate.setRate(p.getValueAsDouble());
+                    case "nextUpdate" -> fundingRate.setNextFundingTime(p.getValueAsLong());
+                    case "fundingRateInterval" -> fundingRate.setInterval(p.getValueAsLong());
+                    default -> p.skipChildren();
+                }
+            }
+            addIfPresent(result, fundingRate.getSymbol() == null ? null : fundingRate);
+        }));
+        return result;
+    }
+
+    /** /api/v2/mix/market/contracts。 */
+    public static List<TickerLimit> bgTickerLimits(InputStream in) throws IOException {
+        List<TickerLimit> result = new ArrayList<>();
+        readEnvelope(in, ExchangeEnum.BITGET, (p, token) -> forEachObject(p, token, () -> addIfPresent(result,
+                tickerLimit(p, ExchangeEnum.BITGET, "symbol", "minTradeNum", "maxPositionNum", "priceEndStep", null))));
+        return result;
+    }
+
+    // ── OKX ───────────────────────────────────────────────────────────────────
+
+    /** /api/v5/market/ticker(s)。 */
+    public static List<Price> okxPrices(InputStream in) throws IOException {
+        List<Price> result = new ArrayList<>();
+        readEnvelope(in, ExchangeEnum.OKX, (p, token) -> forEachObject(p, token, () -> addIfPresent(result,
+                price(p, ExchangeEnum.OKX, "instId", "last", "open24h", "low24h", "high24h"))));
+        return result;
+    }
+
+    /** /api/v5/public/funding-rate，结算间隔由本期和下期结算时间推算。 */
+    public static List<FundingRate> okxFundingRates(InputStream in) throws IOException {
+        List<FundingRate> result = new ArrayList<>();
+        readEnvelope(in, ExchangeEnum.OKX, (p, token) -> forEachObject(p, token, () -> {
+            FundingRate fundingRate = new FundingRate();
+            fundingRate.setExchange(ExchangeEnum.OKX.getAbbr());
+            long fundingTime = 0;
+            String field;
+            while ((field = p.nextFieldName()) != null) {
+                p.nextToken();
+                switch (field) {
+                    case "instId" -> fundingRate.setSymbol(SymbolRegistry.canonical(ExchangeEnum.OKX, p.getText()));
+                    case "fundingRate" -> fundingRate.setRate(p.getValueAsDouble());
+                    case "fundingTime" -> fundingTime = p.getValueAsLong();
+                    case "nextFundingTime" -> fundingRate.setNextFundingTime(p.getValueAsLong());
+                    default -> p.skipChildren();
+                }
+            }
+            fundingRate.setInterval((fundingRate.getNextFundingTime() - fundingTime) / 60 / 60 / 1000);
+            addIfPresent(result, fundingRate.getSymbol() == null ? null : fundingRate);
+        }));
+        return result;
+    }
+
+    /** /api/v5/account/instruments。 */
+    public static List<TickerLimit> okxTickerLimits(InputStream in) throws IOException {
+        List<TickerLimit> result = new ArrayList<>();
+        readEnvelope(in, ExchangeEnum.OKX, (p, token) -> forEachObject(p, token, () -> addIfPresent(result,
+                tickerLimit(p, ExchangeEnum.OKX, "instId", "minSz", "maxLmtSz", "lotSz", "ctVal"))));
+        return result;
+    }
+
+    // ── 内部 ──────────────────────────────────────────────────────────────────
+
+    @FunctionalInterface
+    private interface Body {
+        void read() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface DataReader {
+        void read(JsonParser p, JsonToken token) throws IOException;
+    }
+
+    /**
+     * Bitget / OKX 的 {"code": ..., "msg": ..., "data": [...]} 外层。
+     * code 可能出现在 data 之后，因此先解析 data，读完整个对象后再校验 code，失败时抛出与原实现相同的异常。
+     */
+    private static void readEnvelope(InputStream in, ExchangeEnum exchange, DataReader data) throws IOException {
+        String okCode = exchange == ExchangeEnum.OKX ? "0" : "00000";
+        String code = null;
+        String msg = null;
+        try (JsonParser p = FACTORY.createParser(in)) {
+            expect(p, p.nextToken(), JsonToken.START_OBJECT);
+            String field;
+            while ((field = p.nextFieldName()) != null) {
+                JsonToken token = p.nextToken();
+                switch (field) {
+                    case "code" -> code = p.getText();
+                    case "msg" -> msg = p.getText();
+                    case "data" -> data.read(p, token);
+                    default -> p.skipChildren();
+                }
+            }
+        }
+        if (!okCode.equals(code)) {
+            throw new RuntimeException((exchange == ExchangeEnum.OKX ? "OKX" : "Bitget") + " Error: " + msg);
+        }
+    }
+
+    /** 数组中的每个对象执行一次 body，body 负责读到对象结束；根节点为单个对象时同样处理。 */
+    private static void forEachObject(JsonParser p, JsonToken token, Body body) throws IOException {
+        if (token == JsonToken.START_OBJECT) {
+            body.read();
+            return;
+        }
+        expect(p, token, JsonToken.START_ARRAY);
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+            body.read();
+        }
+    }
+
+    private static Price price(JsonParser p, ExchangeEnum exchange, String symbolField, String priceField,
+                               String scaleField1, String scaleField2, String scaleField3) throws IOException {
+        Price price = new Price();
+        int scale = 0;
+        String field;
+        while ((field = p.nextFieldName()) != null) {
+            p.nextToken();
+            if (field.equals(symbolField)) {
+                price.setSymbol(SymbolRegistry.canonical(exchange, p.getText()));
+            } else if (field.equals(priceField)) {
+                price.setPrice(p.getValueAsDouble());
+            } else if (field.equals(scaleField1) || field.equals(scaleField2) || field.equals(scaleField3)) {
+                scale = Math.max(scale, decimalPlaces(p));
+            } else {
+                p.skipChildren();
+            }
+        }
+        price.setScale(scale);
+        return price.getSymbol() == null ? null : price;
+    }
+
+    private static TickerLimit tickerLimit(JsonParser p, ExchangeEnum exchange, String symbolField,
+                                           String minField, String maxField, String stepField, String ctValField) throws IOException {
+        TickerLimit tickerLimit = new TickerLimit();
+        String field;
+        while ((field = p.nextFieldName()) != null) {
+            p.nextToken();
+            if (field.equals(symbolField)) {
+                tickerLimit.setInstId(p.getText());
+                tickerLimit.setSymbol(SymbolRegistry.canonical(exchange, tickerLimit.getInstId()));
+            } else if (field.equals(minField)) {
+                tickerLimit.setMinQty(p.getValueAsDouble());
+            } else if (field.equals(maxField)) {
+                tickerLimit.setMaxQty(p.getValueAsDouble());
+            } else if (field.equals(stepField)) {
+                tickerLimit.setStepSize(p.getValueAsDouble());
+            } else if (field.equals(ctValField)) {
+                tickerLimit.setCtVal(p.getValueAsDouble());
+            } else {
+                p.skipChildren();
+            }
+        }
+        return tickerLimit.getSymbol() == null ? null : tickerLimit;
+    }
+
+    /**
+     * 去掉末尾 0 后的小数位数，等价于 new BigDecimal(s).stripTrailingZeros().toPlainString() 再数小数位，
+     * 直接在解析器的字符缓冲区上计算，不创建字符串。
+     */
+    static int decimalPlaces(JsonParser p) throws IOException {
+        char[] chars = p.getTextCharacters();
+        int start = p.getTextOffset();
+        int end = start + p.getTextLength();
+        int dot = -1;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c == 'e' || c == 'E') {
+                // 科学计数法很少见，走原来的换算
+                String plain = new BigDecimal(p.getText()).stripTrailingZeros().toPlainString();
+                int index = plain.indexOf('.');
+                return index < 0 ? 0 : plain.length() - index - 1;
+            }
+            if (c == '.') {
+                dot = i;
+            }
+        }
+        if (dot < 0) {
+            return 0;
+        }
+        while (end > dot + 1 && chars[end - 1] == '0') {
+            end--;
+        }
+        return end - dot - 1;
+    }
+
+    private static <T> void addIfPresent(List<T> result, T item) {
+        if (item != null) {
+            result.add(item);
+        }
+    }
+
+    private static void expect(JsonParser p, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("unexpected token " + actual + ", expected " + expected + " at " + p.getCurrentLocation());
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package com.strategy.arbitrage.codec;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.model.FundingRate;
+import com.strategy.arbitrage.model.Price;
+import com.strategy.arbitrage.model.TickerLimit;
+import com.strategy.arbitrage.util.CommonUtil;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * {@link PayloadDecoder} 与原 org.json 解析的对比：每次解码的平均耗时和当前线程分配字节数。
+ * <p>
+ * 用法：{@code java ... PayloadDecoderBenchmark [报文目录] [合约数] [迭代次数]}
+ * <ul>
+ *   <li>报文目录下存在 {name}.json（如 bn-ticker.json，可用 curl 从实盘保存）时使用真实报文，否则按各交易所格式合成</li>
+ *   <li>org.json 一侧包含 response.body().string() 的字符串构造，与服务原实现的开销一致</li>
+ * </ul>
+ */
+public class PayloadDecoderBenchmark {
+
+    @FunctionalInterface
+    private interface Decoder {
+        List<?> decode(byte[] payload) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dir = args.length > 0 ? Paths.get(args[0]) : null;
+        int symbols = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+
+        System.out.printf("%-16s %10s %8s %12s %12s %14s %14s%n",
+                "payload", "bytes", "records", "json us/op", "stream us/op", "json B/op", "stream B/op");
+
+        Random random = new Random(42);
+        run("bn-ticker", load(dir, "bn-ticker", bnTicker(symbols, random)), iterations,
+                PayloadDecoderBenchmark::legacyBnPrices,
+                bytes -> PayloadDecoder.bnPrices(new ByteArrayInputStream(bytes)));
+        run("bn-premiumIndex", load(dir, "bn-premiumIndex", bnPremiumIndex(symbols, random)), iterations,
+                PayloadDecoderBenchmark::legacyBnFundingRates,
+                bytes -> PayloadDecoder.bnFundingRates(new ByteArrayInputStream(bytes), Map.of()));
+        run("bn-exchangeInfo", load(dir, "bn-exchangeInfo", bnExchangeInfo(symbols, random)), iterations,
+                PayloadDecoderBenchmark::legacyBnTickerLimits,
+                bytes -> PayloadDecoder.bnTickerLimits(new ByteArrayInputStream(bytes)));
+        run("bg-tickers", load(dir, "bg-tickers", bgTickers(symbols, random)), iterations,
+                bytes -> legacyPrices(bytes, "00000", "Bitget", ExchangeEnum.BITGET, "symbol", "lastPr", "high24h", "low24h", "open24h"),
+                bytes -> PayloadDecoder.bgPrices(new ByteArrayInputStream(bytes)));
+        run("bg-fundRate", load(dir, "bg-fundRate", bgFundRate(symbols, random)), iterations,
+                PayloadDecoderBenchmark::legacyBgFundingRates,
+                bytes -> PayloadDecoder.bgFundingRates(new ByteArrayInputStream(bytes)));
+        run("bg-contracts", load(dir, "bg-contracts", bgContracts(symbols, random)), iterations,
+                bytes -> legacyTickerLimits(bytes, "00000", ExchangeEnum.BITGET, "symbol", "minTradeNum", "maxPositionNum", "priceEndStep", null),
+                bytes -> PayloadDecoder.bgTickerLimits(new ByteArrayInputStream(bytes)));
+        run("okx-tickers", load(dir, "okx-tickers", okxTickers(symbols, random)), iterations,
+                bytes -> legacyPrices(bytes, "0", "OKX", ExchangeEnum.OKX, "instId", "last", "open24h", "low24h", "high24h"),
+                bytes -> PayloadDecoder.okxPrices(new ByteArrayInputStream(bytes)));
+        run("okx-fundingRate", load(dir, "okx-fundingRate", okxFundingRate(symbols, random)), iterations,
+                PayloadDecoderBenchmark::legacyOkxFundingRates,
+                bytes -> PayloadDecoder.okxFundingRates(new ByteArrayInputStream(bytes)));
+        run("okx-instruments", load(dir, "okx-instruments", okxInstruments(symbols, random)), iterations,
+                bytes -> legacyTickerLimits(bytes, "0", ExchangeEnum.OKX, "instId", "minSz", "maxLmtSz", "lotSz", "ctVal"),
+                bytes -> PayloadDecoder.okxTickerLimits(new ByteArrayInputStream(bytes)));
+    }
+
+    private static void run(String name, byte[] payload, int iterations, Decoder json, Decoder stream) throws Exception {
+        List<?> expected = json.decode(payload);
+        List<?> actual = stream.decode(payload);
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException(name + " 解码结果不一致: json=" + expected.size() + " stream=" + actual.size());
+        }
+        // 预热
+        measure(json, payload, iterations);
+        measure(stream, payload, iterations);
+
+        double[] jsonCost = measure(json, payload, iterations);
+        double[] streamCost = measure(stream, payload, iterations);
+        System.out.printf(Locale.ROOT, "%-16s %10d %8d %12.1f %12.1f %14.0f %14.0f%n", name, payload.length, expected.size(),
+                jsonCost[0], streamCost[0], jsonCost[1], streamCost[1]);
+    }
+
+    /** [平均微秒, 平均分配字节]。 */
+    private static double[] measure(Decoder decoder, byte[] payload, int iterations) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        int sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            sink += decoder.decode(payload).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        if (sink < 0) {
+            System.out.println(sink);
+        }
+        return new double[]{elapsed / 1000.0 / iterations, (double) allocated / iterations};
+    }
+
+    private static byte[] load(Path dir, String name, String synthetic) throws Exception {
+        if (dir != null) {
+            Path file = dir.resolve(name + ".json");
+            if (Files.exists(file)) {
+                return Files.readAllBytes(file);
+            }
+        }
+        return synthetic.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // ── 原 org.json 解析（与改造前各服务实现一致） ────────────────────────────────
+
+    private static List<Price> legacyBnPrices(byte[] payload) {
+        JSONArray arr = new JSONArray(new String(payload, StandardCharsets.UTF_8));
+        List<Price> result = new ArrayList<>();
+        for (int i = 0; i < arr.length(); i++) {
+            JSONObject priceInfo = arr.getJSONObject(i);
+            Price price = new Price();
+            price.setSymbol(CommonUtil.normalizeSymbol(priceInfo.getString("symbol"), ExchangeEnum.BINANCE.getAbbr()));
+            price.setPrice(Double.parseDouble(priceInfo.getString("lastPrice")));
+            price.setScale(CommonUtil.getMaxDecimalPlaces(
+                    new BigDecimal(priceInfo.getString("openPrice")).stripTrailingZeros().toPlainString(),
+                    new BigDecimal(priceInfo.getString("highPrice")).stripTrailingZeros().toPlainString(),
+                    new BigDecimal(priceInfo.getString("lowPrice")).stripTrailingZeros().toPlainString()));
+            result.add(price);
+        }
+        return result;
+    }
+
+    private static List<FundingRate> legacyBnFundingRates(byte[] payload) {
+        JSONArray arr = new JSONArray(new String(payload, StandardCharsets.UTF_8));
+        List<FundingRate> result = new ArrayList<>();
+        for (int i = 0; i < arr.length(); i++) {
+            JSONObject fundRate = arr.getJSONObject(i);
+            FundingRate fundingRate = new FundingRate();
+            fundingRate.setExchange(ExchangeEnum.BINANCE.getAbbr());
+            fundingRate.setSymbol(CommonUtil.normalizeSymbol(fundRate.getString("symbol"), ExchangeEnum.BINANCE.getAbbr()));
+            fundingRate.setRate(Double.parseDouble(fundRate.getString("lastFundingRate")));
+            fundingRate.setNextFundingTime(fundRate.getLong("nextFundingTime"));
+            fundingRate.setInterval(8L);
+            result.add(fundingRate);
+        }
+        return result;
+    }
+
+    private static List<TickerLimit> legacyBnTickerLimits(byte[] payload) {
+        JSONArray arr = new JSONObject(new String(payload, StandardCharsets.UTF_8)).getJSONArray("symbols");
+        List<TickerLimit> result = new ArrayList<>();
+        for (int i = 0; i < arr.length(); i++) {
+            JSONObject exchangeInfo = arr.getJSONObject(i);
+            JSONArray filters = exchangeInfo.getJSONArray("filters");
+            JSONObject lotSizeFilter = null;
+            JSONObject priceFilter = null;
+            for (int j = 0; j < filters.length(); j++) {
+                JSONObject filter = filters.getJSONObject(j);
+                String filterType = filter.getString("filterType");
+                if ("LOT_SIZE".equals(filterType)) lotSizeFilter = filter;
+                if ("PRICE_FILTER".equals(filterType)) priceFilter = filter;
+            }
+            if (lotSizeFilter == null) {
+                continue;
+            }
+            TickerLimit tickerLimit = new TickerLimit();
+            tickerLimit.setSymbol(CommonUtil.normalizeSymbol(exchangeInfo.getString("symbol"), ExchangeEnum.BINANCE.getAbbr()));
+            tickerLimit.setInstId(exchangeInfo.getString("symbol"));
+            tickerLimit.setMinQty(Double.parseDouble(lotSizeFilter.getString("minQty")));
+            tickerLimit.setMaxQty(Double.parseDouble(lotSizeFilter.getString("maxQty")));
+            tickerLimit.setStepSize(Double.parseDouble(lotSizeFilter.getString("stepSize")));
+            if (priceFilter != null) {
+                tickerLimit.setTickSize(Double.parseDouble(priceFilter.getString("tickSize")));
+            }
+            result.add(tickerLimit);
+        }
+        return result;
+    }
+
+    private static List<FundingRate> legacyBgFundingRates(byte[] payload) {
+        JSONArray arr = legacyData(payload, "00000", "Bitget");
+        List<FundingRate> result = new ArrayList<>();
+        for (int i = 0; i < arr.length(); i++) {
+            JSONObject fundRate = arr.getJSONObject(i);
+            FundingRate fundingRate = new FundingRate();
+            fundingRate.setExchange(ExchangeEnum.BITGET.getAbbr());
+            fundingRate.setSymbol(CommonUtil.normalizeSymbol(fundRate.getString("symbol"), ExchangeEnum.BITGET.getAbbr()));
+            fundingRate.setRate(Double.parseDouble(fundRate.getString("fundingRate")));
+            fundingRate.setNextFundingTime(Long.parseLong(fundRate.getString("nextUpdate")));
+            fundingRate.setInterval(Long.parseLong(fundRate.getString("fundingRateInterval")));
+            result.add(fundingRate);
+        }
+        return result;
+    }
+
+    private static List<FundingRate> legacyOkxFundingRates(byte[] payload) {
+        JSONArray arr = legacyData(payload, "0", "OKX");
+        List<FundingRate> result = new ArrayList<>();
+        for (int i = 0; i < arr.length(); i++) {
+            JSONObject fundRate = arr.getJSONObject(i);
+            FundingRate fundingRate = new FundingRate();
+            fundingRate.setExchange(ExchangeEnum.OKX.getAbbr());
+            fundingRate.setSymbol(CommonUtil.normalizeSymbol(fundRate.getString("instId"), ExchangeEnum.OKX.getAbbr()));
+            fundingRate.setRate(Double.parseDouble(fundRate.getString("fundingRate")));
+            long fundingTime = Long.parseLong(fundRate.getString("fundingTime"));
+            long nextFundingTime = Long.parseLong(fundRate.getString("nextFundingTime"));
+            fundingRate.setNextFundingTime(nextFundingTime);
+            fundingRate.setInterval((nextFundingTime - fundingTime) / 60 / 60 / 1000);
+            result.add(fundingRate);
+        }
+        return result;
+    }
+
+    private static List<Price> legacyPrices(byte[] payload, String okCode, String name, ExchangeEnum exchange,
+                                            String symbolField, String priceField, String f1, String f2, String f3) {
+        JSONArray arr = legacyData(payload, okCode, name);
+        List<Price> result = new ArrayList<>();
+        for (int i = 0; i < arr.length(); i++) {
+            JSONObject priceInfo = arr.getJSONObject(i);
+            Price price = new Price();
+            price.setSymbol(CommonUtil.normalizeSymbol(priceInfo.getString(symbolField), exchange.getAbbr()));
+            price.setPrice(Double.parseDouble(priceInfo.getString(priceField)));
+            price.setScale(CommonUtil.getMaxDecimalPlaces(
+                    new BigDecimal(priceInfo.getString(f1)).stripTrailingZeros().toPlainString(),
+                    new BigDecimal(priceInfo.getString(f2)).stripTrailingZeros().toPlainString(),
+                    new BigDecimal(priceInfo.getString(f3)).stripTrailingZeros().toPlainString()));
+            result.add(price);
+        }
+        return result;
+    }
+
+    private static List<TickerLimit> legacyTickerLimits(byte[] payload, String okCode, ExchangeEnum exchange,
+                                                        String symbolField, String minField, String maxField, String stepField,
+                                                        String ctValField) {
+        JSONArray arr = legacyData(payload, okCode, exchange.getName());
+        List<TickerLimit> result = new ArrayList<>();
+        for (int i = 0; i < arr.length(); i++) {
+            JSONObject json = arr.getJSONObject(i);
+            TickerLimit tickerLimit = new TickerLimit();
+            tickerLimit.setSymbol(CommonUtil.normalizeSymbol(json.getString(symbolField), exchange.getAbbr()));
+            tickerLimit.setInstId(json.getString(symbolField));
+            tickerLimit.setMinQty(Double.parseDouble(json.getString(minField)));
+            tickerLimit.setMaxQty(Double.parseDouble(json.getString(maxField)));
+            tickerLimit.setStepSize(Double.parseDouble(json.getString(stepField)));
+            if (ctValField != null) {
+                tickerLimit.setCtVal(Double.parseDouble(json.getString(ctValField)));
+            }
+            result.add(tickerLimit);
+        }
+        return result;
+    }
+
+    private static JSONArray legacyData(byte[] payload, String okCode, String name) {
+        JSONObject json = new JSONObject(new String(payload, StandardCharsets.UTF_8));
+        if (!okCode.equals(json.getString("code"))) {
+            throw new RuntimeException(name + " Error: " + json.getString("msg"));
+        }
+        return json.getJSONArray("data");
+    }
+
+    // ── 合成报文（字段与各交易所真实返回一致，含解析时跳过的字段） ──────────────────────
+
+    private static String coin(int i) {
+        return "C" + Integer.toString(i, 36).toUpperCase(Locale.ROOT) + "X";
+    }
+
+    private static String px(Random random, int decimals) {
+        return BigDecimal.valueOf(random.nextDouble() * 1000).setScale(decimals, java.math.RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static String bnTicker(int n, Random random) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < n; i++) {
+            int d = 1 + random.nextInt(6);
+            sb.append(i == 0 ? "" : ",").append("{\"symbol\":\"").append(coin(i)).append("USDT\",")
+                    .append("\"priceChange\":\"").append(px(random, d)).append("\",\"priceChangePercent\":\"1.234\",")
+                    .append("\"weightedAvgPrice\":\"").append(px(random, d)).append("\",")
+                    .append("\"lastPrice\":\"").append(px(random, d)).append("\",\"lastQty\":\"12\",")
+                    .append("\"openPrice\":\"").append(px(random, d)).append("\",\"highPrice\":\"").append(px(random, d))
+                    .append("\",\"lowPrice\":\"").append(px(random, d)).append("\",\"volume\":\"123456.7\",")
+                    .append("\"quoteVolume\":\"98765432.10\",\"openTime\":1700000000000,\"closeTime\":1700086399999,")
+                    .append("\"firstId\":1,\"lastId\":999999,\"count\":999999}");
+        }
+        return sb.append("]").toString();
+    }
+
+    private static String bnPremiumIndex(int n, Random random) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < n; i++) {
+            sb.append(i == 0 ? "" : ",").append("{\"symbol\":\"").append(coin(i)).append("USDT\",")
+                    .append("\"markPrice\":\"").append(px(random, 4)).append("\",\"indexPrice\":\"").append(px(random, 4))
+                    .append("\",\"estimatedSettlePrice\":\"").append(px(random, 4)).append("\",")
+                    .append("\"lastFundingRate\":\"").append(String.format(Locale.ROOT, "%.8f", random.nextGaussian() / 10000))
+                    .append("\",\"interestRate\":\"0.00010000\",\"nextFundingTime\":1700006400000,\"time\":1700000000000}");
+        }
+        return sb.append("]").toString();
+    }
+
+    private static String bnExchangeInfo(int n, Random random) {
+        StringBuilder sb = new StringBuilder("{\"timezone\":\"UTC\",\"serverTime\":1700000000000,\"futuresType\":\"U_MARGINED\",")
+                .append("\"rateLimits\":[{\"rateLimitType\":\"REQUEST_WEIGHT\",\"interval\":\"MINUTE\",\"intervalNum\":1,\"limit\":2400}],")
+                .append("\"exchangeFilters\":[],\"assets\":[{\"asset\":\"USDT\",\"marginAvailable\":true,\"autoAssetExchange\":\"-10000\"}],")
+                .append("\"symbols\":[");
+        for (int i = 0; i < n; i++) {
+            sb.append(i == 0 ? "" : ",").append("{\"symbol\":\"").append(coin(i)).append("USDT\",\"pair\":\"").append(coin(i))
+                    .append("USDT\",\"contractType\":\"PERPETUAL\",\"deliveryDate\":4133404800000,\"onboardDate\":1569398400000,")
+                    .append("\"status\":\"TRADING\",\"maintMarginPercent\":\"2.5000\",\"requiredMarginPercent\":\"5.0000\",")
+                    .append("\"baseAsset\":\"").append(coin(i)).append("\",\"quoteAsset\":\"USDT\",\"marginAsset\":\"USDT\",")
+                    .append("\"pricePrecision\":2,\"quantityPrecision\":3,\"baseAssetPrecision\":8,\"quotePrecision\":8,")
+                    .append("\"underlyingType\":\"COIN\",\"underlyingSubType\":[\"PoW\"],\"triggerProtect\":\"0.0500\",")
+                    .append("\"liquidationFee\":\"0.012500\",\"marketTakeBound\":\"0.05\",\"maxMoveOrderLimit\":10000,")
+                    .append("\"filters\":[{\"minPrice\":\"0.10\",\"maxPrice\":\"4529764\",\"filterType\":\"PRICE_FILTER\",\"tickSize\":\"0.")
+                    .append(random.nextInt(9) + 1).append("0\"},")
+                    .append("{\"stepSize\":\"0.001\",\"filterType\":\"LOT_SIZE\",\"maxQty\":\"1000\",\"minQty\":\"0.001\"},")
+                    .append("{\"stepSize\":\"0.001\",\"filterType\":\"MARKET_LOT_SIZE\",\"maxQty\":\"120\",\"minQty\":\"0.001\"},")
+                    .append("{\"limit\":200,\"filterType\":\"MAX_NUM_ORDERS\"},{\"notional\":\"100\",\"filterType\":\"MIN_NOTIONAL\"},")
+                    .append("{\"multiplierDown\":\"0.9500\",\"multiplierUp\":\"1.0500\",\"multiplierDecimal\":\"4\",\"filterType\":\"PERCENT_PRICE\"}],")
+                    .append("\"orderTypes\":[\"LIMIT\",\"MARKET\",\"STOP\",\"STOP_MARKET\",\"TAKE_PROFIT\",\"TAKE_PROFIT_MARKET\",\"TRAILING_STOP_MARKET\"],")
+                    .append("\"timeInForce\":[\"GTC\",\"IOC\",\"FOK\",\"GTX\",\"GTD\"]}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static String bgEnvelope(StringBuilder data) {
+        return "{\"code\":\"00000\",\"msg\":\"success\",\"requestTime\":1700000000000,\"data\":[" + data + "]}";
+    }
+
+    private static String bgTickers(int n, Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            int d = 1 + random.nextInt(6);
+            sb.append(i == 0 ? "" : ",").append("{\"symbol\":\"").append(coin(i)).append("USDT\",")
+                    .append("\"lastPr\":\"").append(px(random, d)).append("\",\"askPr\":\"").append(px(random, d))
+                    .append("\",\"bidPr\":\"").append(px(random, d)).append("\",\"bidSz\":\"1.2\",\"askSz\":\"3.4\",")
+                    .append("\"high24h\":\"").append(px(random, d)).append("\",\"low24h\":\"").append(px(random, d))
+                    .append("\",\"ts\":\"1700000000000\",\"change24h\":\"0.0123\",\"baseVolume\":\"1234.5\",")
+                    .append("\"quoteVolume\":\"987654.3\",\"usdtVolume\":\"987654.3\",")
+                    .append("\"openUtc\":\"").append(px(random, d)).append("\",\"changeUtc24h\":\"0.01\",\"indexPrice\":\"")
+                    .append(px(random, d)).append("\",\"fundingRate\":\"0.0001\",\"holdingAmount\":\"5555.5\",")
+                    .append("\"deliveryStartTime\":null,\"deliveryTime\":null,\"deliveryStatus\":\"\",")
+                    .append("\"open24h\":\"").append(px(random, d)).append("\",\"markPrice\":\"").append(px(random, d)).append("\"}");
+        }
+        return bgEnvelope(sb);
+    }
+
+    private static String bgFundRate(int n, Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append(i == 0 ? "" : ",").append("{\"symbol\":\"").append(coin(i)).append("USDT\",")
+                    .append("\"fundingRate\":\"").append(String.format(Locale.ROOT, "%.6f", random.nextGaussian() / 10000))
+                    .append("\",\"fundingRateInterval\":\"").append(random.nextBoolean() ? 8 : 4)
+                    .append("\",\"nextUpdate\":\"1700006400000\",\"minFundingRate\":\"-0.003\",\"maxFundingRate\":\"0.003\"}");
+        }
+        return bgEnvelope(sb);
+    }
+
+    private static String bgContracts(int n, Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append(i == 0 ? "" : ",").append("{\"symbol\":\"").append(coin(i)).append("USDT\",")
+                    .append("\"baseCoin\":\"").append(coin(i)).append("\",\"quoteCoin\":\"USDT\",\"buyLimitPriceRatio\":\"0.9\",")
+                    .append("\"sellLimitPriceRatio\":\"0.9\",\"feeRateUpRatio\":\"0.1\",\"makerFeeRate\":\"0.0002\",")
+                    .append("\"takerFeeRate\":\"0.0006\",\"openCostUpRatio\":\"0.1\",\"supportMarginCoins\":[\"USDT\"],")
+                    .append("\"minTradeNum\":\"0.01\",\"priceEndStep\":\"").append(random.nextInt(9) + 1).append("\",")
+                    .append("\"volumePlace\":\"2\",\"pricePlace\":\"1\",\"sizeMultiplier\":\"0.01\",\"symbolType\":\"perpetual\",")
+                    .append("\"minTradeUSDT\":\"5\",\"maxSymbolOrderNum\":\"200\",\"maxProductOrderNum\":\"400\",")
+                    .append("\"maxPositionNum\":\"150\",\"symbolStatus\":\"normal\",\"offTime\":\"-1\",\"limitOpenTime\":\"-1\",")
+                    .append("\"deliveryTime\":\"\",\"deliveryStartTime\":\"\",\"launchTime\":\"\",\"fundInterval\":\"8\",")
+                    .append("\"minLever\":\"1\",\"maxLever\":\"125\",\"posLimit\":\"0.05\",\"maintainTime\":\"\"}");
+        }
+        return bgEnvelope(sb);
+    }
+
+    private static String okxEnvelope(StringBuilder data) {
+        return "{\"code\":\"0\",\"msg\":\"\",\"data\":[" + data + "]}";
+    }
+
+    private static String okxTickers(int n, Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            int d = 1 + random.nextInt(6);
+            sb.append(i == 0 ? "" : ",").append("{\"instType\":\"SWAP\",\"instId\":\"").append(coin(i)).append("-USDT-SWAP\",")
+                    .append("\"last\":\"").append(px(random, d)).append("\",\"lastSz\":\"1\",\"askPx\":\"").append(px(random, d))
+                    .append("\",\"askSz\":\"10\",\"bidPx\":\"").append(px(random, d)).append("\",\"bidSz\":\"10\",")
+                    .append("\"open24h\":\"").append(px(random, d)).append("\",\"high24h\":\"").append(px(random, d))
+                    .append("\",\"low24h\":\"").append(px(random, d)).append("\",\"volCcy24h\":\"12345.6\",\"vol24h\":\"123456\",")
+                    .append("\"ts\":\"1700000000000\",\"sodUtc0\":\"").append(px(random, d)).append("\",\"sodUtc8\":\"")
+                    .append(px(random, d)).append("\"}");
+        }
+        return okxEnvelope(sb);
+    }
+
+    private static String okxFundingRate(int n, Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            long fundingTime = 1700006400000L;
+            long next = fundingTime + (random.nextBoolean() ? 8 : 4) * 3_600_000L;
+            sb.append(i == 0 ? "" : ",").append("{\"formulaType\":\"withRate\",\"fundingRate\":\"")
+                    .append(String.format(Locale.ROOT, "%.16f", random.nextGaussian() / 10000)).append("\",")
+                    .append("\"fundingTime\":\"").append(fundingTime).append("\",\"impactValue\":\"20000\",")
+                    .append("\"instId\":\"").append(coin(i)).append("-USDT-SWAP\",\"instType\":\"SWAP\",")
+                    .append("\"interestRate\":\"0.0001\",\"maxFundingRate\":\"0.00375\",\"method\":\"current_period\",")
+                    .append("\"minFundingRate\":\"-0.00375\",\"nextFundingRate\":\"\",\"nextFundingTime\":\"").append(next)
+                    .append("\",\"premium\":\"-0.0001\",\"settFundingRate\":\"0.0001\",\"settState\":\"settled\",\"ts\":\"1700000000000\"}");
+        }
+        return okxEnvelope(sb);
+    }
+
+    private static String okxInstruments(int n, Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append(i == 0 ? "" : ",").append("{\"alias\":\"\",\"baseCcy\":\"\",\"category\":\"1\",\"ctMult\":\"1\",")
+                    .append("\"ctType\":\"linear\",\"ctVal\":\"0.01\",\"ctValCcy\":\"").append(coin(i)).append("\",")
+                    .append("\"expTime\":\"\",\"instFamily\":\"").append(coin(i)).append("-USDT\",")
+                    .append("\"instId\":\"").append(coin(i)).append("-USDT-SWAP\",\"instType\":\"SWAP\",\"lever\":\"100\",")
+                    .append("\"listTime\":\"1611916828000\",\"lotSz\":\"0.").append(random.nextInt(9) + 1).append("\",")
+                    .append("\"maxIcebergSz\":\"100000000\",\"maxLmtAmt\":\"20000000\",\"maxLmtSz\":\"100000000\",")
+                    .append("\"maxMktAmt\":\"\",\"maxMktSz\":\"12000\",\"maxStopSz\":\"12000\",\"maxTriggerSz\":\"100000000\",")
+                    .append("\"maxTwapSz\":\"100000000\",\"minSz\":\"0.01\",\"optType\":\"\",\"quoteCcy\":\"\",")
+                    .append("\"settleCcy\":\"USDT\",\"state\":\"live\",\"stk\":\"\",\"tickSz\":\"0.1\",\"uly\":\"")
+                    .append(coin(i)).append("-USDT\",\"ruleType\":\"normal\"}");
+        }
+        return okxEnvelope(sb);
+    }
+}
@@ -1,8 +1,5 @@
 package com.strategy.arbitrage.common.enums;
 
-import com.strategy.arbitrage.common.constant.StaticConstant;
-import com.strategy.arbitrage.model.FundingRate;
-import com.strategy.arbitrage.model.TickerLimit;
 import com.strategy.arbitrage.service.BgApiService;
 import com.strategy.arbitrage.service.BnApiService;
 import com.strategy.arbitrage.service.ExchangeService;
@@ -10,8 +7,6 @@ import com.strategy.arbitrage.service.OkxApiService;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
-import java.util.Map;
-
 @Getter
 @AllArgsConstructor
 public enum ExchangeEnum {
@@ -31,31 +26,4 @@ public enum ExchangeEnum {
         }
         throw new IllegalArgumentException("No such exchange: " + abbr);
     }
-
-    public static Map<String, FundingRate> getFundingRateByAbbr(String abbr) {
-        ExchangeEnum exchangeEnum = getByAbbr(abbr);
-        return switch (exchangeEnum) {
-            case BINANCE -> StaticConstant.binanceFunding;
-            case BITGET -> StaticConstant.bitgetFunding;
-            case OKX -> StaticConstant.okxFunding;
-        };
-    }
-
-    public static Map<String, Double> getPriceByAbbr(String abbr) {
-        ExchangeEnum exchangeEnum = getByAbbr(abbr);
-        return switch (exchangeEnum) {
-            case BINANCE -> StaticConstant.binancePrice;
-            case BITGET -> StaticConstant.bitgetPrice;
-            case OKX -> StaticConstant.okxPrice;
-        };
-    }
-
-    public static Map<String, TickerLimit> getFiltersByAbbr(String abbr) {
-        ExchangeEnum exchangeEnum = getByAbbr(abbr);
-        return switch (exchangeEnum) {
-            case BINANCE -> StaticConstant.bnSymbolFilters;
-            case BITGET -> StaticConstant.bgSymbolFilters;
-            case OKX -> StaticConstant.okxSymbolFilters;
-        };
-    }
 }
@@ -0,0 +1,65 @@
+package com.strategy.arbitrage.config;
+
+import com.strategy.arbitrage.HttpUtil;
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 按 application.yml 的 http.* 初始化各交易所的 HTTP 客户端，并在启动时预热连接。
+ */
+@Slf4j
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${http.connect-timeout-ms:3000}")
+    private long connectTimeoutMs;
+    @Value("${http.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+    @Value("${http.write-timeout-ms:10000}")
+    private long writeTimeoutMs;
+    @Value("${http.call-timeout-ms:15000}")
+    private long callTimeoutMs;
+    @Value("${http.max-idle-connections:8}")
+    private int maxIdleConnections;
+    @Value("${http.keep-alive-seconds:300}")
+    private long keepAliveSeconds;
+    @Value("${http.max-requests:64}")
+    private int maxRequests;
+    @Value("${http.max-requests-per-host:16}")
+    private int maxRequestsPerHost;
+    @Value("${http.prewarm:true}")
+    private boolean prewarm;
+
+    @Value("${binance.base-url}")
+    private String bnBaseUrl;
+    @Value("${bitget.base-url}")
+    private String bgBaseUrl;
+    @Value("${okx.base-url}")
+    private String okxBaseUrl;
+
+    @PostConstruct
+    public void init() {
+        HttpUtil.Settings settings = new HttpUtil.Settings();
+        settings.setConnectTimeoutMs(connectTimeoutMs);
+        settings.setReadTimeoutMs(readTimeoutMs);
+        settings.setWriteTimeoutMs(writeTimeoutMs);
+        settings.setCallTimeoutMs(callTimeoutMs);
+        settings.setMaxIdleConnections(maxIdleConnections);
+        settings.setKeepAliveSeconds(keepAliveSeconds);
+        settings.setMaxRequests(maxRequests);
+        settings.setMaxRequestsPerHost(maxRequestsPerHost);
+        HttpUtil.configure(settings);
+        log.info("🌐 HTTP 客户端配置: {}", settings);
+
+        if (prewarm) {
+            HttpUtil.prewarm(ExchangeEnum.BINANCE, bnBaseUrl + "/fapi/v1/ping");
+            HttpUtil.prewarm(ExchangeEnum.BITGET, bgBaseUrl + "/api/v2/public/time");
+            HttpUtil.prewarm(ExchangeEnum.OKX, okxBaseUrl + "/api/v5/public/time");
+            HttpUtil.prewarmTelegram("https://api.telegram.org");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.strategy.arbitrage.config;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.ratelimit.RateGovernor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 按 application.yml 的 rate-limit.* 配置各交易所的限流桶，并定期打印各桶的余量和排队情况。
+ */
+@Slf4j
+@Configuration
+public class RateLimitConfig {
+
+    @Value("${rate-limit.binance:weight=2400/60,order=300/10}")
+    private String binance;
+    @Value("${rate-limit.bitget:order=10/1,account=5/1,market=20/1,bulk=20/1}")
+    private String bitget;
+    @Value("${rate-limit.okx:order=60/2,account=10/2,market=20/2,bulk=20/2}")
+    private String okx;
+
+    @PostConstruct
+    public void init() {
+        RateGovernor.configure(ExchangeEnum.BINANCE, binance);
+        RateGovernor.configure(ExchangeEnum.BITGET, bitget);
+        RateGovernor.configure(ExchangeEnum.OKX, okx);
+        log.info("🚦 限流配置: binance={} bitget={} okx={}", binance, bitget, okx);
+    }
+
+    @Scheduled(fixedRate = 300_000, initialDelay = 60_000)
+    public void logStats() {
+        RateGovernor.stats().forEach(s -> log.info("🚦 {}", s));
+    }
+}
@@ -0,0 +1,124 @@
+package com.strategy.arbitrage.gateway;
+
+import com.strategy.arbitrage.ApiSignature;
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.market.SymbolRegistry;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.WebSocket;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Bitget：合约 WebSocket 下单未对普通账户开放，下单仍走 REST，这里只提供订单流；
+ * 私有连接只用来登录并订阅 USDT-FUTURES 的 orders 频道，拿到成交推送。
+ */
+@Slf4j
+class BgOrderStream implements OrderStream {
+
+    private static final long HEARTBEAT_SECONDS = 30;
+
+    private final String apiKey;
+    private final String secretKey;
+    private final String passPhrase;
+    private final Connection connection;
+
+    private volatile Consumer<OrderEvent> listener = event -> { };
+    private volatile boolean streaming;
+
+    BgOrderStream(String apiKey, String secretKey, String passPhrase, String url,
+                   OkHttpClient client, ScheduledExecutorService scheduler) {
+        this.apiKey = apiKey;
+        this.secretKey = secretKey;
+        this.passPhrase = passPhrase;
+        this.connection = new Connection(url, client, scheduler);
+    }
+
+    @Override
+    public ExchangeEnum exchange() {
+        return ExchangeEnum.BITGET;
+    }
+
+    @Override
+    public void start(Consumer<OrderEvent> listener) {
+        this.listener = listener;
+        connection.connect();
+    }
+
+    @Override
+    public void close() {
+        connection.close();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return connection.isReady() && streaming;
+    }
+
+    private final class Connection extends PrivateConnection {
+
+        private Connection(String url, OkHttpClient client, ScheduledExecutorService scheduler) {
+            super("bitget private", url, client, scheduler);
+        }
+
+        @Override
+        protected long heartbeatSeconds() {
+            return HEARTBEAT_SECONDS;
+        }
+
+        @Override
+        protected void onConnected(WebSocket ws) {
+            streaming = false;
+            String timestamp = String.valueOf(System.currentTimeMillis() / 1000);
+            String sign = ApiSignature.hmacSha256(timestamp + "GET" + "/user/verify", secretKey);
+            JSONObject login = new JSONObject()
+                    .put("apiKey", apiKey)
+                    .put("passphrase", passPhrase)
+                    .put("timestamp", timestamp)
+                    .put("sign", sign);
+            send(new JSONObject().put("op", "login").put("args", new JSONArray().put(login)).toString());
+        }
+
+        @Override
+        protected void handle(String text) {
+            JSONObject frame = new JSONObject(text);
+            String event = frame.optString("event");
+            if ("login".equals(event)) {
+                if (frame.optInt("code", -1) == 0) {
+                    markReady();
+                    JSONObject arg = new JSONObject()
+                            .put("instType", "USDT-FUTURES")
+                            .put("channel", "orders")
+                            .put("instId", "default");
+                    send(new JSONObject().put("op", "subscribe").put("args", new JSONArray().put(arg)).toString());
+                } else {
+                    log.error("🚫 bitget 私有连接登录失败: {}", frame.optString("msg"));
+                }
+                return;
+            }
+            if ("subscribe".equals(event)) {
+                streaming = true;
+                return;
+            }
+            if ("error".equals(event)) {
+                log.warn("⚠️ bitget 私有连接错误: {}", text);
+                return;
+            }
+            JSONArray data = frame.optJSONArray("data");
+            if (data == null) {
+                return;
+            }
+            for (int i = 0; i < data.length(); i++) {
+                JSONObject o = data.getJSONObject(i);
+                listener.accept(new OrderEvent(ExchangeEnum.BITGET,
+                        SymbolRegistry.canonical(ExchangeEnum.BITGET, o.getString("instId")),
+                        o.optString("orderId"), o.optString("clientOid"), OrderStatus.ofOkxOrBitget(o.optString("status")),
+                        o.optDouble("accBaseVolume", 0), o.optDouble("baseVolume", 0), o.optDouble("fillPrice", 0),
+                        o.optDouble("priceAvg", 0), o.optLong("fillTime", o.optLong("uTime"))));
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.strategy.arbitrage.gateway;
+
+import com.strategy.arbitrage.ApiSignature;
+import com.strategy.arbitrage.HttpUtil;
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.common.enums.TradeTypeEnum;
+import com.strategy.arbitrage.market.MarketSnapshotStore;
+import com.strategy.arbitrage.market.SymbolQuote;
+import com.strategy.arbitrage.market.SymbolRegistry;
+import com.strategy.arbitrage.ratelimit.RateGovernor;
+import com.strategy.arbitrage.ratelimit.RateTag;
+import com.strategy.arbitrage.service.LegOrder;
+import com.strategy.arbitrage.util.CommonUtil;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.WebSocket;
+import org.json.JSONObject;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Binance U 本位合约：下单走 WebSocket API（ws-fapi，order.place，每个请求单独 HMAC 签名），
+ * 订单状态来自 listenKey 用户数据流的 ORDER_TRADE_UPDATE。
+ * <p>
+ * listenKey 每 30 分钟续期一次；收到 listenKeyExpired 或断线重连时重新申请。
+ */
+@Slf4j
+class BnOrderGateway implements OrderGateway {
+
+    private static final String LISTEN_KEY_URL = "/fapi/v1/listenKey";
+    private static final long LISTEN_KEY_KEEPALIVE_MINUTES = 30;
+
+    private final String apiKey;
+    private final String secretKey;
+    private final String restBaseUrl;
+    private final long ackTimeoutMs;
+    private final ScheduledExecutorService scheduler;
+    private final WsApi wsApi;
+    private final UserStream userStream;
+
+    private volatile Consumer<OrderEvent> listener = event -> { };
+    private ScheduledFuture<?> keepalive;
+
+    BnOrderGateway(String apiKey, String secretKey, String restBaseUrl, String wsApiUrl, String userStreamUrl,
+                   long ackTimeoutMs, OkHttpClient client, ScheduledExecutorService scheduler) {
+        this.apiKey = apiKey;
+        this.secretKey = secretKey;
+        this.restBaseUrl = restBaseUrl;
+        this.ackTimeoutMs = ackTimeoutMs;
+        this.scheduler = scheduler;
+        this.wsApi = new WsApi(wsApiUrl, client, scheduler);
+        this.userStream = new UserStream(() -> listenKey("POST").thenApply(key -> userStreamUrl + "/" + key), client, scheduler);
+    }
+
+    @Override
+    public ExchangeEnum exchange() {
+        return ExchangeEnum.BINANCE;
+    }
+
+    @Override
+    public void start(Consumer<OrderEvent> listener) {
+        this.listener = listener;
+        wsApi.connect();
+        userStream.connect();
+        keepalive = scheduler.scheduleWithFixedDelay(this::keepalive, LISTEN_KEY_KEEPALIVE_MINUTES,
+                LISTEN_KEY_KEEPALIVE_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void close() {
+        if (keepalive != null) {
+            keepalive.cancel(false);
+        }
+        wsApi.close();
+        userStream.close();
+    }
+
+    @Override
+    public boolean canPlace() {
+        return wsApi.isReady();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return userStream.isReady();
+    }
+
+    @Override
+    public CompletableFuture<OrderAck> placeAsync(LegOrder order) {
+        // 参数与 REST 下单一致，多了 apiKey，签名串按参数名排序
+        Map<String, String> params = new TreeMap<>();
+        params.put("symbol", order.symbol);
+        params.put("side", order.buySell.getBnCode());
+        params.put("positionSide", order.positionSide.getBnCode());
+        params.put("type", order.tradeType.getBnCode());
+        params.put("quantity", String.valueOf(order.quantity));
+        params.put("newClientOrderId", order.clientOrderId);
+        if (order.tradeType == TradeTypeEnum.LIMIT) {
+            params.put("timeInForce", "GTC");
+            SymbolQuote filter = MarketSnapshotStore.current().quote(ExchangeEnum.BINANCE, order.symbol);
+            double price = filter != null && filter.tickSize > 0 ? CommonUtil.normalizeQuantity(order.price, filter.tickSize) : order.price;
+            params.put("price", new BigDecimal(Double.toString(price)).stripTrailingZeros().toPlainString());
+        }
+        params.put("apiKey", apiKey);
+        params.put("timestamp", String.valueOf(System.currentTimeMillis()));
+
+        StringBuilder query = new StringBuilder();
+        params.forEach((k, v) -> query.append(query.length() == 0 ? "" : "&").append(k).append('=').append(v));
+        JSONObject signed = new JSONObject(params).put("signature", ApiSignature.hmacSha256Hex(query.toString(), secretKey));
+        JSONObject frame = new JSONObject()
+                .put("id", order.clientOrderId)
+                .put("method", "order.place")
+                .put("params", signed);
+
+        return RateGovernor.acquire(ExchangeEnum.BINANCE, RateTag.order())
+                .thenCompose(v -> wsApi.request(order.clientOrderId, frame, ackTimeoutMs))
+                .thenApply(response -> {
+                    if (response.optInt("status") != 200) {
+                        JSONObject error = response.optJSONObject("error");
+                        throw new IllegalStateException("🚫 bn 下单失败 " + order.symbol + " "
+                                + (error == null ? response : error.optString("msg")));
+                    }
+                    JSONObject result = response.getJSONObject("result");
+                    return new OrderAck(order.clientOrderId, String.valueOf(result.opt("orderId")),
+                            result.optLong("updateTime", System.currentTimeMillis()), true);
+                });
+    }
+
+    // ── listenKey ─────────────────────────────────────────────────────────────
+
+    /**
+     * POST 申请（已有有效的会返回同一个），PUT 续期。异步发出并经 {@link RateGovernor} 计入账户类权重，
+     * 不占用 order-gateway 调度线程。
+     */
+    private CompletableFuture<String> listenKey(String method) {
+        Headers headers = Headers.of("X-MBX-APIKEY", apiKey);
+        return HttpUtil.sendAsync(ExchangeEnum.BINANCE,
+                HttpUtil.request(method, restBaseUrl + LISTEN_KEY_URL, null, headers, RateTag.account(1)), res -> {
+                    JSONObject json = new JSONObject(res);
+                    if (!json.has("listenKey")) {
+                        throw new IllegalStateException("binance listenKey error: " + json);
+                    }
+                    return json.getString("listenKey");
+                }, e -> {
+                    throw new IllegalStateException("binance listenKey error: " + e.getMessage(), e);
+                });
+    }
+
+    private void keepalive() {
+        listenKey("PUT").whenComplete((key, e) -> {
+            if (e != null) {
+                log.warn("⚠️ binance listenKey 续期失败，重连用户数据流: {}", e.getMessage());
+                userStream.forceReconnect();
+            }
+        });
+    }
+
+    // ── 连接 ──────────────────────────────────────────────────────────────────
+
+    /** ws-fapi：无需登录，连上即可下单。 */
+    private static final class WsApi extends PrivateConnection {
+
+        private WsApi(String url, OkHttpClient client, ScheduledExecutorService scheduler) {
+            super("binance ws-api", url, client, scheduler);
+        }
+
+        @Override
+        protected void onConnected(WebSocket ws) {
+            markReady();
+        }
+
+        @Override
+        protected void handle(String text) {
+            JSONObject frame = new JSONObject(text);
+            if (frame.has("id")) {
+                complete(frame.getString("id"), frame);
+            }
+        }
+    }
+
+    private final class UserStream extends PrivateConnection {
+
+        private UserStream(Supplier<CompletableFuture<String>> url, OkHttpClient client, ScheduledExecutorService scheduler) {
+            super("binance user-data", url, client, scheduler);
+        }
+
+        @Override
+        protected void onConnected(WebSocket ws) {
+            markReady();
+        }
+
+        @Override
+        protected void handle(String text) {
+            JSONObject frame = new JSONObject(text);
+            switch (frame.optString("e")) {
+                case "ORDER_TRADE_UPDATE" -> {
+                    JSONObject o = frame.getJSONObject("o");
+                    listener.accept(new OrderEvent(ExchangeEnum.BINANCE,
+                            SymbolRegistry.canonical(ExchangeEnum.BINANCE, o.getString("s")),
+                            String.valueOf(o.opt("i")), o.optString("c"), OrderStatus.ofBinance(o.getString("X")),
+                            o.optDouble("z", 0), o.optDouble("l", 0), o.optDouble("L", 0), o.optDouble("ap", 0),
+                            o.optLong("T", frame.optLong("E"))));
+                }
+                case "listenKeyExpired" -> {
+                    log.warn("⚠️ binance listenKey 已过期，重新连接用户数据流");
+                    forceReconnect();
+                }
+                default -> {
+                }
+            }
+        }
+    }
+}
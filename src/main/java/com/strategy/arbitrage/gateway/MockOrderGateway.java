@@ -0,0 +1,107 @@
+package com.strategy.arbitrage.gateway;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.service.LegOrder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 本地模拟网关，不连接交易所：ackLatencyMs 后回执，再过 fillLatencyMs 推送 NEW → FILLED。
+ * <p>
+ * 用于联调和演练补救流程：{@link #rejectNext()} 让下一笔订单被拒，{@link #partialNext(double)}
+ * 让下一笔订单只成交一部分后撤单。order-gateway.mode=mock 时三个交易所都使用它。
+ */
+@Slf4j
+public class MockOrderGateway implements OrderGateway {
+
+    private final ExchangeEnum exchange;
+    private final long ackLatencyMs;
+    private final long fillLatencyMs;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong orderIds = new AtomicLong();
+
+    private volatile Consumer<OrderEvent> listener = event -> { };
+    private volatile boolean rejectNext;
+    private volatile double partialNext;
+
+    public MockOrderGateway(ExchangeEnum exchange, long ackLatencyMs, long fillLatencyMs, ScheduledExecutorService scheduler) {
+        this.exchange = exchange;
+        this.ackLatencyMs = ackLatencyMs;
+        this.fillLatencyMs = fillLatencyMs;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public ExchangeEnum exchange() {
+        return exchange;
+    }
+
+    @Override
+    public void start(Consumer<OrderEvent> listener) {
+        this.listener = listener;
+        log.info("🧪 {} 使用模拟下单网关 ack={}ms fill={}ms", exchange.getAbbr(), ackLatencyMs, fillLatencyMs);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean canPlace() {
+        return true;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return true;
+    }
+
+    /** 下一笔订单回执失败。 */
+    public void rejectNext() {
+        rejectNext = true;
+    }
+
+    /** 下一笔订单只成交 ratio（0~1）后撤单。 */
+    public void partialNext(double ratio) {
+        partialNext = ratio;
+    }
+
+    @Override
+    public CompletableFuture<OrderAck> placeAsync(LegOrder order) {
+        boolean reject = rejectNext;
+        double partial = partialNext;
+        rejectNext = false;
+        partialNext = 0;
+
+        CompletableFuture<OrderAck> ack = new CompletableFuture<>();
+        String orderId = String.valueOf(orderIds.incrementAndGet());
+        scheduler.schedule(() -> {
+            if (reject) {
+                ack.completeExceptionally(new IllegalStateException("🚫 " + exchange.getAbbr() + " 模拟拒单 " + order.symbol));
+                return;
+            }
+            long now = System.currentTimeMillis();
+            ack.complete(new OrderAck(order.clientOrderId, orderId, now, true));
+            listener.accept(event(order, orderId, OrderStatus.NEW, 0, now));
+            scheduler.schedule(() -> {
+                double filled = partial > 0 ? order.quantity * partial : order.quantity;
+                listener.accept(event(order, orderId, partial > 0 ? OrderStatus.PARTIALLY_FILLED : OrderStatus.FILLED,
+                        filled, System.currentTimeMillis()));
+                if (partial > 0) {
+                    listener.accept(event(order, orderId, OrderStatus.CANCELED, filled, System.currentTimeMillis()));
+                }
+            }, fillLatencyMs, TimeUnit.MILLISECONDS);
+        }, ackLatencyMs, TimeUnit.MILLISECONDS);
+        return ack;
+    }
+
+    private OrderEvent event(LegOrder order, String orderId, OrderStatus status, double filled, long time) {
+        return new OrderEvent(exchange, order.symbol, orderId, order.clientOrderId, status,
+                filled, status == OrderStatus.CANCELED ? 0 : filled, filled > 0 ? order.price : 0, filled > 0 ? order.price : 0, time);
+    }
+}
@@ -0,0 +1,168 @@
+package com.strategy.arbitrage.gateway;
+
+import com.strategy.arbitrage.ApiSignature;
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.market.SymbolRegistry;
+import com.strategy.arbitrage.ratelimit.RateGovernor;
+import com.strategy.arbitrage.ratelimit.RateTag;
+import com.strategy.arbitrage.service.LegOrder;
+import com.strategy.arbitrage.util.CommonUtil;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.WebSocket;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * OKX：同一条私有连接上登录、订阅 orders 频道（SWAP），并用 op=order 下单。
+ * <p>
+ * 登录签名为 base64(hmac(秒级时间戳 + "GET" + "/users/self/verify"))；订单推送 state 与 REST 相同。
+ */
+@Slf4j
+class OkxOrderGateway implements OrderGateway {
+
+    private static final long HEARTBEAT_SECONDS = 25;
+
+    private final String apiKey;
+    private final String secretKey;
+    private final String passPhrase;
+    private final long ackTimeoutMs;
+    private final Connection connection;
+
+    private volatile Consumer<OrderEvent> listener = event -> { };
+    private volatile boolean streaming;
+
+    OkxOrderGateway(String apiKey, String secretKey, String passPhrase, String url, long ackTimeoutMs,
+                    OkHttpClient client, ScheduledExecutorService scheduler) {
+        this.apiKey = apiKey;
+        this.secretKey = secretKey;
+        this.passPhrase = passPhrase;
+        this.ackTimeoutMs = ackTimeoutMs;
+        this.connection = new Connection(url, client, scheduler);
+    }
+
+    @Override
+    public ExchangeEnum exchange() {
+        return ExchangeEnum.OKX;
+    }
+
+    @Override
+    public void start(Consumer<OrderEvent> listener) {
+        this.listener = listener;
+        connection.connect();
+    }
+
+    @Override
+    public void close() {
+        connection.close();
+    }
+
+    @Override
+    public boolean canPlace() {
+        return connection.isReady();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return connection.isReady() && streaming;
+    }
+
+    @Override
+    public CompletableFuture<OrderAck> placeAsync(LegOrder order) {
+        JSONObject arg = new JSONObject()
+                .put("instId", CommonUtil.convertOkxSymbol(order.symbol))
+                .put("tdMode", "cross")
+                .put("side", order.buySell.getOkxCode())
+                .put("posSide", order.positionSide.getOkxCode())
+                .put("ordType", order.tradeType.getOkxCode())
+                .put("sz", String.valueOf(order.quantity))
+                .put("px", String.valueOf(order.price))
+                .put("clOrdId", order.clientOrderId);
+        JSONObject frame = new JSONObject()
+                .put("id", order.clientOrderId)
+                .put("op", "order")
+                .put("args", new JSONArray().put(arg));
+
+        return RateGovernor.acquire(ExchangeEnum.OKX, RateTag.order())
+                .thenCompose(v -> connection.request(order.clientOrderId, frame, ackTimeoutMs))
+                .thenApply(response -> {
+                    JSONArray data = response.optJSONArray("data");
+                    JSONObject result = data == null || data.isEmpty() ? new JSONObject() : data.getJSONObject(0);
+                    if (!"0".equals(response.optString("code")) || !"0".equals(result.optString("sCode", "0"))) {
+                        throw new IllegalStateException("🚫 okx 下单失败 " + order.symbol + " "
+                                + result.optString("sMsg", response.optString("msg")));
+                    }
+                    return new OrderAck(order.clientOrderId, result.optString("ordId"),
+                            result.optLong("ts", System.currentTimeMillis()), true);
+                });
+    }
+
+    private final class Connection extends PrivateConnection {
+
+        private Connection(String url, OkHttpClient client, ScheduledExecutorService scheduler) {
+            super("okx private", url, client, scheduler);
+        }
+
+        @Override
+        protected long heartbeatSeconds() {
+            return HEARTBEAT_SECONDS;
+        }
+
+        @Override
+        protected void onConnected(WebSocket ws) {
+            streaming = false;
+            String timestamp = String.valueOf(System.currentTimeMillis() / 1000);
+            String sign = ApiSignature.hmacSha256(timestamp + "GET" + "/users/self/verify", secretKey);
+            JSONObject login = new JSONObject()
+                    .put("apiKey", apiKey)
+                    .put("passphrase", passPhrase)
+                    .put("timestamp", timestamp)
+                    .put("sign", sign);
+            send(new JSONObject().put("op", "login").put("args", new JSONArray().put(login)).toString());
+        }
+
+        @Override
+        protected void handle(String text) {
+            JSONObject frame = new JSONObject(text);
+            if (frame.has("id")) {
+                complete(frame.getString("id"), frame);
+                return;
+            }
+            String event = frame.optString("event");
+            if ("login".equals(event)) {
+                if ("0".equals(frame.optString("code"))) {
+                    markReady();
+                    JSONObject arg = new JSONObject().put("channel", "orders").put("instType", "SWAP");
+                    send(new JSONObject().put("op", "subscribe").put("args", new JSONArray().put(arg)).toString());
+                } else {
+                    log.error("🚫 okx 私有连接登录失败: {}", frame.optString("msg"));
+                }
+                return;
+            }
+            if ("subscribe".equals(event)) {
+                streaming = true;
+                return;
+            }
+            if ("error".equals(event)) {
+                log.warn("⚠️ okx 私有连接错误: {}", text);
+                return;
+            }
+            JSONArray data = frame.optJSONArray("data");
+            if (data == null) {
+                return;
+            }
+            for (int i = 0; i < data.length(); i++) {
+                JSONObject o = data.getJSONObject(i);
+                listener.accept(new OrderEvent(ExchangeEnum.OKX,
+                        SymbolRegistry.canonical(ExchangeEnum.OKX, o.getString("instId")),
+                        o.optString("ordId"), o.optString("clOrdId"), OrderStatus.ofOkxOrBitget(o.optString("state")),
+                        o.optDouble("accFillSz", 0), o.optDouble("fillSz", 0), o.optDouble("fillPx", 0),
+                        o.optDouble("avgPx", 0), o.optLong("fillTime", o.optLong("uTime"))));
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.strategy.arbitrage.gateway;
+
+/**
+ * 交易所受理订单的回执。REST 下单不解析回执内容，orderId 为空、exchangeTime 为本地时间。
+ */
+public final class OrderAck {
+
+    public final String clientOrderId;
+    public final String orderId;
+    public final long exchangeTime;
+    public final boolean viaWebSocket;
+
+    public OrderAck(String clientOrderId, String orderId, long exchangeTime, boolean viaWebSocket) {
+        this.clientOrderId = clientOrderId;
+        this.orderId = orderId;
+        this.exchangeTime = exchangeTime;
+        this.viaWebSocket = viaWebSocket;
+    }
+
+    static OrderAck rest(String clientOrderId) {
+        return new OrderAck(clientOrderId, null, System.currentTimeMillis(), false);
+    }
+}
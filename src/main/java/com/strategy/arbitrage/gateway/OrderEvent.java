@@ -0,0 +1,45 @@
+package com.strategy.arbitrage.gateway;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+
+/**
+ * 私有订单流推送的一次订单状态变化。
+ * <p>
+ * filledQty 为累计成交量，lastFillQty / lastFillPrice 为本次推送对应的那笔成交（没有成交时为 0）；
+ * exchangeTime 为交易所侧的时间戳，receivedAt 为本地收到推送的时间。
+ */
+public final class OrderEvent {
+
+    public final ExchangeEnum exchange;
+    public final String symbol;
+    public final String orderId;
+    public final String clientOrderId;
+    public final OrderStatus status;
+    public final double filledQty;
+    public final double lastFillQty;
+    public final double lastFillPrice;
+    public final double avgPrice;
+    public final long exchangeTime;
+    public final long receivedAt;
+
+    public OrderEvent(ExchangeEnum exchange, String symbol, String orderId, String clientOrderId, OrderStatus status,
+                      double filledQty, double lastFillQty, double lastFillPrice, double avgPrice, long exchangeTime) {
+        this.exchange = exchange;
+        this.symbol = symbol;
+        this.orderId = orderId;
+        this.clientOrderId = clientOrderId;
+        this.status = status;
+        this.filledQty = filledQty;
+        this.lastFillQty = lastFillQty;
+        this.lastFillPrice = lastFillPrice;
+        this.avgPrice = avgPrice;
+        this.exchangeTime = exchangeTime;
+        this.receivedAt = System.currentTimeMillis();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s %s %s filled=%s avg=%s last=%s@%s t=%d lag=%dms", exchange.getAbbr(), symbol, clientOrderId,
+                status, filledQty, avgPrice, lastFillQty, lastFillPrice, exchangeTime, receivedAt - exchangeTime);
+    }
+}
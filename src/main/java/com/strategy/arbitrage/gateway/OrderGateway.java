@@ -0,0 +1,19 @@
+package com.strategy.arbitrage.gateway;
+
+import com.strategy.arbitrage.service.LegOrder;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 单个交易所的 WebSocket 下单通道，同时提供私有订单流（见 {@link OrderStream}）。
+ * <p>
+ * 下单回执通过 {@link #placeAsync} 返回，订单状态变化通过订单流推送。
+ */
+public interface OrderGateway extends OrderStream {
+
+    /** 可以通过该通道直接下单（连接正常且已登录）。为 false 时由调用方退回 REST。 */
+    boolean canPlace();
+
+    /** 下单并等待交易所受理回执，拒单时 future 异常结束。 */
+    CompletableFuture<OrderAck> placeAsync(LegOrder order);
+}
@@ -0,0 +1,243 @@
+package com.strategy.arbitrage.gateway;
+
+import com.strategy.arbitrage.HttpUtil;
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.service.LegOrder;
+import com.strategy.arbitrage.util.TelegramNotifier;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 下单入口：按 order-gateway.mode 选择通道，默认 rest。
+ * <ul>
+ *   <li>rest：全部走 REST，不订阅订单流（原有行为）</li>
+ *   <li>ws：Binance / OKX 走 WebSocket 下单（{@link OrderGateway}），Bitget 只订阅订单流（{@link BgOrderStream}）、下单走 REST；
+ *       三家都订阅私有订单流</li>
+ *   <li>mock：{@link MockOrderGateway}，不连接交易所</li>
+ * </ul>
+ * WebSocket 未就绪时自动退回 REST。订单流可用时，下单前按 clientOrderId 登记，
+ * 调用方通过 {@link #awaitTerminal} 拿到最终状态（成交 / 撤单 / 拒单），不再轮询仓位。
+ * 回执超时或断线时订单可能已经到达交易所（见 {@link #isUncertain}），登记保留到 terminal-timeout-ms，
+ * 只有交易所明确拒单才提前结束。
+ */
+@Slf4j
+@Service
+@DependsOn("httpClientConfig")
+public class OrderGateways {
+
+    @Value("${order-gateway.mode:rest}")
+    private String mode;
+    @Value("${order-gateway.ack-timeout-ms:8000}")
+    private long ackTimeoutMs;
+    @Value("${order-gateway.terminal-timeout-ms:30000}")
+    private long terminalTimeoutMs;
+    @Value("${order-gateway.bn-ws-api-url:wss://ws-fapi.binance.com/ws-fapi/v1}")
+    private String bnWsApiUrl;
+    @Value("${order-gateway.bn-user-stream-url:wss://fstream.binance.com/ws}")
+    private String bnUserStreamUrl;
+    @Value("${order-gateway.bg-url:wss://ws.bitget.com/v2/ws/private}")
+    private String bgUrl;
+    @Value("${order-gateway.okx-url:wss://ws.okx.com:8443/ws/v5/private}")
+    private String okxUrl;
+    @Value("${order-gateway.mock-ack-ms:20}")
+    private long mockAckMs;
+    @Value("${order-gateway.mock-fill-ms:50}")
+    private long mockFillMs;
+
+    @Value("${binance.api-key}")
+    private String bnApiKey;
+    @Value("${binance.secret-key}")
+    private String bnSecretKey;
+    @Value("${binance.base-url}")
+    private String bnBaseUrl;
+    @Value("${bitget.api-key}")
+    private String bgApiKey;
+    @Value("${bitget.secret-key}")
+    private String bgSecretKey;
+    @Value("${bitget.pass-phrase}")
+    private String bgPassPhrase;
+    @Value("${okx.api-key}")
+    private String okxApiKey;
+    @Value("${okx.secret-key}")
+    private String okxSecretKey;
+    @Value("${okx.pass-phrase}")
+    private String okxPassPhrase;
+
+    @Resource
+    private TelegramNotifier telegramNotifier;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "order-gateway");
+        t.setDaemon(true);
+        return t;
+    });
+    /** 各交易所的订单流；同时支持 WebSocket 下单的是 {@link OrderGateway}。 */
+    private final Map<ExchangeEnum, OrderStream> gateways = new EnumMap<>(ExchangeEnum.class);
+    /** clientOrderId → 等待终态的 future，超时后自动移除。 */
+    private final Map<String, CompletableFuture<OrderEvent>> terminals = new ConcurrentHashMap<>();
+    private final List<Consumer<OrderEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    private final LongAdder wsOrders = new LongAdder();
+    private final LongAdder restOrders = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder eventLagTotalMs = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        if ("rest".equalsIgnoreCase(mode)) {
+            log.info("📮 下单网关: REST");
+            return;
+        }
+        if ("mock".equalsIgnoreCase(mode)) {
+            for (ExchangeEnum exchange : ExchangeEnum.values()) {
+                gateways.put(exchange, new MockOrderGateway(exchange, mockAckMs, mockFillMs, scheduler));
+            }
+        } else {
+            OkHttpClient client = HttpUtil.defaultClient().newBuilder()
+                    .readTimeout(0, TimeUnit.MILLISECONDS)
+                    .pingInterval(20, TimeUnit.SECONDS)
+                    .build();
+            gateways.put(ExchangeEnum.BINANCE, new BnOrderGateway(bnApiKey, bnSecretKey, bnBaseUrl, bnWsApiUrl,
+                    bnUserStreamUrl, ackTimeoutMs, client, scheduler));
+            gateways.put(ExchangeEnum.BITGET, new BgOrderStream(bgApiKey, bgSecretKey, bgPassPhrase, bgUrl, client, scheduler));
+            gateways.put(ExchangeEnum.OKX, new OkxOrderGateway(okxApiKey, okxSecretKey, okxPassPhrase, okxUrl,
+                    ackTimeoutMs, client, scheduler));
+        }
+        gateways.values().forEach(gateway -> gateway.start(this::onEvent));
+        log.info("📮 下单网关: {}", mode);
+    }
+
+    @PreDestroy
+    public void stop() {
+        gateways.values().forEach(OrderStream::close);
+        scheduler.shutdownNow();
+    }
+
+    /** 该交易所的订单流已订阅，下单后能等到终态推送。 */
+    public boolean hasFillStream(ExchangeEnum exchange) {
+        OrderStream stream = gateways.get(exchange);
+        return stream != null && stream.isStreaming();
+    }
+
+    /** 订阅所有交易所的订单事件。 */
+    public void addListener(Consumer<OrderEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /** mock 模式下取模拟网关，用于演练拒单、部分成交。 */
+    public MockOrderGateway mock(ExchangeEnum exchange) {
+        return gateways.get(exchange) instanceof MockOrderGateway mock ? mock : null;
+    }
+
+    /**
+     * 下单并等待受理回执。该交易所支持 WebSocket 下单且已就绪时直接发出，否则走 REST（Bitget 总是 REST）。
+     */
+    public CompletableFuture<OrderAck> placeAsync(LegOrder order) {
+        ExchangeEnum exchange = order.exchangeEnum();
+        OrderStream stream = gateways.get(exchange);
+        if (stream != null && stream.isStreaming()) {
+            // 先登记再发单，推送可能比回执先到
+            CompletableFuture<OrderEvent> terminal = new CompletableFuture<>();
+            terminals.put(order.clientOrderId, terminal);
+            terminal.orTimeout(terminalTimeoutMs, TimeUnit.MILLISECONDS)
+                    .whenComplete((e, t) -> terminals.remove(order.clientOrderId, terminal));
+        }
+
+        CompletableFuture<OrderAck> ack;
+        if (stream instanceof OrderGateway gateway && gateway.canPlace()) {
+            wsOrders.increment();
+            ack = gateway.placeAsync(order).whenComplete((a, e) -> {
+                if (e == null) {
+                    telegramNotifier.send(String.format("✅ %s 下单成功: %s %s %s %s %s", exchange.getAbbr(),
+                            order.symbol, order.buySell.getBnCode(), order.positionSide.getBnCode(), order.price, order.quantity));
+                } else {
+                    telegramNotifier.send(String.format("✅ %s 下单失败: %s %s", exchange.getAbbr(), order.symbol, e.getMessage()));
+                }
+            });
+        } else {
+            restOrders.increment();
+            ack = order.sendAsync().thenApply(v -> OrderAck.rest(order.clientOrderId));
+        }
+        return ack.whenComplete((a, e) -> {
+            // 超时、断线时订单可能已到交易所，终态登记留着等推送；明确拒单才结束
+            if (e != null && !isUncertain(e)) {
+                CompletableFuture<OrderEvent> terminal = terminals.remove(order.clientOrderId);
+                if (terminal != null) {
+                    terminal.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 下单结果不确定：回执超时或连接断开（WebSocket 断线、REST 网络异常），订单可能已经到达交易所。
+     * 其余异常按交易所明确拒单处理。
+     */
+    public static boolean isUncertain(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException || t instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 等待订单终态。订单流不可用或下单时未登记时返回 null，调用方按回执结果处理。
+     */
+    public CompletableFuture<OrderEvent> awaitTerminal(String clientOrderId, long timeoutMs) {
+        CompletableFuture<OrderEvent> terminal = terminals.get(clientOrderId);
+        return terminal == null ? null : terminal.copy().orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    public Map<String, Long> stats() {
+        long count = events.sum();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("wsOrders", wsOrders.sum());
+        stats.put("restOrders", restOrders.sum());
+        stats.put("events", count);
+        stats.put("avgEventLagMs", count == 0 ? 0 : eventLagTotalMs.sum() / count);
+        stats.put("waiting", (long) terminals.size());
+        return stats;
+    }
+
+    private void onEvent(OrderEvent event) {
+        events.increment();
+        eventLagTotalMs.add(Math.max(0, event.receivedAt - event.exchangeTime));
+        log.info("📬 订单推送 {}", event);
+        if (event.status.isTerminal()) {
+            CompletableFuture<OrderEvent> terminal = terminals.get(event.clientOrderId);
+            if (terminal != null) {
+                terminal.complete(event);
+            }
+        }
+        for (Consumer<OrderEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (Exception e) {
+                log.warn("订单事件处理失败: {}", e.getMessage());
+            }
+        }
+    }
+}
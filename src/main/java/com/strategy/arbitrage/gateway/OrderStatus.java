@@ -0,0 +1,39 @@
+package com.strategy.arbitrage.gateway;
+
+/**
+ * 统一后的订单状态，各交易所私有订单流里的状态映射到这里。
+ */
+public enum OrderStatus {
+    NEW,
+    PARTIALLY_FILLED,
+    FILLED,
+    CANCELED,
+    REJECTED,
+    EXPIRED;
+
+    /** 之后不会再有成交。 */
+    public boolean isTerminal() {
+        return this == FILLED || this == CANCELED || this == REJECTED || this == EXPIRED;
+    }
+
+    static OrderStatus ofBinance(String status) {
+        return switch (status) {
+            case "PARTIALLY_FILLED" -> PARTIALLY_FILLED;
+            case "FILLED" -> FILLED;
+            case "CANCELED" -> CANCELED;
+            case "REJECTED" -> REJECTED;
+            case "EXPIRED", "EXPIRED_IN_MATCH" -> EXPIRED;
+            default -> NEW;
+        };
+    }
+
+    /** OKX 与 Bitget 的 state / status 写法相同。 */
+    static OrderStatus ofOkxOrBitget(String state) {
+        return switch (state) {
+            case "partially_filled" -> PARTIALLY_FILLED;
+            case "filled" -> FILLED;
+            case "canceled", "cancelled", "mmp_canceled" -> CANCELED;
+            default -> NEW;
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.strategy.arbitrage.gateway;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+
+import java.util.function.Consumer;
+
+/**
+ * 单个交易所的私有订单流：成交、部分成交、撤单、拒单等订单状态变化通过 {@link #start} 传入的 listener 推送。
+ * <p>
+ * 实现负责连接、登录、断线重连。同时支持 WebSocket 下单的交易所实现 {@link OrderGateway}。
+ */
+public interface OrderStream {
+
+    ExchangeEnum exchange();
+
+    /** 连接并开始推送订单事件。 */
+    void start(Consumer<OrderEvent> listener);
+
+    void close();
+
+    /** 私有订单流已订阅，下单后会收到状态推送。 */
+    boolean isStreaming();
+}
@@ -0,0 +1,228 @@
+package com.strategy.arbitrage.gateway;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 单条私有 WebSocket 连接：连接、文本心跳、断线指数退避重连，以及按 id 对应的请求 / 响应。
+ * <p>
+ * 子类在 {@link #onConnected} 里登录或订阅，登录成功后调用 {@link #markReady}；
+ * 断线时所有未收到响应的请求以 IOException 结束——这些订单可能已经到达交易所，调用方需按结果未知处理并核对
+ * （见 {@link OrderGateways#isUncertain}）。
+ */
+@Slf4j
+abstract class PrivateConnection extends WebSocketListener {
+
+    private static final long MIN_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    protected final String name;
+    private final Supplier<CompletableFuture<String>> url;
+    private final OkHttpClient client;
+    protected final ScheduledExecutorService scheduler;
+    private final Map<String, CompletableFuture<JSONObject>> pending = new ConcurrentHashMap<>();
+
+    private volatile WebSocket webSocket;
+    private volatile boolean ready;
+    private volatile boolean closed;
+    private long backoffMs = MIN_BACKOFF_MS;
+    private ScheduledFuture<?> heartbeat;
+
+    /** 固定地址。 */
+    PrivateConnection(String name, String url, OkHttpClient client, ScheduledExecutorService scheduler) {
+        this(name, () -> CompletableFuture.completedFuture(url), client, scheduler);
+    }
+
+    /** url 在每次连接时异步求值，便于 Binance 每次重连换新的 listenKey，不阻塞调度线程。 */
+    PrivateConnection(String name, Supplier<CompletableFuture<String>> url, OkHttpClient client,
+                      ScheduledExecutorService scheduler) {
+        this.name = name;
+        this.url = url;
+        this.client = client;
+        this.scheduler = scheduler;
+    }
+
+    // ── 子类钩子 ──────────────────────────────────────────────────────────────
+
+    /** 连接建立后登录或订阅。 */
+    protected abstract void onConnected(WebSocket ws);
+
+    /** 解析一帧文本推送；请求的响应交给 {@link #complete}。 */
+    protected abstract void handle(String text);
+
+    /** 文本心跳（"ping"）间隔秒数，0 表示只依赖协议层 ping。 */
+    protected long heartbeatSeconds() {
+        return 0;
+    }
+
+    // ── 生命周期 ──────────────────────────────────────────────────────────────
+
+    synchronized void connect() {
+        if (closed) {
+            return;
+        }
+        CompletableFuture<String> target;
+        try {
+            target = url.get();
+        } catch (Exception e) {
+            target = CompletableFuture.failedFuture(e);
+        }
+        target.whenComplete(this::open);
+    }
+
+    private synchronized void open(String target, Throwable e) {
+        if (closed) {
+            return;
+        }
+        if (e != null) {
+            log.warn("⚠️ {} 获取连接地址失败: {}", name, e.getMessage());
+            webSocket = null;
+            retryLater();
+            return;
+        }
+        log.info("🔌 {} 私有连接中", name);
+        webSocket = client.newWebSocket(new Request.Builder().url(target).build(), this);
+    }
+
+    synchronized void close() {
+        closed = true;
+        ready = false;
+        cancelHeartbeat();
+        if (webSocket != null) {
+            webSocket.close(1000, "shutdown");
+        }
+        failPending(new IOException(name + " closed"));
+    }
+
+    /** 主动断开，走重连流程。 */
+    synchronized void forceReconnect() {
+        if (webSocket != null) {
+            webSocket.cancel();
+        }
+    }
+
+    boolean isReady() {
+        return ready;
+    }
+
+    protected void markReady() {
+        ready = true;
+        log.info("✅ {} 私有连接就绪", name);
+    }
+
+    protected boolean send(String text) {
+        WebSocket ws = webSocket;
+        return ws != null && ws.send(text);
+    }
+
+    /** 发送带 id 的请求，等待 {@link #complete} 或超时。 */
+    CompletableFuture<JSONObject> request(String id, JSONObject frame, long timeoutMs) {
+        CompletableFuture<JSONObject> future = new CompletableFuture<>();
+        pending.put(id, future);
+        future.whenComplete((r, e) -> pending.remove(id, future));
+        if (!send(frame.toString())) {
+            future.completeExceptionally(new IOException(name + " not connected"));
+            return future;
+        }
+        return future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    protected void complete(String id, JSONObject response) {
+        CompletableFuture<JSONObject> future = pending.get(id);
+        if (future != null) {
+            future.complete(response);
+        }
+    }
+
+    // ── WebSocketListener ─────────────────────────────────────────────────────
+
+    @Override
+    public void onOpen(WebSocket ws, Response response) {
+        synchronized (this) {
+            if (ws != webSocket) {
+                ws.close(1000, "stale");
+                return;
+            }
+            backoffMs = MIN_BACKOFF_MS;
+            long interval = heartbeatSeconds();
+            if (interval > 0) {
+                heartbeat = scheduler.scheduleAtFixedRate(() -> ws.send("ping"), interval, interval, TimeUnit.SECONDS);
+            }
+        }
+        onConnected(ws);
+    }
+
+    @Override
+    public void onMessage(WebSocket ws, String text) {
+        if ("pong".equals(text)) {
+            return;
+        }
+        try {
+            handle(text);
+        } catch (Exception e) {
+            log.warn("{} 私有推送解析失败: {} {}", name, e.getMessage(), text);
+        }
+    }
+
+    @Override
+    public void onClosing(WebSocket ws, int code, String reason) {
+        ws.close(1000, null);
+    }
+
+    @Override
+    public void onClosed(WebSocket ws, int code, String reason) {
+        log.warn("⚠️ {} 私有连接关闭 code={} reason={}", name, code, reason);
+        scheduleReconnect(ws);
+    }
+
+    @Override
+    public void onFailure(WebSocket ws, Throwable t, Response response) {
+        log.warn("⚠️ {} 私有连接异常: {}", name, t.getMessage());
+        scheduleReconnect(ws);
+    }
+
+    private synchronized void scheduleReconnect(WebSocket ws) {
+        if (ws != webSocket) {
+            return; // 旧连接的回调
+        }
+        ready = false;
+        cancelHeartbeat();
+        failPending(new IOException(name + " disconnected"));
+        retryLater();
+    }
+
+    private synchronized void retryLater() {
+        if (closed) {
+            return;
+        }
+        long delay = backoffMs;
+        backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        log.info("🔁 {} 私有连接 {}ms 后重连", name, delay);
+        scheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void failPending(IOException e) {
+        pending.values().forEach(f -> f.completeExceptionally(e));
+    }
+
+    private void cancelHeartbeat() {
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+            heartbeat = null;
+        }
+    }
+}
@@ -1,56 +1,210 @@
 package com.strategy.arbitrage.job;
 
-import com.strategy.arbitrage.common.constant.StaticConstant;
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.market.MarketSnapshot;
+import com.strategy.arbitrage.market.MarketSnapshotStore;
 import com.strategy.arbitrage.model.FundingRate;
-import com.strategy.arbitrage.model.Position;
 import com.strategy.arbitrage.model.Price;
 import com.strategy.arbitrage.model.TickerLimit;
 import com.strategy.arbitrage.service.BgApiService;
 import com.strategy.arbitrage.service.BnApiService;
 import com.strategy.arbitrage.service.OkxApiService;
-import com.strategy.arbitrage.util.TelegramNotifier;
+import com.strategy.arbitrage.service.PriceCache;
+import com.strategy.arbitrage.stream.MarketStreamEngine;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+/**
+ * 交易所基础数据同步。所有交易所、所有接口并行拉取，单个接口超时或失败只影响对应数据（保留旧值），
+ * 一轮耗时约等于最慢的那个接口，各接口耗时见 {@link #getEndpointLatency()}。
+ */
 @Slf4j
 @Component
 public class BasicDataMonitor {
 
+    @Value("${basic-data.timeout-ms:15000}")
+    private long timeoutMs;
+
     @Resource
     private BnApiService bnApiService;
     @Resource
     private BgApiService bgApiService;
     @Resource
     private OkxApiService okxApiService;
+    @Resource
+    private MarketStreamEngine marketStreamEngine;
+    @Resource
+    private PriceCache priceCache;
+
+    private final AtomicInteger threadIndex = new AtomicInteger();
+    private final ExecutorService fetchExecutor = Executors.newFixedThreadPool(10, r -> {
+        Thread t = new Thread(r, "basic-data-" + threadIndex.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+    /** 接口名 → 最近一次耗时（毫秒），超时记为超时阈值。 */
+    private final Map<String, Long> endpointLatency = new ConcurrentHashMap<>();
 
     @Scheduled(fixedRate = 5 * 60 * 1000)
     public void run() {
+        long start = System.currentTimeMillis();
+        if (MarketSnapshotStore.isReady() && marketStreamEngine.isEnabled()) {
+            // 费率和价格由行情流增量推送，这里只刷新下单规则
+            MarketSnapshotStore.update(fetchSymbolFilters().join());
+            log.info("🔍 下单规则刷新完成，耗时 {}ms {} 价格缓存 {}", System.currentTimeMillis() - start, new TreeMap<>(endpointLatency), priceCache.stats());
+            return;
+        }
+
         log.info("🔍 开始同步费率和价格数据");
-        StaticConstant.binanceFunding = bnApiService.fundRate(null).stream().collect(Collectors.toMap(FundingRate::getSymbol, Function.identity()));
-        StaticConstant.bitgetFunding = bgApiService.fundRate(null).stream().collect(Collectors.toMap(FundingRate::getSymbol, Function.identity()));
-        StaticConstant.okxFunding = okxApiService.fundRate(null).stream().collect(Collectors.toMap(FundingRate::getSymbol, Function.identity()));
+        // 各交易所并行拉取，全部完成后一次发布，读方不会看到一部分交易所是新数据、一部分是旧数据
+        List<CompletableFuture<Consumer<MarketSnapshot.Builder>>> futures = new ArrayList<>();
+        for (ExchangeEnum exchange : ExchangeEnum.values()) {
+            futures.add(syncExchange(exchange));
+        }
+        futures.add(fetchSymbolFilters());
+
+        List<Consumer<MarketSnapshot.Builder>> mutations = new ArrayList<>();
+        for (CompletableFuture<Consumer<MarketSnapshot.Builder>> future : futures) {
+            Consumer<MarketSnapshot.Builder> mutation = future.join();
+            if (mutation != null) {
+                mutations.add(mutation);
+            }
+        }
+        MarketSnapshot snapshot = MarketSnapshotStore.update(builder -> mutations.forEach(m -> m.accept(builder)));
+        log.info("🔍 同步费率和价格数据结束，快照版本 v{}，合约数 {}，耗时 {}ms {} 价格缓存 {}", snapshot.version(), snapshot.symbolCount(),
+                System.currentTimeMillis() - start, new TreeMap<>(endpointLatency), priceCache.stats());
+
+        marketStreamEngine.start();
+    }
+
+    /** 断线、重连或推送停滞的交易所，用 REST 快照补齐缺口。 */
+    @Scheduled(fixedDelay = 10 * 1000, initialDelay = 30 * 1000)
+    public void recoverGaps() {
+        if (!MarketSnapshotStore.isReady()) {
+            return;
+        }
+        Map<ExchangeEnum, CompletableFuture<Consumer<MarketSnapshot.Builder>>> futures = new EnumMap<>(ExchangeEnum.class);
+        Map<ExchangeEnum, Long> generations = new EnumMap<>(ExchangeEnum.class);
+        for (ExchangeEnum exchange : marketStreamEngine.exchangesNeedingResync()) {
+            log.info("♻️ {} 行情流存在缺口，使用 REST 快照补齐", exchange.getName());
+            // 先记代数再拉快照：拉取期间再断线的缺口代数更大，不会被这次清掉
+            generations.put(exchange, marketStreamEngine.gapGeneration(exchange));
+            futures.put(exchange, syncExchange(exchange));
+        }
+        futures.forEach((exchange, future) -> {
+            Consumer<MarketSnapshot.Builder> mutation = future.join();
+            if (mutation != null) {
+                MarketSnapshotStore.update(mutation);
+                marketStreamEngine.markResynced(exchange, generations.get(exchange));
+            }
+        });
+    }
 
-        StaticConstant.binancePrice = bnApiService.price(null).stream().collect(Collectors.toMap(Price::getSymbol, Price::getPrice));
-        StaticConstant.bitgetPrice = bgApiService.price(null).stream().collect(Collectors.toMap(Price::getSymbol, Price::getPrice));
-        StaticConstant.okxPrice = okxApiService.price(null).stream().collect(Collectors.toMap(Price::getSymbol, Price::getPrice));
+    public Map<String, Long> getEndpointLatency() {
+        return Collections.unmodifiableMap(endpointLatency);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    // ── 拉取 ──────────────────────────────────────────────────────────────────
+
+    /** 并行拉取单个交易所的费率和价格，返回待发布的修改；任一接口失败时为 null，保留旧数据。 */
+    private CompletableFuture<Consumer<MarketSnapshot.Builder>> syncExchange(ExchangeEnum exchange) {
+        CompletableFuture<List<FundingRate>> fundingRates;
+        CompletableFuture<List<Price>> prices;
+        long requestedAt = System.currentTimeMillis();
+        switch (exchange) {
+            case BINANCE -> {
+                // 结算间隔是单独的接口，和费率并行拉取后再合并
+                CompletableFuture<Map<String, Long>> intervals = fetch("bn.fundingInfo", () -> bnApiService.fundingIntervals(null), Map.of());
+                fundingRates = fetch("bn.fundRate", () -> bnApiService.fundRate(null, Map.of()), List.<FundingRate>of())
+                        .thenCombine(intervals, (rates, symbol2Interval) -> {
+                            rates.forEach(rate -> rate.setInterval(symbol2Interval.getOrDefault(rate.getSymbol(), 8L)));
+                            return rates;
+                        });
+                prices = fetch("bn.price", () -> bnApiService.price(null), List.of());
+            }
+            case BITGET -> {
+                fundingRates = fetch("bg.fundRate", () -> bgApiService.fundRate(null), List.of());
+                prices = fetch("bg.price", () -> bgApiService.price(null), List.of());
+            }
+            default -> {
+                fundingRates = fetch("okx.fundRate", () -> okxApiService.fundRate(null), List.of());
+                prices = fetch("okx.price", () -> okxApiService.price(null), List.of());
+            }
+        }
+        // 全量价格顺带刷新单合约价格缓存
+        prices = prices.thenApply(priceList -> {
+            priceCache.seed(exchange, priceList, requestedAt);
+            return priceList;
+        });
+        return fundingRates.thenCombine(prices, (rates, priceList) -> {
+            if (rates.isEmpty() || priceList.isEmpty()) {
+                log.warn("⚠️ {} 费率或价格快照为空，保留旧数据", exchange.getName());
+                return null;
+            }
+            return builder -> builder.replaceMarket(exchange, rates, priceList);
+        });
+    }
+
+    /** 先拉取再发布，发布时不做网络调用。 */
+    private CompletableFuture<Consumer<MarketSnapshot.Builder>> fetchSymbolFilters() {
+        CompletableFuture<List<TickerLimit>> bnLimits = fetch("bn.tickerLimit", bnApiService::tickerLimit, List.of());
+        CompletableFuture<List<TickerLimit>> bgLimits = fetch("bg.tickerLimit", bgApiService::tickerLimit, List.of());
+        CompletableFuture<List<TickerLimit>> okxLimits = fetch("okx.tickerLimit", okxApiService::tickerLimit, List.of());
+        return CompletableFuture.allOf(bnLimits, bgLimits, okxLimits).thenApply(v -> builder -> {
+            replaceLimits(builder, ExchangeEnum.BINANCE, bnLimits.join());
+            replaceLimits(builder, ExchangeEnum.BITGET, bgLimits.join());
+            replaceLimits(builder, ExchangeEnum.OKX, okxLimits.join());
+        });
+    }
+
+    /**
+     * 在拉取线程池中执行一次接口调用并记录耗时，超时或异常时返回 fallback。
+     * 超时只是不再等待结果，底层 HTTP 调用仍受客户端自身超时约束。
+     */
+    private <T> CompletableFuture<T> fetch(String endpoint, Supplier<T> call, T fallback) {
+        long start = System.currentTimeMillis();
+        return CompletableFuture.supplyAsync(call, fetchExecutor)
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .handle((result, e) -> {
+                    endpointLatency.put(endpoint, System.currentTimeMillis() - start);
+                    if (e != null) {
+                        log.warn("⚠️ {} 拉取失败: {}", endpoint, e.toString());
+                        return fallback;
+                    }
+                    return result;
+                });
+    }
 
-        StaticConstant.bnSymbolFilters = bnApiService.tickerLimit().stream().collect(Collectors.toMap(TickerLimit::getSymbol, Function.identity()));
-        StaticConstant.bgSymbolFilters = bgApiService.tickerLimit().stream().collect(Collectors.toMap(TickerLimit::getSymbol, Function.identity()));
-        StaticConstant.okxSymbolFilters = okxApiService.tickerLimit().stream().collect(Collectors.toMap(TickerLimit::getSymbol, Function.identity()));
-        StaticConstant.initFlag = true;
-        log.info("🔍 同步费率和价格数据结束");
+    private static void replaceLimits(MarketSnapshot.Builder builder, ExchangeEnum exchange, List<TickerLimit> limits) {
+        if (limits.isEmpty()) {
+            log.warn("⚠️ {} 下单规则为空，保留旧数据", exchange.getName());
+            return;
+        }
+        builder.replaceLimits(exchange, limits);
     }
 
-}
\ No newline at end of file
+}
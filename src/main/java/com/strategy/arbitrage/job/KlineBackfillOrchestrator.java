@@ -0,0 +1,293 @@
+package com.strategy.arbitrage.job;
+
+import com.strategy.arbitrage.kline.KlineBulkWriter;
+import com.strategy.arbitrage.kline.KlineInterval;
+import com.strategy.arbitrage.kline.KlineRollup;
+import com.strategy.arbitrage.kline.KlineStoreService;
+import com.strategy.arbitrage.mapper.KlineBackfillMapper;
+import com.strategy.arbitrage.mapper.KlineMapper;
+import com.strategy.arbitrage.model.Kline;
+import com.strategy.arbitrage.model.KlineBackfillCheckpoint;
+import com.strategy.arbitrage.ratelimit.EndpointClass;
+import com.strategy.arbitrage.service.BnApiService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 多合约 K 线历史回补：
+ * <ol>
+ *   <li>规划：从合约第一根 K 线到现在按 range-days 切成若干区间，写入 kline_backfill_checkpoint；
+ *       再次运行时只追加上次规划之后的新区间</li>
+ *   <li>回补：所有合约的未完成区间一起交给 parallelism 个线程并发拉取，每页入库后更新断点，重启后从断点继续</li>
+ *   <li>缺口：区间都完成后按 open_time 连续性扫描 kline 表，缺口作为 GAP 区间再拉一次；
+ *       拉不到数据的缺口（交易所停机）最多重试 {@link #MAX_GAP_ATTEMPTS} 次</li>
+ * </ol>
+ * 请求节奏完全由 RateGovernor 的 BULK 配额控制（所有线程共享同一个权重桶，且给下单和行情留了余量），
+ * 不再按合约串行 sleep，整体速度取决于可用权重。写库走 {@link KlineBulkWriter} 的共享缓冲：各线程拉到的页攒够
+ * batch-size 行才写一次，断点在对应的行写入后才推进；回补结束后按写入过的日子合成上级周期（{@link KlineRollup}），
+ * 并重建本地列式存储。
+ */
+@Slf4j
+@Component
+public class KlineBackfillOrchestrator {
+
+    static final String RANGE = "RANGE";
+    static final String GAP = "GAP";
+    private static final int PAGE_SIZE = 1500;
+    private static final int MAX_GAP_ATTEMPTS = 3;
+
+    @Value("${kline.backfill.parallelism:4}")
+    private int parallelism;
+    @Value("${kline.backfill.range-days:30}")
+    private int rangeDays;
+
+    @Resource
+    private BnApiService bnApiService;
+    @Resource
+    private KlineMapper klineMapper;
+    @Resource
+    private KlineBackfillMapper backfillMapper;
+    @Resource
+    private KlineStoreService klineStoreService;
+    @Resource
+    private KlineBulkWriter klineBulkWriter;
+    @Resource
+    private KlineRollup klineRollup;
+
+    private ExecutorService workers;
+    /** 正在回补的合约。 */
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder saved = new LongAdder();
+    private final LongAdder rangesDone = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "kline-backfill-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+
+    public boolean isRunning(String symbol) {
+        return running.contains(symbol);
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("running", (long) running.size());
+        stats.put("requests", requests.sum());
+        stats.put("saved", saved.sum());
+        stats.put("rangesDone", rangesDone.sum());
+        return stats;
+    }
+
+    /** 回补一组合约，各合约的区间共享同一个线程池。已在回补中的合约跳过。 */
+    public CompletableFuture<Void> backfill(List<String> symbols, String interval) {
+        KlineBulkWriter.Buffer buffer = klineBulkWriter.buffer();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (String symbol : symbols) {
+            if (running.add(symbol)) {
+                futures.add(backfillSymbol(symbol, interval, buffer)
+                        .whenComplete((v, e) -> running.remove(symbol)));
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((v, e) -> saved.add(buffer.inserted()));
+    }
+
+    private CompletableFuture<Void> backfillSymbol(String symbol, String interval, KlineBulkWriter.Buffer buffer) {
+        long start = System.currentTimeMillis();
+        // 写入过数据的自然日，回补结束后据此合成上级周期
+        SortedSet<Long> touchedDays = new ConcurrentSkipListSet<>();
+        return CompletableFuture.supplyAsync(() -> plan(symbol, interval), workers)
+                .thenCompose(checkpoints -> runAll(checkpoints, touchedDays, buffer))
+                .thenCompose(total -> CompletableFuture.supplyAsync(() -> gaps(symbol, interval), workers)
+                        .thenCompose(checkpoints -> runAll(checkpoints, touchedDays, buffer))
+                        .thenApply(gapTotal -> total + gapTotal))
+                .thenAccept(total -> {
+                    long elapsed = Math.max(1, System.currentTimeMillis() - start);
+                    log.info("📥 K线回补完成 {} {}: {} 根，耗时 {}s，{} 根/s，写库 {}",
+                            symbol, interval, total, elapsed / 1000, total * 1000 / elapsed, klineBulkWriter.stats());
+                    if (total > 0) {
+                        klineStoreService.rebuild(symbol, interval);
+                        if (KlineRollup.BASE.equals(interval) && klineRollup.isEnabled()) {
+                            klineRollup.rollupDays(symbol, touchedDays);
+                            klineRollup.intervals().forEach(derived -> klineStoreService.rebuild(symbol, derived));
+                        }
+                    }
+                })
+                .exceptionally(e -> {
+                    log.error("K线回补失败 {} {}: {}", symbol, interval, e.getMessage());
+                    return null;
+                });
+    }
+
+    /** 规划新区间，返回所有未完成的区间（含上次中断的）。 */
+    private List<KlineBackfillCheckpoint> plan(String symbol, String interval) {
+        long now = System.currentTimeMillis();
+        long intervalMs = KlineInterval.millis(interval);
+        Long planned = backfillMapper.findMaxRangeEnd(symbol, interval);
+        long from;
+        if (planned != null) {
+            from = planned + 1;
+        } else {
+            // 上线时间：startTime=0 拿到的第一根
+            requests.increment();
+            List<Kline> first = bnApiService.getKlines(symbol, interval, 1, 0L, EndpointClass.BULK);
+            if (first.isEmpty()) {
+                log.warn("K线回补 {} {}: 取不到第一根K线，跳过", symbol, interval);
+                return List.of();
+            }
+            from = first.get(0).getOpenTime();
+        }
+
+        long rangeMs = TimeUnit.DAYS.toMillis(rangeDays);
+        // 最后一个区间截到上一根已收盘的K线
+        long to = now / intervalMs * intervalMs - intervalMs;
+        for (long rangeStart = from; rangeStart <= to; rangeStart += rangeMs) {
+            KlineBackfillCheckpoint checkpoint = new KlineBackfillCheckpoint();
+            checkpoint.setSymbol(symbol);
+            checkpoint.setIntervalType(interval);
+            checkpoint.setKind(RANGE);
+            checkpoint.setRangeStart(rangeStart);
+            checkpoint.setRangeEnd(Math.min(rangeStart + rangeMs - 1, to));
+            checkpoint.setNextOpenTime(rangeStart);
+            backfillMapper.insertIgnore(checkpoint);
+        }
+
+        List<KlineBackfillCheckpoint> pending = backfillMapper.findBySymbol(symbol, interval).stream()
+                .filter(c -> !c.isDone())
+                .collect(Collectors.toList());
+        log.info("📥 K线回补 {} {}: 待处理区间 {} 个", symbol, interval, pending.size());
+        return pending;
+    }
+
+    /** 按连续性扫描缺口，返回需要（重新）拉取的区间。 */
+    private List<KlineBackfillCheckpoint> gaps(String symbol, String interval) {
+        List<KlineBackfillCheckpoint> found = klineMapper.findGaps(symbol, interval, KlineInterval.millis(interval));
+        if (found.isEmpty()) {
+            return List.of();
+        }
+        // 同一起点可能既有 RANGE 又有 GAP，按 kind + range_start 区分，否则缺口会被当成已完成的 RANGE
+        Map<String, KlineBackfillCheckpoint> known = backfillMapper.findBySymbol(symbol, interval).stream()
+                .collect(Collectors.toMap(c -> c.getKind() + ":" + c.getRangeStart(), Function.identity(), (a, b) -> a));
+        List<KlineBackfillCheckpoint> pending = new ArrayList<>();
+        for (KlineBackfillCheckpoint gap : found) {
+            KlineBackfillCheckpoint existing = known.get(GAP + ":" + gap.getRangeStart());
+            if (existing == null) {
+                gap.setKind(GAP);
+                gap.setNextOpenTime(gap.getRangeStart());
+                backfillMapper.insertIgnore(gap);
+                continue;
+            }
+            if (existing.isDone() && existing.getAttempts() + 1 < MAX_GAP_ATTEMPTS) {
+                backfillMapper.reopen(existing.getId());
+            }
+        }
+        backfillMapper.findBySymbol(symbol, interval).stream()
+                .filter(c -> !c.isDone())
+                .forEach(pending::add);
+        if (!pending.isEmpty()) {
+            log.info("📥 K线回补 {} {}: 发现缺口 {} 个", symbol, interval, pending.size());
+        }
+        return pending;
+    }
+
+    /** 所有区间并发执行，结束时把缓冲里剩下的写完（后续的缺口扫描、合成要读到这些数据）。返回拉取的总根数。 */
+    private CompletableFuture<Long> runAll(List<KlineBackfillCheckpoint> checkpoints, Set<Long> touchedDays,
+                                           KlineBulkWriter.Buffer buffer) {
+        List<CompletableFuture<Long>> futures = checkpoints.stream()
+                .map(c -> CompletableFuture.supplyAsync(() -> fill(c, touchedDays, buffer), workers))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> {
+                    try {
+                        buffer.flush();
+                    } catch (SQLException e) {
+                        throw new RuntimeException("K线写库失败", e);
+                    }
+                    return futures.stream().mapToLong(CompletableFuture::join).sum();
+                });
+    }
+
+    /** 从断点拉到区间结束，每页交给写缓冲，断点在该页写入后更新。返回本次拉取的根数。 */
+    private long fill(KlineBackfillCheckpoint checkpoint, Set<Long> touchedDays, KlineBulkWriter.Buffer buffer) {
+        String symbol = checkpoint.getSymbol();
+        String interval = checkpoint.getIntervalType();
+        long startTime = checkpoint.getNextOpenTime();
+        long total = checkpoint.getSaved();
+        long written = 0;
+
+        while (startTime <= checkpoint.getRangeEnd()) {
+            requests.increment();
+            List<Kline> klines = bnApiService.getKlines(symbol, interval, PAGE_SIZE, startTime, EndpointClass.BULK);
+            if (klines.isEmpty()) {
+                break;
+            }
+            long now = System.currentTimeMillis();
+            long rangeEnd = checkpoint.getRangeEnd();
+            List<Kline> completed = klines.stream()
+                    .filter(k -> k.getCloseTime() < now && k.getOpenTime() <= rangeEnd)
+                    .collect(Collectors.toList());
+            written += completed.size();
+            total += completed.size();
+            completed.forEach(k -> touchedDays.add(KlineRollup.day(k.getOpenTime())));
+            startTime = klines.get(klines.size() - 1).getOpenTime() + 1;
+            add(buffer, completed, checkpoint, startTime, total, false);
+            if (klines.size() < PAGE_SIZE) {
+                break;
+            }
+        }
+
+        add(buffer, List.of(), checkpoint, startTime, total, true);
+        log.debug("K线回补区间完成 {} {} {} [{}, {}]: {} 根",
+                symbol, interval, checkpoint.getKind(), checkpoint.getRangeStart(), checkpoint.getRangeEnd(), written);
+        return written;
+    }
+
+    /** 交给写缓冲，写入后把断点推进到 nextOpenTime；done 时同时标记区间完成。 */
+    private void add(KlineBulkWriter.Buffer buffer, List<Kline> klines, KlineBackfillCheckpoint checkpoint,
+                     long nextOpenTime, long total, boolean done) {
+        try {
+            buffer.add(klines, () -> {
+                backfillMapper.updateProgress(checkpoint.getId(), nextOpenTime, total, done);
+                if (done) {
+                    rangesDone.increment();
+                }
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("K线写库失败 " + checkpoint.getSymbol() + " " + nextOpenTime, e);
+        }
+    }
+}
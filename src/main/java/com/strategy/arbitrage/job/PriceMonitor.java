@@ -1,104 +1,96 @@
 package com.strategy.arbitrage.job;
 
-import com.strategy.arbitrage.common.constant.StaticConstant;
-import com.strategy.arbitrage.model.Kline;
-import com.strategy.arbitrage.model.TickerLimit;
-import com.strategy.arbitrage.service.BnApiService;
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.market.MarketSnapshotStore;
+import com.strategy.arbitrage.market.VolatilityScanner;
+import com.strategy.arbitrage.stream.MarketStreamEngine;
+import com.strategy.arbitrage.util.AlertCooldown;
 import com.strategy.arbitrage.util.TelegramNotifier;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * 币安全市场涨跌幅监控：由行情流的 !miniTicker@arr 逐笔驱动（{@link VolatilityScanner}），
+ * 不再逐个合约、逐个周期调用 K 线接口，全市场覆盖且不占用 REST 请求额度。
+ * <p>
+ * 阈值配置 price-monitor.thresholds，如 "5m=5,15m=10,1h=15"：最近 5 分钟涨跌超过 5% 提醒，以此类推；默认只有 5m=5。
+ * 同一合约同一窗口 5 分钟内只提醒一次。默认关闭（price-monitor.enabled=false），开启后全市场提醒会发到 Telegram。
+ */
 @Slf4j
 @Component
 public class PriceMonitor {
 
-    private static final Map<String, Double> THRESHOLD = new HashMap<>(); // 10%
-    private static final int BATCH_SIZE = 50;      // 每批50个币种
-    private final Map<String, Map<String, Long>> lastAlertTimes = new ConcurrentHashMap<>();
+    private static final long ALERT_COOLDOWN_MS = TimeUnit.MINUTES.toMillis(5);
+    private final AlertCooldown alertCooldown = new AlertCooldown();
 
+    @Value("${price-monitor.enabled:false}")
+    private boolean enabled;
+    @Value("${price-monitor.thresholds:5m=5}")
+    private String thresholds;
 
     @Resource
-    private BnApiService bnApiService;
+    private MarketStreamEngine marketStreamEngine;
     @Resource
     private TelegramNotifier telegramNotifier;
 
-    static {
-        THRESHOLD.put("5m", 5.0);
-//        THRESHOLD.put("15m", 10.0);
-//        THRESHOLD.put("1h", 15.0);
+    private String[] intervals;
+    private VolatilityScanner scanner;
 
-    }
-
-//    @Scheduled(fixedRate = 60 * 1000, initialDelay = 4 * 1000)
-    private void refreshSymbols() {
-        log.info("🔄 正在监听币安涨跌幅");
-        List<String> allSymbols = StaticConstant.bnSymbolFilters.values().stream().map(TickerLimit::getSymbol).toList();
-        if (allSymbols.isEmpty()) {
-            log.info("⚠️ 币种列表为空，跳过本轮检查");
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
             return;
         }
-        List<List<String>> batches = partition(allSymbols, BATCH_SIZE);
-
-        for (List<String> batch : batches) {
-            processBatch(batch);
+        String[] entries = thresholds.split(",");
+        intervals = new String[entries.length];
+        int[] windowMinutes = new int[entries.length];
+        double[] thresholdPercent = new double[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            String[] kv = entries[i].trim().split("=");
+            intervals[i] = kv[0].trim();
+            windowMinutes[i] = toMinutes(intervals[i]);
+            thresholdPercent[i] = Double.parseDouble(kv[1].trim());
         }
-        log.info("🔄 监听币安涨跌幅结束");
-    }
-
-    private void processBatch(List<String> symbols) {
-        for (String symbol : symbols) {
-            try {
-                checkSymbol(symbol);
-            } catch (Exception e) {
-                log.error("❌ 监控 {} 出错: {}", symbol, e.getMessage());
+        scanner = new VolatilityScanner(windowMinutes, thresholdPercent, this::onBreach);
+        marketStreamEngine.addTickListener((exchange, id, price, time) -> {
+            if (exchange == ExchangeEnum.BINANCE) {
+                scanner.onTick(id, price, time);
             }
-        }
+        });
+        log.info("🔄 币安涨跌幅监控已启动 {}", thresholds);
     }
 
-    private void checkSymbol(String symbol) {
-        long now = System.currentTimeMillis();
-
-        THRESHOLD.forEach((interval, threshold) -> checkInterval(symbol, interval, 2, now));
+    @Scheduled(fixedRate = 5 * 60 * 1000, initialDelay = 5 * 60 * 1000)
+    public void logStats() {
+        if (scanner != null) {
+            log.info("🔄 涨跌幅监控 合约 {} 累计价格 {}", scanner.trackedSymbols(), scanner.ticks());
+        }
     }
 
-    private void checkInterval(String symbol, String interval, int limit, long now) {
-        Map<String, Long> intervals = lastAlertTimes.computeIfAbsent(symbol, k -> new ConcurrentHashMap<>());
-        Long lastTime = intervals.get(interval);
-        if (lastTime != null && (now - lastTime) <= TimeUnit.MINUTES.toMillis(5)) {
+    private void onBreach(int id, int window, double changePercent, double basePrice, double price, long time) {
+        String symbol = MarketSnapshotStore.current().symbol(id);
+        String interval = intervals[window];
+        if (!alertCooldown.tryAcquire(symbol + "_" + interval, time, ALERT_COOLDOWN_MS)) {
             return;
         }
-
-        List<Kline> klines = bnApiService.getKlines(symbol, interval, limit);
-        if (klines.size() < 2) return;
-
-        Kline prev = klines.get(klines.size() - 2);
-        Kline curr = klines.get(klines.size() - 1);
-
-        double changePercent = ((curr.getClose() - prev.getOpen()) / prev.getOpen()) * 100;
-        if (Math.abs(changePercent) > THRESHOLD.get(interval)) {
-            String message = String.format("[🚨 波动警报] %s 在 %s 内 %s %.2f%%！价格: %.4f%n",
-                    symbol, interval, changePercent > 0 ? "上涨" : "下跌", Math.abs(changePercent), curr.getClose());
-            telegramNotifier.send(message);
-            intervals.put(interval, now);
-        }
+        String message = String.format("[🚨 波动警报] %s 在 %s 内 %s %.2f%%！价格: %.4f → %.4f%n",
+                symbol, interval, changePercent > 0 ? "上涨" : "下跌", Math.abs(changePercent), basePrice, price);
+        telegramNotifier.send(message);
     }
 
-
-    // 工具：分批
-    private <T> List<List<T>> partition(List<T> list, int size) {
-        List<List<T>> partitions = new ArrayList<>();
-        for (int i = 0; i < list.size(); i += size) {
-            partitions.add(list.subList(i, Math.min(i + size, list.size())));
-        }
-        return partitions;
+    /** "5m" / "1h" → 分钟数。 */
+    private static int toMinutes(String interval) {
+        int value = Integer.parseInt(interval.substring(0, interval.length() - 1));
+        return switch (interval.charAt(interval.length() - 1)) {
+            case 'm' -> value;
+            case 'h' -> value * 60;
+            default -> throw new IllegalArgumentException("不支持的周期: " + interval);
+        };
     }
-}
\ No newline at end of file
+}
@@ -1,143 +1,415 @@
 package com.strategy.arbitrage.job;
 
-import com.strategy.arbitrage.common.constant.StaticConstant;
-import com.strategy.arbitrage.model.FundingRate;
-import com.strategy.arbitrage.service.BgApiService;
-import com.strategy.arbitrage.service.BnApiService;
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.common.enums.PositionSideEnum;
+import com.strategy.arbitrage.gateway.OrderEvent;
+import com.strategy.arbitrage.gateway.OrderGateways;
+import com.strategy.arbitrage.market.MarketSnapshot;
+import com.strategy.arbitrage.market.MarketSnapshotStore;
+import com.strategy.arbitrage.market.SymbolQuote;
 import com.strategy.arbitrage.model.Position;
-import com.strategy.arbitrage.service.OkxApiService;
+import com.strategy.arbitrage.service.ExchangeServiceFactory;
 import com.strategy.arbitrage.util.TelegramNotifier;
 import lombok.extern.slf4j.Slf4j;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * 增量持仓风控：价格和仓位变化时只重算受影响合约的指标，不再定时全量拉仓位、重建 Map。
+ * <ul>
+ *   <li>价格事件：每 check-interval-ms 看一次行情快照版本，只对有持仓的合约比较 {@link SymbolQuote} 引用，变了才重算</li>
+ *   <li>仓位事件：订单流推送终态后，异步拉取该交易所仓位，只重算仓位有变化的合约</li>
+ *   <li>兜底：每 reconcile-seconds 全量拉一次三家仓位，覆盖 App 手动操作、强平等没有订单推送的变化</li>
+ * </ul>
+ * 每个合约的指标：各交易所价格偏离、两两本金偏差、两两资金费率方向（空头费率 - 多头费率）。
+ * 仓位和指标按 [交易所][symbolId] / [交易所组合][symbolId] 存在基本类型数组里，全部状态只在 risk-engine 线程上读写。
+ * 提醒按 合约+指标 的 key 交给 {@link TelegramNotifier} 冷却：持续超限时每 alert-cooldown-minutes 重复一次，
+ * 恢复正常时清除该 key 的冷却，再次超限立即提醒。
+ * <p>
+ * 默认关闭（risk.enabled=false，与原来注释掉的定时任务一致），开启后会轮询三家仓位并发送 Telegram 提醒。
+ */
 @Slf4j
 @Component
 public class RiskMonitor {
 
+    private static final double FUNDING_MIN_CARRY = 0.001;
+    private static final ExchangeEnum[] EXCHANGES = ExchangeEnum.values();
+
     @Value("${alert.price-diff-per: 0.1}")
     private Double priceDiffPer;
     @Value("${alert.fundRate-diff-per: 0.01}")
     private Double fundRateDiffPer;
     @Value("${alert.margin-diff-per: 0.01}")
     private Double marginDiffPer;
+    @Value("${risk.enabled:false}")
+    private boolean enabled;
+    @Value("${risk.check-interval-ms:100}")
+    private long checkIntervalMs;
+    @Value("${risk.reconcile-seconds:300}")
+    private long reconcileSeconds;
+    @Value("${risk.alert-cooldown-minutes:5}")
+    private long alertCooldownMinutes;
 
     private final TelegramNotifier notifier;
-    private final BnApiService bnApiService;
-    private final BgApiService bgApiService;
-    private final OkxApiService okxApiService;
+    private final ExchangeServiceFactory exchangeServiceFactory;
+    private final OrderGateways orderGateways;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "risk-engine");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final int pairCount = EXCHANGES.length * (EXCHANGES.length - 1) / 2;
+    private final int[] pairA = new int[pairCount];
+    private final int[] pairB = new int[pairCount];
+
+    // ── 仓位 [交易所][id]，side：1 多 / -1 空 / 0 无仓位 ────────────────────────
+    private final double[][] entryPrice = new double[EXCHANGES.length][0];
+    private final double[][] markPrice = new double[EXCHANGES.length][0];
+    private final double[][] margin = new double[EXCHANGES.length][0];
+    private final byte[][] side = new byte[EXCHANGES.length][0];
+    /** 至少一个交易所有仓位的合约 id，升序。 */
+    private volatile int[] held = new int[0];
+
+    // ── 指标与是否处于超限状态 ────────────────────────────────────────────────
+    private final double[][] priceDeviation = new double[EXCHANGES.length][0];
+    private final boolean[][] priceBreached = new boolean[EXCHANGES.length][0];
+    private final double[][] marginSkew = new double[pairCount][0];
+    private final boolean[][] marginBreached = new boolean[pairCount][0];
+    private final double[][] fundingCarry = new double[pairCount][0];
+    private final boolean[][] fundingBreached = new boolean[pairCount][0];
+
+    /** 上次计算时看到的行情记录 [交易所][id]。 */
+    private final SymbolQuote[][] seen = new SymbolQuote[EXCHANGES.length][0];
+    private long seenVersion = -1;
+    private int capacity;
+
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder priceEvents = new LongAdder();
+    private final LongAdder positionEvents = new LongAdder();
+    private final LongAdder lagTotalMicros = new LongAdder();
+    private volatile long maxLagMicros;
 
     public RiskMonitor(TelegramNotifier notifier,
-                       BnApiService bnApiService,
-                       BgApiService bgApiService,
-                       OkxApiService okxApiService) {
+                       ExchangeServiceFactory exchangeServiceFactory,
+                       OrderGateways orderGateways) {
         this.notifier = notifier;
-        this.bnApiService = bnApiService;
-        this.bgApiService = bgApiService;
-        this.okxApiService = okxApiService;
+        this.exchangeServiceFactory = exchangeServiceFactory;
+        this.orderGateways = orderGateways;
+        int p = 0;
+        for (int a = 0; a < EXCHANGES.length; a++) {
+            for (int b = a + 1; b < EXCHANGES.length; b++) {
+                pairA[p] = a;
+                pairB[p] = b;
+                p++;
+            }
+        }
     }
 
-//    @Scheduled(fixedRate = 5 * 60 * 1000,  initialDelay = 10 * 1000)
-    public void checkRisk() {
-        log.info("🔍 开始计算持仓风险");
-        if (StaticConstant.binanceFunding.isEmpty() || StaticConstant.bitgetPrice.isEmpty() || StaticConstant.okxFunding.isEmpty()) {
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
             return;
         }
+        orderGateways.addListener(this::onOrderEvent);
+        scheduler.scheduleWithFixedDelay(this::onPriceTick, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::checkRisk, 10, reconcileSeconds, TimeUnit.SECONDS);
+        log.info("🛡️ 持仓风控已启动，检查间隔 {}ms，全量核对 {}s", checkIntervalMs, reconcileSeconds);
+    }
 
-        List<JSONObject> jsonObjects = bnApiService.position();
-        List<Position> bnPositionList = jsonObjects.stream().map(Position::convert).toList();
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
 
-        jsonObjects = bgApiService.position();
-        List<Position> bgPositionList = jsonObjects.stream().map(Position::convert).toList();
+    /** 全量核对：并行拉取三家仓位，在风控线程上合并。 */
+    public void checkRisk() {
+        MarketSnapshot snapshot = MarketSnapshotStore.current();
+        if (snapshot.isEmpty(ExchangeEnum.BINANCE) || snapshot.isEmpty(ExchangeEnum.BITGET) || snapshot.isEmpty(ExchangeEnum.OKX)) {
+            return;
+        }
+        log.info("🔍 持仓风控全量核对 {}", stats());
+        for (ExchangeEnum exchange : EXCHANGES) {
+            refreshPositions(exchange);
+        }
+    }
 
-        jsonObjects = okxApiService.position();
-        List<Position> okxPositionList = jsonObjects.stream().map(Position::convert).toList();
+    /** 用给定的三家仓位整体替换当前仓位并重算（仓位来自外部查询时使用）。 */
+    public void checkRisk(List<Position> bnPositions, List<Position> bgPositions, List<Position> okxPositions) {
+        long receivedAt = System.nanoTime();
+        scheduler.execute(() -> {
+            applyPositions(ExchangeEnum.BINANCE, bnPositions, receivedAt);
+            applyPositions(ExchangeEnum.BITGET, bgPositions, receivedAt);
+            applyPositions(ExchangeEnum.OKX, okxPositions, receivedAt);
+        });
+    }
 
-        checkRisk(bnPositionList, bgPositionList, okxPositionList);
-        log.info("🔍 计算持仓风险结束，bn仓位{}, bg仓位{}, okx仓位{}", bnPositionList.size(), bgPositionList.size(), okxPositionList.size());
+    public Map<String, Long> stats() {
+        long count = evaluations.sum();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("held", (long) held.length);
+        stats.put("priceEvents", priceEvents.sum());
+        stats.put("positionEvents", positionEvents.sum());
+        stats.put("evaluations", count);
+        stats.put("avgLagUs", count == 0 ? 0 : lagTotalMicros.sum() / count);
+        stats.put("maxLagUs", maxLagMicros);
+        return stats;
     }
 
-    public void checkRisk(List<Position> bnPositions, List<Position> bgPositions, List<Position> okxPositions) {
-        Map<String, Position> bnMap = toMap(bnPositions);
-        Map<String, Position> bgMap = toMap(bgPositions);
-        Map<String, Position> okxMap = toMap(okxPositions);
+    // ── 事件 ─────────────────────────────────────────────────────────────────
+
+    /** 订单成交后该交易所仓位必然变化，拉一次该交易所的仓位。 */
+    private void onOrderEvent(OrderEvent event) {
+        if (event.status.isTerminal() && event.filledQty > 0) {
+            refreshPositions(event.exchange);
+        }
+    }
 
-        Set<String> allSymbols = new HashSet<>();
-        allSymbols.addAll(bnMap.keySet());
-        allSymbols.addAll(bgMap.keySet());
-        allSymbols.addAll(okxMap.keySet());
+    private void refreshPositions(ExchangeEnum exchange) {
+        CompletableFuture<List<JSONObject>> future;
+        try {
+            future = exchangeServiceFactory.getService(exchange.getAbbr()).positionAsync();
+        } catch (Exception e) {
+            log.warn("⚠️ 风控拉取 {} 仓位失败: {}", exchange.getAbbr(), e.getMessage());
+            return;
+        }
+        future.whenComplete((list, e) -> {
+            if (e != null) {
+                log.warn("⚠️ 风控拉取 {} 仓位失败: {}", exchange.getAbbr(), e.getMessage());
+                return;
+            }
+            long receivedAt = System.nanoTime();
+            List<Position> positions = list.stream().map(Position::convert).toList();
+            scheduler.execute(() -> applyPositions(exchange, positions, receivedAt));
+        });
+    }
 
-        for (String symbol : allSymbols) {
-            Position bnPos = bnMap.get(symbol);
-            Position bgPos = bgMap.get(symbol);
-            Position okxPos = okxMap.get(symbol);
+    /** 行情快照有新版本时，只重算有持仓且行情记录变化的合约。 */
+    private void onPriceTick() {
+        try {
+            MarketSnapshot snapshot = MarketSnapshotStore.current();
+            if (snapshot.version() == seenVersion || held.length == 0) {
+                return;
+            }
+            seenVersion = snapshot.version();
+            long receivedAt = System.nanoTime();
+            for (int id : held) {
+                if (quotesChanged(snapshot, id)) {
+                    priceEvents.increment();
+                    evaluate(snapshot, id, receivedAt);
+                }
+            }
+        } catch (Exception e) {
+            log.error("🚫 风控价格检查失败", e);
+        }
+    }
 
-            FundingRate bnFundingRate = StaticConstant.binanceFunding.get(symbol);
-            FundingRate bgFundingRate = StaticConstant.bitgetFunding.get(symbol);
-            FundingRate okxFundingRate = StaticConstant.okxFunding.get(symbol);
+    // ── 仓位 ─────────────────────────────────────────────────────────────────
 
-            // 价格偏离 ≥ 10%
-            checkPriceDiff(symbol, bnPos);
-            checkPriceDiff(symbol, bgPos);
-            checkPriceDiff(symbol, okxPos);
+    /** 替换一个交易所的全部仓位，只重算仓位有变化的合约。 */
+    private void applyPositions(ExchangeEnum exchange, List<Position> positions, long receivedAt) {
+        try {
+            MarketSnapshot snapshot = MarketSnapshotStore.current();
+            ensureCapacity(snapshot.symbolCount());
+            int ex = exchange.ordinal();
+            double[] newEntry = new double[capacity];
+            double[] newMargin = new double[capacity];
+            byte[] newSide = new byte[capacity];
+            for (Position position : positions) {
+                int id = snapshot.symbolId(position.getSymbol());
+                if (id < 0 || position.getPositionAmt() == 0) {
+                    continue;
+                }
+                newEntry[id] = position.getEntryPrice();
+                newMargin[id] = position.getMargin();
+                newSide[id] = (byte) (position.getPositionSideEnum() == PositionSideEnum.SHORT ? -1 : 1);
+                markPrice[ex][id] = position.getCurrentPrice();
+            }
 
-            // 两所本金偏离 ≥ 1%
-            if (bnPos != null && bgPos != null) {
-                checkMarginAndFundingDiff(symbol, "BN", bnPos, bnFundingRate, "Bitget", bgPos, bgFundingRate);
+            boolean heldChanged = false;
+            for (int id = 0; id < capacity; id++) {
+                if (newSide[id] == side[ex][id] && newEntry[id] == entryPrice[ex][id] && newMargin[id] == margin[ex][id]) {
+                    continue;
+                }
+                heldChanged |= (newSide[id] == 0) != (side[ex][id] == 0);
+                entryPrice[ex][id] = newEntry[id];
+                margin[ex][id] = newMargin[id];
+                side[ex][id] = newSide[id];
+                positionEvents.increment();
+                evaluate(snapshot, id, receivedAt);
             }
-            if (bnPos != null && okxPos != null) {
-                checkMarginAndFundingDiff(symbol, "BN", bnPos, bnFundingRate, "OKX", okxPos, okxFundingRate);
+            if (heldChanged) {
+                rebuildHeld();
             }
-            if (okxPos != null && bgPos != null) {
-                checkMarginAndFundingDiff(symbol, "OKX", okxPos, okxFundingRate, "Bitget", bgPos, bgFundingRate);
+        } catch (Exception e) {
+            log.error("🚫 风控更新 {} 仓位失败", exchange.getAbbr(), e);
+        }
+    }
+
+    private void rebuildHeld() {
+        int[] ids = new int[capacity];
+        int n = 0;
+        for (int id = 0; id < capacity; id++) {
+            for (byte[] row : side) {
+                if (row[id] != 0) {
+                    ids[n++] = id;
+                    break;
+                }
             }
         }
+        held = Arrays.copyOf(ids, n);
     }
 
-    private void checkMarginAndFundingDiff(String symbol,
-                                            String nameA, Position posA, FundingRate rateA,
-                                            String nameB, Position posB, FundingRate rateB) {
-        double marginDiff = Math.abs(posA.getMargin() - posB.getMargin()) / posA.getMargin();
-        if (marginDiff > marginDiffPer) {
-            notifier.send("⚠️ 持仓本金差异过大：" + symbol +
-                    " " + nameA + ": " + String.format("%.4f", posA.getMargin()) +
-                    " vs " + nameB + ": " + String.format("%.4f", posB.getMargin()));
+    // ── 指标 ─────────────────────────────────────────────────────────────────
+
+    /** 重算一个合约的全部指标并按需提醒。 */
+    private void evaluate(MarketSnapshot snapshot, int id, long receivedAt) {
+        long cooldown = TimeUnit.MINUTES.toMillis(alertCooldownMinutes);
+        String symbol = snapshot.symbol(id);
+
+        // 价格偏离
+        for (int ex = 0; ex < EXCHANGES.length; ex++) {
+            SymbolQuote quote = snapshot.quote(EXCHANGES[ex], id);
+            seen[ex][id] = quote;
+            if (quote != null && quote.hasPrice()) {
+                markPrice[ex][id] = quote.price;
+            }
+            if (side[ex][id] == 0 || entryPrice[ex][id] <= 0) {
+                priceDeviation[ex][id] = 0;
+                clear(priceBreached[ex], id, "price", EXCHANGES[ex].getAbbr(), symbol);
+                continue;
+            }
+            double deviation = (markPrice[ex][id] - entryPrice[ex][id]) / entryPrice[ex][id];
+            priceDeviation[ex][id] = deviation;
+            if (Math.abs(deviation) < priceDiffPer) {
+                clear(priceBreached[ex], id, "price", EXCHANGES[ex].getAbbr(), symbol);
+            } else {
+                priceBreached[ex][id] = true;
+                double entry = entryPrice[ex][id];
+                double mark = markPrice[ex][id];
+                ExchangeEnum exchange = EXCHANGES[ex];
+                notifier.send(key("price", exchange.getAbbr(), symbol), () -> "🚨 " + exchange + " " + symbol + " 价格偏离超 " +
+                        new BigDecimal(deviation * 100).setScale(2, RoundingMode.FLOOR) + "%: " +
+                        new BigDecimal(entry).setScale(5, RoundingMode.FLOOR) + " → " +
+                        new BigDecimal(mark).setScale(5, RoundingMode.FLOOR), cooldown);
+            }
         }
 
-        if (rateA != null && rateB != null && Math.abs(rateA.getRate() - rateB.getRate()) < 0.001) {
-            notifier.send("⚠️ 持仓费率差异过小：" + symbol +
-                    " " + nameA + ": " + String.format("%.4f", rateA.getRate()) +
-                    " vs " + nameB + ": " + String.format("%.4f", rateB.getRate()));
+        // 两两本金偏差、资金费率方向
+        for (int p = 0; p < pairCount; p++) {
+            int a = pairA[p];
+            int b = pairB[p];
+            String nameA = EXCHANGES[a].getAbbr();
+            String nameB = EXCHANGES[b].getAbbr();
+            String pair = nameA + "/" + nameB;
+            if (side[a][id] == 0 || side[b][id] == 0 || margin[a][id] <= 0) {
+                marginSkew[p][id] = 0;
+                clear(marginBreached[p], id, "margin", pair, symbol);
+                fundingCarry[p][id] = Double.NaN;
+                clear(fundingBreached[p], id, "funding", pair, symbol);
+                continue;
+            }
+
+            double marginA = margin[a][id];
+            double marginB = margin[b][id];
+            double skew = Math.abs(marginA - marginB) / marginA;
+            marginSkew[p][id] = skew;
+            if (skew <= marginDiffPer) {
+                clear(marginBreached[p], id, "margin", pair, symbol);
+            } else {
+                marginBreached[p][id] = true;
+                notifier.send(key("margin", pair, symbol), () -> "⚠️ 持仓本金差异过大：" + symbol +
+                        " " + nameA + ": " + String.format("%.4f", marginA) +
+                        " vs " + nameB + ": " + String.format("%.4f", marginB), cooldown);
+            }
+
+            // 对冲仓位收取的费率 = 空头一侧费率 - 多头一侧费率，为负说明方向反了
+            SymbolQuote quoteA = snapshot.quote(EXCHANGES[a], id);
+            SymbolQuote quoteB = snapshot.quote(EXCHANGES[b], id);
+            if (side[a][id] == side[b][id] || quoteA == null || quoteB == null || !quoteA.hasFunding() || !quoteB.hasFunding()) {
+                // 无法判断费率方向，按恢复处理，否则下次真正超限会被当成仍在持续而去重
+                fundingCarry[p][id] = Double.NaN;
+                clear(fundingBreached[p], id, "funding", pair, symbol);
+                continue;
+            }
+            double carry = side[a][id] < 0 ? quoteA.fundingRate - quoteB.fundingRate : quoteB.fundingRate - quoteA.fundingRate;
+            fundingCarry[p][id] = carry;
+            if (carry >= FUNDING_MIN_CARRY) {
+                clear(fundingBreached[p], id, "funding", pair, symbol);
+            } else {
+                fundingBreached[p][id] = true;
+                notifier.send(key("funding", pair, symbol), () -> (carry < 0 ? "🚨 持仓费率方向反转：" : "⚠️ 持仓费率差异过小：") + symbol +
+                        " " + nameA + ": " + String.format("%.4f", quoteA.fundingRate) +
+                        " vs " + nameB + ": " + String.format("%.4f", quoteB.fundingRate), cooldown);
+            }
         }
-    }
 
-    private Map<String, Position> toMap(List<Position> positions) {
-        return positions.stream()
-                .collect(Collectors.toMap(Position::getSymbol, p -> p));
+        evaluations.increment();
+        long lag = (System.nanoTime() - receivedAt) / 1000;
+        lagTotalMicros.add(lag);
+        if (lag > maxLagMicros) {
+            maxLagMicros = lag;
+        }
     }
 
-    private void checkPriceDiff(String symbol, Position position) {
-        if (position == null) {
-            return;
+    /** 指标恢复正常：清除该提醒 key 的冷却，下次超限立即提醒。只在状态变化时拼 key。 */
+    private void clear(boolean[] breached, int id, String metric, String exchanges, String symbol) {
+        if (breached[id]) {
+            breached[id] = false;
+            notifier.clearCooldown(key(metric, exchanges, symbol));
         }
+    }
+
+    private static String key(String metric, String exchanges, String symbol) {
+        return "risk_" + metric + "_" + exchanges + "_" + symbol;
+    }
 
-        double priceDiffPerTemp = (position.getCurrentPrice() - position.getEntryPrice()) / position.getEntryPrice();
-        if (Math.abs(priceDiffPerTemp) >= priceDiffPer) {
-            notifier.send("🚨 " + position.getExchange() + " " + symbol + " 价格偏离超 " +
-                    new BigDecimal(priceDiffPerTemp * 100).setScale(2, RoundingMode.FLOOR) + "%: " +
-                    new BigDecimal(position.getEntryPrice()).setScale(5, RoundingMode.FLOOR) + " → " +
-                    new BigDecimal(position.getCurrentPrice()).setScale(5, RoundingMode.FLOOR));
+    private boolean quotesChanged(MarketSnapshot snapshot, int id) {
+        for (int ex = 0; ex < EXCHANGES.length; ex++) {
+            if (snapshot.quote(EXCHANGES[ex], id) != seen[ex][id]) {
+                return true;
+            }
         }
+        return false;
     }
 
-}
\ No newline at end of file
+    /** 合约 id 只增不减，扩容时保留已有状态。 */
+    private void ensureCapacity(int symbolCount) {
+        if (symbolCount <= capacity) {
+            return;
+        }
+        int size = Math.max(symbolCount, capacity * 2);
+        for (int ex = 0; ex < EXCHANGES.length; ex++) {
+            entryPrice[ex] = Arrays.copyOf(entryPrice[ex], size);
+            markPrice[ex] = Arrays.copyOf(markPrice[ex], size);
+            margin[ex] = Arrays.copyOf(margin[ex], size);
+            side[ex] = Arrays.copyOf(side[ex], size);
+            priceDeviation[ex] = Arrays.copyOf(priceDeviation[ex], size);
+            priceBreached[ex] = Arrays.copyOf(priceBreached[ex], size);
+            seen[ex] = Arrays.copyOf(seen[ex], size);
+        }
+        for (int p = 0; p < pairCount; p++) {
+            marginSkew[p] = Arrays.copyOf(marginSkew[p], size);
+            marginBreached[p] = Arrays.copyOf(marginBreached[p], size);
+            fundingCarry[p] = Arrays.copyOf(fundingCarry[p], size);
+            fundingBreached[p] = Arrays.copyOf(fundingBreached[p], size);
+        }
+        capacity = size;
+    }
+}
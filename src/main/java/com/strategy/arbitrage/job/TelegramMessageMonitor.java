@@ -2,78 +2,207 @@ package com.strategy.arbitrage.job;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.strategy.arbitrage.common.enums.TelegramOperateEnum;
+import com.strategy.arbitrage.model.telegram.Chat;
 import com.strategy.arbitrage.model.telegram.Update;
 import com.strategy.arbitrage.model.telegram.UpdateResponse;
 import com.strategy.arbitrage.service.TradeService;
+import com.strategy.arbitrage.HttpUtil;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Telegram 命令入口：getUpdates 长轮询（timeout=long-poll-seconds），有消息时立即返回，空闲时一个请求挂 50 秒。
+ * <p>
+ * 轮询线程只负责取更新、推进 offset，命令解析和 TradeService 调用在单独的命令线程上按顺序执行，
+ * 下单慢不会耽误下一次取更新。每条命令记录从收到响应到开始分发的耗时（receive→dispatch），
+ * 以及消息发送时间到收到的耗时。
+ * <p>
+ * 默认关闭（telegram.command.enabled）。启动时先用 offset=-1 取最新一条更新并从它之后开始，
+ * 停机期间积压的旧命令不会被当成新命令下单；只处理 chat.id 等于 telegram.chatId 的消息。
+ */
 @Slf4j
 @Component
 public class TelegramMessageMonitor {
 
+    private static final long MIN_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
     @Value("${telegram.botToken:7960913304:AAFiw3cDQBQdxgrNAYqaF80TCXoWEPwJV7Y}")
     private String botToken;
     @Value("${telegram.chatId:-4945032554}")
     private String chatId;
+    @Value("${telegram.command.enabled:false}")
+    private boolean enabled;
+    @Value("${telegram.command.long-poll-seconds:50}")
+    private int longPollSeconds;
 
     private String baseUrl;
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final CloseableHttpClient httpClient = HttpClients.createDefault();
     private long lastUpdateId = 0;
 
+    private OkHttpClient pollClient;
+    private Thread poller;
+    private volatile Call inFlight;
+    private volatile boolean running;
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "telegram-command");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder dispatchTotalMicros = new LongAdder();
+    private final LongAccumulator dispatchMaxMicros = new LongAccumulator(Math::max, 0);
+
     @Resource
     private TradeService tradeService;
 
     @PostConstruct
     public void init() {
         baseUrl = "https://api.telegram.org/bot" + botToken;
+        if (!enabled) {
+            return;
+        }
+        // 读超时和整体超时都要大于长轮询的挂起时间
+        pollClient = HttpUtil.telegramClient().newBuilder()
+                .readTimeout(longPollSeconds + 10, TimeUnit.SECONDS)
+                .callTimeout(longPollSeconds + 15, TimeUnit.SECONDS)
+                .build();
+        running = true;
+        poller = new Thread(this::pollLoop, "telegram-poller");
+        poller.setDaemon(true);
+        poller.start();
+        log.info("📥 Telegram 命令长轮询已启动 timeout={}s", longPollSeconds);
     }
 
-//    @Scheduled(fixedDelay = 2000) // 每 2 秒轮询一次
-    public void poll() {
-        fetchUpdates();
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Call call = inFlight;
+        if (call != null) {
+            call.cancel();
+        }
+        dispatcher.shutdownNow();
+    }
+
+    public Map<String, Long> stats() {
+        long count = commands.sum();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("commands", count);
+        stats.put("avgDispatchUs", count == 0 ? 0 : dispatchTotalMicros.sum() / count);
+        stats.put("maxDispatchUs", dispatchMaxMicros.get());
+        return stats;
     }
 
-    public void fetchUpdates() {
-        String url = baseUrl + "/getUpdates?offset=" + (lastUpdateId + 1) + "&timeout=0";
+    // ── 轮询线程 ──────────────────────────────────────────────────────────────
 
-        try {
-            HttpGet request = new HttpGet(url);
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                if (response.getStatusLine().getStatusCode() == 200) {
-                    UpdateResponse updateResponse = objectMapper.readValue(
-                            response.getEntity().getContent(), UpdateResponse.class);
-
-                    if (updateResponse.isOk()) {
-                        for (Update update : updateResponse.getResult()) {
-                            processUpdate(update);
-                            lastUpdateId = Math.max(lastUpdateId, update.getUpdate_id());
-                        }
-                    }
+    private void pollLoop() {
+        long backoffMs = MIN_BACKOFF_MS;
+        boolean skipped = false;
+        while (running) {
+            try {
+                if (!skipped) {
+                    skipBacklog();
+                    skipped = true;
+                }
+                fetchUpdates();
+                backoffMs = MIN_BACKOFF_MS;
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                log.error("Failed to fetch Telegram updates, retry in {}ms: {}", backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
                 }
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
             }
-        } catch (IOException e) {
-            log.error("Failed to fetch Telegram updates", e);
         }
     }
 
-    private void processUpdate(Update update) {
+    /** 丢弃启动前积压的更新：offset=-1 只返回最新一条，之后从它的下一条开始取。 */
+    private void skipBacklog() throws IOException {
+        Request request = new Request.Builder()
+                .url(baseUrl + "/getUpdates?offset=-1&timeout=0&allowed_updates=%5B%22message%22%5D")
+                .get().build();
+        Call call = pollClient.newCall(request);
+        inFlight = call;
+        try (Response response = call.execute()) {
+            if (response.code() != 200) {
+                throw new IOException("getUpdates " + response.code() + " " + response.message());
+            }
+            UpdateResponse updateResponse = objectMapper.readValue(response.body().byteStream(), UpdateResponse.class);
+            if (updateResponse.isOk() && updateResponse.getResult() != null) {
+                for (Update update : updateResponse.getResult()) {
+                    lastUpdateId = Math.max(lastUpdateId, update.getUpdate_id());
+                }
+            }
+            log.info("📥 Telegram 启动前积压的更新已丢弃，从 update_id>{} 开始处理", lastUpdateId);
+        } finally {
+            inFlight = null;
+        }
+    }
+
+    /** 一次长轮询：有更新或超时返回，更新交给命令线程。 */
+    public void fetchUpdates() throws IOException {
+        String url = baseUrl + "/getUpdates?offset=" + (lastUpdateId + 1) + "&timeout=" + longPollSeconds
+                + "&allowed_updates=%5B%22message%22%5D";
+
+        Request request = new Request.Builder().url(url).get().build();
+        Call call = pollClient.newCall(request);
+        inFlight = call;
+        try (Response response = call.execute()) {
+            long receivedAt = System.nanoTime();
+            if (response.code() != 200) {
+                throw new IOException("getUpdates " + response.code() + " " + response.message());
+            }
+            UpdateResponse updateResponse = objectMapper.readValue(response.body().byteStream(), UpdateResponse.class);
+            if (!updateResponse.isOk() || updateResponse.getResult() == null) {
+                return;
+            }
+            for (Update update : updateResponse.getResult()) {
+                lastUpdateId = Math.max(lastUpdateId, update.getUpdate_id());
+                dispatcher.execute(() -> processUpdate(update, receivedAt));
+            }
+        } finally {
+            inFlight = null;
+        }
+    }
+
+    // ── 命令线程 ──────────────────────────────────────────────────────────────
+
+    private void processUpdate(Update update, long receivedAt) {
         if (update.getMessage() != null && update.getMessage().getText() != null) {
             String text = update.getMessage().getText();
             Long chatId = update.getMessage().getFrom().getId();
+            Long sentAt = update.getMessage().getDate();
+            Chat chat = update.getMessage().getChat();
+            if (chat == null || !this.chatId.equals(String.valueOf(chat.getId()))) {
+                log.warn("忽略非指定会话的消息: {} from {} chat={}", text, chatId, chat == null ? null : chat.getId());
+                return;
+            }
 
             log.info("收到消息: {} from {} ", text, chatId);
             String[] commands = text.split(" ");
@@ -82,12 +211,15 @@ public class TelegramMessageMonitor {
                 // 这里可以调用你原来的命令处理逻辑
                 if (text.startsWith("/open")) {
                     // /open okx bn COAIUSDT 2000 5
+                    recordDispatch(commands[0], receivedAt, sentAt);
                     tradeService.trade(TelegramOperateEnum.OPEN, commands[1], commands[2], commands[3], commands[4], commands[5]);
                 } else if (text.startsWith("/close")) {
                     // /close okx bn COAIUSDT 2000 5
+                    recordDispatch(commands[0], receivedAt, sentAt);
                     tradeService.trade(TelegramOperateEnum.CLOSE, commands[1], commands[2], commands[3], commands[4], null);
                 } else if (text.startsWith("/testTrade")) {
                     // /testTrade open long bg COAIUSDT 10 5
+                    recordDispatch(commands[0], receivedAt, sentAt);
                     tradeService.order(TelegramOperateEnum.getByAbbr(commands[1]), commands[2], commands[3], commands[4], commands[5], commands[6]);
                 } else {
                     sendMessage(chatId, "支持命令：/open /close 参数 {exchange1} {exchange2} {symbol} {margin} {lever}");
@@ -99,19 +231,29 @@ public class TelegramMessageMonitor {
         }
     }
 
+    /** receive→dispatch：从拿到 getUpdates 响应到开始调用 TradeService。 */
+    private void recordDispatch(String command, long receivedAt, Long sentAt) {
+        long micros = (System.nanoTime() - receivedAt) / 1000;
+        commands.increment();
+        dispatchTotalMicros.add(micros);
+        dispatchMaxMicros.accumulate(micros);
+        long deliveryMs = sentAt == null ? -1 : System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(sentAt);
+        log.info("⏱️ 命令 {} 接收→分发 {}us，发送→接收约 {}ms", command, micros, deliveryMs);
+    }
+
     private void sendMessage(Long chatId, String text) {
         try {
             String encodedText = URLEncoder.encode(text, StandardCharsets.UTF_8);
             String url = baseUrl + "/sendMessage?chat_id=" + chatId + "&text=" + encodedText;
 
-            HttpGet request = new HttpGet(url);
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                if (response.getStatusLine().getStatusCode() != 200) {
-                    log.error("发送失败: {}", response.getStatusLine());
+            Request request = new Request.Builder().url(url).get().build();
+            try (Response response = HttpUtil.telegramClient().newCall(request).execute()) {
+                if (response.code() != 200) {
+                    log.error("发送失败: {} {}", response.code(), response.message());
                 }
             }
         } catch (IOException e) {
             log.error("Failed to send Telegram message to chatId={}", chatId, e);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,10 @@
 package com.strategy.arbitrage.job;
 
-import com.strategy.arbitrage.common.constant.StaticConstant;
 import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.market.FundingSpread;
+import com.strategy.arbitrage.market.FundingSpreadEngine;
+import com.strategy.arbitrage.market.MarketSnapshot;
+import com.strategy.arbitrage.market.MarketSnapshotStore;
 import com.strategy.arbitrage.model.FundingRate;
 import com.strategy.arbitrage.service.BgApiService;
 import com.strategy.arbitrage.service.BnApiService;
@@ -12,10 +15,8 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
 
 @Slf4j
 @Component
@@ -37,89 +38,48 @@ public class TriExchangeFundingMonitor {
     @Resource
     private OkxApiService okxApiService;
 
+    private final FundingSpreadEngine spreadEngine = new FundingSpreadEngine(TOP_N);
+
 //    @Scheduled(fixedRate = POLLING_INTERVAL_MINUTES * 60 * 1000, initialDelay = 3 * 1000)
     public void run() {
-        if (!StaticConstant.initFlag) {
+        if (!MarketSnapshotStore.isReady()) {
             log.info("⏳ 数据未初始化，跳过本轮资金费率监控");
             return;
         }
+        // 本轮只读同一个快照，各交易所数据来自同一版本
+        MarketSnapshot snapshot = MarketSnapshotStore.current();
+        log.info("📦 行情快照 v{}，{} 秒前发布", snapshot.version(), snapshot.ageMillis() / 1000);
 
         if (diffFundRateShow) {
-            log.info("🔍 三交易所资金费率监控系统启动（OKX + 币安 + Bitget）...");
+            log.info("🔍 多交易所资金费率监控系统启动（{} 个交易所两两对比）...", ExchangeEnum.values().length);
             log.info("📊 每 {} 分钟输出资金费率差距最大的前 {} 组合", POLLING_INTERVAL_MINUTES, TOP_N);
 
-            List<RateDiff> diffs = new ArrayList<>();
-            // 两两对比：OKX vs 币安
-            compareAndAdd(diffs, "OKX", "Binance", StaticConstant.okxFunding, StaticConstant.binanceFunding, StaticConstant.okxPrice, StaticConstant.binancePrice);
-            // OKX vs Bitget
-            compareAndAdd(diffs, "OKX", "Bitget", StaticConstant.okxFunding, StaticConstant.bitgetFunding, StaticConstant.okxPrice, StaticConstant.bitgetPrice);
-            // 币安 vs Bitget
-            compareAndAdd(diffs, "Binance", "Bitget", StaticConstant.binanceFunding, StaticConstant.bitgetFunding, StaticConstant.binancePrice, StaticConstant.bitgetPrice);
-
-            // 按利差排序，取 Top 20
-            diffs.sort((a, b) -> Double.compare(b.diff, a.diff));
-            List<RateDiff> top20 = diffs.size() > TOP_N ? diffs.subList(0, TOP_N) : diffs;
-            printTop20(top20);
+            // 按小时等效费率比较，只重算费率有变化的合约
+            List<FundingSpread> top = spreadEngine.update(snapshot);
+            log.info("📊 本轮重算 {} / {} 个合约", spreadEngine.lastRecomputed(), snapshot.symbolCount());
+            printTop20(top);
         }
 
         if (topFundRateShow) {
-            printTopByExchange(new ArrayList<>(StaticConstant.okxFunding.values()), ExchangeEnum.OKX.getAbbr());
-            printTopByExchange(new ArrayList<>(StaticConstant.binanceFunding.values()), ExchangeEnum.BINANCE.getAbbr());
-            printTopByExchange(new ArrayList<>(StaticConstant.bitgetFunding.values()), ExchangeEnum.BITGET.getAbbr());
-        }
-    }
-
-    // ================== 对比并添加 ==================
-    private static void compareAndAdd(List<RateDiff> list,
-                                     String exchangeA, String exchangeB,
-                                     Map<String, FundingRate> fundingA, Map<String, FundingRate> fundingB,
-                                     Map<String, Double> priceA, Map<String, Double> priceB) {
-
-        for (String symbolA : fundingA.keySet()) {
-            FundingRate rateB = fundingB.get(symbolA);
-            if (rateB == null) continue;
-
-            FundingRate rateA = fundingA.get(symbolA);
-            double diff = Math.abs(rateA.getRate() - rateB.getRate());
-            if (diff < 1e-8) continue; // 忽略极小差异
-
-            Double priceAA = priceA.get(symbolA);
-            Double priceBB = priceB.get(symbolA);
-            if (priceAA == null || priceBB == null || priceAA <= 0 || priceBB <= 0) {
-                continue;
+            for (ExchangeEnum exchange : ExchangeEnum.values()) {
+                printTopByExchange(snapshot.fundingRates(exchange), exchange.getAbbr());
             }
-
-            list.add(new RateDiff(
-                getCommonSymbol(symbolA, exchangeA),
-                exchangeA, exchangeB, priceAA, priceBB,
-                rateA.getInterval(), rateB.getInterval(),
-                rateA.getRate(), rateB.getRate(), diff
-            ));
-        }
-    }
-
-    // ================== 获取公共显示名称 ==================
-    private static String getCommonSymbol(String symbol, String exchange) {
-        if (exchange.equals("OKX")) {
-            return symbol.replace("-SWAP", "");
-        } else {
-            return symbol.split("_")[0];
         }
     }
 
     // ================== 打印 Top 20 ==================
-    private static void printTop20(List<RateDiff> list) {
+    private static void printTop20(List<FundingSpread> list) {
         System.out.println("\n" + "=".repeat(140));
         System.out.printf("%-16s %-8s %-8s %-8s %-10s %-10s %-10s %-10s %-8s %-8s %-10s %-10s%n",
-                "代币", "交易所A", "交易所B", "A价格", "B价格", "价差(%)", "A费率(%)", "B费率(%)", "A间隔", "B间隔",  "利差(%)", "A-B方向");
+                "代币", "交易所A", "交易所B", "A价格", "B价格", "价差(%)", "A费率(%)", "B费率(%)", "A间隔", "B间隔",  "时均利差(%)", "A-B方向");
         System.out.println("-".repeat(140));
 
-        for (RateDiff d : list) {
-            String direction = d.fundingRateA > d.fundingRateB ? "高→低" : "低→高";
+        for (FundingSpread d : list) {
+            String direction = d.hourlyRateA() > d.hourlyRateB() ? "高→低" : "低→高";
             System.out.printf("%-16s %-10s %-10s %-10.6f %-12.6f %-8.2f %-12.6f %-12.6f %-10d %-10d %-12.6f %-10s%n",
                     d.symbol,
-                    d.exchangeA,
-                    d.exchangeB,
+                    d.exchangeA.getName(),
+                    d.exchangeB.getName(),
                     d.priceA,
                     d.priceB,
                     Math.abs(d.priceA - d.priceB) / d.priceA * 100,
@@ -127,12 +87,12 @@ public class TriExchangeFundingMonitor {
                     d.fundingRateB * 100,
                     d.intervalA,
                     d.intervalB,
-                    d.diff * 100,
+                    d.hourlySpread * 100,
                     direction
             );
         }
         System.out.println("=".repeat(140));
-        System.out.printf("✅ 当前时间: %s | 共匹配 %d 个组合，已输出前 %d 名\n", new Date(), list.size(), Math.min(TOP_N, list.size()));
+        System.out.printf("✅ 当前时间: %s | 已输出前 %d 名\n", new Date(), list.size());
     }
 
     private static void printTopByExchange(List<FundingRate> rates, String exchange) {
@@ -144,28 +104,4 @@ public class TriExchangeFundingMonitor {
         System.out.println("-".repeat(50));
         filtered.forEach(System.out::println);
     }
-
-    // ================== 数据模型 ==================
-    static class RateDiff {
-        String symbol;
-        String exchangeA, exchangeB;
-        double priceA, priceB;
-        long intervalA, intervalB;
-        double fundingRateA, fundingRateB, diff;
-
-        public RateDiff(String symbol, String exchangeA, String exchangeB,
-                        double priceA, double priceB, long intervalA, long intervalB,
-                        double fundingRateA, double fundingRateB, double diff) {
-            this.symbol = symbol;
-            this.exchangeA = exchangeA;
-            this.exchangeB = exchangeB;
-            this.priceA = priceA;
-            this.priceB = priceB;
-            this.intervalA = intervalA;
-            this.intervalB = intervalB;
-            this.fundingRateA = fundingRateA;
-            this.fundingRateB = fundingRateB;
-            this.diff = diff;
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,247 @@
+package com.strategy.arbitrage.kline;
+
+import com.strategy.arbitrage.model.Kline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * kline 表的批量写入，用于历史回补（增量同步每次一两根，仍走 KlineMapper）。
+ * <ul>
+ *   <li>batch：每 batch-size 行一条多值 INSERT IGNORE，一次往返、一次提交</li>
+ *   <li>load-data：在内存里拼成制表符分隔的文本，用 LOAD DATA LOCAL INFILE 流式导入，不落盘。
+ *       需要 URL 带 allowLoadLocalInfile=true 且服务端开启 local_infile；失败时自动退回 batch</li>
+ * </ul>
+ * 两种方式都用服务端返回的影响行数统计实际插入的行（已存在被忽略的不算）。
+ * 回补每页最多 1500 根，调用方通过 {@link #buffer()} 跨页、跨区间攒够 batch-size 再写。
+ * 驱动是 runtime 依赖，设置输入流的 JdbcStatement.setLocalInfileInputStream 通过反射调用。
+ * 写完 kline 后同一批再交给 {@link KlineCompactWriter}。
+ */
+@Slf4j
+@Component
+public class KlineBulkWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT IGNORE INTO kline (symbol, interval_type, open_time, open, high, low, close, volume, close_time) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    /** 每行 9 个占位符，一条预编译语句最多 65535 个。 */
+    private static final int MAX_ROWS_PER_STATEMENT = 65535 / 9;
+    private static final String LOAD_SQL =
+            "LOAD DATA LOCAL INFILE 'klines.tsv' IGNORE INTO TABLE kline " +
+            "FIELDS TERMINATED BY '\\t' LINES TERMINATED BY '\\n' " +
+            "(symbol, interval_type, open_time, open, high, low, close, volume, close_time)";
+    private static final String LOAD_DATA = "load-data";
+
+    @Value("${kline.ingest.mode:batch}")
+    private String mode;
+    @Value("${kline.ingest.batch-size:5000}")
+    private int batchSize;
+
+    @Resource
+    private DataSource dataSource;
+    @Resource
+    private KlineCompactWriter klineCompactWriter;
+
+    /** load-data 失败过一次后不再尝试。 */
+    private volatile boolean loadDataDisabled;
+
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    /** 写入一批 K 线（已存在的忽略），返回实际插入的行数。 */
+    public long write(List<Kline> klines) throws SQLException {
+        if (klines.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        long count;
+        if (LOAD_DATA.equals(mode) && !loadDataDisabled) {
+            try {
+                count = loadData(klines);
+            } catch (SQLException | ReflectiveOperationException e) {
+                loadDataDisabled = true;
+                log.warn("LOAD DATA LOCAL INFILE 不可用，改用 JDBC 批量写入: {}", e.getMessage());
+                count = batchInsert(klines);
+            }
+        } else {
+            count = batchInsert(klines);
+        }
+        klineCompactWriter.write(klines);
+        long elapsed = System.nanoTime() - start;
+        rows.add(klines.size());
+        inserted.add(count);
+        batches.increment();
+        nanos.add(elapsed);
+        log.debug("K线批量写入 {} 行，插入 {} 行，{} 行/s", klines.size(), count, perSecond(klines.size(), elapsed));
+        return count;
+    }
+
+    /** 新建一个写缓冲，可以在多个线程间共享。 */
+    public Buffer buffer() {
+        return new Buffer();
+    }
+
+    /** rows 为提交的行数，inserted 为实际插入的行数。 */
+    public Map<String, Long> stats() {
+        long total = rows.sum();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("rows", total);
+        stats.put("inserted", inserted.sum());
+        stats.put("batches", batches.sum());
+        stats.put("millis", TimeUnit.NANOSECONDS.toMillis(nanos.sum()));
+        stats.put("rowsPerSecond", perSecond(total, nanos.sum()));
+        return stats;
+    }
+
+    /**
+     * 攒够 batch-size 行才写一次库。每次加入时可以附带一个回调（如更新回补断点），
+     * 回调在这次加入的行写入之后才执行，写入失败时丢弃，断点不会越过没写进去的数据。
+     * 写库在锁内进行，各批按加入顺序落库。
+     */
+    public final class Buffer {
+
+        private final List<Kline> rows = new ArrayList<>();
+        private final List<Runnable> callbacks = new ArrayList<>();
+        private long inserted;
+
+        private Buffer() {}
+
+        public synchronized void add(List<Kline> klines, Runnable afterWrite) throws SQLException {
+            rows.addAll(klines);
+            if (afterWrite != null) {
+                callbacks.add(afterWrite);
+            }
+            if (rows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        /** 写入剩余的行并执行回调，返回这个缓冲累计插入的行数。 */
+        public synchronized long flush() throws SQLException {
+            List<Kline> pending = new ArrayList<>(rows);
+            List<Runnable> done = new ArrayList<>(callbacks);
+            rows.clear();
+            callbacks.clear();
+            if (!pending.isEmpty()) {
+                inserted += write(pending);
+            }
+            done.forEach(Runnable::run);
+            return inserted;
+        }
+
+        public synchronized long inserted() {
+            return inserted;
+        }
+    }
+
+    private static long perSecond(long count, long elapsedNanos) {
+        return elapsedNanos == 0 ? 0 : count * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /** 每 batch-size 行一条多值 INSERT IGNORE 并提交，返回插入的行数。 */
+    private long batchInsert(List<Kline> klines) throws SQLException {
+        int chunkSize = Math.min(batchSize, MAX_ROWS_PER_STATEMENT);
+        long count = 0;
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                for (int from = 0; from < klines.size(); from += chunkSize) {
+                    List<Kline> chunk = klines.subList(from, Math.min(klines.size(), from + chunkSize));
+                    try (PreparedStatement ps = conn.prepareStatement(insertSql(chunk.size()))) {
+                        int i = 0;
+                        for (Kline k : chunk) {
+                            ps.setString(++i, k.getSymbol());
+                            ps.setString(++i, k.getIntervalType());
+                            ps.setLong(++i, k.getOpenTime());
+                            ps.setDouble(++i, k.getOpen());
+                            ps.setDouble(++i, k.getHigh());
+                            ps.setDouble(++i, k.getLow());
+                            ps.setDouble(++i, k.getClose());
+                            ps.setDouble(++i, k.getVolume());
+                            ps.setLong(++i, k.getCloseTime());
+                        }
+                        count += ps.executeUpdate();
+                    }
+                    conn.commit();
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        return count;
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_SQL.length() + rows * (ROW_PLACEHOLDERS.length() + 1));
+        sql.append(INSERT_SQL);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(ROW_PLACEHOLDERS);
+        }
+        return sql.toString();
+    }
+
+    private long loadData(List<Kline> klines) throws SQLException, ReflectiveOperationException {
+        long count = 0;
+        try (Connection conn = dataSource.getConnection();
+             Statement statement = conn.createStatement()) {
+            Class<?> jdbcStatement = Class.forName("com.mysql.cj.jdbc.JdbcStatement");
+            Method setStream = jdbcStatement.getMethod("setLocalInfileInputStream", InputStream.class);
+            Object target = statement.unwrap(jdbcStatement);
+            for (int from = 0; from < klines.size(); from += batchSize) {
+                List<Kline> chunk = klines.subList(from, Math.min(klines.size(), from + batchSize));
+                setStream.invoke(target, new ByteArrayInputStream(toTsv(chunk)));
+                statement.execute(LOAD_SQL);
+                count += Math.max(0, statement.getUpdateCount());
+            }
+        }
+        return count;
+    }
+
+    private static byte[] toTsv(List<Kline> klines) {
+        StringBuilder sb = new StringBuilder(klines.size() * 96);
+        for (Kline k : klines) {
+            sb.append(k.getSymbol()).append('\t')
+              .append(k.getIntervalType()).append('\t')
+              .append(k.getOpenTime()).append('\t')
+              .append(plain(k.getOpen())).append('\t')
+              .append(plain(k.getHigh())).append('\t')
+              .append(plain(k.getLow())).append('\t')
+              .append(plain(k.getClose())).append('\t')
+              .append(plain(k.getVolume())).append('\t')
+              .append(k.getCloseTime()).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** 不用科学计数法，DECIMAL 列按原值解析。 */
+    private static String plain(double value) {
+        return BigDecimal.valueOf(value).toPlainString();
+    }
+}
@@ -0,0 +1,161 @@
+package com.strategy.arbitrage.kline;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link KlineStore} 的只读列视图：每一列直接映射到文件，打开时不读取数据，按下标访问时才由系统分页载入。
+ * <p>
+ * 行数在映射时确定，之后追加的数据不可见，需要重新映射。
+ */
+public final class KlineColumns {
+
+    private final int size;
+    private final LongBuffer openTime;
+    private final LongBuffer closeTime;
+    private final DoubleBuffer open;
+    private final DoubleBuffer high;
+    private final DoubleBuffer low;
+    private final DoubleBuffer close;
+    private final DoubleBuffer volume;
+
+    private KlineColumns(int size, LongBuffer openTime, LongBuffer closeTime, DoubleBuffer open,
+                         DoubleBuffer high, DoubleBuffer low, DoubleBuffer close, DoubleBuffer volume) {
+        this.size = size;
+        this.openTime = openTime;
+        this.closeTime = closeTime;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+    }
+
+    /** 映射目录下前 size 行。 */
+    static KlineColumns map(Path dir, long size) throws IOException {
+        if (size * KlineStore.WIDTH > Integer.MAX_VALUE) {
+            throw new IOException("K线列文件超过单次映射上限: " + dir + " rows=" + size);
+        }
+        int rows = (int) size;
+        return new KlineColumns(rows,
+                mapBytes(dir, KlineStore.OPEN_TIME, rows).asLongBuffer(),
+                mapBytes(dir, KlineStore.CLOSE_TIME, rows).asLongBuffer(),
+                mapBytes(dir, KlineStore.OPEN, rows).asDoubleBuffer(),
+                mapBytes(dir, KlineStore.HIGH, rows).asDoubleBuffer(),
+                mapBytes(dir, KlineStore.LOW, rows).asDoubleBuffer(),
+                mapBytes(dir, KlineStore.CLOSE, rows).asDoubleBuffer(),
+                mapBytes(dir, KlineStore.VOLUME, rows).asDoubleBuffer());
+    }
+
+    private static MappedByteBuffer mapBytes(Path dir, int column, int rows) throws IOException {
+        try (FileChannel channel = FileChannel.open(KlineStore.columnFile(dir, column), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) rows * KlineStore.WIDTH);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    /** 只读打开一个已存在的存储，不存在或为空时返回 null。 */
+    public static KlineColumns open(Path root, String symbol, String interval) throws IOException {
+        Path dir = KlineStore.dir(root, symbol, interval);
+        if (!Files.exists(KlineStore.countFile(dir))) {
+            return null;
+        }
+        long size = KlineStore.committedSize(dir);
+        return size == 0 ? null : map(dir, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long openTime(int i) {
+        return openTime.get(i);
+    }
+
+    public long closeTime(int i) {
+        return closeTime.get(i);
+    }
+
+    public double open(int i) {
+        return open.get(i);
+    }
+
+    public double high(int i) {
+        return high.get(i);
+    }
+
+    public double low(int i) {
+        return low.get(i);
+    }
+
+    public double close(int i) {
+        return close.get(i);
+    }
+
+    public double volume(int i) {
+        return volume.get(i);
+    }
+
+    // ── 批量复制 [from, to) 到数组 ────────────────────────────────────────────
+
+    public long[] openTimes(int from, int to) {
+        long[] dst = new long[to - from];
+        openTime.get(from, dst, 0, dst.length);
+        return dst;
+    }
+
+    public long[] closeTimes(int from, int to) {
+        long[] dst = new long[to - from];
+        closeTime.get(from, dst, 0, dst.length);
+        return dst;
+    }
+
+    public double[] opens(int from, int to) {
+        return copy(open, from, to);
+    }
+
+    public double[] highs(int from, int to) {
+        return copy(high, from, to);
+    }
+
+    public double[] lows(int from, int to) {
+        return copy(low, from, to);
+    }
+
+    public double[] closes(int from, int to) {
+        return copy(close, from, to);
+    }
+
+    public double[] volumes(int from, int to) {
+        return copy(volume, from, to);
+    }
+
+    private static double[] copy(DoubleBuffer column, int from, int to) {
+        double[] dst = new double[to - from];
+        column.get(from, dst, 0, dst.length);
+        return dst;
+    }
+
+    /** 第一根 openTime 大于 time 的下标，没有时返回 size。 */
+    public int indexAfter(long time) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (openTime.get(mid) <= time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
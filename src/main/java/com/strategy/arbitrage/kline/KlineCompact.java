@@ -0,0 +1,127 @@
+package com.strategy.arbitrage.kline;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * kline_compact 表的编码约定：
+ * <ul>
+ *   <li>symbol 存 kline_symbol.id，周期存 {@link #intervalId} 的 TINYINT</li>
+ *   <li>价格 ×1e8 后取整存 BIGINT（与原 DECIMAL(30,8) 的精度一致）；成交量仍存 DECIMAL(30,8)，
+ *       个别合约的日线成交量 ×1e8 会超出 BIGINT，按整数缩放存会丢精度</li>
+ *   <li>close_time 不存，等于 open_time + 周期 - 1</li>
+ *   <li>按 open_time 的自然月（UTC）RANGE 分区，分区名 pYYYYMM，最后一个分区 p_max 兜底</li>
+ * </ul>
+ * 运行中由 {@link KlineCompactWriter} 随 kline 表同步写入，历史数据用 KlineCompactMigration 迁移。
+ */
+public final class KlineCompact {
+
+    public static final long PRICE_SCALE = 100_000_000L;
+    public static final int VOLUME_DECIMALS = 8;
+    /** 币安 U 本位合约上线的月份，月分区从这里开始。 */
+    public static final YearMonth FIRST_MONTH = YearMonth.of(2019, 9);
+
+    /** 下标即 interval_id，0 不用。只能在末尾追加。 */
+    private static final String[] INTERVALS = {
+            null, "1m", "3m", "5m", "15m", "30m", "1h", "2h", "4h", "6h", "8h", "12h", "1d", "3d", "1w"};
+
+    private KlineCompact() {}
+
+    public static int intervalId(String interval) {
+        for (int i = 1; i < INTERVALS.length; i++) {
+            if (INTERVALS[i].equals(interval)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("不支持的周期: " + interval);
+    }
+
+    public static String interval(int intervalId) {
+        return INTERVALS[intervalId];
+    }
+
+    public static long price(double value) {
+        return Math.round(value * PRICE_SCALE);
+    }
+
+    public static double price(long scaled) {
+        return (double) scaled / PRICE_SCALE;
+    }
+
+    public static BigDecimal volume(double value) {
+        return BigDecimal.valueOf(value).setScale(VOLUME_DECIMALS, RoundingMode.HALF_UP);
+    }
+
+    /** kline_symbol 中的 id，不存在时先插入。 */
+    public static int symbolId(Connection conn, String symbol) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("INSERT IGNORE INTO kline_symbol (symbol) VALUES (?)")) {
+            ps.setString(1, symbol);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement("SELECT id FROM kline_symbol WHERE symbol = ?")) {
+            ps.setString(1, symbol);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    /** 已拆出的按月分区的最大上界，只有 p_max 时返回 null。 */
+    public static Long partitionBound(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(
+                     "SELECT MAX(CAST(PARTITION_DESCRIPTION AS UNSIGNED)) FROM information_schema.PARTITIONS " +
+                     "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'kline_compact' " +
+                     "AND PARTITION_DESCRIPTION <> 'MAXVALUE'")) {
+            return rs.next() && rs.getObject(1) != null ? rs.getLong(1) : null;
+        }
+    }
+
+    public static String partitionName(YearMonth month) {
+        return String.format("p%04d%02d", month.getYear(), month.getMonthValue());
+    }
+
+    /** 该月分区的上界（下个月第一天 0 点，UTC 毫秒）。 */
+    public static long partitionBound(YearMonth month) {
+        return month.plusMonths(1).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    public static YearMonth month(long epochMillis) {
+        return YearMonth.from(Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC));
+    }
+
+    /**
+     * 把 p_max 拆出 [from, to] 各月分区的 DDL；from 之前已有分区时只能从已有上界之后开始，返回 null 表示无需拆分。
+     *
+     * @param existingBound 已有按月分区的最大上界，没有时传 null
+     */
+    public static String reorganizeDdl(Long existingBound, YearMonth from, YearMonth to) {
+        YearMonth start = from;
+        if (existingBound != null) {
+            YearMonth next = month(existingBound);
+            if (next.isAfter(start)) {
+                start = next;
+            }
+        }
+        if (start.isAfter(to)) {
+            return null;
+        }
+        List<String> parts = new ArrayList<>();
+        for (YearMonth m = start; !m.isAfter(to); m = m.plusMonths(1)) {
+            parts.add("PARTITION " + partitionName(m) + " VALUES LESS THAN (" + partitionBound(m) + ")");
+        }
+        parts.add("PARTITION p_max VALUES LESS THAN MAXVALUE");
+        return "ALTER TABLE kline_compact REORGANIZE PARTITION p_max INTO (" + String.join(", ", parts) + ")";
+    }
+}
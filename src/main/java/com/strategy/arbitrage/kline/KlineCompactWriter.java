@@ -0,0 +1,139 @@
+package com.strategy.arbitrage.kline;
+
+import com.strategy.arbitrage.model.Kline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 把写入 kline 表的 K 线同步写入 kline_compact，增量同步、回补、上级周期合成都经过这里，紧凑表不会在迁移后落后。
+ * <p>
+ * 按主键 upsert：合成周期重算同一个桶时覆盖旧值。数据落到尚未拆分的月份时先把 p_max 拆出该月分区。
+ * 写入失败只记日志，不影响 kline 表；之后重跑 KlineCompactMigration 会按月比对行数补齐。
+ */
+@Slf4j
+@Component
+public class KlineCompactWriter {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO kline_compact (symbol_id, interval_id, open_time, open, high, low, close, volume) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE open = VALUES(open), high = VALUES(high), low = VALUES(low), " +
+            "close = VALUES(close), volume = VALUES(volume)";
+
+    @Value("${kline.compact.enabled:true}")
+    private boolean enabled;
+    @Value("${kline.ingest.batch-size:5000}")
+    private int batchSize;
+
+    @Resource
+    private DataSource dataSource;
+
+    private final Map<String, Integer> symbolIds = new ConcurrentHashMap<>();
+    /** 已拆出的月分区上界，open_time 小于它的数据不需要再检查分区。 */
+    private volatile long partitionBound = Long.MIN_VALUE;
+
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** klines 可以混合多个 symbol 和周期。 */
+    public void write(List<Kline> klines) {
+        if (!enabled || klines.isEmpty()) {
+            return;
+        }
+        try (Connection conn = dataSource.getConnection()) {
+            long maxOpenTime = Long.MIN_VALUE;
+            for (Kline k : klines) {
+                maxOpenTime = Math.max(maxOpenTime, k.getOpenTime());
+            }
+            if (maxOpenTime >= partitionBound) {
+                ensurePartitions(conn, maxOpenTime);
+            }
+            upsert(conn, klines);
+            rows.add(klines.size());
+        } catch (SQLException e) {
+            failures.increment();
+            log.error("kline_compact 写入 {} 行失败: {}", klines.size(), e.getMessage());
+        }
+    }
+
+    public Map<String, Long> stats() {
+        return Map.of("rows", rows.sum(), "failures", failures.sum());
+    }
+
+    private void upsert(Connection conn, List<Kline> klines) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(UPSERT_SQL)) {
+            int pending = 0;
+            for (Kline k : klines) {
+                ps.setInt(1, symbolId(conn, k.getSymbol()));
+                ps.setInt(2, KlineCompact.intervalId(k.getIntervalType()));
+                ps.setLong(3, k.getOpenTime());
+                ps.setLong(4, KlineCompact.price(k.getOpen()));
+                ps.setLong(5, KlineCompact.price(k.getHigh()));
+                ps.setLong(6, KlineCompact.price(k.getLow()));
+                ps.setLong(7, KlineCompact.price(k.getClose()));
+                ps.setBigDecimal(8, KlineCompact.volume(k.getVolume()));
+                ps.addBatch();
+                if (++pending == batchSize) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                ps.executeBatch();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private int symbolId(Connection conn, String symbol) throws SQLException {
+        Integer id = symbolIds.get(symbol);
+        if (id == null) {
+            id = KlineCompact.symbolId(conn, symbol);
+            symbolIds.put(symbol, id);
+        }
+        return id;
+    }
+
+    /** 拆出到 maxOpenTime 下个月为止的月分区。 */
+    private synchronized void ensurePartitions(Connection conn, long maxOpenTime) throws SQLException {
+        if (maxOpenTime < partitionBound) {
+            return;
+        }
+        Long existing = KlineCompact.partitionBound(conn);
+        YearMonth to = KlineCompact.month(maxOpenTime).plusMonths(1);
+        // 还没有月分区时从最早可能的月份开始拆，之后迁移的历史数据也能落到各自的月分区
+        String ddl = KlineCompact.reorganizeDdl(existing, KlineCompact.FIRST_MONTH, to);
+        if (ddl != null) {
+            try (Statement st = conn.createStatement()) {
+                st.execute(ddl);
+            }
+            log.info("🗂️ kline_compact 分区已扩展至 {}", to);
+        }
+        partitionBound = KlineCompact.partitionBound(to);
+    }
+}
@@ -0,0 +1,20 @@
+package com.strategy.arbitrage.kline;
+
+/**
+ * K 线周期字符串（币安格式 1m / 5m / 1h / 4h / 1d / 1w）与毫秒数的换算。
+ */
+public final class KlineInterval {
+
+    private KlineInterval() {}
+
+    public static long millis(String interval) {
+        long value = Long.parseLong(interval.substring(0, interval.length() - 1));
+        return switch (interval.charAt(interval.length() - 1)) {
+            case 'm' -> value * 60_000L;
+            case 'h' -> value * 3_600_000L;
+            case 'd' -> value * 86_400_000L;
+            case 'w' -> value * 7 * 86_400_000L;
+            default -> throw new IllegalArgumentException("不支持的周期: " + interval);
+        };
+    }
+}
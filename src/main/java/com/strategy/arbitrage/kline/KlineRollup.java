@@ -0,0 +1,210 @@
+package com.strategy.arbitrage.kline;
+
+import com.strategy.arbitrage.mapper.KlineMapper;
+import com.strategy.arbitrage.model.Kline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 由已入库的 1m K 线合成上级周期（默认 5m / 15m / 1h / 4h / 1d），写回 kline 表（interval_type 为对应周期）和 kline_compact 并追加到本地列式存储，
+ * KlineMapper.findBySymbolAndInterval、回测加载都直接读到，不再向交易所请求上级周期。
+ * <ul>
+ *   <li>增量：每批 1m 入库后，每个周期各自只重算这批 K 线所在且已经收盘的桶，以及上一批之后新收盘的桶，
+ *       大多数分钟什么都不用做（1h 收盘时不会连带重算已经合成过的 5m / 15m）。
+ *       桶的最后一分钟入库才算收盘（而不是按本机时间），避免最后一分钟晚到时先存进一根残缺的桶；
+ *       已存入本地存储的桶被改写成不同的值时由 {@link KlineStoreService#upsert} 重建存储</li>
+ *   <li>回补：回补结束后按写入过数据的自然日（UTC）重算，一次读 {@link #DAYS_PER_QUERY} 天的 1m；
+ *       本地存储由回补方随后整体重建，这里只写表</li>
+ * </ul>
+ * 桶按 open_time 向下取整对齐（与币安一致，1d 从 UTC 0 点开始）；桶内缺分钟时照样合成，缺口补上后会再次命中并覆盖。
+ */
+@Slf4j
+@Component
+public class KlineRollup {
+
+    public static final String BASE = "1m";
+    private static final long DAY_MS = 86_400_000L;
+    private static final long BASE_MS = KlineInterval.millis(BASE);
+    private static final int DAYS_PER_QUERY = 7;
+
+    @Value("${kline.rollup.enabled:true}")
+    private boolean enabled;
+    @Value("${kline.rollup.intervals:5m,15m,1h,4h,1d}")
+    private String intervalConfig;
+
+    @Resource
+    private KlineMapper klineMapper;
+    @Resource
+    private KlineStoreService klineStoreService;
+    @Resource
+    private KlineCompactWriter klineCompactWriter;
+
+    private String[] intervals;
+    private long[] intervalMs;
+    /** symbol → 已入库 1m 的最新收盘时刻，用来找出上一批之后新收盘的桶。 */
+    private final Map<String, Long> closedUpTo = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        intervals = Arrays.stream(intervalConfig.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toArray(String[]::new);
+        intervalMs = new long[intervals.length];
+        for (int i = 0; i < intervals.length; i++) {
+            intervalMs[i] = KlineInterval.millis(intervals[i]);
+            if (intervalMs[i] > DAY_MS || DAY_MS % intervalMs[i] != 0) {
+                throw new IllegalArgumentException("合成周期须能整除一天: " + intervals[i]);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<String> intervals() {
+        return Arrays.asList(intervals);
+    }
+
+    /** 一批 1m 已入库：每个周期只重算它们所在且已收盘的桶，以及上一批之后新收盘的桶。 */
+    public void onIngest(String symbol, List<Kline> minutes) {
+        if (!enabled || minutes.isEmpty()) {
+            return;
+        }
+        // 已入库的最新一分钟收盘时刻；桶的结束不晚于它才算收盘
+        long closed = Long.MIN_VALUE;
+        for (Kline k : minutes) {
+            closed = Math.max(closed, k.getOpenTime() + BASE_MS);
+        }
+        Long previous = closedUpTo.get(symbol);
+        closedUpTo.merge(symbol, closed, Math::max);
+        // 上一批之后新收盘的桶结束于 (since, closed]：桶的最后一分钟缺失时靠后面的分钟收盘，最多回看一天
+        long since = previous == null ? closed : Math.max(previous, closed - DAY_MS);
+
+        long[] from = new long[intervals.length];
+        long[] to = new long[intervals.length];
+        for (int i = 0; i < intervals.length; i++) {
+            long ms = intervalMs[i];
+            from[i] = Long.MAX_VALUE;
+            to[i] = Long.MIN_VALUE;
+            if (since < closed && since / ms * ms < closed / ms * ms) {
+                from[i] = since / ms * ms;
+                to[i] = closed / ms * ms;
+            }
+            for (Kline k : minutes) {
+                long start = k.getOpenTime() / ms * ms;
+                if (start + ms <= closed) {
+                    from[i] = Math.min(from[i], start);
+                    to[i] = Math.max(to[i], start + ms);
+                }
+            }
+        }
+        rollup(symbol, from, to, true);
+    }
+
+    /** 回补后按自然日重算，days 为各日 0 点（UTC 毫秒）。 */
+    public void rollupDays(String symbol, SortedSet<Long> days) {
+        if (!enabled || days.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long from = -1;
+        long to = -1;
+        for (long day : days) {
+            // 连续的日子合并成一次查询，最多 DAYS_PER_QUERY 天
+            if (day == to && to - from < DAYS_PER_QUERY * DAY_MS) {
+                to = day + DAY_MS;
+                continue;
+            }
+            if (from >= 0) {
+                rollup(symbol, from, Math.min(to, start), false);
+            }
+            from = day;
+            to = day + DAY_MS;
+        }
+        rollup(symbol, from, Math.min(to, start), false);
+        log.info("🧮 上级周期合成 {}: {} 天，耗时 {}ms", symbol, days.size(), System.currentTimeMillis() - start);
+    }
+
+    public static long day(long openTime) {
+        return openTime / DAY_MS * DAY_MS;
+    }
+
+    /** 所有周期合成同一段 [from, until)。 */
+    private void rollup(String symbol, long from, long until, boolean toStore) {
+        long[] froms = new long[intervals.length];
+        long[] untils = new long[intervals.length];
+        Arrays.fill(froms, from);
+        Arrays.fill(untils, until);
+        rollup(symbol, froms, untils, toStore);
+    }
+
+    /**
+     * 每个周期 i 合成完整落在 [from[i], until[i]) 内的桶并写入（from[i] >= until[i] 的周期跳过），
+     * 1m 只按所有周期的并集读一次；toStore 时同步本地存储。
+     */
+    private void rollup(String symbol, long[] from, long[] until, boolean toStore) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < intervals.length; i++) {
+            if (from[i] < until[i]) {
+                min = Math.min(min, from[i]);
+                max = Math.max(max, until[i]);
+            }
+        }
+        if (min >= max) {
+            return;
+        }
+        List<Kline> base = klineMapper.findRange(symbol, BASE, min, max);
+        if (base.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < intervals.length; i++) {
+            if (from[i] >= until[i]) {
+                continue;
+            }
+            List<Kline> bars = aggregate(symbol, intervals[i], intervalMs[i], base, from[i], until[i]);
+            if (!bars.isEmpty()) {
+                klineMapper.batchUpsert(bars);
+                klineCompactWriter.write(bars);
+                if (toStore) {
+                    klineStoreService.upsert(symbol, intervals[i], bars);
+                }
+            }
+        }
+    }
+
+    /** base 按 openTime 升序；只输出 [from, until) 内完整的桶。 */
+    static List<Kline> aggregate(String symbol, String interval, long ms, List<Kline> base, long from, long until) {
+        List<Kline> bars = new ArrayList<>();
+        Kline bar = null;
+        for (Kline k : base) {
+            long start = k.getOpenTime() / ms * ms;
+            if (start < from || start + ms > until) {
+                continue;
+            }
+            if (bar == null || bar.getOpenTime() != start) {
+                bar = new Kline(null, symbol, interval, start,
+                        k.getOpen(), k.getHigh(), k.getLow(), k.getClose(), k.getVolume(), start + ms - 1);
+                bars.add(bar);
+                continue;
+            }
+            bar.setHigh(Math.max(bar.getHigh(), k.getHigh()));
+            bar.setLow(Math.min(bar.getLow(), k.getLow()));
+            bar.setClose(k.getClose());
+            bar.setVolume(bar.getVolume() + k.getVolume());
+        }
+        return bars;
+    }
+}
@@ -0,0 +1,244 @@
+package com.strategy.arbitrage.kline;
+
+import com.strategy.arbitrage.model.Kline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 本地列式 K 线存储，一个 symbol + 周期一个目录：
+ * <pre>
+ *   {root}/{SYMBOL}/{interval}/open_time.col close_time.col open.col high.col low.col close.col volume.col count
+ * </pre>
+ * 每列是定长 8 字节的小端 long / double 数组，只追加；count 记录已提交的行数。
+ * 追加时先写各列再写 count，进程中途退出时多写的尾部在下次打开时按 count 截掉。
+ * <p>
+ * 只接受 openTime 比已有最后一根更晚的 K 线，重复和更早的直接跳过（与 INSERT IGNORE 一致）。
+ * 读取用 {@link #map()} 或 {@link KlineColumns#open}，直接映射文件，不经过数据库。
+ */
+public final class KlineStore implements Closeable {
+
+    static final int WIDTH = 8;
+    static final int OPEN_TIME = 0;
+    static final int CLOSE_TIME = 1;
+    static final int OPEN = 2;
+    static final int HIGH = 3;
+    static final int LOW = 4;
+    static final int CLOSE = 5;
+    static final int VOLUME = 6;
+    private static final String[] COLUMNS = {"open_time", "close_time", "open", "high", "low", "close", "volume"};
+
+    private final Path dir;
+    private final FileChannel[] channels = new FileChannel[COLUMNS.length];
+    private final FileChannel countChannel;
+    private long size;
+    private long lastOpenTime = Long.MIN_VALUE;
+
+    private KlineStore(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        try {
+            for (int c = 0; c < COLUMNS.length; c++) {
+                channels[c] = FileChannel.open(columnFile(dir, c),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            countChannel = FileChannel.open(countFile(dir),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        size = readCount(countChannel);
+        for (FileChannel channel : channels) {
+            // 列文件比 count 短说明 count 损坏，按最短的列为准
+            size = Math.min(size, channel.size() / WIDTH);
+        }
+        for (FileChannel channel : channels) {
+            channel.truncate(size * WIDTH);
+        }
+        if (size > 0) {
+            ByteBuffer buf = ByteBuffer.allocate(WIDTH).order(ByteOrder.LITTLE_ENDIAN);
+            channels[OPEN_TIME].read(buf, (size - 1) * WIDTH);
+            lastOpenTime = buf.getLong(0);
+        }
+    }
+
+    /** 打开（不存在时创建）读写存储。同一目录同一时间只应有一个写入方。 */
+    public static KlineStore open(Path root, String symbol, String interval) throws IOException {
+        return new KlineStore(dir(root, symbol, interval));
+    }
+
+    public static boolean exists(Path root, String symbol, String interval) {
+        return Files.exists(countFile(dir(root, symbol, interval)));
+    }
+
+    /** 删除整个存储，调用前须先关闭。 */
+    public static void delete(Path root, String symbol, String interval) throws IOException {
+        Path dir = dir(root, symbol, interval);
+        Files.deleteIfExists(countFile(dir));
+        for (int c = 0; c < COLUMNS.length; c++) {
+            Files.deleteIfExists(columnFile(dir, c));
+        }
+    }
+
+    static Path dir(Path root, String symbol, String interval) {
+        return root.resolve(symbol).resolve(interval);
+    }
+
+    static Path columnFile(Path dir, int column) {
+        return dir.resolve(COLUMNS[column] + ".col");
+    }
+
+    static Path countFile(Path dir) {
+        return dir.resolve("count");
+    }
+
+    /** 另一个进程只读打开时读取已提交的行数。 */
+    static long committedSize(Path dir) throws IOException {
+        try (FileChannel channel = FileChannel.open(countFile(dir), StandardOpenOption.READ)) {
+            long size = readCount(channel);
+            for (int c = 0; c < COLUMNS.length; c++) {
+                size = Math.min(size, Files.size(columnFile(dir, c)) / WIDTH);
+            }
+            return size;
+        }
+    }
+
+    private static long readCount(FileChannel channel) throws IOException {
+        if (channel.size() < WIDTH) {
+            return 0;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(WIDTH).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(buf, 0);
+        return buf.getLong(0);
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    /** 最后一根的 openTime，空存储返回 {@link Long#MIN_VALUE}。 */
+    public synchronized long lastOpenTime() {
+        return lastOpenTime;
+    }
+
+    /**
+     * 追加一批按 openTime 升序的 K 线，返回实际写入的行数。
+     */
+    public synchronized int append(List<Kline> klines) throws IOException {
+        int rows = 0;
+        long last = lastOpenTime;
+        for (Kline k : klines) {
+            if (k.getOpenTime() > last) {
+                last = k.getOpenTime();
+                rows++;
+            }
+        }
+        if (rows == 0) {
+            return 0;
+        }
+
+        ByteBuffer[] buffers = new ByteBuffer[COLUMNS.length];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            buffers[c] = ByteBuffer.allocate(rows * WIDTH).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        last = lastOpenTime;
+        for (Kline k : klines) {
+            if (k.getOpenTime() <= last) {
+                continue;
+            }
+            last = k.getOpenTime();
+            buffers[OPEN_TIME].putLong(k.getOpenTime());
+            buffers[CLOSE_TIME].putLong(k.getCloseTime());
+            buffers[OPEN].putDouble(k.getOpen());
+            buffers[HIGH].putDouble(k.getHigh());
+            buffers[LOW].putDouble(k.getLow());
+            buffers[CLOSE].putDouble(k.getClose());
+            buffers[VOLUME].putDouble(k.getVolume());
+        }
+
+        long position = size * WIDTH;
+        for (int c = 0; c < COLUMNS.length; c++) {
+            ByteBuffer buf = buffers[c].flip();
+            long pos = position;
+            while (buf.hasRemaining()) {
+                pos += channels[c].write(buf, pos);
+            }
+        }
+        // 各列写完再提交行数
+        ByteBuffer count = ByteBuffer.allocate(WIDTH).order(ByteOrder.LITTLE_ENDIAN).putLong(0, size + rows);
+        countChannel.write(count, 0);
+
+        size += rows;
+        lastOpenTime = last;
+        return rows;
+    }
+
+    /**
+     * klines（按 openTime 升序）中不晚于最后一根的部分是否与已存入的行一致：
+     * 每根都能按 openTime 找到，且收盘时间和 OHLCV 在 kline 表 DECIMAL(30, 8) 的精度内相同。
+     */
+    public synchronized boolean matchesStored(List<Kline> klines) throws IOException {
+        KlineColumns columns = null;
+        for (Kline k : klines) {
+            if (k.getOpenTime() > lastOpenTime) {
+                break;
+            }
+            if (columns == null) {
+                columns = map();
+            }
+            int i = columns.indexAfter(k.getOpenTime()) - 1;
+            if (i < 0 || columns.openTime(i) != k.getOpenTime() || columns.closeTime(i) != k.getCloseTime()
+                    || !same(columns.open(i), k.getOpen()) || !same(columns.high(i), k.getHigh())
+                    || !same(columns.low(i), k.getLow()) || !same(columns.close(i), k.getClose())
+                    || !same(columns.volume(i), k.getVolume())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** 存储里的行可能是从 kline 表导入的，已按 8 位小数舍入过。 */
+    private static boolean same(double stored, double value) {
+        return Math.abs(stored - value) <= 1e-8 * Math.max(1, Math.abs(value));
+    }
+
+    /** 映射当前已提交的全部行。 */
+    public synchronized KlineColumns map() throws IOException {
+        return KlineColumns.map(dir, size);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (FileChannel channel : channels) {
+            failure = closeQuietly(channel, failure);
+        }
+        failure = closeQuietly(countChannel, failure);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static IOException closeQuietly(FileChannel channel, IOException failure) {
+        if (channel == null) {
+            return failure;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                return e;
+            }
+            failure.addSuppressed(e);
+        }
+        return failure;
+    }
+}
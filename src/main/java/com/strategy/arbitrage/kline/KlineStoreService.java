@@ -0,0 +1,171 @@
+package com.strategy.arbitrage.kline;
+
+import com.strategy.arbitrage.mapper.KlineMapper;
+import com.strategy.arbitrage.model.Kline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 应用内的 {@link KlineStore} 写入方：K 线入库后同步追加到本地列式存储，供回测直接映射读取。
+ * <p>
+ * 每个 symbol + 周期在本进程第一次追加时，先从 kline 表补齐存储缺的部分（调用方已先入库，这一批也在其中），
+ * 之后直接追加，保证存储和表一样连续。存储写入失败只记日志，不影响入库。
+ */
+@Slf4j
+@Service
+public class KlineStoreService {
+
+    private static final int IMPORT_PAGE_SIZE = 10_000;
+
+    @Value("${kline-store.enabled:true}")
+    private boolean enabled;
+    @Value("${kline-store.dir:data/kline}")
+    private String dir;
+
+    @Resource
+    private KlineMapper klineMapper;
+
+    private final Map<String, KlineStore> stores = new ConcurrentHashMap<>();
+    /** 本进程内已和 kline 表对齐过的 key。 */
+    private final Set<String> synced = ConcurrentHashMap.newKeySet();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path root() {
+        return Paths.get(dir);
+    }
+
+    public void append(String symbol, String interval, List<Kline> klines) {
+        if (!enabled || klines.isEmpty()) {
+            return;
+        }
+        if (synced.add(symbol + "/" + interval)) {
+            importFromDb(symbol, interval);
+            return;
+        }
+        try {
+            store(symbol, interval).append(klines);
+        } catch (IOException e) {
+            log.error("K线写入本地存储失败 {} {}: {}", symbol, interval, e.getMessage());
+        }
+    }
+
+    /**
+     * 追加一批可能改写旧数据的 K 线（如上级周期的桶被重算）。与已存入部分重叠的 K 线和存储一致时跳过、只追加新的；
+     * 有不一致的说明已存入的那根被改写了，存储只能追加，只好整体重建。
+     */
+    public void upsert(String symbol, String interval, List<Kline> klines) {
+        if (!enabled || klines.isEmpty()) {
+            return;
+        }
+        boolean unchanged;
+        try {
+            unchanged = store(symbol, interval).matchesStored(klines);
+        } catch (IOException e) {
+            log.error("K线本地存储读取失败 {} {}: {}", symbol, interval, e.getMessage());
+            return;
+        }
+        if (!unchanged) {
+            log.info("♻️ K线本地存储 {} {}: {} 起已存入的桶被改写，重建", symbol, interval, klines.get(0).getOpenTime());
+            rebuild(symbol, interval);
+            return;
+        }
+        append(symbol, interval, klines);
+    }
+
+    /**
+     * 把 kline 表里比存储最后一根更新的数据追加进来，返回追加的行数。
+     */
+    public long importFromDb(String symbol, String interval) {
+        if (!enabled) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        long imported = 0;
+        try {
+            KlineStore store = store(symbol, interval);
+            long after = store.size() == 0 ? -1 : store.lastOpenTime();
+            while (true) {
+                List<Kline> page = klineMapper.findAfter(symbol, interval, after, IMPORT_PAGE_SIZE);
+                if (page.isEmpty()) {
+                    break;
+                }
+                imported += store.append(page);
+                after = page.get(page.size() - 1).getOpenTime();
+                if (page.size() < IMPORT_PAGE_SIZE) {
+                    break;
+                }
+            }
+            log.info("📦 K线本地存储导入 {} {}: {} 根，共 {} 根，耗时 {}ms",
+                    symbol, interval, imported, store.size(), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.error("K线本地存储导入失败 {} {}: {}", symbol, interval, e.getMessage());
+        }
+        return imported;
+    }
+
+    /**
+     * 丢弃存储从 kline 表整体重建。历史中间的缺口被回补后调用：存储只能追加，补进来的旧数据只能这样带上。
+     */
+    public long rebuild(String symbol, String interval) {
+        if (!enabled) {
+            return 0;
+        }
+        String key = symbol + "/" + interval;
+        synchronized (stores) {
+            try {
+                KlineStore store = stores.remove(key);
+                if (store != null) {
+                    store.close();
+                }
+                KlineStore.delete(root(), symbol, interval);
+            } catch (IOException e) {
+                log.error("K线本地存储删除失败 {} {}: {}", symbol, interval, e.getMessage());
+                return 0;
+            }
+        }
+        synced.add(key);
+        return importFromDb(symbol, interval);
+    }
+
+    private KlineStore store(String symbol, String interval) throws IOException {
+        String key = symbol + "/" + interval;
+        KlineStore store = stores.get(key);
+        if (store != null) {
+            return store;
+        }
+        synchronized (stores) {
+            store = stores.get(key);
+            if (store == null) {
+                store = KlineStore.open(root(), symbol, interval);
+                stores.put(key, store);
+            }
+            return store;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        stores.values().forEach(store -> {
+            try {
+                store.close();
+            } catch (IOException e) {
+                log.warn("关闭K线存储失败: {}", e.getMessage());
+            }
+        });
+        stores.clear();
+    }
+}
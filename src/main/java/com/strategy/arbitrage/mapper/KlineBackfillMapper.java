@@ -0,0 +1,29 @@
+package com.strategy.arbitrage.mapper;
+
+import com.strategy.arbitrage.model.KlineBackfillCheckpoint;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface KlineBackfillMapper {
+
+    /** 同一 symbol + 周期 + range_start 已存在时忽略。 */
+    void insertIgnore(KlineBackfillCheckpoint checkpoint);
+
+    List<KlineBackfillCheckpoint> findBySymbol(@Param("symbol") String symbol,
+                                               @Param("intervalType") String intervalType);
+
+    /** 已规划区间的最大结束时间，没有时返回 null。 */
+    Long findMaxRangeEnd(@Param("symbol") String symbol,
+                         @Param("intervalType") String intervalType);
+
+    void updateProgress(@Param("id") Long id,
+                        @Param("nextOpenTime") long nextOpenTime,
+                        @Param("saved") long saved,
+                        @Param("done") boolean done);
+
+    /** 重新开始一个已完成的区间（缺口重试）。 */
+    void reopen(@Param("id") Long id);
+}
@@ -1,6 +1,7 @@
 package com.strategy.arbitrage.mapper;
 
 import com.strategy.arbitrage.model.Kline;
+import com.strategy.arbitrage.model.KlineBackfillCheckpoint;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
@@ -13,10 +14,33 @@ public interface KlineMapper {
 
     void batchInsertIgnore(@Param("list") List<Kline> klines);
 
+    /** 已存在时覆盖 OHLCV，用于上级周期重算。 */
+    void batchUpsert(@Param("list") List<Kline> klines);
+
     List<Kline> findBySymbolAndInterval(@Param("symbol") String symbol,
                                         @Param("intervalType") String intervalType,
                                         @Param("limit") int limit);
 
+    /** openTime 大于 afterOpenTime 的前 limit 根，按 openTime 升序。 */
+    List<Kline> findAfter(@Param("symbol") String symbol,
+                          @Param("intervalType") String intervalType,
+                          @Param("afterOpenTime") long afterOpenTime,
+                          @Param("limit") int limit);
+
+    /** openTime 在 [fromOpenTime, toOpenTime) 内的K线，按 openTime 升序。 */
+    List<Kline> findRange(@Param("symbol") String symbol,
+                          @Param("intervalType") String intervalType,
+                          @Param("fromOpenTime") long fromOpenTime,
+                          @Param("toOpenTime") long toOpenTime);
+
     Long findMaxOpenTime(@Param("symbol") String symbol,
                          @Param("intervalType") String intervalType);
+
+    /**
+     * 按 open_time 连续性找缺口：相邻两根间隔超过 intervalMs 时返回中间缺失的区间
+     * （range_start / range_end 均为含端点的 open_time）。
+     */
+    List<KlineBackfillCheckpoint> findGaps(@Param("symbol") String symbol,
+                                           @Param("intervalType") String intervalType,
+                                           @Param("intervalMs") long intervalMs);
 }
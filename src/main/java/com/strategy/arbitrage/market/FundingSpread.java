@@ -0,0 +1,47 @@
+package com.strategy.arbitrage.market;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+
+/**
+ * 同一合约在两个交易所之间的资金费率差。费率按结算间隔折算为每小时等效值后再比较。
+ */
+public final class FundingSpread {
+
+    public final String symbol;
+    public final ExchangeEnum exchangeA;
+    public final ExchangeEnum exchangeB;
+    public final double priceA;
+    public final double priceB;
+    public final double fundingRateA;
+    public final double fundingRateB;
+    public final long intervalA;
+    public final long intervalB;
+    public final double hourlySpread;   // |rateA / intervalA - rateB / intervalB|
+
+    FundingSpread(String symbol, ExchangeEnum exchangeA, ExchangeEnum exchangeB, SymbolQuote quoteA, SymbolQuote quoteB,
+                  double hourlySpread) {
+        this.symbol = symbol;
+        this.exchangeA = exchangeA;
+        this.exchangeB = exchangeB;
+        this.priceA = quoteA.price;
+        this.priceB = quoteB.price;
+        this.fundingRateA = quoteA.fundingRate;
+        this.fundingRateB = quoteB.fundingRate;
+        this.intervalA = quoteA.fundingInterval;
+        this.intervalB = quoteB.fundingInterval;
+        this.hourlySpread = hourlySpread;
+    }
+
+    public double hourlyRateA() {
+        return fundingRateA / Math.max(1, intervalA);
+    }
+
+    public double hourlyRateB() {
+        return fundingRateB / Math.max(1, intervalB);
+    }
+
+    /** 每小时等效费率。 */
+    static double hourly(SymbolQuote quote) {
+        return quote.fundingRate / Math.max(1, quote.fundingInterval);
+    }
+}
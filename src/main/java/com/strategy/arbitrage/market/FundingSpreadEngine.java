@@ -0,0 +1,153 @@
+package com.strategy.arbitrage.market;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 全交易所两两资金费率差的 Top-K 计算。
+ * <p>
+ * 交易所取自 {@link ExchangeEnum}，新增交易所无需改动这里。每个合约的各组合费率差缓存在
+ * [symbolId × 交易所组合] 的数组中，{@link #update(MarketSnapshot)} 只重算费率发生变化的合约
+ * （{@link SymbolQuote} 不可变，引用未变的直接跳过），Top-K 用容量为 K 的小顶堆选出。
+ * <p>
+ * 非线程安全，由调用方在单个调度线程中使用。
+ */
+public final class FundingSpreadEngine {
+
+    private static final double MIN_SPREAD = 1e-10;   // 忽略极小差异
+
+    private final int k;
+    private final ExchangeEnum[] exchanges = ExchangeEnum.values();
+    private final int[] pairA;
+    private final int[] pairB;
+
+    /** [id * pairCount + pair] → 每小时费率差，无效为 NaN。 */
+    private double[] spreads = new double[0];
+    /** 上次计算时看到的行情记录 [交易所][id]。 */
+    private SymbolQuote[][] seen = new SymbolQuote[exchanges.length][0];
+    private int symbolCount;
+    private int lastRecomputed;
+
+    public FundingSpreadEngine(int k) {
+        this.k = k;
+        int pairs = exchanges.length * (exchanges.length - 1) / 2;
+        pairA = new int[pairs];
+        pairB = new int[pairs];
+        int p = 0;
+        for (int a = 0; a < exchanges.length; a++) {
+            for (int b = a + 1; b < exchanges.length; b++) {
+                pairA[p] = a;
+                pairB[p] = b;
+                p++;
+            }
+        }
+    }
+
+    /** 按新快照刷新变化的合约，返回费率差最大的前 K 个组合（降序）。 */
+    public List<FundingSpread> update(MarketSnapshot snapshot) {
+        ensureCapacity(snapshot.symbolCount());
+
+        lastRecomputed = 0;
+        for (int id = 0; id < symbolCount; id++) {
+            if (changed(snapshot, id)) {
+                recompute(snapshot, id);
+                lastRecomputed++;
+            }
+        }
+        return topK(snapshot);
+    }
+
+    /** 上次 update 实际重算的合约数。 */
+    public int lastRecomputed() {
+        return lastRecomputed;
+    }
+
+    // ── 内部 ──────────────────────────────────────────────────────────────────
+
+    private void ensureCapacity(int count) {
+        if (count <= symbolCount) {
+            return;
+        }
+        int pairs = pairA.length;
+        spreads = Arrays.copyOf(spreads, count * pairs);
+        Arrays.fill(spreads, symbolCount * pairs, count * pairs, Double.NaN);
+        for (int ex = 0; ex < exchanges.length; ex++) {
+            seen[ex] = Arrays.copyOf(seen[ex], count);
+        }
+        symbolCount = count;
+    }
+
+    private boolean changed(MarketSnapshot snapshot, int id) {
+        boolean changed = false;
+        for (int ex = 0; ex < exchanges.length; ex++) {
+            SymbolQuote quote = snapshot.quote(exchanges[ex], id);
+            SymbolQuote prev = seen[ex][id];
+            if (quote == prev) {
+                continue;
+            }
+            seen[ex][id] = quote;
+            // 只有价格变化不影响费率差，展示用的价格在 topK 时从快照现取
+            if (quote == null || prev == null || usable(quote) != usable(prev)
+                    || Double.compare(quote.fundingRate, prev.fundingRate) != 0
+                    || quote.fundingInterval != prev.fundingInterval) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private void recompute(MarketSnapshot snapshot, int id) {
+        int base = id * pairA.length;
+        for (int p = 0; p < pairA.length; p++) {
+            SymbolQuote a = snapshot.quote(exchanges[pairA[p]], id);
+            SymbolQuote b = snapshot.quote(exchanges[pairB[p]], id);
+            double spread = Double.NaN;
+            if (usable(a) && usable(b)) {
+                spread = Math.abs(FundingSpread.hourly(a) - FundingSpread.hourly(b));
+                if (spread < MIN_SPREAD) {
+                    spread = Double.NaN;
+                }
+            }
+            spreads[base + p] = spread;
+        }
+    }
+
+    private static boolean usable(SymbolQuote quote) {
+        return quote != null && quote.hasFunding() && quote.hasPrice();
+    }
+
+    private List<FundingSpread> topK(MarketSnapshot snapshot) {
+        PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1, (x, y) -> Double.compare(spreads[x], spreads[y]));
+        for (int i = 0; i < symbolCount * pairA.length; i++) {
+            double spread = spreads[i];
+            if (Double.isNaN(spread)) {
+                continue;
+            }
+            if (heap.size() < k) {
+                heap.add(i);
+            } else if (spread > spreads[heap.peek()]) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+
+        List<FundingSpread> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            int index = heap.poll();
+            int id = index / pairA.length;
+            int p = index % pairA.length;
+            ExchangeEnum exA = exchanges[pairA[p]];
+            ExchangeEnum exB = exchanges[pairB[p]];
+            result.add(new FundingSpread(snapshot.symbol(id), exA, exB,
+                    snapshot.quote(exA, id), snapshot.quote(exB, id), spreads[index]));
+        }
+        // 小顶堆弹出为升序，翻转为降序
+        Collections.reverse(result);
+        return result;
+    }
+}
@@ -0,0 +1,250 @@
+package com.strategy.arbitrage.market;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.model.FundingRate;
+import com.strategy.arbitrage.model.Price;
+import com.strategy.arbitrage.model.TickerLimit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 全交易所行情的不可变快照，由 {@link MarketSnapshotStore} 以单调递增的版本号整体发布。
+ * <p>
+ * 合约 id 来自随快照发布的 {@link SymbolRegistry}，跨版本稳定，读方可以缓存。
+ * 行情按 [交易所][symbolId] 存放 {@link SymbolQuote}，null 表示该交易所没有此合约。
+ * 同一个快照内各交易所的数据总是同一次发布的结果，读方拿到引用后无需加锁。
+ */
+public final class MarketSnapshot {
+
+    static final MarketSnapshot EMPTY = new MarketSnapshot(0, 0, SymbolRegistry.EMPTY,
+            new SymbolQuote[ExchangeEnum.values().length][0]);
+
+    private final long version;
+    private final long publishTime;
+    private final SymbolRegistry registry;
+    private final SymbolQuote[][] quotes;
+
+    private MarketSnapshot(long version, long publishTime, SymbolRegistry registry, SymbolQuote[][] quotes) {
+        this.version = version;
+        this.publishTime = publishTime;
+        this.registry = registry;
+        this.quotes = quotes;
+    }
+
+    // ── 版本与时效 ────────────────────────────────────────────────────────────
+
+    public long version() {
+        return version;
+    }
+
+    public long publishTime() {
+        return publishTime;
+    }
+
+    /** 距上次发布的毫秒数。 */
+    public long ageMillis() {
+        return System.currentTimeMillis() - publishTime;
+    }
+
+    // ── 合约 id ──────────────────────────────────────────────────────────────
+
+    public SymbolRegistry registry() {
+        return registry;
+    }
+
+    public int symbolCount() {
+        return registry.size();
+    }
+
+    public String symbol(int id) {
+        return registry.symbol(id);
+    }
+
+    /** 未知合约返回 -1。 */
+    public int symbolId(String symbol) {
+        return registry.id(symbol);
+    }
+
+    // ── 行情读取（无分配） ────────────────────────────────────────────────────
+
+    public SymbolQuote quote(ExchangeEnum exchange, int id) {
+        SymbolQuote[] row = quotes[exchange.ordinal()];
+        return id >= 0 && id < row.length ? row[id] : null;
+    }
+
+    public SymbolQuote quote(ExchangeEnum exchange, String symbol) {
+        return quote(exchange, symbolId(symbol));
+    }
+
+    /** 无价格时返回 0。 */
+    public double price(ExchangeEnum exchange, String symbol) {
+        SymbolQuote quote = quote(exchange, symbol);
+        return quote == null ? 0 : quote.price;
+    }
+
+    public boolean isEmpty(ExchangeEnum exchange) {
+        for (SymbolQuote quote : quotes[exchange.ordinal()]) {
+            if (quote != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ── 兼容旧模型（展示 / 非热路径使用） ───────────────────────────────────
+
+    public FundingRate fundingRate(ExchangeEnum exchange, String symbol) {
+        return fundingRate(exchange, symbolId(symbol));
+    }
+
+    public FundingRate fundingRate(ExchangeEnum exchange, int id) {
+        SymbolQuote quote = quote(exchange, id);
+        if (quote == null || !quote.hasFunding()) {
+            return null;
+        }
+        return new FundingRate(exchange.getAbbr(), registry.symbol(id), quote.fundingRate, quote.fundingInterval, quote.nextFundingTime);
+    }
+
+    public List<FundingRate> fundingRates(ExchangeEnum exchange) {
+        List<FundingRate> result = new ArrayList<>();
+        SymbolQuote[] row = quotes[exchange.ordinal()];
+        for (int id = 0; id < row.length; id++) {
+            if (row[id] != null && row[id].hasFunding()) {
+                result.add(new FundingRate(exchange.getAbbr(), registry.symbol(id), row[id].fundingRate,
+                        row[id].fundingInterval, row[id].nextFundingTime));
+            }
+        }
+        return result;
+    }
+
+    /** 该交易所上线的全部合约。 */
+    public List<String> symbols(ExchangeEnum exchange) {
+        List<String> result = new ArrayList<>();
+        SymbolQuote[] row = quotes[exchange.ordinal()];
+        for (int id = 0; id < row.length; id++) {
+            if (row[id] != null) {
+                result.add(registry.symbol(id));
+            }
+        }
+        return result;
+    }
+
+    Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    // ── Builder ───────────────────────────────────────────────────────────────
+
+    /**
+     * 基于上一版本做写时复制：只有被修改的交易所行会被拷贝，其余行与上一版本共享。
+     */
+    public static final class Builder {
+
+        private final long now = System.currentTimeMillis();
+        private final SymbolRegistry.Builder registry;
+        private final SymbolQuote[][] rows;
+        private final boolean[] rowCopied;
+
+        private Builder(MarketSnapshot base) {
+            this.registry = base.registry.toBuilder();
+            this.rows = base.quotes.clone();
+            this.rowCopied = new boolean[rows.length];
+        }
+
+        public void price(ExchangeEnum exchange, String symbol, double price) {
+            price(exchange, registry.register(symbol), price);
+        }
+
+        /** 按 id 写入，id 来自 {@link SymbolRegistry}。 */
+        public void price(ExchangeEnum exchange, int id, double price) {
+            if (price <= 0) {
+                return;
+            }
+            set(exchange, id, quoteOrEmpty(exchange, id).withPrice(price, now));
+        }
+
+        public void funding(ExchangeEnum exchange, String symbol, double rate, long interval, long nextFundingTime) {
+            funding(exchange, registry.register(symbol), rate, interval, nextFundingTime);
+        }
+
+        /**
+         * @param interval 结算间隔（小时），传 0 表示沿用已有值（默认 8 小时）
+         */
+        public void funding(ExchangeEnum exchange, int id, double rate, long interval, long nextFundingTime) {
+            SymbolQuote prev = quoteOrEmpty(exchange, id);
+            long effectiveInterval = interval > 0 ? interval : prev.fundingInterval > 0 ? prev.fundingInterval : 8L;
+            set(exchange, id, prev.withFunding(rate, effectiveInterval, nextFundingTime, now));
+        }
+
+        /** 用 REST 快照整体替换该交易所的费率和价格，快照中没有的合约清空行情（保留下单规则）。 */
+        public void replaceMarket(ExchangeEnum exchange, List<FundingRate> fundingRates, List<Price> prices) {
+            SymbolQuote[] row = row(exchange, 0);
+            for (int id = 0; id < row.length; id++) {
+                if (row[id] != null) {
+                    SymbolQuote cleared = row[id].withoutMarket();
+                    row[id] = cleared.isBlank() ? null : cleared;
+                }
+            }
+            for (FundingRate rate : fundingRates) {
+                funding(exchange, rate.getSymbol(), rate.getRate(), rate.getInterval(), rate.getNextFundingTime());
+            }
+            for (Price price : prices) {
+                price(exchange, price.getSymbol(), price.getPrice());
+            }
+        }
+
+        /** 用 REST 快照整体替换该交易所的下单规则，同时把原生合约名登记到 {@link SymbolRegistry}。 */
+        public void replaceLimits(ExchangeEnum exchange, List<TickerLimit> limits) {
+            SymbolQuote[] row = row(exchange, 0);
+            for (int id = 0; id < row.length; id++) {
+                if (row[id] != null) {
+                    SymbolQuote cleared = row[id].withoutLimits();
+                    row[id] = cleared.isBlank() ? null : cleared;
+                }
+            }
+            for (TickerLimit limit : limits) {
+                int id = limit.getInstId() != null
+                        ? registry.register(exchange, limit.getInstId())
+                        : registry.register(limit.getSymbol());
+                set(exchange, id, quoteOrEmpty(exchange, id).withLimits(limit));
+            }
+        }
+
+        MarketSnapshot build(long version) {
+            SymbolRegistry built = registry.build();
+            for (int ex = 0; ex < rows.length; ex++) {
+                if (rows[ex].length != built.size()) {
+                    rows[ex] = Arrays.copyOf(rows[ex], built.size());
+                }
+            }
+            return new MarketSnapshot(version, now, built, rows);
+        }
+
+        // ── 内部 ──────────────────────────────────────────────────────────────
+
+        private SymbolQuote quoteOrEmpty(ExchangeEnum exchange, int id) {
+            SymbolQuote[] row = rows[exchange.ordinal()];
+            SymbolQuote quote = id < row.length ? row[id] : null;
+            return quote == null ? SymbolQuote.EMPTY : quote;
+        }
+
+        private void set(ExchangeEnum exchange, int id, SymbolQuote quote) {
+            row(exchange, id + 1)[id] = quote;
+        }
+
+        /** 取得可写的交易所行，首次写入时拷贝，长度不足时扩容。 */
+        private SymbolQuote[] row(ExchangeEnum exchange, int minLength) {
+            int ex = exchange.ordinal();
+            SymbolQuote[] row = rows[ex];
+            int length = Math.max(row.length, minLength);
+            if (!rowCopied[ex] || row.length < length) {
+                int capacity = rowCopied[ex] ? Math.max(length, row.length * 2) : Math.max(length, row.length);
+                rows[ex] = Arrays.copyOf(row, capacity);
+                rowCopied[ex] = true;
+            }
+            return rows[ex];
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.strategy.arbitrage.market;
+
+import java.util.function.Consumer;
+
+/**
+ * 行情快照的唯一发布点。
+ * <p>
+ * 写方（REST 同步、行情流）通过 {@link #update(Consumer)} 在上一版本基础上修改并整体发布，
+ * 发布是一次 volatile 写，读方通过 {@link #current()} 拿到的始终是完整、自洽的一个版本。
+ * 读方在一次计算中应只取一次快照，避免前后读到不同版本。
+ */
+public final class MarketSnapshotStore {
+
+    private static volatile MarketSnapshot current = MarketSnapshot.EMPTY;
+
+    private MarketSnapshotStore() {
+    }
+
+    public static MarketSnapshot current() {
+        return current;
+    }
+
+    /** 至少完成过一次发布（初始 REST 同步完成）。 */
+    public static boolean isReady() {
+        return current.version() > 0;
+    }
+
+    /** 写方串行执行，版本号单调递增。 */
+    public static synchronized MarketSnapshot update(Consumer<MarketSnapshot.Builder> mutation) {
+        MarketSnapshot base = current;
+        MarketSnapshot.Builder builder = base.toBuilder();
+        mutation.accept(builder);
+        MarketSnapshot next = builder.build(base.version() + 1);
+        current = next;
+        return next;
+    }
+}
@@ -0,0 +1,83 @@
+package com.strategy.arbitrage.market;
+
+import com.strategy.arbitrage.model.TickerLimit;
+
+/**
+ * 单个交易所、单个合约的行情记录。不可变，全部为基本类型字段，读取不产生分配。
+ * <p>
+ * 未知字段的约定：价格为 0，资金费率为 NaN，下单规则 stepSize 为 0，合约面值为 0。
+ */
+public final class SymbolQuote {
+
+    static final SymbolQuote EMPTY = new SymbolQuote(0, Double.NaN, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    public final double price;
+    public final double fundingRate;
+    public final long   fundingInterval;   // 结算间隔（小时）
+    public final long   nextFundingTime;
+    public final double minQty;
+    public final double maxQty;
+    public final double stepSize;
+    public final double tickSize;
+    public final double contractValue;     // 一张合约对应的币数量，OKX 为 ctVal，其他交易所为 1
+    public final long   updateTime;        // 价格 / 费率最后更新时间
+
+    SymbolQuote(double price, double fundingRate, long fundingInterval, long nextFundingTime,
+                double minQty, double maxQty, double stepSize, double tickSize, double contractValue, long updateTime) {
+        this.price = price;
+        this.fundingRate = fundingRate;
+        this.fundingInterval = fundingInterval;
+        this.nextFundingTime = nextFundingTime;
+        this.minQty = minQty;
+        this.maxQty = maxQty;
+        this.stepSize = stepSize;
+        this.tickSize = tickSize;
+        this.contractValue = contractValue;
+        this.updateTime = updateTime;
+    }
+
+    public boolean hasPrice() {
+        return price > 0;
+    }
+
+    public boolean hasFunding() {
+        return !Double.isNaN(fundingRate);
+    }
+
+    public boolean hasLimits() {
+        return stepSize > 0 && contractValue > 0;
+    }
+
+    public long ageMillis(long now) {
+        return now - updateTime;
+    }
+
+    // ── 拷贝修改（仅供 MarketSnapshot.Builder 使用） ──────────────────────────
+
+    SymbolQuote withPrice(double price, long time) {
+        return new SymbolQuote(price, fundingRate, fundingInterval, nextFundingTime,
+                minQty, maxQty, stepSize, tickSize, contractValue, time);
+    }
+
+    SymbolQuote withFunding(double rate, long interval, long nextFundingTime, long time) {
+        return new SymbolQuote(price, rate, interval, nextFundingTime,
+                minQty, maxQty, stepSize, tickSize, contractValue, time);
+    }
+
+    SymbolQuote withLimits(TickerLimit limit) {
+        return new SymbolQuote(price, fundingRate, fundingInterval, nextFundingTime,
+                limit.getMinQty(), limit.getMaxQty(), limit.getStepSize(), limit.getTickSize(), limit.getCtVal(), updateTime);
+    }
+
+    SymbolQuote withoutMarket() {
+        return new SymbolQuote(0, Double.NaN, 0, 0, minQty, maxQty, stepSize, tickSize, contractValue, updateTime);
+    }
+
+    SymbolQuote withoutLimits() {
+        return new SymbolQuote(price, fundingRate, fundingInterval, nextFundingTime, 0, 0, 0, 0, 0, updateTime);
+    }
+
+    boolean isBlank() {
+        return !hasPrice() && !hasFunding() && !hasLimits();
+    }
+}
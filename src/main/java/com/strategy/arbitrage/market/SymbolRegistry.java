@@ -0,0 +1,189 @@
+package com.strategy.arbitrage.market;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 跨交易所合约注册表：把各交易所的原生合约名（BTCUSDT / BTC-USDT-SWAP）映射到同一个稠密 int id。
+ * <p>
+ * 由各交易所 tickerLimit（exchangeInfo / contracts / instruments）在加载时注册，随 {@link MarketSnapshot} 一起发布。
+ * id 只增不减、跨版本稳定；跨交易所的对比、费率差、价格查询都按 id 做数组下标，不再做字符串规范化和哈希。
+ * 规范名与原生名的换算规则只在这里维护（{@link #canonical} / {@link #nativeSymbol}）。
+ */
+public final class SymbolRegistry {
+
+    static final SymbolRegistry EMPTY = new SymbolRegistry(new String[0], Collections.emptyMap(),
+            Collections.nCopies(ExchangeEnum.values().length, Collections.emptyMap()),
+            new String[ExchangeEnum.values().length][0]);
+
+    private final String[] symbols;
+    private final Map<String, Integer> ids;
+    private final List<Map<String, Integer>> nativeIds;   // [交易所] 原生名 → id
+    private final String[][] nativeSymbols;           // [交易所][id] → 原生名，未上线为 null
+
+    private SymbolRegistry(String[] symbols, Map<String, Integer> ids,
+                           List<Map<String, Integer>> nativeIds, String[][] nativeSymbols) {
+        this.symbols = symbols;
+        this.ids = ids;
+        this.nativeIds = nativeIds;
+        this.nativeSymbols = nativeSymbols;
+    }
+
+    // ── 换算规则 ──────────────────────────────────────────────────────────────
+
+    /** 原生名 → 规范名，如 OKX BTC-USDT-SWAP → BTCUSDT。 */
+    public static String canonical(ExchangeEnum exchange, String nativeSymbol) {
+        String base = nativeSymbol;
+        if (exchange == ExchangeEnum.OKX) {
+            base = nativeSymbol.replace("-SWAP", "").replace("-", "");
+        }
+        // 确保不含重复 USDT
+        return base.contains("USDT") || base.contains("USD") ? base : base + "USDT";
+    }
+
+    /** 规范名 → 原生名，用于下单和订阅。 */
+    public static String nativeSymbol(ExchangeEnum exchange, String symbol) {
+        if (exchange == ExchangeEnum.OKX) {
+            return symbol.split("USDT")[0] + "-USDT-SWAP";
+        }
+        return symbol;
+    }
+
+    // ── 查询 ──────────────────────────────────────────────────────────────────
+
+    public int size() {
+        return symbols.length;
+    }
+
+    /** 规范名。 */
+    public String symbol(int id) {
+        return symbols[id];
+    }
+
+    /** 规范名 → id，未注册返回 -1。 */
+    public int id(String symbol) {
+        Integer id = ids.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    /** 交易所原生名 → id，未注册返回 -1。行情推送用它直接定位，不做字符串规范化。 */
+    public int id(ExchangeEnum exchange, String nativeSymbol) {
+        Integer id = nativeIds.get(exchange.ordinal()).get(nativeSymbol);
+        return id == null ? -1 : id;
+    }
+
+    /** id → 交易所原生名，该交易所未上线返回 null。 */
+    public String nativeSymbol(ExchangeEnum exchange, int id) {
+        String[] row = nativeSymbols[exchange.ordinal()];
+        return id >= 0 && id < row.length ? row[id] : null;
+    }
+
+    /** 该交易所已注册的原生合约名。 */
+    public List<String> nativeSymbols(ExchangeEnum exchange) {
+        List<String> result = new ArrayList<>();
+        for (String nativeSymbol : nativeSymbols[exchange.ordinal()]) {
+            if (nativeSymbol != null) {
+                result.add(nativeSymbol);
+            }
+        }
+        return result;
+    }
+
+    Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    // ── Builder ───────────────────────────────────────────────────────────────
+
+    /** 在上一版本基础上追加合约，已有 id 保持不变；没有新增时 build 返回原对象。 */
+    static final class Builder {
+
+        private final SymbolRegistry base;
+        private final List<String> added = new ArrayList<>();
+        private Map<String, Integer> ids;
+        private final List<Map<String, Integer>> nativeIds;
+        private final String[][] nativeSymbols;
+        private final boolean[] exchangeCopied;
+        private boolean idsCopied;
+        private boolean changed;
+
+        private Builder(SymbolRegistry base) {
+            this.base = base;
+            this.ids = base.ids;
+            this.nativeIds = new ArrayList<>(base.nativeIds);
+            this.nativeSymbols = base.nativeSymbols.clone();
+            this.exchangeCopied = new boolean[nativeIds.size()];
+        }
+
+        int size() {
+            return base.symbols.length + added.size();
+        }
+
+        /** 规范名 → id，不存在时分配新 id。 */
+        int register(String symbol) {
+            Integer id = ids.get(symbol);
+            if (id != null) {
+                return id;
+            }
+            if (!idsCopied) {
+                ids = new HashMap<>(ids);
+                idsCopied = true;
+            }
+            changed = true;
+            int newId = size();
+            String interned = symbol.intern();
+            added.add(interned);
+            ids.put(interned, newId);
+            return newId;
+        }
+
+        /** 登记交易所原生名，返回 id。 */
+        int register(ExchangeEnum exchange, String nativeSymbol) {
+            int ex = exchange.ordinal();
+            Integer existing = nativeIds.get(ex).get(nativeSymbol);
+            if (existing != null) {
+                return existing;
+            }
+            int id = register(canonical(exchange, nativeSymbol));
+            if (!exchangeCopied[ex]) {
+                nativeIds.set(ex, new HashMap<>(nativeIds.get(ex)));
+                exchangeCopied[ex] = true;
+            }
+            if (nativeSymbols[ex].length <= id) {
+                nativeSymbols[ex] = Arrays.copyOf(nativeSymbols[ex], Math.max(id + 1, nativeSymbols[ex].length * 2));
+            } else if (nativeSymbols[ex] == base.nativeSymbols[ex]) {
+                nativeSymbols[ex] = nativeSymbols[ex].clone();
+            }
+            nativeSymbols[ex][id] = nativeSymbol.intern();
+            nativeIds.get(ex).put(nativeSymbols[ex][id], id);
+            changed = true;
+            return id;
+        }
+
+        SymbolRegistry build() {
+            if (!changed) {
+                return base;
+            }
+            String[] symbols = Arrays.copyOf(base.symbols, size());
+            for (int i = 0; i < added.size(); i++) {
+                symbols[base.symbols.length + i] = added.get(i);
+            }
+            for (int ex = 0; ex < nativeSymbols.length; ex++) {
+                if (nativeSymbols[ex].length != symbols.length) {
+                    nativeSymbols[ex] = Arrays.copyOf(nativeSymbols[ex], symbols.length);
+                }
+                if (exchangeCopied[ex]) {
+                    nativeIds.set(ex, Collections.unmodifiableMap(nativeIds.get(ex)));
+                }
+            }
+            Map<String, Integer> frozenIds = idsCopied ? Collections.unmodifiableMap(ids) : ids;
+            return new SymbolRegistry(symbols, frozenIds, List.copyOf(nativeIds), nativeSymbols);
+        }
+    }
+}
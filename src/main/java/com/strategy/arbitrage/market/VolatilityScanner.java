@@ -0,0 +1,110 @@
+package com.strategy.arbitrage.market;
+
+import java.util.Arrays;
+
+/**
+ * 全市场涨跌幅扫描：每个合约一个按分钟分槽的环形缓冲，记录每分钟第一笔价格（分钟开盘价）。
+ * <p>
+ * 每来一笔价格只做 O(窗口数) 的计算：取 N 分钟前那个槽的开盘价，与最新价比较，超过阈值时回调。
+ * 缓冲按 [symbolId * slots + 分钟 % slots] 平铺在基本类型数组里，slots = 最长窗口 + 2，
+ * 窗口起点那一分钟没有成交（槽里不是这一分钟的数据）时顺延到下一分钟；启动后数据不满一个窗口时不判断。
+ * <p>
+ * 非线程安全，由调用方在单个线程（行情流回调线程）中使用。
+ */
+public final class VolatilityScanner {
+
+    private static final long MINUTE_MS = 60_000;
+    /** 窗口起点缺数据时最多顺延的分钟数。 */
+    private static final int MAX_SKIP = 2;
+
+    public interface Listener {
+        /** changePercent 带符号，上涨为正。 */
+        void onBreach(int symbolId, int window, double changePercent, double basePrice, double price, long time);
+    }
+
+    private final int[] windowMinutes;
+    private final double[] thresholdPercent;
+    private final int slots;
+    private final Listener listener;
+
+    private double[] opens = new double[0];
+    private long[] minutes = new long[0];
+    private int capacity;
+    private long ticks;
+
+    /**
+     * @param windowMinutes    各窗口的分钟数，如 5 / 15 / 60
+     * @param thresholdPercent 各窗口的涨跌幅阈值（%）
+     */
+    public VolatilityScanner(int[] windowMinutes, double[] thresholdPercent, Listener listener) {
+        this.windowMinutes = windowMinutes.clone();
+        this.thresholdPercent = thresholdPercent.clone();
+        this.listener = listener;
+        int max = 0;
+        for (int w : windowMinutes) {
+            max = Math.max(max, w);
+        }
+        this.slots = max + MAX_SKIP + 1;
+    }
+
+    public int windowMinutes(int window) {
+        return windowMinutes[window];
+    }
+
+    public long ticks() {
+        return ticks;
+    }
+
+    public int trackedSymbols() {
+        return capacity;
+    }
+
+    /** 一笔最新价，time 为毫秒时间戳。 */
+    public void onTick(int id, double price, long time) {
+        if (id < 0 || price <= 0) {
+            return;
+        }
+        ensureCapacity(id + 1);
+        ticks++;
+        long minute = time / MINUTE_MS;
+        int base = id * slots;
+        int slot = base + (int) (minute % slots);
+        if (minutes[slot] != minute) {
+            minutes[slot] = minute;
+            opens[slot] = price;
+        }
+
+        for (int w = 0; w < windowMinutes.length; w++) {
+            double open = openAt(base, minute - windowMinutes[w]);
+            if (open <= 0) {
+                continue;
+            }
+            double change = (price - open) / open * 100;
+            if (Math.abs(change) >= thresholdPercent[w]) {
+                listener.onBreach(id, w, change, open, price, time);
+            }
+        }
+    }
+
+    /** 窗口起点那一分钟的开盘价，缺数据时顺延，仍没有返回 0。 */
+    private double openAt(int base, long startMinute) {
+        for (int skip = 0; skip <= MAX_SKIP; skip++) {
+            long m = startMinute + skip;
+            int slot = base + (int) (m % slots);
+            if (minutes[slot] == m) {
+                return opens[slot];
+            }
+        }
+        return 0;
+    }
+
+    private void ensureCapacity(int symbolCount) {
+        if (symbolCount <= capacity) {
+            return;
+        }
+        int size = Math.max(symbolCount, capacity * 2);
+        opens = Arrays.copyOf(opens, size * slots);
+        minutes = Arrays.copyOf(minutes, size * slots);
+        capacity = size;
+    }
+}
@@ -0,0 +1,17 @@
+package com.strategy.arbitrage.model;
+
+import lombok.Data;
+
+@Data
+public class KlineBackfillCheckpoint {
+    private Long id;
+    private String symbol;
+    private String intervalType;
+    private String kind;            // RANGE / GAP
+    private long rangeStart;        // 含
+    private long rangeEnd;          // 含
+    private long nextOpenTime;      // 断点：下一次从这里继续拉
+    private long saved;
+    private int attempts;
+    private boolean done;
+}
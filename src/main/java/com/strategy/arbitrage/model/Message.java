@@ -1,6 +1,7 @@
 package com.strategy.arbitrage.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.strategy.arbitrage.model.telegram.Chat;
 import com.strategy.arbitrage.model.telegram.User;
 import lombok.Data;
 
@@ -9,5 +10,7 @@ import lombok.Data;
 public class Message {
     private Long message_id;
     private User from;
+    private Chat chat;
     private String text;
+    private Long date;            // 发送时间（秒）
 }
\ No newline at end of file
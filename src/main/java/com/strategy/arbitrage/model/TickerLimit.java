@@ -13,4 +13,6 @@ public class TickerLimit {
     private double maxQty;
     private double stepSize;
     private double tickSize;
+    private String instId;      // 交易所原生合约名
+    private double ctVal = 1;   // 合约面值，只有 OKX 不为 1
 }
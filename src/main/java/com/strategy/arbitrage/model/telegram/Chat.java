@@ -0,0 +1,12 @@
+package com.strategy.arbitrage.model.telegram;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class Chat {
+    private Long id;
+    private String type;
+    private String title;
+}
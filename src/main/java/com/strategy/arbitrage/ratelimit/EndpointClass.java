@@ -0,0 +1,24 @@
+package com.strategy.arbitrage.ratelimit;
+
+/**
+ * 接口类别，声明顺序即优先级：排队时靠前的类别先拿到配额。
+ * <p>
+ * reserve 是该类别不能动用的桶容量比例，留给更高优先级的请求：
+ * 批量回补最多把桶用到 70%，剩下的始终留给下单。
+ */
+public enum EndpointClass {
+    /** 下单 / 撤单。 */
+    ORDER(0),
+    /** 杠杆、仓位、账单等账户接口。 */
+    ACCOUNT(0.05),
+    /** 价格、资金费率、合约信息等行情接口。 */
+    MARKET(0.1),
+    /** K 线回补等可以慢慢跑的批量拉取。 */
+    BULK(0.3);
+
+    final double reserve;
+
+    EndpointClass(double reserve) {
+        this.reserve = reserve;
+    }
+}
@@ -0,0 +1,213 @@
+package com.strategy.arbitrage.ratelimit;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * 客户端限流：每个交易所一个可选的全局权重桶（Binance 的 IP 权重），外加按 {@link EndpointClass} 划分的接口桶。
+ * 一个请求先拿接口桶、再拿全局桶的令牌，拿不到就按优先级排队，下单始终排在批量回补前面。
+ * <p>
+ * 桶的容量写成 {@code 名称=次数/秒数}，名称为 weight（全局）或类别名小写，如 {@code weight=2400/60,order=300/10}。
+ * 响应里的用量头（X-MBX-USED-WEIGHT-1M 等）用于校准本地余量；429 / 418 按 Retry-After 暂停整个交易所。
+ * <p>
+ * 同步请求在 {@link #interceptor} 中阻塞等待；异步请求由 HttpUtil 在 enqueue 之前调用 {@link #acquire}，
+ * 等待期间不占用 Dispatcher 的并发名额，避免排队中的批量请求把下单请求挡在 Dispatcher 外面。
+ */
+@Slf4j
+public final class RateGovernor {
+
+    private static final String GLOBAL = "weight";
+    private static final long DEFAULT_RETRY_AFTER_MS = 1_000;
+
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "rate-governor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final Map<ExchangeEnum, Limits> limits = new EnumMap<>(ExchangeEnum.class);
+
+    static {
+        // 与 application.yml 中 rate-limit.* 的默认值一致
+        configure(ExchangeEnum.BINANCE, "weight=2400/60,order=300/10");
+        configure(ExchangeEnum.BITGET, "order=10/1,account=5/1,market=20/1,bulk=20/1");
+        configure(ExchangeEnum.OKX, "order=60/2,account=10/2,market=20/2,bulk=20/2");
+    }
+
+    private RateGovernor() {
+    }
+
+    /** 用新的容量配置替换该交易所的所有桶，spec 为空表示不限流。 */
+    public static synchronized void configure(ExchangeEnum exchange, String spec) {
+        Limits l = new Limits();
+        if (spec != null && !spec.isBlank()) {
+            for (String item : spec.split(",")) {
+                String[] kv = item.trim().split("=");
+                String[] rate = kv[1].trim().split("/");
+                String name = kv[0].trim().toLowerCase();
+                TokenBucket bucket = new TokenBucket(exchange.getAbbr() + "." + name,
+                        Double.parseDouble(rate[0].trim()), (long) (Double.parseDouble(rate[1].trim()) * 1000), scheduler);
+                if (GLOBAL.equals(name)) {
+                    l.global = bucket;
+                } else {
+                    l.byClass.put(EndpointClass.valueOf(name.toUpperCase()), bucket);
+                }
+            }
+        }
+        synchronized (limits) {
+            limits.put(exchange, l);
+        }
+    }
+
+    /** 依次申请接口桶和全局桶，都拿到后 future 完成。 */
+    public static CompletableFuture<Void> acquire(ExchangeEnum exchange, RateTag tag) {
+        Limits l = limits(exchange);
+        TokenBucket classBucket = l.byClass.get(tag.endpointClass);
+        TokenBucket global = l.global;
+        if (classBucket == null) {
+            return global == null ? CompletableFuture.completedFuture(null) : global.acquire(tag.endpointClass, tag.weight);
+        }
+        CompletableFuture<Void> first = classBucket.acquire(tag.endpointClass, 1);
+        if (global == null) {
+            return first;
+        }
+        return first.isDone()
+                ? global.acquire(tag.endpointClass, tag.weight)
+                : first.thenCompose(v -> global.acquire(tag.endpointClass, tag.weight));
+    }
+
+    /**
+     * 根据响应校准余量。Binance 回报分钟内已用 IP 权重和 10 秒内下单数，Bitget 回报该接口本秒剩余次数；
+     * 429 / 418 时按 Retry-After 暂停该交易所的全局桶（没有全局桶则暂停该类别的桶）。
+     */
+    public static void observe(ExchangeEnum exchange, RateTag tag, Response response) {
+        Limits l = limits(exchange);
+        TokenBucket classBucket = l.byClass.get(tag.endpointClass);
+        switch (exchange) {
+            case BINANCE -> {
+                sync(l.global, response.header("X-MBX-USED-WEIGHT-1M"), false);
+                if (tag.endpointClass == EndpointClass.ORDER) {
+                    sync(classBucket, response.header("X-MBX-ORDER-COUNT-10S"), false);
+                }
+            }
+            case BITGET -> sync(classBucket, response.header("x-mbx-used-remain-limit"), true);
+            default -> {
+            }
+        }
+
+        int code = response.code();
+        if (code == 429 || code == 418) {
+            long retryAfterMs = retryAfterMs(response.header("Retry-After"));
+            TokenBucket bucket = l.global != null ? l.global : classBucket;
+            if (bucket != null) {
+                bucket.block(retryAfterMs);
+            }
+            log.warn("⚠️ {} 触发服务端限流 code={} {} 暂停 {}ms", exchange.getAbbr(), code, tag, retryAfterMs);
+        }
+    }
+
+    /**
+     * 交易所客户端的应用层拦截器：未预先拿到配额的（同步）请求在这里阻塞等待，响应返回后校准余量。
+     */
+    public static Interceptor interceptor(ExchangeEnum exchange) {
+        return chain -> {
+            Request request = chain.request();
+            RateTag tag = RateTag.of(request);
+            if (request.tag(Granted.class) == null) {
+                await(acquire(exchange, tag));
+            }
+            Response response = chain.proceed(request);
+            observe(exchange, tag, response);
+            return response;
+        };
+    }
+
+    /** 标记请求已经通过 {@link #acquire} 拿到配额，拦截器不再重复申请。 */
+    public static Request granted(Request request) {
+        return request.newBuilder().tag(Granted.class, Granted.INSTANCE).build();
+    }
+
+    public static List<String> stats() {
+        List<String> result = new ArrayList<>();
+        synchronized (limits) {
+            for (Limits l : limits.values()) {
+                if (l.global != null) {
+                    result.add(l.global.stats());
+                }
+                l.byClass.values().forEach(b -> result.add(b.stats()));
+            }
+        }
+        return result;
+    }
+
+    // ── 内部 ──────────────────────────────────────────────────────────────────
+
+    private static Limits limits(ExchangeEnum exchange) {
+        synchronized (limits) {
+            return limits.get(exchange);
+        }
+    }
+
+    private static void await(CompletableFuture<Void> permit) throws InterruptedIOException {
+        if (permit.isDone()) {
+            return;
+        }
+        try {
+            permit.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for rate limit");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void sync(TokenBucket bucket, String header, boolean remaining) {
+        if (bucket == null || header == null) {
+            return;
+        }
+        try {
+            double value = Double.parseDouble(header.trim());
+            if (remaining) {
+                bucket.syncRemaining(value);
+            } else {
+                bucket.syncUsed(value);
+            }
+        } catch (NumberFormatException ignored) {
+            // 非数字的用量头忽略
+        }
+    }
+
+    private static long retryAfterMs(String header) {
+        if (header == null) {
+            return DEFAULT_RETRY_AFTER_MS;
+        }
+        try {
+            return Math.max(DEFAULT_RETRY_AFTER_MS, Long.parseLong(header.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            return DEFAULT_RETRY_AFTER_MS;
+        }
+    }
+
+    private static final class Limits {
+        private TokenBucket global;
+        private final Map<EndpointClass, TokenBucket> byClass = new EnumMap<>(EndpointClass.class);
+    }
+
+    private enum Granted {
+        INSTANCE
+    }
+}
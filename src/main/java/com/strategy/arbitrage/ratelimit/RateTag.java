@@ -0,0 +1,50 @@
+package com.strategy.arbitrage.ratelimit;
+
+import okhttp3.Request;
+
+/**
+ * 挂在 OkHttp Request 上的限流标签：接口类别 + 权重。
+ * 构造请求时用 {@code builder.tag(RateTag.class, RateTag.of(...))} 设置，未设置的请求按 {@link #DEFAULT} 计。
+ */
+public final class RateTag {
+
+    public static final RateTag DEFAULT = new RateTag(EndpointClass.MARKET, 1);
+
+    public final EndpointClass endpointClass;
+    public final int weight;
+
+    private RateTag(EndpointClass endpointClass, int weight) {
+        this.endpointClass = endpointClass;
+        this.weight = Math.max(1, weight);
+    }
+
+    public static RateTag of(EndpointClass endpointClass, int weight) {
+        return new RateTag(endpointClass, weight);
+    }
+
+    public static RateTag order() {
+        return new RateTag(EndpointClass.ORDER, 1);
+    }
+
+    public static RateTag account(int weight) {
+        return new RateTag(EndpointClass.ACCOUNT, weight);
+    }
+
+    public static RateTag market(int weight) {
+        return new RateTag(EndpointClass.MARKET, weight);
+    }
+
+    public static RateTag bulk(int weight) {
+        return new RateTag(EndpointClass.BULK, weight);
+    }
+
+    public static RateTag of(Request request) {
+        RateTag tag = request.tag(RateTag.class);
+        return tag == null ? DEFAULT : tag;
+    }
+
+    @Override
+    public String toString() {
+        return endpointClass + "x" + weight;
+    }
+}
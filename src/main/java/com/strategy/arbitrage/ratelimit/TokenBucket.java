@@ -0,0 +1,183 @@
+package com.strategy.arbitrage.ratelimit;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶：capacity 个令牌，每 period 毫秒匀速补满。
+ * <p>
+ * 拿不到令牌的请求进入按 (类别, 到达顺序) 排序的等待队列，由调度线程在令牌够用时按序放行；
+ * 队首是高优先级请求时，后到的低优先级请求即使令牌够用也不能插队。
+ * 服务端回报的已用量（{@link #syncUsed}）只会让本地余量变少，不会变多。
+ */
+final class TokenBucket {
+
+    private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+    final String name;
+    final double capacity;
+    private final double refillPerMs;
+    private final ScheduledExecutorService scheduler;
+
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparingInt((Waiter w) -> w.endpointClass.ordinal()).thenComparingLong(w -> w.seq));
+    private double tokens;
+    private long lastRefill;
+    private long blockedUntil;
+    private long seq;
+    private long drainAt = Long.MAX_VALUE;
+
+    private long granted;
+    private long queued;
+    private long queuedMs;
+
+    TokenBucket(String name, double capacity, long periodMs, ScheduledExecutorService scheduler) {
+        this.name = name;
+        this.capacity = capacity;
+        this.refillPerMs = capacity / periodMs;
+        this.scheduler = scheduler;
+        this.tokens = capacity;
+        this.lastRefill = System.currentTimeMillis();
+    }
+
+    /** 申请 weight 个令牌，够用时返回已完成的 future，否则排队。 */
+    CompletableFuture<Void> acquire(EndpointClass endpointClass, int weight) {
+        List<Waiter> ready;
+        Waiter waiter;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            refill(now);
+            double cost = cost(endpointClass, weight);
+            if (waiters.isEmpty() && canTake(endpointClass, cost, now)) {
+                tokens -= cost;
+                granted++;
+                return GRANTED;
+            }
+            waiter = new Waiter(endpointClass, cost, seq++, now);
+            waiters.add(waiter);
+            queued++;
+            // 新来的请求可能比队首优先级高，立即按新顺序放行一次
+            ready = drainLocked(now);
+        }
+        complete(ready);
+        return waiter.future;
+    }
+
+    /** 服务端回报当前窗口已用权重。 */
+    synchronized void syncUsed(double used) {
+        refill(System.currentTimeMillis());
+        tokens = Math.min(tokens, capacity - used);
+    }
+
+    /** 服务端回报当前窗口剩余次数。 */
+    synchronized void syncRemaining(double remaining) {
+        refill(System.currentTimeMillis());
+        tokens = Math.min(tokens, remaining);
+    }
+
+    /** 被服务端限流（429 / 418）：清空令牌并暂停放行。 */
+    void block(long millis) {
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            refill(now);
+            tokens = Math.min(tokens, 0);
+            blockedUntil = Math.max(blockedUntil, now + millis);
+            scheduleDrain(now);
+        }
+    }
+
+    synchronized String stats() {
+        refill(System.currentTimeMillis());
+        return String.format("%s tokens=%.0f/%.0f waiting=%d granted=%d queued=%d avgWaitMs=%d",
+                name, tokens, capacity, waiters.size(), granted, queued, queued == 0 ? 0 : queuedMs / queued);
+    }
+
+    // ── 内部 ──────────────────────────────────────────────────────────────────
+
+    /** 单次权重超过该类别可用容量时按可用容量计，否则会永远拿不到。 */
+    private double cost(EndpointClass endpointClass, int weight) {
+        return Math.min(weight, capacity * (1 - endpointClass.reserve));
+    }
+
+    private boolean canTake(EndpointClass endpointClass, double cost, long now) {
+        return now >= blockedUntil && tokens - capacity * endpointClass.reserve >= cost;
+    }
+
+    private void refill(long now) {
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerMs);
+            lastRefill = now;
+        }
+    }
+
+    private List<Waiter> drainLocked(long now) {
+        List<Waiter> ready = null;
+        Waiter head;
+        while ((head = waiters.peek()) != null && canTake(head.endpointClass, head.cost, now)) {
+            waiters.poll();
+            tokens -= head.cost;
+            granted++;
+            queuedMs += now - head.since;
+            if (ready == null) {
+                ready = new ArrayList<>();
+            }
+            ready.add(head);
+        }
+        scheduleDrain(now);
+        return ready;
+    }
+
+    /** 按队首还差多少令牌推算下次放行时间，已有更早的调度则不重复提交。 */
+    private void scheduleDrain(long now) {
+        Waiter head = waiters.peek();
+        if (head == null) {
+            return;
+        }
+        long wait = Math.max(blockedUntil - now,
+                (long) Math.ceil((head.cost + capacity * head.endpointClass.reserve - tokens) / refillPerMs));
+        long at = now + Math.max(1, wait);
+        if (at >= drainAt) {
+            return;
+        }
+        drainAt = at;
+        scheduler.schedule(this::drain, at - now, TimeUnit.MILLISECONDS);
+    }
+
+    private void drain() {
+        List<Waiter> ready;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            drainAt = Long.MAX_VALUE;
+            refill(now);
+            ready = drainLocked(now);
+        }
+        complete(ready);
+    }
+
+    /** 在锁外完成 future，后续回调（下一个桶、enqueue）不占用桶锁。 */
+    private static void complete(List<Waiter> ready) {
+        if (ready != null) {
+            ready.forEach(w -> w.future.complete(null));
+        }
+    }
+
+    private static final class Waiter {
+        private final EndpointClass endpointClass;
+        private final double cost;
+        private final long seq;
+        private final long since;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Waiter(EndpointClass endpointClass, double cost, long seq, long since) {
+            this.endpointClass = endpointClass;
+            this.cost = cost;
+            this.seq = seq;
+            this.since = since;
+        }
+    }
+}
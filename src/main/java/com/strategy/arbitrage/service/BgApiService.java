@@ -2,12 +2,15 @@ package com.strategy.arbitrage.service;
 
 import com.strategy.arbitrage.ApiSignature;
 import com.strategy.arbitrage.HttpUtil;
-import com.strategy.arbitrage.common.constant.StaticConstant;
+import com.strategy.arbitrage.codec.PayloadDecoder;
 import com.strategy.arbitrage.common.enums.*;
+import com.strategy.arbitrage.market.MarketSnapshotStore;
+import com.strategy.arbitrage.market.SymbolQuote;
 import com.strategy.arbitrage.model.Bill;
 import com.strategy.arbitrage.model.FundingRate;
 import com.strategy.arbitrage.model.Price;
 import com.strategy.arbitrage.model.TickerLimit;
+import com.strategy.arbitrage.ratelimit.RateTag;
 import com.strategy.arbitrage.util.CommonUtil;
 import com.strategy.arbitrage.util.TelegramNotifier;
 import lombok.extern.slf4j.Slf4j;
@@ -29,6 +32,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -57,29 +61,10 @@ public class BgApiService implements ExchangeService {
         if (StringUtils.hasLength(symbol)) {
             builder.addQueryParameter("symbol", symbol);
         }
-        Request request = new Request.Builder().url(builder.build()).build();
+        Request request = new Request.Builder().url(builder.build()).tag(RateTag.class, RateTag.market(1)).build();
 
-        List<FundingRate> result = new ArrayList<>();
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
-            String res = response.body().string();
-            JSONObject json = new JSONObject(res);
-            if (!"00000".equals(json.getString("code"))) {
-                throw new RuntimeException("Bitget Error: " + json.getString("msg"));
-            }
-            JSONArray arr = json.getJSONArray("data");
-            for (int i = 0; i < arr.length(); i++) {
-                JSONObject fundRate = arr.getJSONObject(i);
-                FundingRate fundingRate = new FundingRate();
-                fundingRate.setExchange(ExchangeEnum.BITGET.getAbbr());
-                fundingRate.setSymbol(CommonUtil.normalizeSymbol(fundRate.getString("symbol"), ExchangeEnum.BITGET.getAbbr()));
-                fundingRate.setRate(Double.parseDouble(fundRate.getString("fundingRate")));
-
-                long nextFundingTime = Long.parseLong(fundRate.getString("nextUpdate"));
-                fundingRate.setNextFundingTime(nextFundingTime);
-                fundingRate.setInterval(Long.parseLong(fundRate.getString("fundingRateInterval")));
-                result.add(fundingRate);
-            }
-            return result;
+        try (Response response = HttpUtil.client(ExchangeEnum.BITGET).newCall(request).execute()) {
+            return PayloadDecoder.bgFundingRates(response.body().byteStream());
         } catch (Exception e) {
             log.error("bitgetFundRate error", e);
             return new ArrayList<>();
@@ -89,7 +74,7 @@ public class BgApiService implements ExchangeService {
     private static final String singlePriceUrl = "/api/v2/mix/market/ticker";
     private static final String priceUrl = "/api/v2/mix/market/tickers";
     @Override
-    public List<Price> price(String symbol) {
+    public CompletableFuture<List<Price>> priceAsync(String symbol) {
         String url = baseUrl + (StringUtils.hasLength(symbol) ? singlePriceUrl : priceUrl);
         HttpUrl.Builder builder = HttpUrl.parse(url).newBuilder();
         builder.addQueryParameter("productType", "USDT-FUTURES");
@@ -97,37 +82,18 @@ public class BgApiService implements ExchangeService {
         if (StringUtils.hasLength(symbol)) {
             builder.addQueryParameter("symbol", symbol);
         }
-        Request request = new Request.Builder().url(builder.build()).build();
-
-        List<Price> result = new ArrayList<>();
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
-            String res = response.body().string();
-            JSONObject json = new JSONObject(res);
-            if (!"00000".equals(json.getString("code"))) {
-                throw new RuntimeException("Bitget Error: " + json.getString("msg"));
-            }
-            JSONArray arr = json.getJSONArray("data");
-            for (int i = 0; i < arr.length(); i++) {
-                JSONObject priceInfo = arr.getJSONObject(i);
-                Price price = new Price();
-                price.setSymbol(CommonUtil.normalizeSymbol(priceInfo.getString("symbol"), ExchangeEnum.BITGET.getAbbr()));
-                price.setPrice(Double.parseDouble(priceInfo.getString("lastPr")));
-
-                price.setScale(CommonUtil.getMaxDecimalPlaces(
-                        new BigDecimal(priceInfo.getString("high24h")).stripTrailingZeros().toPlainString(),
-                        new BigDecimal(priceInfo.getString("low24h")).stripTrailingZeros().toPlainString(),
-                        new BigDecimal(priceInfo.getString("open24h")).stripTrailingZeros().toPlainString()));
-                result.add(price);
-            }
+        Request request = new Request.Builder().url(builder.build()).tag(RateTag.class, RateTag.market(1)).build();
 
+        return HttpUtil.streamAsync(ExchangeEnum.BITGET, request, body -> {
+            List<Price> result = PayloadDecoder.bgPrices(body);
             if (StringUtils.hasLength(symbol)) {
                 return result.stream().filter(e -> e.getSymbol().equals(symbol)).collect(Collectors.toList());
             }
             return result;
-        } catch (Exception e) {
+        }, e -> {
             log.error("bitget FundRate error", e);
             return new ArrayList<>();
-        }
+        });
     }
 
     private static final String tickerLimitUrl = "/api/v2/mix/market/contracts";
@@ -136,26 +102,10 @@ public class BgApiService implements ExchangeService {
         String url = baseUrl + tickerLimitUrl;
         HttpUrl.Builder builder = HttpUrl.parse(url).newBuilder();
         builder.addQueryParameter("productType", "USDT-FUTURES");
-        Request request = new Request.Builder().url(builder.build()).build();
+        Request request = new Request.Builder().url(builder.build()).tag(RateTag.class, RateTag.market(1)).build();
 
-        List<TickerLimit> result = new ArrayList<>();
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
-            String res = response.body().string();
-            JSONObject json = new JSONObject(res);
-            if (!"00000".equals(json.getString("code"))) {
-                throw new RuntimeException("Bitget Error: " + json.getString("msg"));
-            }
-            JSONArray arr = json.getJSONArray("data");
-            for (int i = 0; i < arr.length(); i++) {
-                JSONObject tickerLimiterJson = arr.getJSONObject(i);
-                TickerLimit tickerLimit = new TickerLimit();
-                tickerLimit.setSymbol(CommonUtil.normalizeSymbol(tickerLimiterJson.getString("symbol"), ExchangeEnum.BITGET.getAbbr()));
-                tickerLimit.setMinQty(Double.parseDouble(tickerLimiterJson.getString("minTradeNum")));
-                tickerLimit.setMaxQty(Double.parseDouble(tickerLimiterJson.getString("maxPositionNum")));
-                tickerLimit.setStepSize(Double.parseDouble(tickerLimiterJson.getString("priceEndStep")));
-                result.add(tickerLimit);
-            }
-            return result;
+        try (Response response = HttpUtil.client(ExchangeEnum.BITGET).newCall(request).execute()) {
+            return PayloadDecoder.bgTickerLimits(response.body().byteStream());
         } catch (Exception e) {
             log.error("bitgetFundRate error", e);
             return new ArrayList<>();
@@ -168,7 +118,8 @@ public class BgApiService implements ExchangeService {
     }
 
     public static final String positionUrl = "/api/v2/mix/position/all-position";
-    public List<JSONObject> position() {
+    @Override
+    public CompletableFuture<List<JSONObject>> positionAsync() {
         String url = baseUrl + positionUrl;
         String query = "marginCoin=USDT&productType=USDT-FUTURES";
         long timestamp = System.currentTimeMillis();
@@ -188,11 +139,11 @@ public class BgApiService implements ExchangeService {
         Request request = new Request.Builder()
                 .url(httpUrl)
                 .headers(headers)
+                .tag(RateTag.class, RateTag.account(1))
                 .build();
 
-        List<JSONObject> result = new ArrayList<>();
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
-            String res = response.body().string();
+        return HttpUtil.sendAsync(ExchangeEnum.BITGET, request, res -> {
+            List<JSONObject> result = new ArrayList<>();
             JSONObject resJson = new JSONObject(res);
             if ("00000".equals(resJson.getString("code"))) {
                 JSONArray arr = resJson.getJSONArray("data");
@@ -206,14 +157,15 @@ public class BgApiService implements ExchangeService {
                 }
             }
             return result;
-        } catch (Exception e) {
+        }, e -> {
             log.error("bitget Position error", e);
             return new ArrayList<>();
-        }
+        });
     }
 
     private static final String setLeverUrl = "/api/v2/mix/account/set-leverage";
-    public void setLever(String symbol, Integer lever) {
+    @Override
+    public CompletableFuture<Void> setLeverAsync(String symbol, Integer lever) {
         String url = baseUrl + setLeverUrl;
 
         JSONObject json = new JSONObject();
@@ -235,32 +187,33 @@ public class BgApiService implements ExchangeService {
                 "Content-Type", "application/json"
         );
 
-        try (Response response = HttpUtil.send("POST", url, RequestBody.create(body, MediaType.get("application/json")), headers)) {
-            String res = response.body().string();
+        Request request = HttpUtil.request("POST", url, RequestBody.create(body, MediaType.get("application/json")), headers, RateTag.account(1));
+        return HttpUtil.sendAsync(ExchangeEnum.BITGET, request, res -> {
             JSONObject resJson = new JSONObject(res);
             if ("00000".equals(resJson.getString("code"))) {
                 telegramNotifier.send(String.format("✅ bg 设置杠杆成功: %s %s", symbol, lever));
             } else {
                 throw new RuntimeException(resJson.getString("msg"));
             }
-        } catch (Exception e) {
+            return null;
+        }, e -> {
             telegramNotifier.send(String.format("🚫 bg 设置杠杆失败: %s %s %s", symbol, lever, e.getMessage()));
             throw new RuntimeException("🚫 bg 设置杠杆失败 " + symbol);
-        }
+        });
     }
 
 
     @Override
     public Double calQuantity(String symbol, Double margin, Integer lever, double price, double priceDiff) {
         double quantity = (margin * lever) / price * priceDiff;
-        TickerLimit tickerLimit = StaticConstant.bgSymbolFilters.get(symbol);
-        if (tickerLimit == null) {
+        SymbolQuote quote = MarketSnapshotStore.current().quote(ExchangeEnum.BITGET, symbol);
+        if (quote == null || !quote.hasLimits()) {
             throw new RuntimeException("bg tickerLimit is null");
         }
 
         // ✅ 校验并调整数量
         // 计算 size 的小数位数
-        double finalQuantity = CommonUtil.normalizeQuantity(quantity, tickerLimit.getStepSize());
+        double finalQuantity = CommonUtil.normalizeQuantity(quantity, quote.stepSize);
         if (finalQuantity <= 0) {
             throw new RuntimeException("🚫 bg 无法下单，数量无效: " + symbol);
         }
@@ -271,7 +224,8 @@ public class BgApiService implements ExchangeService {
 
 
     public static final String placeOrderUrl = "/api/v2/mix/order/place-order";
-    public void placeOrder(String symbol, BuySellEnum buySellEnum, PositionSideEnum positionSideEnum, TradeTypeEnum tradeTypeEnum, double quantity, double price) {
+    @Override
+    public CompletableFuture<Void> placeOrderAsync(String symbol, BuySellEnum buySellEnum, PositionSideEnum positionSideEnum, TradeTypeEnum tradeTypeEnum, double quantity, double price, String clientOrderId) {
         String url = baseUrl + placeOrderUrl;
 
         // 开多规则为：side=buy(long),tradeSide=open；
@@ -287,6 +241,9 @@ public class BgApiService implements ExchangeService {
         json.put("side", positionSideEnum.getBgPlaceOrderCode());               // 下单时，buy代表long sell代表short
         json.put("tradeSide", buySellEnum.getBgCode());               // open/close
         json.put("orderType", tradeTypeEnum.getBgCode());        // limit/market
+        if (clientOrderId != null) {
+            json.put("clientOid", clientOrderId);
+        }
 
         if (tradeTypeEnum == TradeTypeEnum.LIMIT) {
             json.put("force", "GTC");
@@ -306,8 +263,8 @@ public class BgApiService implements ExchangeService {
                 "Content-Type", "application/json"
         );
 
-        try (Response response = HttpUtil.send("POST", url, RequestBody.create(body, MediaType.get("application/json")), headers)) {
-            String res = response.body().string();
+        Request request = HttpUtil.request("POST", url, RequestBody.create(body, MediaType.get("application/json")), headers, RateTag.order());
+        return HttpUtil.sendAsync(ExchangeEnum.BITGET, request, res -> {
             JSONObject resJson = new JSONObject(res);
             if ("00000".equals(resJson.getString("code"))) {
                 telegramNotifier.send(String.format("✅ bg 下单成功: %s %s %s %s %s",
@@ -315,10 +272,11 @@ public class BgApiService implements ExchangeService {
             } else {
                 throw new RuntimeException("🚫 bg 下单失败 " + symbol + " " + resJson.getString("msg"));
             }
-        } catch (Exception e) {
+            return null;
+        }, e -> {
             telegramNotifier.send(String.format("✅ bg 下单失败: %s %s", symbol, e.getMessage()));
             throw new RuntimeException("🚫 bg 下单失败 " + symbol);
-        }
+        });
     }
 
     public static final String billUrl = "/api/v2/mix/account/bill";
@@ -347,9 +305,10 @@ public class BgApiService implements ExchangeService {
         Request request = new Request.Builder()
                 .url(httpUrl)
                 .headers(headers)
+                .tag(RateTag.class, RateTag.account(1))
                 .build();
 
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
+        try (Response response = HttpUtil.client(ExchangeEnum.BITGET).newCall(request).execute()) {
             String res = response.body().string();
             JSONObject resJson = new JSONObject(res);
             if ("00000".equals(resJson.getString("code"))) {
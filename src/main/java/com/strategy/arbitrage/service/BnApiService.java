@@ -2,12 +2,16 @@ package com.strategy.arbitrage.service;
 
 import com.strategy.arbitrage.ApiSignature;
 import com.strategy.arbitrage.HttpUtil;
-import com.strategy.arbitrage.common.constant.StaticConstant;
+import com.strategy.arbitrage.codec.PayloadDecoder;
 import com.strategy.arbitrage.common.enums.BuySellEnum;
 import com.strategy.arbitrage.common.enums.ExchangeEnum;
 import com.strategy.arbitrage.common.enums.PositionSideEnum;
 import com.strategy.arbitrage.common.enums.TradeTypeEnum;
+import com.strategy.arbitrage.market.MarketSnapshotStore;
+import com.strategy.arbitrage.market.SymbolQuote;
 import com.strategy.arbitrage.model.*;
+import com.strategy.arbitrage.ratelimit.EndpointClass;
+import com.strategy.arbitrage.ratelimit.RateTag;
 import com.strategy.arbitrage.util.CommonUtil;
 import com.strategy.arbitrage.util.TelegramNotifier;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +30,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -47,41 +52,36 @@ public class BnApiService implements ExchangeService {
     private static final String fundRateUrl = "/fapi/v1/premiumIndex";
 
     public List<FundingRate> fundRate(String symbol) {
+        return fundRate(symbol, fundingIntervals(symbol));
+    }
+
+    /**
+     * 结算间隔由调用方提供，便于和 fundingInfo 并行拉取。
+     */
+    public List<FundingRate> fundRate(String symbol, Map<String, Long> symbol2Interval) {
         log.info("fundRate symbol={}", symbol);
         String url = baseUrl + fundRateUrl;
         HttpUrl.Builder builder = HttpUrl.parse(url).newBuilder();
         if (StringUtils.hasLength(symbol)) {
             builder.addQueryParameter("symbol", symbol);
         }
-        Request request = new Request.Builder().url(builder.build()).build();
+        // 权重：单个合约 1，全部 10
+        Request request = new Request.Builder().url(builder.build())
+                .tag(RateTag.class, RateTag.market(StringUtils.hasLength(symbol) ? 1 : 10)).build();
 
-        List<FundingRate> result = new ArrayList<>();
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
-
-            List<JSONObject> jsonObjects = fundingInfo(symbol);
-            Map<String, Long> symbol2Interval = jsonObjects.stream().collect(Collectors.toMap(e -> e.getString("symbol"), e -> e.getLong("fundingIntervalHours")));
-
-            String res = response.body().string();
-            JSONArray arr = new JSONArray(res);
-            for (int i = 0; i < arr.length(); i++) {
-                JSONObject fundRate = arr.getJSONObject(i);
-                FundingRate fundingRate = new FundingRate();
-                fundingRate.setExchange(ExchangeEnum.BINANCE.getAbbr());
-                fundingRate.setSymbol(CommonUtil.normalizeSymbol(fundRate.getString("symbol"), ExchangeEnum.BINANCE.getAbbr()));
-                fundingRate.setRate(Double.parseDouble(fundRate.getString("lastFundingRate")));
-
-                long nextFundingTime = fundRate.getLong("nextFundingTime");
-                fundingRate.setNextFundingTime(nextFundingTime);
-                fundingRate.setInterval(symbol2Interval.getOrDefault(fundingRate.getSymbol(), 8L));
-                result.add(fundingRate);
-            }
-            return result;
+        try (Response response = HttpUtil.client(ExchangeEnum.BINANCE).newCall(request).execute()) {
+            return PayloadDecoder.bnFundingRates(response.body().byteStream(), symbol2Interval);
         } catch (Exception e) {
             log.error("binance fundRate error", e);
             return new ArrayList<>();
         }
     }
 
+    /** 非 8 小时结算的合约及其结算间隔，接口失败时为空（按 8 小时处理）。 */
+    public Map<String, Long> fundingIntervals(String symbol) {
+        return fundingInfo(symbol).stream().collect(Collectors.toMap(e -> e.getString("symbol"), e -> e.getLong("fundingIntervalHours"), (a, b) -> b));
+    }
+
     private static final String fundingInfoUrl = "/fapi/v1/fundingInfo";
 
     public List<JSONObject> fundingInfo(String symbol) {
@@ -91,10 +91,10 @@ public class BnApiService implements ExchangeService {
         if (StringUtils.hasLength(symbol)) {
             builder.addQueryParameter("symbol", symbol);
         }
-        Request request = new Request.Builder().url(builder.build()).build();
+        Request request = new Request.Builder().url(builder.build()).tag(RateTag.class, RateTag.market(1)).build();
 
         List<JSONObject> result = new ArrayList<>();
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
+        try (Response response = HttpUtil.client(ExchangeEnum.BINANCE).newCall(request).execute()) {
             String res = response.body().string();
             JSONArray arr = new JSONArray(res);
             for (int i = 0; i < arr.length(); i++) {
@@ -111,42 +111,27 @@ public class BnApiService implements ExchangeService {
     private static final String priceUrl = "/fapi/v1/ticker/24hr";
 
     @Override
-    public List<Price> price(String symbol) {
+    public CompletableFuture<List<Price>> priceAsync(String symbol) {
         log.info("price symbol={}", symbol);
         String url = baseUrl + priceUrl;
         HttpUrl.Builder builder = HttpUrl.parse(url).newBuilder();
         if (StringUtils.hasLength(symbol)) {
             builder.addQueryParameter("symbol", symbol);
         }
-        Request request = new Request.Builder().url(builder.build()).build();
-
-        List<Price> result = new ArrayList<>();
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
-            String res = response.body().string();
-            if (StringUtils.hasLength(symbol)) {
-                res = "[" + res + "]";
-            }
-            JSONArray arr = new JSONArray(res);
-            for (int i = 0; i < arr.length(); i++) {
-                JSONObject priceInfo = arr.getJSONObject(i);
-                Price price = new Price();
-                price.setSymbol(CommonUtil.normalizeSymbol(priceInfo.getString("symbol"), ExchangeEnum.BINANCE.getAbbr()));
-                price.setPrice(Double.parseDouble(priceInfo.getString("lastPrice")));
-                price.setScale(CommonUtil.getMaxDecimalPlaces(
-                        new BigDecimal(priceInfo.getString("openPrice")).stripTrailingZeros().toPlainString(),
-                        new BigDecimal(priceInfo.getString("highPrice")).stripTrailingZeros().toPlainString(),
-                        new BigDecimal(priceInfo.getString("lowPrice")).stripTrailingZeros().toPlainString()));
-                result.add(price);
-            }
+        // 权重：单个合约 1，全部 40
+        Request request = new Request.Builder().url(builder.build())
+                .tag(RateTag.class, RateTag.market(StringUtils.hasLength(symbol) ? 1 : 40)).build();
 
+        return HttpUtil.streamAsync(ExchangeEnum.BINANCE, request, body -> {
+            List<Price> result = PayloadDecoder.bnPrices(body);
             if (StringUtils.hasLength(symbol)) {
                 return result.stream().filter(e -> e.getSymbol().equals(symbol)).collect(Collectors.toList());
             }
             return result;
-        } catch (Exception e) {
+        }, e -> {
             log.error("binance price error", e);
             return new ArrayList<>();
-        }
+        });
     }
 
     private static final String tickerLimit = "/fapi/v1/exchangeInfo";
@@ -156,42 +141,10 @@ public class BnApiService implements ExchangeService {
         log.info("tickerLimit");
         String url = baseUrl + tickerLimit;
         HttpUrl.Builder builder = HttpUrl.parse(url).newBuilder();
-        Request request = new Request.Builder().url(builder.build()).build();
+        Request request = new Request.Builder().url(builder.build()).tag(RateTag.class, RateTag.market(1)).build();
 
-        List<TickerLimit> result = new ArrayList<>();
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
-            String res = response.body().string();
-            JSONObject resJson = new JSONObject(res);
-            JSONArray arr = resJson.getJSONArray("symbols");
-
-            for (int i = 0; i < arr.length(); i++) {
-                JSONObject exchangeInfo = arr.getJSONObject(i);
-                JSONArray filters = exchangeInfo.getJSONArray("filters");
-
-                JSONObject lotSizeFilter = null;
-                JSONObject priceFilter   = null;
-                for (int j = 0; j < filters.length(); j++) {
-                    JSONObject filter = filters.getJSONObject(j);
-                    String filterType = filter.getString("filterType");
-                    if ("LOT_SIZE".equals(filterType))    lotSizeFilter = filter;
-                    if ("PRICE_FILTER".equals(filterType)) priceFilter  = filter;
-                }
-
-                if (lotSizeFilter == null) {
-                    continue;
-                }
-
-                TickerLimit tickerLimit = new TickerLimit();
-                tickerLimit.setSymbol(CommonUtil.normalizeSymbol(exchangeInfo.getString("symbol"), ExchangeEnum.BINANCE.getAbbr()));
-                tickerLimit.setMinQty(Double.parseDouble(lotSizeFilter.getString("minQty")));
-                tickerLimit.setMaxQty(Double.parseDouble(lotSizeFilter.getString("maxQty")));
-                tickerLimit.setStepSize(Double.parseDouble(lotSizeFilter.getString("stepSize")));
-                if (priceFilter != null) {
-                    tickerLimit.setTickSize(Double.parseDouble(priceFilter.getString("tickSize")));
-                }
-                result.add(tickerLimit);
-            }
-            return result;
+        try (Response response = HttpUtil.client(ExchangeEnum.BINANCE).newCall(request).execute()) {
+            return PayloadDecoder.bnTickerLimits(response.body().byteStream());
         } catch (Exception e) {
             log.error("binance tickerLimit error", e);
             return new ArrayList<>();
@@ -206,9 +159,9 @@ public class BnApiService implements ExchangeService {
     public Map<String, Double> allPriceChangePct() {
         log.info("allPriceChangePct");
         String url = baseUrl + priceChangePctUrl;
-        Request request = new Request.Builder().url(url).build();
+        Request request = new Request.Builder().url(url).tag(RateTag.class, RateTag.market(40)).build();
         Map<String, Double> result = new HashMap<>();
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
+        try (Response response = HttpUtil.client(ExchangeEnum.BINANCE).newCall(request).execute()) {
             String res = response.body().string();
             JSONArray arr = new JSONArray(res);
             for (int i = 0; i < arr.length(); i++) {
@@ -230,6 +183,11 @@ public class BnApiService implements ExchangeService {
     }
 
     public List<Kline> getKlines(String symbol, String interval, int limit, Long startTime) {
+        return getKlines(symbol, interval, limit, startTime, EndpointClass.MARKET);
+    }
+
+    /** 历史回补传 {@link EndpointClass#BULK}，排在下单和行情请求之后。 */
+    public List<Kline> getKlines(String symbol, String interval, int limit, Long startTime, EndpointClass endpointClass) {
         log.info("getKlines symbol={} interval={} limit={} startTime={}", symbol, interval, limit, startTime);
         HttpUrl.Builder builder = HttpUrl.parse(baseUrl + klinesUrl).newBuilder();
         builder.addQueryParameter("symbol", symbol);
@@ -238,10 +196,11 @@ public class BnApiService implements ExchangeService {
         if (startTime != null) {
             builder.addQueryParameter("startTime", String.valueOf(startTime));
         }
-        Request request = new Request.Builder().url(builder.build()).build();
+        Request request = new Request.Builder().url(builder.build())
+                .tag(RateTag.class, RateTag.of(endpointClass, klineWeight(limit))).build();
 
         List<Kline> result = new ArrayList<>();
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
+        try (Response response = HttpUtil.client(ExchangeEnum.BINANCE).newCall(request).execute()) {
             String res = response.body().string();
             if (res.startsWith("{")) {
                 log.warn("binance klines error response for {}: {}", symbol, res);
@@ -267,6 +226,17 @@ public class BnApiService implements ExchangeService {
         }
     }
 
+    /** K 线权重随 limit 变化：[1,100) 1，[100,500) 2，[500,1000] 5，>1000 10。 */
+    private static int klineWeight(int limit) {
+        if (limit < 100) {
+            return 1;
+        }
+        if (limit < 500) {
+            return 2;
+        }
+        return limit <= 1000 ? 5 : 10;
+    }
+
     @Override
     public double getCtVal(String symbol) {
         return 1;
@@ -274,7 +244,8 @@ public class BnApiService implements ExchangeService {
 
     private static final String positionUrl = "/fapi/v2/positionRisk";
 
-    public List<JSONObject> position() {
+    @Override
+    public CompletableFuture<List<JSONObject>> positionAsync() {
         log.info("position");
         String url = baseUrl + positionUrl;
         long timestamp = System.currentTimeMillis();
@@ -289,11 +260,11 @@ public class BnApiService implements ExchangeService {
         Request request = new Request.Builder()
                 .url(httpUrl)
                 .addHeader("X-MBX-APIKEY", apiKey)
+                .tag(RateTag.class, RateTag.account(5))
                 .build();
 
-        List<JSONObject> result = new ArrayList<>();
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
-            String res = response.body().string();
+        return HttpUtil.sendAsync(ExchangeEnum.BINANCE, request, res -> {
+            List<JSONObject> result = new ArrayList<>();
             JSONArray arr = new JSONArray(res);
             for (int i = 0; i < arr.length(); i++) {
                 JSONObject pos = arr.getJSONObject(i);
@@ -304,15 +275,16 @@ public class BnApiService implements ExchangeService {
                 }
             }
             return result;
-        } catch (Exception e) {
+        }, e -> {
             log.error("binance position error", e);
             throw new RuntimeException("binance position query failed", e);
-        }
+        });
     }
 
     private static final String setLeverUrl = "/fapi/v1/leverage";
 
-    public void setLever(String symbol, Integer lever) {
+    @Override
+    public CompletableFuture<Void> setLeverAsync(String symbol, Integer lever) {
         log.info("setLever symbol={} lever={}", symbol, lever);
         Map<String, String> params = new HashMap<>();
         params.put("symbol", symbol);
@@ -338,18 +310,18 @@ public class BnApiService implements ExchangeService {
                 "X-MBX-APIKEY", apiKey,
                 "Content-Type", "application/json");
 
-        try (Response response = HttpUtil.send("POST", url, null, headers)) {
-            String res = response.body().string();
+        return HttpUtil.sendAsync(ExchangeEnum.BINANCE, HttpUtil.request("POST", url, null, headers, RateTag.account(1)), res -> {
             JSONObject resJson = new JSONObject(res);
             if (resJson.has("leverage")) {
                 telegramNotifier.send(String.format("✅ Binance 设置杠杆成功: %s %s", symbol, lever));
             } else {
                 throw new RuntimeException("🚫 bn 设置杠杆失败 " + symbol);
             }
-        } catch (Exception e) {
+            return null;
+        }, e -> {
             telegramNotifier.send(String.format("✅ Binance 设置杠杆报错: %s %s %s", symbol, lever, e.getMessage()));
             throw new RuntimeException("🚫 bn 设置杠杆失败 " + symbol);
-        }
+        });
     }
 
 
@@ -357,13 +329,13 @@ public class BnApiService implements ExchangeService {
     public Double calQuantity(String symbol, Double margin, Integer lever, double price, double priceDiff) {
         log.info("calQuantity symbol={} margin={} lever={} price={} priceDiff={}", symbol, margin, lever, price, priceDiff);
         double quantity = (margin * lever) / price * priceDiff;
-        TickerLimit tickerLimit = StaticConstant.bnSymbolFilters.get(symbol);
-        if (tickerLimit == null) {
+        SymbolQuote quote = MarketSnapshotStore.current().quote(ExchangeEnum.BINANCE, symbol);
+        if (quote == null || !quote.hasLimits()) {
             throw new RuntimeException("bn tickerLimit is null");
         }
 
         // ✅ 校验并调整数量
-        double finalQuantity = CommonUtil.normalizeQuantity(quantity, tickerLimit.getStepSize());
+        double finalQuantity = CommonUtil.normalizeQuantity(quantity, quote.stepSize);
         if (finalQuantity <= 0) {
             throw new RuntimeException("🚫 bn 无法下单，数量无效: " + symbol);
         }
@@ -374,7 +346,8 @@ public class BnApiService implements ExchangeService {
 
     private static final String placeOrderUrl = "/fapi/v1/order";
 
-    public void placeOrder(String symbol, BuySellEnum buySellEnum, PositionSideEnum positionSideEnum, TradeTypeEnum tradeTypeEnum, double quantity, double price) {
+    @Override
+    public CompletableFuture<Void> placeOrderAsync(String symbol, BuySellEnum buySellEnum, PositionSideEnum positionSideEnum, TradeTypeEnum tradeTypeEnum, double quantity, double price, String clientOrderId) {
         log.info("placeOrder symbol={} side={} positionSide={} type={} quantity={} price={}", symbol, buySellEnum, positionSideEnum, tradeTypeEnum, quantity, price);
         Map<String, String> orderParams = new HashMap<>();
         orderParams.put("symbol", symbol);
@@ -382,12 +355,15 @@ public class BnApiService implements ExchangeService {
         orderParams.put("positionSide", positionSideEnum.getBnCode());  // long/short
         orderParams.put("type", tradeTypeEnum.getBnCode());             // limit/market
         orderParams.put("quantity", String.valueOf(quantity));
+        if (clientOrderId != null) {
+            orderParams.put("newClientOrderId", clientOrderId);
+        }
 
         if (tradeTypeEnum == TradeTypeEnum.LIMIT) {
             orderParams.put("timeInForce", "GTC");
-            TickerLimit filter = StaticConstant.bnSymbolFilters.get(symbol);
-            double normalizedPrice = (filter != null && filter.getTickSize() > 0)
-                    ? CommonUtil.normalizeQuantity(price, filter.getTickSize())
+            SymbolQuote filter = MarketSnapshotStore.current().quote(ExchangeEnum.BINANCE, symbol);
+            double normalizedPrice = (filter != null && filter.tickSize > 0)
+                    ? CommonUtil.normalizeQuantity(price, filter.tickSize)
                     : price;
             orderParams.put("price", new java.math.BigDecimal(Double.toString(normalizedPrice)).stripTrailingZeros().toPlainString());
         }
@@ -412,8 +388,7 @@ public class BnApiService implements ExchangeService {
                 "X-MBX-APIKEY", apiKey,
                 "Content-Type", "application/json");
 
-        try (Response response = HttpUtil.send("POST", url, null, headers)) {
-            String res = response.body().string();
+        return HttpUtil.sendAsync(ExchangeEnum.BINANCE, HttpUtil.request("POST", url, null, headers, RateTag.order()), res -> {
             JSONObject resJson = new JSONObject(res);
             if (resJson.has("orderId")) {
                 telegramNotifier.send(String.format("✅ bn 下单成功: %s %s %s %s %s",
@@ -421,10 +396,11 @@ public class BnApiService implements ExchangeService {
             } else {
                 throw new RuntimeException("🚫 bn 下单失败 " + symbol + " " + resJson.getString("msg"));
             }
-        } catch (Exception e) {
+            return null;
+        }, e -> {
             telegramNotifier.send(String.format("✅ bn 下单失败: %s %s", symbol, e.getMessage()));
             throw new RuntimeException("🚫 bn 下单失败 " + symbol);
-        }
+        });
     }
 
     private static final String billUrl = "/fapi/v1/income";
@@ -447,9 +423,10 @@ public class BnApiService implements ExchangeService {
         Request request = new Request.Builder()
                 .url(httpUrl)
                 .addHeader("X-MBX-APIKEY", apiKey)
+                .tag(RateTag.class, RateTag.account(30))
                 .build();
 
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
+        try (Response response = HttpUtil.client(ExchangeEnum.BINANCE).newCall(request).execute()) {
             String res = response.body().string();
             JSONArray arr = new JSONArray(res);
             if (arr.isEmpty()) {
@@ -1,5 +1,6 @@
 package com.strategy.arbitrage.service;
 
+import com.strategy.arbitrage.HttpUtil;
 import com.strategy.arbitrage.common.enums.BuySellEnum;
 import com.strategy.arbitrage.common.enums.PositionSideEnum;
 import com.strategy.arbitrage.common.enums.TradeTypeEnum;
@@ -11,15 +12,42 @@ import org.json.JSONObject;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * 交易所接口。下单链路上的调用（价格、仓位、杠杆、下单）提供异步版本，基于 OkHttp enqueue，不占用调用方线程；
+ * 同名同步方法等待异步结果，异常类型与原来一致。
+ */
 public interface ExchangeService {
     List<FundingRate> fundRate(String symbol);
-    List<Price> price(String symbol);
     List<TickerLimit> tickerLimit();
     double getCtVal(String symbol);
-    List<JSONObject> position();
-    void setLever(String symbol, Integer lever);
     Double calQuantity(String symbol, Double margin, Integer lever, double price, double priceDiff);
-    void placeOrder(String symbol, BuySellEnum buySellEnum, PositionSideEnum positionSideEnum, TradeTypeEnum tradeTypeEnum, double quantity, double price);
     List<Bill> bill(Map<String, Bill> symbol2Bill, String pageParam);
-}
\ No newline at end of file
+
+    CompletableFuture<List<Price>> priceAsync(String symbol);
+    CompletableFuture<List<JSONObject>> positionAsync();
+    CompletableFuture<Void> setLeverAsync(String symbol, Integer lever);
+    /** clientOrderId 为空时由交易所生成，非空时用于和私有订单流推送对应。 */
+    CompletableFuture<Void> placeOrderAsync(String symbol, BuySellEnum buySellEnum, PositionSideEnum positionSideEnum, TradeTypeEnum tradeTypeEnum, double quantity, double price, String clientOrderId);
+
+    default CompletableFuture<Void> placeOrderAsync(String symbol, BuySellEnum buySellEnum, PositionSideEnum positionSideEnum, TradeTypeEnum tradeTypeEnum, double quantity, double price) {
+        return placeOrderAsync(symbol, buySellEnum, positionSideEnum, tradeTypeEnum, quantity, price, null);
+    }
+
+    default List<Price> price(String symbol) {
+        return HttpUtil.await(priceAsync(symbol));
+    }
+
+    default List<JSONObject> position() {
+        return HttpUtil.await(positionAsync());
+    }
+
+    default void setLever(String symbol, Integer lever) {
+        HttpUtil.await(setLeverAsync(symbol, lever));
+    }
+
+    default void placeOrder(String symbol, BuySellEnum buySellEnum, PositionSideEnum positionSideEnum, TradeTypeEnum tradeTypeEnum, double quantity, double price) {
+        HttpUtil.await(placeOrderAsync(symbol, buySellEnum, positionSideEnum, tradeTypeEnum, quantity, price));
+    }
+}
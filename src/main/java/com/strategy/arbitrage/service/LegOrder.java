@@ -0,0 +1,86 @@
+package com.strategy.arbitrage.service;
+
+import com.strategy.arbitrage.common.enums.BuySellEnum;
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.common.enums.PositionSideEnum;
+import com.strategy.arbitrage.common.enums.TradeTypeEnum;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一条腿的完整订单：价格、数量、方向在发单前全部算好，发单时不再查询任何数据。
+ * <p>
+ * 每个订单带一个本地生成的 clientOrderId（字母数字，≤ 32 位，三个交易所都接受），用于和私有订单流推送对应；
+ * 重发或平掉这条腿时生成新的订单和新的 id。
+ */
+public final class LegOrder {
+
+    private static final AtomicInteger sequence = new AtomicInteger();
+
+    public final String exchange;
+    public final String symbol;
+    public final BuySellEnum buySell;
+    public final PositionSideEnum positionSide;
+    public final TradeTypeEnum tradeType;
+    public final double quantity;
+    public final double price;
+    public final String clientOrderId;
+    private final ExchangeService exchangeService;
+
+    public LegOrder(ExchangeService exchangeService, String exchange, String symbol, BuySellEnum buySell,
+                    PositionSideEnum positionSide, TradeTypeEnum tradeType, double quantity, double price) {
+        this.exchangeService = exchangeService;
+        this.exchange = exchange;
+        this.symbol = symbol;
+        this.buySell = buySell;
+        this.positionSide = positionSide;
+        this.tradeType = tradeType;
+        this.quantity = quantity;
+        this.price = price;
+        this.clientOrderId = nextClientOrderId();
+    }
+
+    public ExchangeEnum exchangeEnum() {
+        return ExchangeEnum.getByAbbr(exchange.toLowerCase());
+    }
+
+    /** 通过 REST 下单。 */
+    public CompletableFuture<Void> sendAsync() {
+        return exchangeService.placeOrderAsync(symbol, buySell, positionSide, tradeType, quantity, price, clientOrderId);
+    }
+
+    /** 平掉这条腿开出的仓位：同一持仓方向、同样数量，市价。 */
+    public LegOrder unwind() {
+        return unwind(quantity);
+    }
+
+    /** 平掉这条腿开出的 quantity 数量。 */
+    public LegOrder unwind(double quantity) {
+        return new LegOrder(exchangeService, exchange, symbol, closeSide(exchange, positionSide), positionSide,
+                TradeTypeEnum.MARKET, quantity, price);
+    }
+
+    /** 同样的订单换一个 clientOrderId 重发 quantity 数量。 */
+    public LegOrder retry(double quantity) {
+        return new LegOrder(exchangeService, exchange, symbol, buySell, positionSide, tradeType, quantity, price);
+    }
+
+    /** 平仓的买卖方向：平空买入、平多卖出；Bitget 的 SELL 对应 close，平空也用 SELL。 */
+    public static BuySellEnum closeSide(String exchange, PositionSideEnum positionSide) {
+        if (positionSide == PositionSideEnum.SHORT && !ExchangeEnum.BITGET.getAbbr().equals(exchange)) {
+            return BuySellEnum.BUY;
+        }
+        return BuySellEnum.SELL;
+    }
+
+    private static String nextClientOrderId() {
+        return "arb" + Long.toString(System.currentTimeMillis(), 36)
+                + Integer.toString(sequence.incrementAndGet() & 0xfffff, 36);
+    }
+
+    @Override
+    public String toString() {
+        return exchange + " " + symbol + " " + buySell + " " + positionSide + " " + quantity + "@" + price + " " + clientOrderId;
+    }
+}
@@ -0,0 +1,86 @@
+package com.strategy.arbitrage.service;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各交易所、各合约最近一次设置成功的杠杆。
+ * <p>
+ * 开仓时杠杆没变就不再调用 setLever；杠杆变化、设置失败或超过有效期（可能在交易所 App 上被手动修改过）时重新设置。
+ * 同一合约的并发设置共享一次请求。
+ */
+@Slf4j
+@Service
+public class LeverageCache {
+
+    @Value("${leverage-cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Resource
+    private ExchangeServiceFactory exchangeServiceFactory;
+
+    private final Map<ExchangeEnum, Map<String, Setting>> settings = new EnumMap<>(ExchangeEnum.class);
+
+    public LeverageCache() {
+        for (ExchangeEnum exchange : ExchangeEnum.values()) {
+            settings.put(exchange, new ConcurrentHashMap<>());
+        }
+    }
+
+    /** 确保该合约的杠杆为 lever，已是该值时立即返回。 */
+    public CompletableFuture<Void> ensureAsync(String exchange, String symbol, int lever) {
+        ExchangeEnum exchangeEnum = ExchangeEnum.getByAbbr(exchange.toLowerCase());
+        Map<String, Setting> map = settings.get(exchangeEnum);
+        long now = System.currentTimeMillis();
+        Setting current = map.get(symbol);
+        if (current != null && current.lever == lever
+                && (current.pending != null || now - current.setAt <= TimeUnit.MINUTES.toMillis(ttlMinutes))) {
+            return current.pending != null ? current.pending.copy() : CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        Setting setting = new Setting(lever, now, pending);
+        if (current == null ? map.putIfAbsent(symbol, setting) != null : !map.replace(symbol, current, setting)) {
+            // 其他线程刚刚更新过，按最新状态重来
+            return ensureAsync(exchange, symbol, lever);
+        }
+
+        exchangeServiceFactory.getService(exchange).setLeverAsync(symbol, lever).whenComplete((v, e) -> {
+            if (e != null) {
+                map.remove(symbol, setting);
+                pending.completeExceptionally(e);
+            } else {
+                map.replace(symbol, setting, new Setting(lever, System.currentTimeMillis(), null));
+                pending.complete(null);
+            }
+        });
+        return pending.copy();
+    }
+
+    /** 下单失败等无法确认杠杆状态时调用，下次开仓重新设置。 */
+    public void invalidate(String exchange, String symbol) {
+        settings.get(ExchangeEnum.getByAbbr(exchange.toLowerCase())).remove(symbol);
+    }
+
+    /** pending 不为空表示设置请求还在进行中。 */
+    private static final class Setting {
+        private final int lever;
+        private final long setAt;
+        private final CompletableFuture<Void> pending;
+
+        private Setting(int lever, long setAt, CompletableFuture<Void> pending) {
+            this.lever = lever;
+            this.setAt = setAt;
+            this.pending = pending;
+        }
+    }
+}
@@ -2,12 +2,15 @@ package com.strategy.arbitrage.service;
 
 import com.strategy.arbitrage.ApiSignature;
 import com.strategy.arbitrage.HttpUtil;
-import com.strategy.arbitrage.common.constant.StaticConstant;
+import com.strategy.arbitrage.codec.PayloadDecoder;
 import com.strategy.arbitrage.common.enums.*;
+import com.strategy.arbitrage.market.MarketSnapshotStore;
+import com.strategy.arbitrage.market.SymbolQuote;
 import com.strategy.arbitrage.model.Bill;
 import com.strategy.arbitrage.model.FundingRate;
 import com.strategy.arbitrage.model.Price;
 import com.strategy.arbitrage.model.TickerLimit;
+import com.strategy.arbitrage.ratelimit.RateTag;
 import com.strategy.arbitrage.util.CommonUtil;
 import com.strategy.arbitrage.util.TelegramNotifier;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +27,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -55,32 +59,10 @@ public class OkxApiService implements ExchangeService {
         if (StringUtils.hasLength(symbol)) {
             builder.addQueryParameter("instId", CommonUtil.convertOkxSymbol(symbol));
         }
-        Request request = new Request.Builder().url(builder.build()).build();
+        Request request = new Request.Builder().url(builder.build()).tag(RateTag.class, RateTag.market(1)).build();
 
-        List<FundingRate> result = new ArrayList<>();
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
-            String res = response.body().string();
-
-            JSONObject json = new JSONObject(res);
-            if (!"0".equals(json.getString("code"))) {
-                throw new RuntimeException("OKX Error: " + json.getString("msg"));
-            }
-
-            JSONArray arr = json.getJSONArray("data");
-            for (int i = 0; i < arr.length(); i++) {
-                JSONObject fundRate = arr.getJSONObject(i);
-                FundingRate fundingRate = new FundingRate();
-                fundingRate.setExchange(ExchangeEnum.OKX.getAbbr());
-                fundingRate.setSymbol(CommonUtil.normalizeSymbol(fundRate.getString("instId"), ExchangeEnum.OKX.getAbbr()));
-                fundingRate.setRate(Double.parseDouble(fundRate.getString("fundingRate")));
-
-                long fundingTime = Long.parseLong(fundRate.getString("fundingTime"));
-                long nextFundingTime = Long.parseLong(fundRate.getString("nextFundingTime"));
-                fundingRate.setNextFundingTime(nextFundingTime);
-                fundingRate.setInterval((nextFundingTime - fundingTime) / 60 / 60 / 1000);
-                result.add(fundingRate);
-            }
-            return result;
+        try (Response response = HttpUtil.client(ExchangeEnum.OKX).newCall(request).execute()) {
+            return PayloadDecoder.okxFundingRates(response.body().byteStream());
         } catch (Exception e) {
             log.error("okx fundRate error", e);
             return new ArrayList<>();
@@ -91,7 +73,7 @@ public class OkxApiService implements ExchangeService {
     private static final String priceUrl = "/api/v5/market/tickers";
 
     @Override
-    public List<Price> price(String symbol) {
+    public CompletableFuture<List<Price>> priceAsync(String symbol) {
         String url = baseUrl + (StringUtils.hasLength(symbol) ? singlePriceUrl : priceUrl);
         HttpUrl.Builder builder = HttpUrl.parse(url).newBuilder();
 
@@ -101,39 +83,18 @@ public class OkxApiService implements ExchangeService {
             builder.addQueryParameter("instType", "SWAP");
             builder.addQueryParameter("instId", "ANY");
         }
-        Request request = new Request.Builder().url(builder.build()).build();
-
-        List<Price> result = new ArrayList<>();
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
-            String res = response.body().string();
-
-            JSONObject json = new JSONObject(res);
-            if (!"0".equals(json.getString("code"))) {
-                throw new RuntimeException("OKX Error: " + json.getString("msg"));
-            }
-
-            JSONArray arr = json.getJSONArray("data");
-            for (int i = 0; i < arr.length(); i++) {
-                JSONObject priceInfo = arr.getJSONObject(i);
-                Price price = new Price();
-                price.setSymbol(CommonUtil.normalizeSymbol(priceInfo.getString("instId"), ExchangeEnum.OKX.getAbbr()));
-                price.setPrice(Double.parseDouble(priceInfo.getString("last")));
-
-                price.setScale(CommonUtil.getMaxDecimalPlaces(
-                        new BigDecimal(priceInfo.getString("open24h")).stripTrailingZeros().toPlainString(),
-                        new BigDecimal(priceInfo.getString("low24h")).stripTrailingZeros().toPlainString(),
-                        new BigDecimal(priceInfo.getString("high24h")).stripTrailingZeros().toPlainString()));
-                result.add(price);
-            }
+        Request request = new Request.Builder().url(builder.build()).tag(RateTag.class, RateTag.market(1)).build();
 
+        return HttpUtil.streamAsync(ExchangeEnum.OKX, request, body -> {
+            List<Price> result = PayloadDecoder.okxPrices(body);
             if (StringUtils.hasLength(symbol)) {
                 return result.stream().filter(e -> e.getSymbol().equals(symbol)).collect(Collectors.toList());
             }
             return result;
-        } catch (Exception e) {
+        }, e -> {
             log.error("okx price error", e);
             return new ArrayList<>();
-        }
+        });
     }
 
     public static final String tickerLimitUrl = "/api/v5/account/instruments";
@@ -159,75 +120,31 @@ public class OkxApiService implements ExchangeService {
         Request request = new Request.Builder()
                 .url(httpUrl)
                 .headers(headers)
+                .tag(RateTag.class, RateTag.market(1))
                 .build();
 
-        List<TickerLimit> result = new ArrayList<>();
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
-            String res = response.body().string();
-            JSONObject resJson = new JSONObject(res);
-            if ("0".equals(resJson.getString("code"))) {
-                JSONArray arr = resJson.getJSONArray("data");
-                for (int i = 0; i < arr.length(); i++) {
-                    JSONObject tickerLimiterJson = arr.getJSONObject(i);
-                    TickerLimit tickerLimit = new TickerLimit();
-                    tickerLimit.setSymbol(CommonUtil.normalizeSymbol(tickerLimiterJson.getString("instId"), ExchangeEnum.OKX.getAbbr()));
-                    tickerLimit.setMinQty(Double.parseDouble(tickerLimiterJson.getString("minSz")));
-                    tickerLimit.setMaxQty(Double.parseDouble(tickerLimiterJson.getString("maxLmtSz")));
-                    tickerLimit.setStepSize(Double.parseDouble(tickerLimiterJson.getString("lotSz")));
-                    result.add(tickerLimit);
-                }
-            }
-            return result;
+        try (Response response = HttpUtil.client(ExchangeEnum.OKX).newCall(request).execute()) {
+            return PayloadDecoder.okxTickerLimits(response.body().byteStream());
         } catch (Exception e) {
             log.error("okx tickerLimit error", e);
             return new ArrayList<>();
         }
     }
 
-    public static final String basicInfoUrl = "/api/v5/account/instruments";
-
+    /** 合约面值随 instruments 全量接口加载进行情快照，这里只读内存。 */
     @Override
     public double getCtVal(String symbol) {
-        String url = baseUrl + basicInfoUrl;
-        String timestamp = CommonUtil.getISOTimestamp();
-        String query = "instType=SWAP&instId=" + CommonUtil.convertOkxSymbol(symbol);
-        String preSign = timestamp + "GET" + basicInfoUrl + "?" + query;
-        String signature = ApiSignature.hmacSha256(preSign, secretKey);
-
-        HttpUrl httpUrl = HttpUrl.parse(url + "?" + query).newBuilder().build();
-
-        Headers headers = Headers.of(
-                "OK-ACCESS-KEY", apiKey,
-                "OK-ACCESS-SIGN", signature,
-                "OK-ACCESS-TIMESTAMP", timestamp,
-                "OK-ACCESS-PASSPHRASE", passPhrase,
-                "Content-Type", "application/json"
-        );
-
-        Request request = new Request.Builder()
-                .url(httpUrl)
-                .headers(headers)
-                .build();
-
-        double ctValue = 1;
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
-            String res = response.body().string();
-            JSONObject resJson = new JSONObject(res);
-            if ("0".equals(resJson.getString("code"))) {
-                JSONObject basicInfo = resJson.getJSONArray("data").getJSONObject(0);
-                ctValue = Double.parseDouble(basicInfo.getString("ctVal"));
-                log.info("✅ okx 一张 {} 合约面值为 {}", symbol, ctValue);
-            }
-        } catch (Exception e) {
-            log.error("okx tickerLimit error", e);
+        SymbolQuote quote = MarketSnapshotStore.current().quote(ExchangeEnum.OKX, symbol);
+        if (quote == null || !quote.hasLimits()) {
+            throw new RuntimeException("okx tickerLimit is null");
         }
-        return ctValue;
+        return quote.contractValue;
     }
 
-
     public static final String positionUrl = "/api/v5/account/positions";
 
-    public List<JSONObject> position() {
+    @Override
+    public CompletableFuture<List<JSONObject>> positionAsync() {
         String url = baseUrl + positionUrl;
         String timestamp = CommonUtil.getISOTimestamp();
         String query = "instType=SWAP";
@@ -247,11 +164,11 @@ public class OkxApiService implements ExchangeService {
         Request request = new Request.Builder()
                 .url(httpUrl)
                 .headers(headers)
+                .tag(RateTag.class, RateTag.account(1))
                 .build();
 
-        List<JSONObject> result = new ArrayList<>();
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
-            String res = response.body().string();
+        return HttpUtil.sendAsync(ExchangeEnum.OKX, request, res -> {
+            List<JSONObject> result = new ArrayList<>();
             JSONObject resJson = new JSONObject(res);
             if ("0".equals(resJson.getString("code"))) {
                 JSONArray arr = resJson.getJSONArray("data");
@@ -270,15 +187,16 @@ public class OkxApiService implements ExchangeService {
                 }
             }
             return result;
-        } catch (Exception e) {
+        }, e -> {
             log.error("okx position error", e);
             return new ArrayList<>();
-        }
+        });
     }
 
     private static final String setLeverUrl = "/api/v5/account/set-leverage";
 
-    public void setLever(String symbol, Integer lever) {
+    @Override
+    public CompletableFuture<Void> setLeverAsync(String symbol, Integer lever) {
         String url = baseUrl + setLeverUrl;
         JSONObject json = new JSONObject();
         json.put("instId", CommonUtil.convertOkxSymbol(symbol));
@@ -298,32 +216,33 @@ public class OkxApiService implements ExchangeService {
                 "Content-Type", "application/json"
         );
 
-        try (Response response = HttpUtil.send("POST", url, RequestBody.create(body, MediaType.get("application/json")), headers)) {
-            String res = response.body().string();
+        Request request = HttpUtil.request("POST", url, RequestBody.create(body, MediaType.get("application/json")), headers, RateTag.account(1));
+        return HttpUtil.sendAsync(ExchangeEnum.OKX, request, res -> {
             JSONObject resJson = new JSONObject(res);
             if ("0".equals(resJson.getString("code"))) {
                 telegramNotifier.send(String.format("✅ okx 设置杠杆成功: %s %s", symbol, lever));
             } else {
                 throw new RuntimeException(resJson.getString("msg"));
             }
-        } catch (Exception e) {
+            return null;
+        }, e -> {
             telegramNotifier.send(String.format("🚫 okx 设置杠杆失败: %s %s %s", symbol, lever, e.getMessage()));
             throw new RuntimeException("🚫 okx 设置杠杆失败 " + symbol);
-        }
+        });
     }
 
 
     @Override
     public Double calQuantity(String symbol, Double margin, Integer lever, double price, double priceDiff) {
-        double quantity = (margin * lever) / price / getCtVal(symbol) * priceDiff;
-        TickerLimit tickerLimit = StaticConstant.okxSymbolFilters.get(symbol);
-        if (tickerLimit == null) {
+        SymbolQuote quote = MarketSnapshotStore.current().quote(ExchangeEnum.OKX, symbol);
+        if (quote == null || !quote.hasLimits()) {
             throw new RuntimeException("okx tickerLimit is null");
         }
+        double quantity = (margin * lever) / price / quote.contractValue * priceDiff;
 
         // ✅ 校验并调整数量
         // 计算 size 的小数位数
-        double finalQuantity = CommonUtil.normalizeQuantity(quantity, tickerLimit.getStepSize());
+        double finalQuantity = CommonUtil.normalizeQuantity(quantity, quote.stepSize);
         if (finalQuantity <= 0) {
             throw new RuntimeException("🚫 okx 无法下单，数量无效: " + symbol);
         }
@@ -335,7 +254,8 @@ public class OkxApiService implements ExchangeService {
 
     private static final String placeOrderUrl = "/api/v5/trade/order";
 
-    public void placeOrder(String symbol, BuySellEnum buySellEnum, PositionSideEnum positionSideEnum, TradeTypeEnum tradeTypeEnum, double quantity, double price) {
+    @Override
+    public CompletableFuture<Void> placeOrderAsync(String symbol, BuySellEnum buySellEnum, PositionSideEnum positionSideEnum, TradeTypeEnum tradeTypeEnum, double quantity, double price, String clientOrderId) {
         String url = baseUrl + placeOrderUrl;
 
         // 开平仓模式下，side和posSide需要进行组合
@@ -351,6 +271,9 @@ public class OkxApiService implements ExchangeService {
         json.put("ordType", tradeTypeEnum.getOkxCode());        // limit/market
         json.put("sz", String.valueOf(quantity));
         json.put("px", String.valueOf(price));
+        if (clientOrderId != null) {
+            json.put("clOrdId", clientOrderId);
+        }
 
         String timestamp = CommonUtil.getISOTimestamp();
         String body = json.toString();
@@ -365,8 +288,8 @@ public class OkxApiService implements ExchangeService {
                 "Content-Type", "application/json"
         );
 
-        try (Response response = HttpUtil.send("POST", url, RequestBody.create(body, MediaType.get("application/json")), headers)) {
-            String res = response.body().string();
+        Request request = HttpUtil.request("POST", url, RequestBody.create(body, MediaType.get("application/json")), headers, RateTag.order());
+        return HttpUtil.sendAsync(ExchangeEnum.OKX, request, res -> {
             JSONObject resJson = new JSONObject(res);
             if ("0".equals(resJson.getString("code"))) {
                 telegramNotifier.send(String.format("✅ okx 下单成功: %s %s %s %s %s",
@@ -374,10 +297,11 @@ public class OkxApiService implements ExchangeService {
             } else {
                 throw new RuntimeException("🚫 okx 下单失败 " + symbol + " " + resJson.getJSONArray("data").getJSONObject(0).getString("sMsg"));
             }
-        } catch (Exception e) {
+            return null;
+        }, e -> {
             telegramNotifier.send(String.format("✅ okx 下单失败: %s %s", symbol, e.getMessage()));
             throw new RuntimeException("🚫 okx 下单失败 " + symbol);
-        }
+        });
     }
 
     private static final String billUrl = "/api/v5/account/bills";
@@ -406,9 +330,10 @@ public class OkxApiService implements ExchangeService {
         Request request = new Request.Builder()
                 .url(httpUrl)
                 .headers(headers)
+                .tag(RateTag.class, RateTag.account(1))
                 .build();
 
-        try (Response response = HttpUtil.client.newCall(request).execute()) {
+        try (Response response = HttpUtil.client(ExchangeEnum.OKX).newCall(request).execute()) {
             String res = response.body().string();
             JSONObject resJson = new JSONObject(res);
             if ("0".equals(resJson.getString("code"))) {
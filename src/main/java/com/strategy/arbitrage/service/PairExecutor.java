@@ -0,0 +1,350 @@
+package com.strategy.arbitrage.service;
+
+import com.strategy.arbitrage.common.enums.TelegramOperateEnum;
+import com.strategy.arbitrage.gateway.OrderAck;
+import com.strategy.arbitrage.gateway.OrderEvent;
+import com.strategy.arbitrage.gateway.OrderGateways;
+import com.strategy.arbitrage.market.MarketSnapshotStore;
+import com.strategy.arbitrage.market.SymbolQuote;
+import com.strategy.arbitrage.util.CommonUtil;
+import com.strategy.arbitrage.util.TelegramNotifier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 双腿下单：两条腿的订单都准备好（价格、数量、方向）之后才连续发出，发单之间不做任何查询。
+ * <p>
+ * 每条腿记录发出和收到回执的时间，两腿发出间隔（send skew）和回执间隔（ack skew）写日志并累计统计。
+ * 只有一条腿成功时自动补救：开仓时把成功的腿市价平掉，平仓时对失败的腿再平一次。
+ * 回执超时或断线的腿订单可能已经到达交易所，先等它的终态推送：有成交按成功处理，确认未成交才补救；
+ * 等不到终态（或没有订单流）时不自动补救，发 Telegram 提醒人工核对。两条腿都失败时同样提醒核对仓位。
+ * <p>
+ * 两边的私有订单流都可用时，回执之后继续等两条腿的终态推送：按交易所成交时间记录成交间隔（fill skew），
+ * 成交比例不一致时开仓平掉多出的部分、平仓补平剩余数量，不再靠轮询仓位发现单边成交。
+ */
+@Slf4j
+@Service
+public class PairExecutor {
+
+    @Value("${pair.leg-timeout-ms:5000}")
+    private long legTimeoutMs;
+    @Value("${pair.fill-timeout-ms:10000}")
+    private long fillTimeoutMs;
+
+    @Resource
+    private TelegramNotifier telegramNotifier;
+    @Resource
+    private OrderGateways orderGateways;
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder sendSkewTotalMicros = new LongAdder();
+    private final LongAccumulator sendSkewMaxMicros = new LongAccumulator(Math::max, 0);
+    private final LongAdder ackSkewTotalMicros = new LongAdder();
+    private final LongAccumulator ackSkewMaxMicros = new LongAccumulator(Math::max, 0);
+    private final LongAdder fills = new LongAdder();
+    private final LongAdder balanced = new LongAdder();
+    private final LongAdder fillSkewTotalMs = new LongAdder();
+    private final LongAccumulator fillSkewMaxMs = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 等两条腿都准备好后同时发出。任一条腿准备失败则两条都不发，异常交给调用方。
+     */
+    public CompletableFuture<PairResult> execute(TelegramOperateEnum operate, CompletableFuture<LegOrder> legA,
+                                                 CompletableFuture<LegOrder> legB) {
+        return legA.thenCombine(legB, (a, b) -> fire(operate, a, b))
+                .thenCompose(f -> f);
+    }
+
+    public Map<String, Long> stats() {
+        long count = executions.sum();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("executions", count);
+        stats.put("recovered", recovered.sum());
+        stats.put("avgSendSkewUs", count == 0 ? 0 : sendSkewTotalMicros.sum() / count);
+        stats.put("maxSendSkewUs", sendSkewMaxMicros.get());
+        stats.put("avgAckSkewUs", count == 0 ? 0 : ackSkewTotalMicros.sum() / count);
+        stats.put("maxAckSkewUs", ackSkewMaxMicros.get());
+        long filled = fills.sum();
+        stats.put("fills", filled);
+        stats.put("balanced", balanced.sum());
+        stats.put("avgFillSkewMs", filled == 0 ? 0 : fillSkewTotalMs.sum() / filled);
+        stats.put("maxFillSkewMs", fillSkewMaxMs.get());
+        return stats;
+    }
+
+    // ── 内部 ──────────────────────────────────────────────────────────────────
+
+    private CompletableFuture<PairResult> fire(TelegramOperateEnum operate, LegOrder a, LegOrder b) {
+        LegExecution legA = new LegExecution(a);
+        LegExecution legB = new LegExecution(b);
+        // 两条腿连续发出，中间只有一次 enqueue
+        CompletableFuture<OrderAck> sentA = send(legA);
+        CompletableFuture<OrderAck> sentB = send(legB);
+        return CompletableFuture.allOf(sentA, sentB)
+                .handle((v, e) -> new PairResult(operate, legA, legB))
+                .thenCompose(result -> settle(legA).thenCombine(settle(legB), (x, y) -> result))
+                .thenCompose(result -> {
+                    if (!legA.succeeded() && !legB.succeeded()) {
+                        record(result);
+                        bothFailed(operate, legA, legB);
+                        return CompletableFuture.completedFuture(result);
+                    }
+                    if (legA.succeeded() != legB.succeeded()) {
+                        record(result);
+                        LegExecution filled = legA.succeeded() ? legA : legB;
+                        LegExecution failed = legA.succeeded() ? legB : legA;
+                        if (failed.unknown()) {
+                            unresolved(operate, filled, failed);
+                        } else {
+                            recover(operate, filled, failed);
+                        }
+                        return CompletableFuture.completedFuture(result);
+                    }
+                    CompletableFuture<OrderEvent> fillA = terminal(legA);
+                    CompletableFuture<OrderEvent> fillB = terminal(legB);
+                    if (fillA == null || fillB == null) {
+                        // 订单流不可用，只有回执结果
+                        record(result);
+                        return CompletableFuture.completedFuture(result);
+                    }
+                    return fillA.handle((f, e) -> legA.fill = f)
+                            .thenCombine(fillB.handle((f, e) -> legB.fill = f), (x, y) -> {
+                                record(result);
+                                balance(operate, legA, legB);
+                                return result;
+                            });
+                });
+    }
+
+    private CompletableFuture<OrderAck> send(LegExecution leg) {
+        leg.sentNanos = System.nanoTime();
+        // 超时只作用于副本；超时、断线时网关保留终态登记，之后还能等到推送
+        return orderGateways.placeAsync(leg.order)
+                .copy()
+                .orTimeout(legTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((v, e) -> {
+                    leg.ackNanos = System.nanoTime();
+                    leg.error = e;
+                    leg.uncertain = e != null && OrderGateways.isUncertain(e);
+                });
+    }
+
+    /**
+     * 回执超时或断线的腿等终态推送：有成交算成功（记下推送），未成交算确认失败，等不到或没有订单流时保持未知。
+     */
+    private CompletableFuture<Void> settle(LegExecution leg) {
+        if (!leg.uncertain) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<OrderEvent> terminal = orderGateways.awaitTerminal(leg.order.clientOrderId, fillTimeoutMs);
+        if (terminal == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return terminal.handle((f, e) -> {
+            if (f != null) {
+                leg.fill = f;
+                if (f.filledQty > 0) {
+                    log.warn("⚠️ {} 回执超时或断线，但终态推送显示已成交 {}", leg.order, f.filledQty);
+                    leg.error = null;
+                }
+            }
+            return null;
+        });
+    }
+
+    /** 成交推送：settle 时已经拿到的直接用，否则向网关登记等待。 */
+    private CompletableFuture<OrderEvent> terminal(LegExecution leg) {
+        return leg.fill != null ? CompletableFuture.completedFuture(leg.fill)
+                : orderGateways.awaitTerminal(leg.order.clientOrderId, fillTimeoutMs);
+    }
+
+    private void record(PairResult result) {
+        executions.increment();
+        sendSkewTotalMicros.add(result.sendSkewMicros());
+        sendSkewMaxMicros.accumulate(result.sendSkewMicros());
+        ackSkewTotalMicros.add(result.ackSkewMicros());
+        ackSkewMaxMicros.accumulate(result.ackSkewMicros());
+        if (result.fillSkewMillis() >= 0) {
+            fills.increment();
+            fillSkewTotalMs.add(result.fillSkewMillis());
+            fillSkewMaxMs.accumulate(result.fillSkewMillis());
+        }
+        log.info("⚖️ 双腿{} {}", result.operate, result);
+    }
+
+    /** 一条腿成功、另一条失败：开仓平掉成功的腿，平仓重试失败的腿。 */
+    private void recover(TelegramOperateEnum operate, LegExecution filled, LegExecution failed) {
+        recovered.increment();
+        LegOrder recovery = operate == TelegramOperateEnum.OPEN ? filled.order.unwind() : failed.order.retry(failed.order.quantity);
+        String action = operate == TelegramOperateEnum.OPEN ? "平掉已成交的 " + filled.order.exchange : "重试平仓 " + failed.order.exchange;
+        log.warn("⚠️ 双腿{} {} 失败: {}，{}", operate, failed.order, failed.error == null ? "" : failed.error.toString(), action);
+
+        sendRecovery(operate, recovery, String.format("%s 腿失败，已%s", failed.order.exchange, action),
+                String.format("%s 腿失败，%s 也失败", failed.order.exchange, action), failed.order.exchange);
+    }
+
+    /** 一条腿成功、另一条回执超时或断线且等不到终态：不知道它是否成交，不自动补救。 */
+    private void unresolved(TelegramOperateEnum operate, LegExecution filled, LegExecution unknown) {
+        log.warn("⚠️ 双腿{} {} 回执超时或断线且未收到终态，不自动补救", operate, unknown.order);
+        telegramNotifier.send(String.format("🚨 双腿%s %s 回执超时或断线，%dms 内未收到终态，可能已成交，未自动补救。%s 已成功: %s\n请核对两边仓位: %s",
+                operate, unknown.order.exchange, fillTimeoutMs, filled.order.exchange, filled.order, unknown.order));
+    }
+
+    /** 两条腿都失败或超时：超时的订单仍可能在交易所成交，提醒人工核对。 */
+    private void bothFailed(TelegramOperateEnum operate, LegExecution legA, LegExecution legB) {
+        log.warn("⚠️ 双腿{} 两条腿都失败: {} {} / {} {}", operate, legA.order, describe(legA), legB.order, describe(legB));
+        telegramNotifier.send(String.format("🚨 双腿%s 两条腿都失败，请核对仓位\n%s: %s\n%s: %s",
+                operate, legA.order, describe(legA), legB.order, describe(legB)));
+    }
+
+    private String describe(LegExecution leg) {
+        if (leg.unknown()) {
+            return "回执超时或断线，未收到终态，可能已成交";
+        }
+        return leg.error == null ? "" : leg.error.toString();
+    }
+
+    /**
+     * 两条腿都有终态推送后核对成交比例：开仓平掉成交比例高的一边多出的部分，平仓对没有全部成交的腿补平剩余数量。
+     * 任一条腿等不到终态时无法判断，提醒人工核对。
+     */
+    private void balance(TelegramOperateEnum operate, LegExecution legA, LegExecution legB) {
+        if (legA.fill == null || legB.fill == null) {
+            LegExecution missing = legA.fill == null ? legA : legB;
+            log.warn("⚠️ 双腿{} {} 未收到成交推送", operate, missing.order);
+            telegramNotifier.send(String.format("⚠️ 双腿%s %s 未在 %dms 内收到成交推送，请核对仓位: %s",
+                    operate, missing.order.exchange, fillTimeoutMs, missing.order));
+            return;
+        }
+        if (operate == TelegramOperateEnum.CLOSE) {
+            for (LegExecution leg : new LegExecution[]{legA, legB}) {
+                double remaining = normalize(leg.order, leg.order.quantity - leg.fill.filledQty);
+                if (remaining > 0) {
+                    balanced.increment();
+                    LegOrder retry = leg.order.retry(remaining);
+                    log.warn("⚠️ 双腿平仓 {} 只成交 {}，补平 {}", leg.order, leg.fill.filledQty, remaining);
+                    sendRecovery(operate, retry, leg.order.exchange + " 部分成交，已补平剩余 " + remaining,
+                            leg.order.exchange + " 部分成交，补平剩余 " + remaining + " 失败", leg.order.exchange);
+                }
+            }
+            return;
+        }
+
+        // 各交易所的数量单位不同（OKX 为张），按成交比例比较
+        double ratioA = legA.fill.filledQty / legA.order.quantity;
+        double ratioB = legB.fill.filledQty / legB.order.quantity;
+        LegExecution over = ratioA > ratioB ? legA : legB;
+        double excess = normalize(over.order, over.fill.filledQty - Math.min(ratioA, ratioB) * over.order.quantity);
+        if (excess <= 0) {
+            return;
+        }
+        balanced.increment();
+        LegOrder unwind = over.order.unwind(excess);
+        log.warn("⚠️ 双腿开仓成交不一致 A={} B={}，平掉 {} 多出的 {}", ratioA, ratioB, over.order.exchange, excess);
+        sendRecovery(operate, unwind, String.format("成交不一致（%.2f / %.2f），已平掉 %s 多出的 %s", ratioA, ratioB, over.order.exchange, excess),
+                String.format("成交不一致（%.2f / %.2f），平掉 %s 多出的 %s 失败", ratioA, ratioB, over.order.exchange, excess),
+                over.order.exchange);
+    }
+
+    private void sendRecovery(TelegramOperateEnum operate, LegOrder recovery, String done, String failed, String exchange) {
+        orderGateways.placeAsync(recovery)
+                .orTimeout(legTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((v, e) -> {
+                    if (e == null) {
+                        telegramNotifier.send(String.format("🩹 双腿%s %s: %s\n请核对 %s 是否有残留订单",
+                                operate, done, recovery, exchange));
+                    } else {
+                        log.error("🚫 双腿{} 补救失败 {}", operate, recovery, e);
+                        telegramNotifier.send(String.format("🚨 双腿%s %s，请立即人工处理: %s", operate, failed, recovery));
+                    }
+                });
+    }
+
+    /** 按该合约的下单精度向下取整，没有规则时原样返回。 */
+    private static double normalize(LegOrder order, double quantity) {
+        SymbolQuote quote = MarketSnapshotStore.current().quote(order.exchangeEnum(), order.symbol);
+        return quote != null && quote.stepSize > 0 ? CommonUtil.normalizeQuantity(quantity, quote.stepSize) : quantity;
+    }
+
+    /** 单条腿的发单记录，时间为 System.nanoTime()。 */
+    public static final class LegExecution {
+        public final LegOrder order;
+        private volatile long sentNanos;
+        private volatile long ackNanos;
+        private volatile Throwable error;
+        /** 回执超时或断线，订单可能已到交易所。 */
+        private volatile boolean uncertain;
+        private volatile OrderEvent fill;
+
+        private LegExecution(LegOrder order) {
+            this.order = order;
+        }
+
+        public boolean succeeded() {
+            return error == null;
+        }
+
+        /** 回执超时或断线且没有等到终态，不知道是否成交。 */
+        public boolean unknown() {
+            return error != null && uncertain && fill == null;
+        }
+
+        public long latencyMicros() {
+            return (ackNanos - sentNanos) / 1000;
+        }
+
+        /** 订单终态推送，订单流不可用或等待超时时为 null。 */
+        public OrderEvent fill() {
+            return fill;
+        }
+    }
+
+    public static final class PairResult {
+        public final TelegramOperateEnum operate;
+        public final LegExecution legA;
+        public final LegExecution legB;
+
+        private PairResult(TelegramOperateEnum operate, LegExecution legA, LegExecution legB) {
+            this.operate = operate;
+            this.legA = legA;
+            this.legB = legB;
+        }
+
+        public boolean succeeded() {
+            return legA.succeeded() && legB.succeeded();
+        }
+
+        public long sendSkewMicros() {
+            return Math.abs(legA.sentNanos - legB.sentNanos) / 1000;
+        }
+
+        public long ackSkewMicros() {
+            return Math.abs(legA.ackNanos - legB.ackNanos) / 1000;
+        }
+
+        /** 两条腿终态的交易所时间之差，任一条腿没有推送时为 -1。 */
+        public long fillSkewMillis() {
+            OrderEvent a = legA.fill;
+            OrderEvent b = legB.fill;
+            return a == null || b == null ? -1 : Math.abs(a.exchangeTime - b.exchangeTime);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[%s %s %dus] [%s %s %dus] sendSkew=%dus ackSkew=%dus fillSkew=%dms",
+                    legA.order, legA.succeeded() ? "ok" : "fail", legA.latencyMicros(),
+                    legB.order, legB.succeeded() ? "ok" : "fail", legB.latencyMicros(),
+                    sendSkewMicros(), ackSkewMicros(), fillSkewMillis());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.strategy.arbitrage.service;
+
+import com.strategy.arbitrage.HttpUtil;
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.model.Price;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单合约价格缓存，按 交易所 + 规范合约名 合并请求。
+ * <p>
+ * 新鲜度窗口内的价格直接返回；过期或没有缓存时发起一次 priceAsync，窗口内同一合约的并发请求共享这一次调用。
+ * 全量 ticker（{@link #seed}）会顺带刷新所有合约的缓存。接口失败或返回空时不写缓存，future 以 null 结束。
+ * <p>
+ * 指标：hit（窗口内命中）、coalesced（搭上进行中的请求）、miss（无缓存发起请求）、stale（缓存过期发起请求）、seeded（全量写入条数）。
+ */
+@Slf4j
+@Service
+public class PriceCache {
+
+    @Value("${price-cache.max-age-ms:1000}")
+    private long maxAgeMillis;
+
+    @Resource
+    private ExchangeServiceFactory exchangeServiceFactory;
+
+    private final Map<ExchangeEnum, Map<String, Entry>> entries = new EnumMap<>(ExchangeEnum.class);
+
+    private final LongAdder hit = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder miss = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+    private final LongAdder seeded = new LongAdder();
+
+    public PriceCache() {
+        for (ExchangeEnum exchange : ExchangeEnum.values()) {
+            entries.put(exchange, new ConcurrentHashMap<>());
+        }
+    }
+
+    public Price price(ExchangeEnum exchange, String symbol) {
+        return HttpUtil.await(priceAsync(exchange, symbol));
+    }
+
+    public CompletableFuture<Price> priceAsync(ExchangeEnum exchange, String symbol) {
+        return priceAsync(exchange, symbol, maxAgeMillis);
+    }
+
+    /** maxAgeMillis 为本次调用能接受的最大价格年龄，调用方可以放宽或收紧默认窗口。 */
+    public CompletableFuture<Price> priceAsync(ExchangeEnum exchange, String symbol, long maxAgeMillis) {
+        Entry entry = entries.get(exchange).computeIfAbsent(symbol, k -> new Entry());
+        CompletableFuture<Price> load;
+        synchronized (entry) {
+            long now = System.currentTimeMillis();
+            if (entry.price != null && now - entry.fetchedAt <= maxAgeMillis) {
+                hit.increment();
+                return CompletableFuture.completedFuture(entry.price);
+            }
+            if (entry.inFlight != null) {
+                coalesced.increment();
+                // 每个调用方拿到自己的副本，一方 cancel / orTimeout 不影响其他人
+                return entry.inFlight.copy();
+            }
+            (entry.price == null ? miss : stale).increment();
+            load = new CompletableFuture<>();
+            entry.inFlight = load;
+        }
+
+        long requestedAt = System.currentTimeMillis();
+        exchangeServiceFactory.getService(exchange.getAbbr()).priceAsync(symbol).whenComplete((prices, e) -> {
+            Price price = e == null && prices != null && !prices.isEmpty() ? prices.get(0) : null;
+            synchronized (entry) {
+                entry.inFlight = null;
+                // 请求期间全量 ticker 可能已写入更新的价格
+                if (price != null && requestedAt >= entry.fetchedAt) {
+                    entry.price = price;
+                    entry.fetchedAt = requestedAt;
+                }
+            }
+            if (e != null) {
+                load.completeExceptionally(e);
+            } else {
+                load.complete(price);
+            }
+        });
+        return load.copy();
+    }
+
+    /** 用全量 ticker 结果刷新缓存，fetchedAt 取请求发出的时间。 */
+    public void seed(ExchangeEnum exchange, List<Price> prices, long fetchedAt) {
+        Map<String, Entry> map = entries.get(exchange);
+        for (Price price : prices) {
+            Entry entry = map.computeIfAbsent(price.getSymbol(), k -> new Entry());
+            synchronized (entry) {
+                if (fetchedAt >= entry.fetchedAt) {
+                    entry.price = price;
+                    entry.fetchedAt = fetchedAt;
+                }
+            }
+        }
+        seeded.add(prices.size());
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hit", hit.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("miss", miss.sum());
+        stats.put("stale", stale.sum());
+        stats.put("seeded", seeded.sum());
+        return stats;
+    }
+
+    private static final class Entry {
+        private Price price;
+        private long fetchedAt;
+        private CompletableFuture<Price> inFlight;
+    }
+}
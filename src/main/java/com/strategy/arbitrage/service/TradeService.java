@@ -1,8 +1,12 @@
 package com.strategy.arbitrage.service;
 
+import com.strategy.arbitrage.HttpUtil;
 import com.strategy.arbitrage.common.enums.*;
+import com.strategy.arbitrage.gateway.OrderGateways;
 import com.strategy.arbitrage.job.BillMonitor;
-import com.strategy.arbitrage.model.FundingRate;
+import com.strategy.arbitrage.market.MarketSnapshot;
+import com.strategy.arbitrage.market.MarketSnapshotStore;
+import com.strategy.arbitrage.market.SymbolQuote;
 import com.strategy.arbitrage.model.Position;
 import com.strategy.arbitrage.model.Price;
 import com.strategy.arbitrage.util.CommonUtil;
@@ -15,10 +19,7 @@ import javax.annotation.Resource;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -27,20 +28,21 @@ public class TradeService {
 
     @Value("${order-price-diff-per:0.001}")
     private double orderPriceDiffPer;
-
-    ExecutorService executor = new ThreadPoolExecutor(
-            4,       // 核心线程数
-            4,       // 最大线程数
-            0L,      // 空闲线程存活时间
-            TimeUnit.MILLISECONDS,
-            new LinkedBlockingQueue<>(10), // 任务队列
-            new ThreadPoolExecutor.AbortPolicy() // 拒绝策略
-    );
+    @Value("${market.max-snapshot-age-seconds:600}")
+    private long maxSnapshotAgeSeconds;
 
     @Resource
     private ExchangeServiceFactory exchangeServiceFactory;
     @Resource
     private BillMonitor billMonitor;
+    @Resource
+    private PriceCache priceCache;
+    @Resource
+    private PairExecutor pairExecutor;
+    @Resource
+    private LeverageCache leverageCache;
+    @Resource
+    private OrderGateways orderGateways;
 
     public void trade(TelegramOperateEnum telegramOperateEnum, String exchangeA, String exchangeB, String symbol, String margin, String lever) {
         switch (telegramOperateEnum) {
@@ -52,24 +54,29 @@ public class TradeService {
 
     private void doOpen(String exchangeA, String exchangeB, String symbol, String margin, String lever) {
         // 获取两个所关于symbol的费率，费率高的开空，费率低的开多
-        Map<String, FundingRate> fundingRateMapA = ExchangeEnum.getFundingRateByAbbr(exchangeA);
-        Map<String, FundingRate> fundingRateMapB = ExchangeEnum.getFundingRateByAbbr(exchangeB);
-
-        FundingRate fundingRateA = fundingRateMapA.get(symbol);
-        FundingRate fundingRateB = fundingRateMapB.get(symbol);
-        if (fundingRateA == null || fundingRateB == null) {
+        // 两边费率取自同一个快照，避免一边新一边旧
+        MarketSnapshot snapshot = MarketSnapshotStore.current();
+        SymbolQuote fundingRateA = snapshot.quote(ExchangeEnum.getByAbbr(exchangeA), symbol);
+        SymbolQuote fundingRateB = snapshot.quote(ExchangeEnum.getByAbbr(exchangeB), symbol);
+        if (fundingRateA == null || fundingRateB == null || !fundingRateA.hasFunding() || !fundingRateB.hasFunding()) {
             throw new RuntimeException("资金费率为空");
         }
+        long now = System.currentTimeMillis();
+        long maxAgeMillis = TimeUnit.SECONDS.toMillis(maxSnapshotAgeSeconds);
+        if (fundingRateA.ageMillis(now) > maxAgeMillis || fundingRateB.ageMillis(now) > maxAgeMillis) {
+            throw new RuntimeException(String.format("资金费率已过期: %s %ds / %s %ds", exchangeA, fundingRateA.ageMillis(now) / 1000,
+                    exchangeB, fundingRateB.ageMillis(now) / 1000));
+        }
 
         // 吃周期短的费率
         // 优化做单方向，币种周期相同时，费率低得做多；币种周期短时，利率为负数做多，利率为正做空
         boolean openLongA;
-        if (fundingRateA.getInterval() == fundingRateB.getInterval()) {
-            openLongA = fundingRateA.getRate() < fundingRateB.getRate();
-        } else if (fundingRateA.getInterval() < fundingRateB.getInterval()) {
-            openLongA = fundingRateA.getRate() < 0;
+        if (fundingRateA.fundingInterval == fundingRateB.fundingInterval) {
+            openLongA = fundingRateA.fundingRate < fundingRateB.fundingRate;
+        } else if (fundingRateA.fundingInterval < fundingRateB.fundingInterval) {
+            openLongA = fundingRateA.fundingRate < 0;
         } else {
-            openLongA = fundingRateB.getRate() > 0;
+            openLongA = fundingRateB.fundingRate > 0;
         }
 
         // 周期长的币种，费率一般会更高，临界时间开单的话，临时吃一次周期长的费率
@@ -78,23 +85,67 @@ public class TradeService {
 //            openLongA = !openLongA;
 //        }
 
-        exchangeServiceFactory.getService(exchangeA).setLever(symbol, Integer.parseInt(lever));
-        exchangeServiceFactory.getService(exchangeB).setLever(symbol, Integer.parseInt(lever));
-
-        boolean finalOpenLongA = openLongA;
-        executor.execute(() -> order(TelegramOperateEnum.OPEN, finalOpenLongA ? "long" : "short", exchangeA, symbol, margin, lever));
-        executor.execute(() -> order(TelegramOperateEnum.OPEN, finalOpenLongA ? "short" : "long", exchangeB, symbol, margin, lever));
+        // 两边杠杆并行设置，杠杆没变时不发请求；失败时异常仍抛给调用方
+        HttpUtil.await(CompletableFuture.allOf(
+                leverageCache.ensureAsync(exchangeA, symbol, Integer.parseInt(lever)),
+                leverageCache.ensureAsync(exchangeB, symbol, Integer.parseInt(lever))));
+
+        // 两条腿的价格和数量都算好后再同时发出
+        CompletableFuture<PairExecutor.PairResult> result = pairExecutor.execute(TelegramOperateEnum.OPEN,
+                prepareAsync(TelegramOperateEnum.OPEN, openLongA ? "long" : "short", exchangeA, symbol, margin, lever),
+                prepareAsync(TelegramOperateEnum.OPEN, openLongA ? "short" : "long", exchangeB, symbol, margin, lever));
+        // 开仓失败时无法确认交易所上的杠杆状态，下次重新设置
+        result.whenComplete((r, e) -> {
+            if (e != null || !r.succeeded()) {
+                leverageCache.invalidate(exchangeA, symbol);
+                leverageCache.invalidate(exchangeB, symbol);
+            }
+        });
+        logFailure(result, exchangeA + "/" + exchangeB, symbol);
     }
 
     private void doClose(String exchangeA, String exchangeB, String symbol) {
-        executor.execute(() -> order(TelegramOperateEnum.CLOSE, null, exchangeA, symbol, null, null));
-        executor.execute(() -> order(TelegramOperateEnum.CLOSE, null, exchangeB, symbol, null, null));
+        logFailure(pairExecutor.execute(TelegramOperateEnum.CLOSE,
+                prepareAsync(TelegramOperateEnum.CLOSE, null, exchangeA, symbol, null, null),
+                prepareAsync(TelegramOperateEnum.CLOSE, null, exchangeB, symbol, null, null)),
+                exchangeA + "/" + exchangeB, symbol);
         billMonitor.checkRisk(symbol);
     }
 
     public void order(TelegramOperateEnum telegramOperateEnum, String longShort, String exchange, String symbol, String margin, String lever) {
+        HttpUtil.await(orderAsync(telegramOperateEnum, longShort, exchange, symbol, margin, lever));
+    }
+
+    /**
+     * 异步下单：价格（平仓时还有仓位）并行查询，返回后立即下单，全程不占用调用方线程。
+     * 下单走 {@link OrderGateways}，WebSocket 可用时不经过 REST。
+     */
+    public CompletableFuture<Void> orderAsync(TelegramOperateEnum telegramOperateEnum, String longShort, String exchange, String symbol, String margin, String lever) {
+        return prepareAsync(telegramOperateEnum, longShort, exchange, symbol, margin, lever)
+                .thenCompose(orderGateways::placeAsync)
+                .thenApply(ack -> null);
+    }
+
+    /**
+     * 查询价格（平仓时还有仓位）并算出完整订单，不发单。
+     * 价格走 {@link PriceCache}，同一合约短时间内的多次下单共享一次查询。
+     */
+    public CompletableFuture<LegOrder> prepareAsync(TelegramOperateEnum telegramOperateEnum, String longShort, String exchange, String symbol, String margin, String lever) {
         ExchangeService exchangeService = exchangeServiceFactory.getService(exchange);
-        Price priceInfo = exchangeService.price(symbol).get(0);
+        CompletableFuture<List<JSONObject>> positions = telegramOperateEnum == TelegramOperateEnum.OPEN
+                ? CompletableFuture.completedFuture(List.of())
+                : exchangeService.positionAsync();
+        return priceCache.priceAsync(ExchangeEnum.getByAbbr(exchange.toLowerCase()), symbol)
+                .thenCombine(positions, (price, jsonObjects) -> prepareLeg(exchangeService, telegramOperateEnum, longShort,
+                        exchange, symbol, margin, lever, price, jsonObjects));
+    }
+
+    private LegOrder prepareLeg(ExchangeService exchangeService, TelegramOperateEnum telegramOperateEnum, String longShort,
+                                String exchange, String symbol, String margin, String lever,
+                                Price priceInfo, List<JSONObject> jsonObjects) {
+        if (priceInfo == null) {
+            throw new RuntimeException("价格获取失败 " + exchange + " " + symbol);
+        }
         double price = priceInfo.getPrice();
 
         double finalPrice;
@@ -121,25 +172,33 @@ public class TradeService {
 
             log.info("{} open {} price = {}, finalPrice = {}, quantity = {}", exchange, symbol, price, finalPrice, quantity);
         } else {
-            List<JSONObject> jsonObjects = exchangeService.position();
             List<Position> positionList = jsonObjects.stream().map(Position::convert).toList();
             Position position = positionList.stream().filter(e -> e.getSymbol().equalsIgnoreCase(symbol) && e.getPositionAmt() != 0).findFirst().orElseThrow(() -> new RuntimeException("仓位获取失败"));
             quantity = Math.abs(position.getPositionAmt());
             positionSideEnum = position.getPositionSideEnum();
 
+            buySellEnum = LegOrder.closeSide(exchange, positionSideEnum);
             if (PositionSideEnum.SHORT == positionSideEnum) {
-                buySellEnum = ExchangeEnum.BITGET.getAbbr().equals(exchange) ? BuySellEnum.SELL : BuySellEnum.BUY;      // 买入平空
+                // 买入平空
                 finalPrice = price * (1 - orderPriceDiffPer);
                 finalPrice = CommonUtil.normalizePrice(finalPrice, priceInfo.getScale(), RoundingMode.FLOOR);
 
             } else {
-                buySellEnum = BuySellEnum.SELL;     // 卖出平多
+                // 卖出平多
                 finalPrice = price * (1 + orderPriceDiffPer);
                 finalPrice = CommonUtil.normalizePrice(finalPrice, priceInfo.getScale(), RoundingMode.CEILING);
             }
             log.error("close price = {}, finalPrice = {}", price, finalPrice);
         }
-        exchangeService.placeOrder(symbol, buySellEnum, positionSideEnum, TradeTypeEnum.MARKET, quantity, finalPrice);
+        return new LegOrder(exchangeService, exchange, symbol, buySellEnum, positionSideEnum, TradeTypeEnum.MARKET, quantity, finalPrice);
+    }
+
+    private static void logFailure(CompletableFuture<?> future, String exchange, String symbol) {
+        future.whenComplete((v, e) -> {
+            if (e != null) {
+                log.error("🚫 {} {} 下单失败", exchange, symbol, e);
+            }
+        });
     }
 
 }
@@ -0,0 +1,77 @@
+package com.strategy.arbitrage.stream;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.WebSocket;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Bitget USDT-FUTURES ticker 行情流。
+ * <p>
+ * ticker 频道按合约订阅，推送中同时包含最新价 lastPr、资金费率 fundingRate 与下次结算时间 nextFundingTime。
+ * 每 30 秒发送文本 "ping" 保活。
+ */
+@Slf4j
+class BgMarketStream extends MarketStream {
+
+    /** 官方建议单条订阅报文不超过 50 个频道 */
+    private static final int SUBSCRIBE_BATCH = 50;
+
+    BgMarketStream(MarketStreamEngine engine, String url, OkHttpClient client,
+                   ScheduledExecutorService scheduler, Path recordDir) {
+        super(ExchangeEnum.BITGET, engine, url, client, scheduler, recordDir);
+    }
+
+    @Override
+    protected long heartbeatSeconds() {
+        return 30;
+    }
+
+    @Override
+    protected void subscribe(WebSocket ws) {
+        List<String> symbols = new ArrayList<>(engine.symbols(exchange));
+        for (int i = 0; i < symbols.size(); i += SUBSCRIBE_BATCH) {
+            JSONArray args = new JSONArray();
+            for (String symbol : symbols.subList(i, Math.min(i + SUBSCRIBE_BATCH, symbols.size()))) {
+                args.put(new JSONObject()
+                        .put("instType", "USDT-FUTURES")
+                        .put("channel", "ticker")
+                        .put("instId", symbol));
+            }
+            ws.send(new JSONObject().put("op", "subscribe").put("args", args).toString());
+        }
+        log.info("bitget 行情流订阅 {} 个合约", symbols.size());
+    }
+
+    @Override
+    protected void handle(String text) {
+        JSONObject frame = new JSONObject(text);
+        if ("error".equals(frame.optString("event"))) {
+            log.warn("bitget 行情流订阅失败: {}", text);
+            return;
+        }
+        JSONArray data = frame.optJSONArray("data");
+        if (data == null) {
+            return;
+        }
+
+        for (int i = 0; i < data.length(); i++) {
+            JSONObject ticker = data.getJSONObject(i);
+            String symbol = ticker.getString("instId");
+            engine.onPrice(exchange, symbol, Double.parseDouble(ticker.getString("lastPr")));
+
+            String rate = ticker.optString("fundingRate");
+            String nextFundingTime = ticker.optString("nextFundingTime");
+            if (!rate.isEmpty() && !nextFundingTime.isEmpty()) {
+                engine.onFunding(exchange, symbol, Double.parseDouble(rate), Long.parseLong(nextFundingTime), 0);
+            }
+        }
+    }
+}
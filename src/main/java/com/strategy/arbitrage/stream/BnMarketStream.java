@@ -0,0 +1,56 @@
+package com.strategy.arbitrage.stream;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import okhttp3.OkHttpClient;
+import okhttp3.WebSocket;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.file.Path;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * 币安 U 本位合约全市场行情流。
+ * <p>
+ * 通过组合流 URL 直接订阅，无需发送订阅报文：
+ * <ul>
+ *   <li>!markPrice@arr@1s：全市场标记价格，含资金费率 r 与下次结算时间 T</li>
+ *   <li>!miniTicker@arr：全市场精简 ticker，c 为最新成交价</li>
+ * </ul>
+ */
+class BnMarketStream extends MarketStream {
+
+    BnMarketStream(MarketStreamEngine engine, String url, OkHttpClient client,
+                   ScheduledExecutorService scheduler, Path recordDir) {
+        super(ExchangeEnum.BINANCE, engine, url, client, scheduler, recordDir);
+    }
+
+    @Override
+    protected void subscribe(WebSocket ws) {
+        // 组合流在 URL 中指定
+    }
+
+    @Override
+    protected void handle(String text) {
+        JSONObject frame = new JSONObject(text);
+        JSONArray data = frame.optJSONArray("data");
+        if (data == null) {
+            return;
+        }
+
+        for (int i = 0; i < data.length(); i++) {
+            JSONObject item = data.getJSONObject(i);
+            String symbol = item.getString("s");
+            String event = item.optString("e");
+            if ("markPriceUpdate".equals(event)) {
+                String rate = item.optString("r");
+                if (rate.isEmpty()) {
+                    continue; // 交割合约没有资金费率
+                }
+                engine.onFunding(exchange, symbol, Double.parseDouble(rate), item.getLong("T"), 0);
+            } else if ("24hrMiniTicker".equals(event)) {
+                engine.onPrice(exchange, symbol, Double.parseDouble(item.getString("c")));
+            }
+        }
+    }
+}
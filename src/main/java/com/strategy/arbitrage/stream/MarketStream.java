@@ -0,0 +1,233 @@
+package com.strategy.arbitrage.stream;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个交易所的行情 WebSocket 连接。
+ * <p>
+ * 负责连接、订阅、心跳、断线指数退避重连；子类只需实现订阅报文和推送解析，
+ * 解析结果通过 {@link MarketStreamEngine} 增量写入内存行情。
+ * 断线期间可能丢失推送，因此每次断线都会标记缺口（gap），由 REST 快照补齐。
+ * 缺口按代数（generation）计数：补齐前记下当前代数，补齐后只清到该代数，
+ * 同步期间新出现的缺口留到下一轮。
+ */
+@Slf4j
+abstract class MarketStream extends WebSocketListener {
+
+    private static final long MIN_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    protected final ExchangeEnum exchange;
+    protected final MarketStreamEngine engine;
+    private final String url;
+    private final OkHttpClient client;
+    private final ScheduledExecutorService scheduler;
+    private final BufferedWriter recorder;
+
+    private volatile WebSocket webSocket;
+    private volatile boolean connected;
+    private volatile boolean closed;
+    private volatile long gapGeneration;      // 每次断线 +1
+    private volatile long resyncedGeneration; // 已被 REST 快照覆盖的代数
+    private volatile long lastMessageTime;
+    private long backoffMs = MIN_BACKOFF_MS;
+    private ScheduledFuture<?> heartbeat;
+
+    MarketStream(ExchangeEnum exchange, MarketStreamEngine engine, String url,
+                 OkHttpClient client, ScheduledExecutorService scheduler, Path recordDir) {
+        this.exchange = exchange;
+        this.engine = engine;
+        this.url = url;
+        this.client = client;
+        this.scheduler = scheduler;
+        this.recorder = openRecorder(recordDir, exchange);
+    }
+
+    // ── 子类钩子 ──────────────────────────────────────────────────────────────
+
+    /** 连接建立后发送订阅报文。 */
+    protected abstract void subscribe(WebSocket ws);
+
+    /** 解析一帧文本推送。 */
+    protected abstract void handle(String text);
+
+    /** 文本心跳（"ping"）间隔秒数，0 表示交易所只需协议层 ping。 */
+    protected long heartbeatSeconds() {
+        return 0;
+    }
+
+    // ── 生命周期 ──────────────────────────────────────────────────────────────
+
+    synchronized void connect() {
+        if (closed) {
+            return;
+        }
+        log.info("🔌 {} 行情流连接中: {}", exchange.getName(), url);
+        webSocket = client.newWebSocket(new Request.Builder().url(url).build(), this);
+    }
+
+    synchronized void close() {
+        closed = true;
+        cancelHeartbeat();
+        if (webSocket != null) {
+            webSocket.close(1000, "shutdown");
+        }
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                log.warn("{} 行情录制文件关闭失败", exchange.getName(), e);
+            }
+        }
+    }
+
+    /** 推送停滞时主动断开，走重连流程。 */
+    synchronized void forceReconnect() {
+        if (webSocket != null) {
+            webSocket.cancel();
+        }
+    }
+
+    boolean isConnected() {
+        return connected;
+    }
+
+    long lastMessageTime() {
+        return lastMessageTime;
+    }
+
+    boolean hasGap() {
+        return gapGeneration > resyncedGeneration;
+    }
+
+    long gapGeneration() {
+        return gapGeneration;
+    }
+
+    /** 清除 generation 及之前的缺口；之后新标记的缺口保留。 */
+    synchronized void clearGap(long generation) {
+        resyncedGeneration = Math.max(resyncedGeneration, generation);
+    }
+
+    // ── WebSocketListener ─────────────────────────────────────────────────────
+
+    @Override
+    public void onOpen(WebSocket ws, Response response) {
+        synchronized (this) {
+            if (ws != webSocket) {
+                ws.close(1000, "stale");
+                return;
+            }
+            connected = true;
+            backoffMs = MIN_BACKOFF_MS;
+            lastMessageTime = System.currentTimeMillis();
+            long interval = heartbeatSeconds();
+            if (interval > 0) {
+                heartbeat = scheduler.scheduleAtFixedRate(() -> ws.send("ping"), interval, interval, TimeUnit.SECONDS);
+            }
+        }
+        log.info("✅ {} 行情流已连接", exchange.getName());
+        subscribe(ws);
+    }
+
+    @Override
+    public void onMessage(WebSocket ws, String text) {
+        lastMessageTime = System.currentTimeMillis();
+        record(text);
+        if ("pong".equals(text)) {
+            return;
+        }
+        try {
+            handle(text);
+        } catch (Exception e) {
+            log.warn("{} 行情推送解析失败: {}", exchange.getName(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onClosing(WebSocket ws, int code, String reason) {
+        ws.close(1000, null);
+    }
+
+    @Override
+    public void onClosed(WebSocket ws, int code, String reason) {
+        log.warn("⚠️ {} 行情流关闭 code={} reason={}", exchange.getName(), code, reason);
+        scheduleReconnect(ws);
+    }
+
+    @Override
+    public void onFailure(WebSocket ws, Throwable t, Response response) {
+        log.warn("⚠️ {} 行情流异常: {}", exchange.getName(), t.getMessage());
+        scheduleReconnect(ws);
+    }
+
+    private synchronized void scheduleReconnect(WebSocket ws) {
+        if (ws != webSocket) {
+            return; // 旧连接的回调
+        }
+        connected = false;
+        gapGeneration++;
+        cancelHeartbeat();
+        if (closed) {
+            return;
+        }
+        long delay = backoffMs;
+        backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        log.info("🔁 {} 行情流 {}ms 后重连", exchange.getName(), delay);
+        scheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelHeartbeat() {
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+            heartbeat = null;
+        }
+    }
+
+    // ── 录制（供 ReplayMarketServer 回放） ───────────────────────────────────
+
+    private static BufferedWriter openRecorder(Path recordDir, ExchangeEnum exchange) {
+        if (recordDir == null) {
+            return null;
+        }
+        try {
+            Files.createDirectories(recordDir);
+            return Files.newBufferedWriter(recordDir.resolve(exchange.getAbbr() + ".jsonl"), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("{} 行情录制文件打开失败，跳过录制", exchange.getName(), e);
+            return null;
+        }
+    }
+
+    private void record(String text) {
+        if (recorder == null) {
+            return;
+        }
+        synchronized (recorder) {
+            try {
+                recorder.write(text);
+                recorder.newLine();
+                recorder.flush();
+            } catch (IOException e) {
+                log.warn("{} 行情录制失败: {}", exchange.getName(), e.getMessage());
+            }
+        }
+    }
+}
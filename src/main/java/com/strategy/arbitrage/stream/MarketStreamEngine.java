@@ -0,0 +1,225 @@
+package com.strategy.arbitrage.stream;
+
+import com.strategy.arbitrage.HttpUtil;
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.market.MarketSnapshot;
+import com.strategy.arbitrage.market.MarketSnapshotStore;
+import com.strategy.arbitrage.market.SymbolRegistry;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 行情流引擎：为每个交易所维持常驻 WebSocket 订阅（标记价格 / 资金费率 / ticker），
+ * 把推送增量攒批后按 publish-interval-ms 合并发布为新的行情快照（{@link MarketSnapshotStore}）。
+ * <p>
+ * REST 快照只在两种情况下使用（由 BasicDataMonitor 负责）：
+ * <ul>
+ *   <li>启动时的初始同步，同步完成后调用 {@link #start()}</li>
+ *   <li>缺口修复：断线重连或推送停滞超过 stale-seconds 的交易所，见 {@link #exchangesNeedingResync()}</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@DependsOn("httpClientConfig")
+public class MarketStreamEngine {
+
+    @Value("${market-stream.enabled:true}")
+    private boolean enabled;
+    @Value("${market-stream.bn-url:wss://fstream.binance.com/stream?streams=!markPrice@arr@1s/!miniTicker@arr}")
+    private String bnUrl;
+    @Value("${market-stream.bg-url:wss://ws.bitget.com/v2/ws/public}")
+    private String bgUrl;
+    @Value("${market-stream.okx-url:wss://ws.okx.com:8443/ws/v5/public}")
+    private String okxUrl;
+    @Value("${market-stream.stale-seconds:30}")
+    private long staleSeconds;
+    @Value("${market-stream.record-dir:}")
+    private String recordDir;
+    @Value("${market-stream.publish-interval-ms:100}")
+    private long publishIntervalMs;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "market-stream");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<ExchangeEnum, MarketStream> streams = new EnumMap<>(ExchangeEnum.class);
+    /** 待发布的增量，由 scheduler 线程定期合并成一个新版本。 */
+    private final Queue<Consumer<MarketSnapshot.Builder>> pending = new ConcurrentLinkedQueue<>();
+    private final List<TickListener> tickListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean started = false;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** 逐笔价格回调，在行情流读线程上执行，实现必须非阻塞。 */
+    public void addTickListener(TickListener listener) {
+        tickListeners.add(listener);
+    }
+
+    /** 初始 REST 快照完成后启动，重复调用无副作用。 */
+    public synchronized void start() {
+        if (!enabled || started) {
+            return;
+        }
+        OkHttpClient client = HttpUtil.defaultClient().newBuilder()
+                .readTimeout(0, TimeUnit.MILLISECONDS)
+                .pingInterval(20, TimeUnit.SECONDS)
+                .build();
+        Path recordPath = StringUtils.hasLength(recordDir) ? Paths.get(recordDir) : null;
+
+        streams.put(ExchangeEnum.BINANCE, new BnMarketStream(this, bnUrl, client, scheduler, recordPath));
+        streams.put(ExchangeEnum.BITGET, new BgMarketStream(this, bgUrl, client, scheduler, recordPath));
+        streams.put(ExchangeEnum.OKX, new OkxMarketStream(this, okxUrl, client, scheduler, recordPath));
+        streams.values().forEach(MarketStream::connect);
+
+        scheduler.scheduleWithFixedDelay(this::checkStale, staleSeconds, 5, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::publish, publishIntervalMs, publishIntervalMs, TimeUnit.MILLISECONDS);
+        started = true;
+        log.info("📡 行情流引擎已启动");
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        streams.values().forEach(MarketStream::close);
+        scheduler.shutdownNow();
+    }
+
+    // ── 健康状态 ──────────────────────────────────────────────────────────────
+
+    /** 连接正常且推送未停滞。 */
+    public boolean isLive(ExchangeEnum exchange) {
+        MarketStream stream = streams.get(exchange);
+        return stream != null && stream.isConnected() && !isStale(stream);
+    }
+
+    /** 需要用 REST 快照补齐的交易所：断线、存在缺口或推送停滞。 */
+    public List<ExchangeEnum> exchangesNeedingResync() {
+        List<ExchangeEnum> result = new ArrayList<>();
+        if (!started) {
+            return result;
+        }
+        streams.forEach((exchange, stream) -> {
+            if (stream.hasGap() || !stream.isConnected() || isStale(stream)) {
+                result.add(exchange);
+            }
+        });
+        return result;
+    }
+
+    /** 当前缺口代数，REST 同步开始前记录，补齐后传给 {@link #markResynced}。 */
+    public long gapGeneration(ExchangeEnum exchange) {
+        MarketStream stream = streams.get(exchange);
+        return stream == null ? 0 : stream.gapGeneration();
+    }
+
+    /** REST 快照已覆盖 generation 及之前的缺口；同步期间新出现的缺口保留。 */
+    public void markResynced(ExchangeEnum exchange, long generation) {
+        MarketStream stream = streams.get(exchange);
+        if (stream != null) {
+            stream.clearGap(generation);
+        }
+    }
+
+    private boolean isStale(MarketStream stream) {
+        return System.currentTimeMillis() - stream.lastMessageTime() > TimeUnit.SECONDS.toMillis(staleSeconds);
+    }
+
+    private void checkStale() {
+        streams.forEach((exchange, stream) -> {
+            if (stream.isConnected() && isStale(stream)) {
+                log.warn("⚠️ {} 行情流 {} 秒无推送，主动重连", exchange.getName(), staleSeconds);
+                stream.forceReconnect();
+            }
+        });
+    }
+
+    // ── 增量更新（由各交易所 MarketStream 回调） ─────────────────────────────
+
+    /** 当前已知合约的交易所原生名（来自 REST 快照），用于按合约订阅的交易所。 */
+    Collection<String> symbols(ExchangeEnum exchange) {
+        MarketSnapshot snapshot = MarketSnapshotStore.current();
+        List<String> nativeSymbols = snapshot.registry().nativeSymbols(exchange);
+        if (!nativeSymbols.isEmpty()) {
+            return nativeSymbols;
+        }
+        List<String> result = new ArrayList<>();
+        for (String symbol : snapshot.symbols(exchange)) {
+            result.add(SymbolRegistry.nativeSymbol(exchange, symbol));
+        }
+        return result;
+    }
+
+    /**
+     * @param nativeSymbol 交易所原生合约名，已登记的直接按 id 写入，未登记的按规范名新增
+     */
+    void onPrice(ExchangeEnum exchange, String nativeSymbol, double price) {
+        if (price <= 0) {
+            return;
+        }
+        int id = MarketSnapshotStore.current().registry().id(exchange, nativeSymbol);
+        if (id >= 0) {
+            pending.add(builder -> builder.price(exchange, id, price));
+            if (!tickListeners.isEmpty()) {
+                long now = System.currentTimeMillis();
+                for (TickListener listener : tickListeners) {
+                    listener.onTick(exchange, id, price, now);
+                }
+            }
+        } else {
+            String symbol = SymbolRegistry.canonical(exchange, nativeSymbol);
+            pending.add(builder -> builder.price(exchange, symbol, price));
+        }
+    }
+
+    /**
+     * @param interval 结算间隔（小时），推送中不带间隔时传 0，沿用快照中的值
+     */
+    void onFunding(ExchangeEnum exchange, String nativeSymbol, double rate, long nextFundingTime, long interval) {
+        int id = MarketSnapshotStore.current().registry().id(exchange, nativeSymbol);
+        if (id >= 0) {
+            pending.add(builder -> builder.funding(exchange, id, rate, interval, nextFundingTime));
+        } else {
+            String symbol = SymbolRegistry.canonical(exchange, nativeSymbol);
+            pending.add(builder -> builder.funding(exchange, symbol, rate, interval, nextFundingTime));
+        }
+    }
+
+    /** 把一批增量合并为一个快照版本发布，避免每条推送都拷贝一次。 */
+    private void publish() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            MarketSnapshotStore.update(builder -> {
+                Consumer<MarketSnapshot.Builder> mutation;
+                while ((mutation = pending.poll()) != null) {
+                    mutation.accept(builder);
+                }
+            });
+        } catch (Exception e) {
+            log.warn("行情快照发布失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.strategy.arbitrage.stream;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.WebSocket;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * OKX 永续合约行情流。
+ * <p>
+ * 每个合约订阅 tickers（最新价 last）和 funding-rate（资金费率）两个频道。
+ * 每 25 秒发送文本 "ping" 保活（服务端 30 秒无数据即断开）。
+ */
+@Slf4j
+class OkxMarketStream extends MarketStream {
+
+    private static final int SUBSCRIBE_BATCH = 100;
+
+    OkxMarketStream(MarketStreamEngine engine, String url, OkHttpClient client,
+                    ScheduledExecutorService scheduler, Path recordDir) {
+        super(ExchangeEnum.OKX, engine, url, client, scheduler, recordDir);
+    }
+
+    @Override
+    protected long heartbeatSeconds() {
+        return 25;
+    }
+
+    @Override
+    protected void subscribe(WebSocket ws) {
+        List<String> symbols = new ArrayList<>(engine.symbols(exchange));
+        for (int i = 0; i < symbols.size(); i += SUBSCRIBE_BATCH) {
+            JSONArray args = new JSONArray();
+            for (String instId : symbols.subList(i, Math.min(i + SUBSCRIBE_BATCH, symbols.size()))) {
+                args.put(new JSONObject().put("channel", "tickers").put("instId", instId));
+                args.put(new JSONObject().put("channel", "funding-rate").put("instId", instId));
+            }
+            ws.send(new JSONObject().put("op", "subscribe").put("args", args).toString());
+        }
+        log.info("okx 行情流订阅 {} 个合约", symbols.size());
+    }
+
+    @Override
+    protected void handle(String text) {
+        JSONObject frame = new JSONObject(text);
+        if ("error".equals(frame.optString("event"))) {
+            log.warn("okx 行情流订阅失败: {}", text);
+            return;
+        }
+        JSONObject arg = frame.optJSONObject("arg");
+        JSONArray data = frame.optJSONArray("data");
+        if (arg == null || data == null) {
+            return;
+        }
+
+        String channel = arg.getString("channel");
+        for (int i = 0; i < data.length(); i++) {
+            JSONObject item = data.getJSONObject(i);
+            String symbol = item.getString("instId");
+            if ("tickers".equals(channel)) {
+                engine.onPrice(exchange, symbol, Double.parseDouble(item.getString("last")));
+            } else if ("funding-rate".equals(channel)) {
+                // 与 REST 保持一致：间隔 = nextFundingTime - fundingTime
+                long fundingTime = Long.parseLong(item.getString("fundingTime"));
+                long nextFundingTime = Long.parseLong(item.getString("nextFundingTime"));
+                engine.onFunding(exchange, symbol, Double.parseDouble(item.getString("fundingRate")),
+                        nextFundingTime, (nextFundingTime - fundingTime) / 60 / 60 / 1000);
+            }
+        }
+    }
+}
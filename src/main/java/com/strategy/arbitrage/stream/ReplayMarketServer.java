@@ -0,0 +1,305 @@
+package com.strategy.arbitrage.stream;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.util.CommonUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 本地行情回放服务，离线测试 {@link MarketStreamEngine} 用的 WebSocket 替身。
+ * <ul>
+ *   <li>按路径区分交易所：ws://localhost:{port}/bn、/bg、/okx</li>
+ *   <li>循环推送 {dir}/{abbr}.jsonl 中的帧（配置 market-stream.record-dir 即可从实盘录制）</li>
+ *   <li>文件不存在时按各交易所报文格式推送合成行情（随机游走）</li>
+ *   <li>应答协议层 ping 和文本 "ping"，忽略订阅报文</li>
+ * </ul>
+ * 启动后把 market-stream.bn-url / bg-url / okx-url 指向本服务即可。
+ */
+@Slf4j
+public class ReplayMarketServer {
+
+    private static final String WS_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final String[] SYNTHETIC_SYMBOLS = {"BTCUSDT", "ETHUSDT", "SOLUSDT"};
+
+    private final int port;
+    private final Path dir;
+    private final long frameIntervalMs;
+    private volatile ServerSocket serverSocket;
+
+    public ReplayMarketServer(int port, Path dir, long frameIntervalMs) {
+        this.port = port;
+        this.dir = dir;
+        this.frameIntervalMs = frameIntervalMs;
+    }
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port);
+        Thread acceptor = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Thread worker = new Thread(() -> serve(socket), "replay-" + socket.getPort());
+                    worker.setDaemon(true);
+                    worker.start();
+                } catch (IOException e) {
+                    if (!serverSocket.isClosed()) {
+                        log.warn("replay accept failed: {}", e.getMessage());
+                    }
+                }
+            }
+        }, "replay-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("📼 行情回放服务已启动 ws://localhost:{}/(bn|bg|okx) dir={}", port, dir);
+    }
+
+    public void stop() throws IOException {
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+    }
+
+    // ── 连接处理 ──────────────────────────────────────────────────────────────
+
+    private void serve(Socket socket) {
+        try (socket) {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            String path = handshake(in, out);
+            if (path == null) {
+                return;
+            }
+            ExchangeEnum exchange = ExchangeEnum.getByAbbr(path.substring(path.lastIndexOf('/') + 1));
+            log.info("📼 {} 客户端已连接 {}", exchange.getName(), socket.getRemoteSocketAddress());
+
+            Thread reader = new Thread(() -> drain(socket, in, out), "replay-reader-" + socket.getPort());
+            reader.setDaemon(true);
+            reader.start();
+
+            List<String> recorded = loadRecorded(exchange);
+            Random random = new Random(42);
+            double[] prices = {60000, 3000, 150};
+            int index = 0;
+            while (!socket.isClosed()) {
+                List<String> frames = recorded.isEmpty()
+                        ? syntheticFrames(exchange, prices, random)
+                        : List.of(recorded.get(index++ % recorded.size()));
+                for (String frame : frames) {
+                    writeFrame(out, 0x1, frame.getBytes(StandardCharsets.UTF_8));
+                }
+                Thread.sleep(frameIntervalMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.info("📼 回放连接结束: {}", e.getMessage());
+        }
+    }
+
+    /** 读取并应答客户端帧：ping → pong，文本 "ping" → "pong"，close → 断开。 */
+    private void drain(Socket socket, InputStream in, OutputStream out) {
+        DataInputStream data = new DataInputStream(in);
+        try {
+            while (!socket.isClosed()) {
+                int b0 = data.readUnsignedByte();
+                int b1 = data.readUnsignedByte();
+                int opcode = b0 & 0x0F;
+                long length = b1 & 0x7F;
+                if (length == 126) {
+                    length = data.readUnsignedShort();
+                } else if (length == 127) {
+                    length = data.readLong();
+                }
+                byte[] mask = new byte[4];
+                if ((b1 & 0x80) != 0) {
+                    data.readFully(mask);
+                }
+                byte[] payload = new byte[(int) length];
+                data.readFully(payload);
+                for (int i = 0; i < payload.length; i++) {
+                    payload[i] ^= mask[i % 4];
+                }
+
+                if (opcode == 0x8) {
+                    writeFrame(out, 0x8, new byte[0]);
+                    socket.close();
+                } else if (opcode == 0x9) {
+                    writeFrame(out, 0xA, payload);
+                } else if (opcode == 0x1 && "ping".equals(new String(payload, StandardCharsets.UTF_8))) {
+                    writeFrame(out, 0x1, "pong".getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            // 客户端断开
+        }
+    }
+
+    /** 完成 WebSocket 握手，返回请求路径。 */
+    private static String handshake(InputStream in, OutputStream out) throws Exception {
+        String requestLine = readLine(in);
+        if (requestLine == null || !requestLine.startsWith("GET ")) {
+            return null;
+        }
+        String key = null;
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+                key = line.substring(colon + 1).trim();
+            }
+        }
+        if (key == null) {
+            return null;
+        }
+
+        byte[] sha1 = MessageDigest.getInstance("SHA-1").digest((key + WS_GUID).getBytes(StandardCharsets.US_ASCII));
+        String response = "HTTP/1.1 101 Switching Protocols\r\n" +
+                "Upgrade: websocket\r\n" +
+                "Connection: Upgrade\r\n" +
+                "Sec-WebSocket-Accept: " + Base64.getEncoder().encodeToString(sha1) + "\r\n\r\n";
+        out.write(response.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+
+        String path = requestLine.split(" ")[1];
+        int query = path.indexOf('?');
+        return query >= 0 ? path.substring(0, query) : path;
+    }
+
+    /** 逐字节读取一行，避免缓冲读取吞掉后续帧。 */
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                break;
+            }
+            if (b != '\r') {
+                buf.write(b);
+            }
+        }
+        return b == -1 && buf.size() == 0 ? null : buf.toString(StandardCharsets.US_ASCII);
+    }
+
+    /** 服务端帧不加掩码。 */
+    private static void writeFrame(OutputStream out, int opcode, byte[] payload) throws IOException {
+        synchronized (out) {
+            out.write(0x80 | opcode);
+            if (payload.length < 126) {
+                out.write(payload.length);
+            } else if (payload.length <= 0xFFFF) {
+                out.write(126);
+                out.write(payload.length >>> 8);
+                out.write(payload.length & 0xFF);
+            } else {
+                out.write(127);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    out.write((int) ((long) payload.length >>> shift) & 0xFF);
+                }
+            }
+            out.write(payload);
+            out.flush();
+        }
+    }
+
+    // ── 帧数据 ────────────────────────────────────────────────────────────────
+
+    private List<String> loadRecorded(ExchangeEnum exchange) throws IOException {
+        Path file = dir.resolve(exchange.getAbbr() + ".jsonl");
+        if (!Files.exists(file)) {
+            log.info("📼 未找到 {}，推送合成行情", file);
+            return new ArrayList<>();
+        }
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private static List<String> syntheticFrames(ExchangeEnum exchange, double[] prices, Random random) {
+        long now = System.currentTimeMillis();
+        long nextFundingTime = (now / 28_800_000 + 1) * 28_800_000;
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] *= 1 + (random.nextDouble() - 0.5) * 0.002;
+        }
+
+        List<String> frames = new ArrayList<>();
+        switch (exchange) {
+            case BINANCE -> {
+                JSONArray tickers = new JSONArray();
+                JSONArray marks = new JSONArray();
+                for (int i = 0; i < SYNTHETIC_SYMBOLS.length; i++) {
+                    tickers.put(new JSONObject().put("e", "24hrMiniTicker").put("E", now)
+                            .put("s", SYNTHETIC_SYMBOLS[i]).put("c", String.valueOf(prices[i])));
+                    marks.put(new JSONObject().put("e", "markPriceUpdate").put("E", now)
+                            .put("s", SYNTHETIC_SYMBOLS[i]).put("p", String.valueOf(prices[i]))
+                            .put("r", syntheticRate(random)).put("T", nextFundingTime));
+                }
+                frames.add(new JSONObject().put("stream", "!miniTicker@arr").put("data", tickers).toString());
+                frames.add(new JSONObject().put("stream", "!markPrice@arr@1s").put("data", marks).toString());
+            }
+            case BITGET -> {
+                for (int i = 0; i < SYNTHETIC_SYMBOLS.length; i++) {
+                    JSONObject ticker = new JSONObject().put("instId", SYNTHETIC_SYMBOLS[i])
+                            .put("lastPr", String.valueOf(prices[i]))
+                            .put("fundingRate", syntheticRate(random))
+                            .put("nextFundingTime", String.valueOf(nextFundingTime));
+                    frames.add(new JSONObject().put("action", "snapshot")
+                            .put("arg", new JSONObject().put("instType", "USDT-FUTURES").put("channel", "ticker").put("instId", SYNTHETIC_SYMBOLS[i]))
+                            .put("data", new JSONArray().put(ticker)).put("ts", now).toString());
+                }
+            }
+            case OKX -> {
+                for (int i = 0; i < SYNTHETIC_SYMBOLS.length; i++) {
+                    String instId = CommonUtil.convertOkxSymbol(SYNTHETIC_SYMBOLS[i]);
+                    frames.add(new JSONObject()
+                            .put("arg", new JSONObject().put("channel", "tickers").put("instId", instId))
+                            .put("data", new JSONArray().put(new JSONObject().put("instId", instId).put("last", String.valueOf(prices[i]))))
+                            .toString());
+                    frames.add(new JSONObject()
+                            .put("arg", new JSONObject().put("channel", "funding-rate").put("instId", instId))
+                            .put("data", new JSONArray().put(new JSONObject().put("instId", instId)
+                                    .put("fundingRate", syntheticRate(random))
+                                    .put("fundingTime", String.valueOf(nextFundingTime))
+                                    .put("nextFundingTime", String.valueOf(nextFundingTime + 28_800_000))))
+                            .toString());
+                }
+            }
+        }
+        return frames;
+    }
+
+    private static String syntheticRate(Random random) {
+        return String.format("%.6f", (random.nextDouble() - 0.5) * 0.002);
+    }
+
+    // ── Entry point ───────────────────────────────────────────────────────────
+
+    public static void main(String[] args) throws Exception {
+        int  port       = args.length > 0 ? Integer.parseInt(args[0]) : 9443;
+        Path dir        = Paths.get(args.length > 1 ? args[1] : "replay");
+        long intervalMs = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+        new ReplayMarketServer(port, dir, intervalMs).start();
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,14 @@
+package com.strategy.arbitrage.stream;
+
+import com.strategy.arbitrage.common.enums.ExchangeEnum;
+
+/**
+ * 行情流逐笔价格回调，在推送合并发布之前触发，不等待快照发布间隔。
+ * <p>
+ * 只回调已在 {@link com.strategy.arbitrage.market.SymbolRegistry} 登记的合约。
+ */
+@FunctionalInterface
+public interface TickListener {
+
+    void onTick(ExchangeEnum exchange, int symbolId, double price, long time);
+}
@@ -0,0 +1,51 @@
+package com.strategy.arbitrage.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 key 记录冷却结束时间（上次提醒时间 + 该次的冷却时长），冷却期内同一个 key 不再提醒。
+ * <p>
+ * key 由调用方拼接，如 "BTCUSDT_5m"；各 key 的冷却时长可以不同，过期记录由 {@link #purge} 按各自的结束时间清理，
+ * 避免合约多时无限增长。
+ */
+public final class AlertCooldown {
+
+    private final Map<String, Long> expiresAt = new ConcurrentHashMap<>();
+
+    /** 冷却中返回 true，不修改记录。 */
+    public boolean isCooling(String key, long now) {
+        Long expiry = expiresAt.get(key);
+        return expiry != null && now <= expiry;
+    }
+
+    public void mark(String key, long now, long cooldownMs) {
+        expiresAt.put(key, now + cooldownMs);
+    }
+
+    /** 不在冷却中时记下本次的冷却结束时间并返回 true；并发调用同一个 key 只有一个返回 true。 */
+    public boolean tryAcquire(String key, long now, long cooldownMs) {
+        boolean[] acquired = new boolean[1];
+        expiresAt.compute(key, (k, expiry) -> {
+            if (expiry != null && now <= expiry) {
+                return expiry;
+            }
+            acquired[0] = true;
+            return now + cooldownMs;
+        });
+        return acquired[0];
+    }
+
+    public void reset(String key) {
+        expiresAt.remove(key);
+    }
+
+    /** 清理冷却已结束的记录。 */
+    public void purge(long now) {
+        expiresAt.values().removeIf(expiry -> now > expiry);
+    }
+
+    public int size() {
+        return expiresAt.size();
+    }
+}
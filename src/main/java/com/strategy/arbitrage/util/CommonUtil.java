@@ -1,6 +1,7 @@
 package com.strategy.arbitrage.util;
 
 import com.strategy.arbitrage.common.enums.ExchangeEnum;
+import com.strategy.arbitrage.market.SymbolRegistry;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -18,24 +19,14 @@ public class CommonUtil {
     }
 
     // ================== Symbol 标准化 ==================
+    /** 换算规则见 {@link SymbolRegistry#canonical}。 */
     public static String normalizeSymbol(String symbol, String exchange) {
-        String base = symbol;
-
-        if (exchange.equalsIgnoreCase(ExchangeEnum.OKX.getAbbr())) {
-            // OKX: BTC-USDT-SWAP → BTCUSDT
-            base = symbol.replace("-SWAP", "").replace("-", "");
-        }
-
-        // 确保 base 不含重复 USDT
-        if (base.contains("USDT") || base.contains("USD")) {
-            return base; // 已有 USDT，直接返回
-        } else {
-            return base + "USDT"; // 否则补上
-        }
+        return SymbolRegistry.canonical(ExchangeEnum.getByAbbr(exchange.toLowerCase()), symbol);
     }
 
+    /** 换算规则见 {@link SymbolRegistry#nativeSymbol(ExchangeEnum, String)}。 */
     public static String convertOkxSymbol(String symbol) {
-        return symbol.split("USDT")[0] + "-USDT-SWAP";
+        return SymbolRegistry.nativeSymbol(ExchangeEnum.OKX, symbol);
     }
 
     public static double normalizePrice(double price, Integer scale, RoundingMode roundingMode) {
@@ -1,52 +1,318 @@
 package com.strategy.arbitrage.util;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.strategy.arbitrage.HttpUtil;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
+/**
+ * Telegram 通知：{@link #send} 只入队，不占用调用方线程；后台线程每 batch-interval-ms 把队列里的消息合并成一条发出。
+ * <ul>
+ *   <li>队列有界（queue-capacity），满了丢弃新消息并计数，交易线程永远不会因为通知阻塞</li>
+ *   <li>同一批里完全相同的消息只发一次，后面标注次数；超过 Telegram 单条 4096 字符的部分留到下一批</li>
+ *   <li>以 HTML 格式发送：{@link #send} 入队时转义正文（异常信息里的 &lt; &amp; 不会破坏整批），
+ *       需要 &lt;b&gt; 等标签的调用方用 {@link #sendHtml}；过长的消息在转义后的字符边界截断，不会截断标签或实体</li>
+ *   <li>带 key 的消息在冷却期内只发一次（{@link AlertCooldown}），{@link #clearCooldown} 用于指标恢复正常后重新计时</li>
+ *   <li>收到 429 时按 retry_after 暂停，这一批留到暂停结束后重发；400（格式错误）时拆开逐条重发，单条仍被拒则去掉格式再发一次；
+ *       其他失败重试 max-attempts 次后丢弃</li>
+ * </ul>
+ */
 @Slf4j
 @Service
 public class TelegramNotifier {
 
+    private static final int MAX_MESSAGE_LENGTH = 4096;
+    private static final String SEPARATOR = "\n\n";
+    private static final int SENT = 0;
+    private static final int RATE_LIMITED = 1;
+    private static final int FAILED = 2;
+    private static final int REJECTED = 3;
+    /** 为 " ×次数" 预留的长度。 */
+    private static final int COUNT_SUFFIX = 8;
+
     @Value("${telegram.botToken:7960913304:AAFiw3cDQBQdxgrNAYqaF80TCXoWEPwJV7Y}")
     private String botToken;
     @Value("${telegram.chatId:-4945032554}")
     private String chatId;
+    @Value("${telegram.queue-capacity:1000}")
+    private int queueCapacity;
+    @Value("${telegram.batch-interval-ms:3000}")
+    private long batchIntervalMs;
+    @Value("${telegram.dedup-cooldown-minutes:5}")
+    private long dedupCooldownMinutes;
+    @Value("${telegram.max-attempts:3}")
+    private int maxAttempts;
 
-    private final OkHttpClient client = new OkHttpClient();
     private final ObjectMapper mapper = new ObjectMapper();
+    private final AlertCooldown cooldown = new AlertCooldown();
+    private final ScheduledExecutorService sender = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "telegram-sender");
+        t.setDaemon(true);
+        return t;
+    });
+    private BlockingQueue<String> queue;
 
+    // 以下只在 sender 线程上读写
+    /** 上一批没有发出去的消息，每个元素是一条已转义、已带次数的消息。 */
+    private List<String> carry;
+    private int carryAttempts;
+    /** 合并发送被 400 拒绝后，留待逐条重发的消息。 */
+    private final Deque<String> singles = new ArrayDeque<>();
+    /** 被 429 限流时，下一次允许发送的时间。 */
+    private long pausedUntil;
 
-    public void send(String message) {
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder posts = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        sender.scheduleWithFixedDelay(this::flush, batchIntervalMs, batchIntervalMs, TimeUnit.MILLISECONDS);
+        sender.scheduleWithFixedDelay(() -> cooldown.purge(System.currentTimeMillis()), 10, 10, TimeUnit.MINUTES);
+        sender.scheduleWithFixedDelay(() -> log.info("📨 Telegram {}", stats()), 5, 5, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdown();
         try {
-            String url = "https://api.telegram.org/bot" + botToken + "/sendMessage";
+            if (sender.awaitTermination(5, TimeUnit.SECONDS)) {
+                // 退出前尽量把剩余消息发完，只试一次
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** 纯文本消息，转义后入队，立即返回。 */
+    public void send(String message) {
+        if (message == null || message.isEmpty()) {
+            return;
+        }
+        enqueue(escape(message));
+    }
+
+    /** 调用方已按 Telegram HTML 格式化（如 &lt;b&gt;），原样入队；超长时退回纯文本截断，避免截断标签。 */
+    public void sendHtml(String html) {
+        if (html == null || html.isEmpty()) {
+            return;
+        }
+        enqueue(html.length() > MAX_MESSAGE_LENGTH - COUNT_SUFFIX ? escape(html) : html);
+    }
+
+    private void enqueue(String message) {
+        BlockingQueue<String> q = queue;
+        if (q == null || !q.offer(message)) {
+            dropped.increment();
+            log.warn("Telegram 队列已满，丢弃消息: {}", message);
+            return;
+        }
+        enqueued.increment();
+    }
+
+    /** 同一个 key 在 dedup-cooldown-minutes 内只发一次。 */
+    public void send(String key, String message) {
+        send(key, message, TimeUnit.MINUTES.toMillis(dedupCooldownMinutes));
+    }
+
+    public void send(String key, String message, long cooldownMs) {
+        if (!cooldown.tryAcquire(key, System.currentTimeMillis(), cooldownMs)) {
+            deduplicated.increment();
+            return;
+        }
+        send(message);
+    }
+
+    /** 同上，冷却中不生成消息正文，适合高频检查的调用方。 */
+    public void send(String key, Supplier<String> message, long cooldownMs) {
+        if (!cooldown.tryAcquire(key, System.currentTimeMillis(), cooldownMs)) {
+            deduplicated.increment();
+            return;
+        }
+        send(message.get());
+    }
 
-            Map<String, Object> json = Map.of(
-                    "chat_id", chatId,
-                    "text", message,
-                    "parse_mode", "HTML"
-            );
+    /** 清除 key 的冷却记录，下次同 key 的消息立即发送。 */
+    public void clearCooldown(String key) {
+        cooldown.reset(key);
+    }
 
-            RequestBody body = RequestBody.create(
-                    mapper.writeValueAsString(json),
-                    MediaType.get("application/json")
-            );
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        BlockingQueue<String> q = queue;
+        stats.put("queued", q == null ? 0 : (long) q.size());
+        stats.put("enqueued", enqueued.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("deduplicated", deduplicated.sum());
+        stats.put("posts", posts.sum());
+        stats.put("rateLimited", rateLimited.sum());
+        stats.put("failed", failed.sum());
+        return stats;
+    }
 
-            Request request = new Request.Builder()
-                    .url(url)
-                    .post(body)
-                    .build();
+    // ── 发送线程 ──────────────────────────────────────────────────────────────
 
-            client.newCall(request).execute().close();
+    private void flush() {
+        try {
+            if (System.currentTimeMillis() < pausedUntil) {
+                return;
+            }
+            List<String> batch = carry != null ? carry
+                    : !singles.isEmpty() ? List.of(singles.poll())
+                    : nextBatch();
+            if (batch == null) {
+                return;
+            }
+            carry = batch;
+            String text = String.join(SEPARATOR, batch);
+            int result = post(text, true);
+            if (result == SENT) {
+                carry = null;
+                carryAttempts = 0;
+            } else if (result == REJECTED) {
+                carry = null;
+                carryAttempts = 0;
+                if (batch.size() > 1) {
+                    // 某一条格式有问题，拆开逐条发，只丢那一条
+                    log.warn("Telegram 拒绝合并消息，拆成 {} 条逐条重发", batch.size());
+                    singles.addAll(batch);
+                } else if (post(text, false) != SENT) {
+                    failed.increment();
+                    log.error("Telegram 拒绝消息，丢弃: {}", text);
+                }
+            } else if (result == FAILED && ++carryAttempts >= maxAttempts) {
+                // 非限流失败重试多次仍不成功，放弃这一批
+                failed.increment();
+                log.error("Telegram 发送失败 {} 次，丢弃: {}", carryAttempts, text);
+                carry = null;
+                carryAttempts = 0;
+            }
         } catch (Exception e) {
+            log.error("Telegram 发送线程异常", e);
+        }
+    }
+
+    /** 取出队列里能放进一条消息的内容，相同消息合并。 */
+    private List<String> nextBatch() {
+        Map<String, Integer> batch = new LinkedHashMap<>();
+        int length = 0;
+        String message;
+        while ((message = queue.peek()) != null) {
+            if (batch.containsKey(message)) {
+                batch.merge(message, 1, Integer::sum);
+                queue.poll();
+                continue;
+            }
+            int added = message.length() + (batch.isEmpty() ? 0 : SEPARATOR.length()) + COUNT_SUFFIX;
+            if (!batch.isEmpty() && length + added > MAX_MESSAGE_LENGTH) {
+                break;
+            }
+            queue.poll();
+            batch.put(message, 1);
+            length += added;
+        }
+        if (batch.isEmpty()) {
+            return null;
+        }
+        List<String> messages = new ArrayList<>(batch.size());
+        batch.forEach((m, count) -> messages.add(count > 1 ? m + " ×" + count : m));
+        return messages;
+    }
+
+    /** HTML 转义，结果不超过单条上限（留出次数后缀），只在完整字符或实体之后截断。 */
+    static String escape(String text) {
+        int limit = MAX_MESSAGE_LENGTH - COUNT_SUFFIX;
+        StringBuilder escaped = new StringBuilder(Math.min(text.length() + 16, limit));
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String piece = c == '<' ? "&lt;" : c == '>' ? "&gt;" : c == '&' ? "&amp;" : null;
+            int pieceLength = piece == null ? 1 : piece.length();
+            boolean surrogate = Character.isHighSurrogate(c) && i + 1 < text.length();
+            if (escaped.length() + pieceLength + (surrogate ? 1 : 0) > limit) {
+                break;
+            }
+            if (piece != null) {
+                escaped.append(piece);
+            } else if (surrogate) {
+                escaped.append(c).append(text.charAt(++i));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /** 发送一条；429 时记录暂停时间，400 返回 REJECTED。html=false 时不带 parse_mode。 */
+    private int post(String text, boolean html) throws Exception {
+        String url = "https://api.telegram.org/bot" + botToken + "/sendMessage";
+
+        Map<String, Object> json = html
+                ? Map.of("chat_id", chatId, "text", text, "parse_mode", "HTML")
+                : Map.of("chat_id", chatId, "text", text);
+
+        RequestBody body = RequestBody.create(
+                mapper.writeValueAsString(json),
+                MediaType.get("application/json")
+        );
+
+        Request request = new Request.Builder()
+                .url(url)
+                .post(body)
+                .build();
+
+        try (Response response = HttpUtil.telegramClient().newCall(request).execute()) {
+            posts.increment();
+            if (response.isSuccessful()) {
+                return SENT;
+            }
+            ResponseBody responseBody = response.body();
+            String content = responseBody == null ? "" : responseBody.string();
+            if (response.code() == 429) {
+                JsonNode retryAfter = mapper.readTree(content).path("parameters").path("retry_after");
+                long seconds = retryAfter.isNumber() ? retryAfter.asLong() : 5;
+                pausedUntil = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(seconds);
+                rateLimited.increment();
+                log.warn("Telegram 限流，{} 秒后重发，队列 {} 条", seconds, queue.size());
+                return RATE_LIMITED;
+            }
+            if (response.code() == 400) {
+                log.warn("Telegram 拒绝消息: {}", content);
+                return REJECTED;
+            }
+            log.error("Failed to send Telegram message: {} {}", response.code(), content);
+            return FAILED;
+        } catch (IOException e) {
             log.error("Failed to send Telegram message", e);
+            return FAILED;
         }
     }
-}
\ No newline at end of file
+}
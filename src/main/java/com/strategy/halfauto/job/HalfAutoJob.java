@@ -1,12 +1,16 @@
 package com.strategy.halfauto.job;
 
-import com.strategy.arbitrage.common.constant.StaticConstant;
+import com.strategy.arbitrage.HttpUtil;
 import com.strategy.arbitrage.common.enums.BuySellEnum;
 import com.strategy.arbitrage.common.enums.ExchangeEnum;
 import com.strategy.arbitrage.common.enums.PositionSideEnum;
 import com.strategy.arbitrage.common.enums.TradeTypeEnum;
+import com.strategy.arbitrage.gateway.OrderGateways;
+import com.strategy.arbitrage.market.MarketSnapshotStore;
 import com.strategy.arbitrage.model.Price;
 import com.strategy.arbitrage.service.BnApiService;
+import com.strategy.arbitrage.service.LegOrder;
+import com.strategy.arbitrage.service.PriceCache;
 import com.strategy.arbitrage.util.TelegramNotifier;
 import com.strategy.halfauto.mapper.HalfAutoAddRecordMapper;
 import com.strategy.halfauto.mapper.HalfAutoPositionMapper;
@@ -49,6 +53,12 @@ public class HalfAutoJob {
     @Resource
     private BnApiService bnApiService;
 
+    @Resource
+    private PriceCache priceCache;
+
+    @Resource
+    private OrderGateways orderGateways;
+
     @Resource
     private TelegramNotifier telegramNotifier;
 
@@ -89,7 +99,7 @@ public class HalfAutoJob {
 
     @Scheduled(fixedDelay = 10_000)
     public void run() {
-        if (!StaticConstant.initFlag) return;
+        if (!MarketSnapshotStore.isReady()) return;
 
         try {
             syncPositions();
@@ -129,10 +139,10 @@ public class HalfAutoJob {
                     BuySellEnum closeSide = (side == PositionSideEnum.LONG) ? BuySellEnum.SELL : BuySellEnum.BUY;
                     log.info("收益触发自动平仓: {} {} 浮盈={}U 止盈目标={}U", symbol, side,
                             String.format("%.2f", unrealizedProfit), String.format("%.2f", takeProfitTarget));
-                    telegramNotifier.send(String.format(
+                    telegramNotifier.sendHtml(String.format(
                             "💰 <b>自动平仓</b>\n币种: %s\n方向: %s\n浮动收益: %.2fU\n止盈目标: %.2fU",
                             symbol, side, unrealizedProfit, takeProfitTarget));
-                    bnApiService.placeOrder(symbol, closeSide, side, TradeTypeEnum.MARKET, posAmt, 0);
+                    placeOrder(symbol, closeSide, side, TradeTypeEnum.MARKET, posAmt, 0);
                 }
                 continue;
             }
@@ -159,7 +169,7 @@ public class HalfAutoJob {
                     positionMapper.insert(dbPos);
                     log.info("新仓位写入DB: {} {} 入场价={} 保证金={}U 杠杆={}x db_id={}",
                             symbol, side, entryPrice, String.format("%.2f", margin), leverage, dbPos.getId());
-                    telegramNotifier.send(String.format(
+                    telegramNotifier.sendHtml(String.format(
                             "📋 <b>新仓位监控</b>\n币种: %s\n方向: %s\n入场价: %.4f\n保证金: %.2fU\n杠杆: %dx",
                             symbol, side, entryPrice, margin, leverage));
                 } else {
@@ -205,7 +215,7 @@ public class HalfAutoJob {
                     positionMapper.delete(c.getPositionId());
                 }
                 log.info("仓位已关闭: {} {} db_id={}", c.getSymbol(), c.getPositionSide(), c.getPositionId());
-                telegramNotifier.send(String.format(
+                telegramNotifier.sendHtml(String.format(
                         "🗑 <b>仓位关闭</b>，停止监控: %s %s（共加仓 %d 次）",
                         c.getSymbol(), c.getPositionSide(), c.getAddCount()));
                 return true;
@@ -218,10 +228,11 @@ public class HalfAutoJob {
 
     private void checkAndAdd(PositionCache cache) {
         try {
-            List<Price> prices = bnApiService.price(cache.getSymbol());
-            if (prices.isEmpty()) return;
+            // 同一合约的多空两个仓位共享一次价格查询
+            Price price = priceCache.price(ExchangeEnum.BINANCE, cache.getSymbol());
+            if (price == null) return;
 
-            double  currentPrice  = prices.get(0).getPrice();
+            double  currentPrice  = price.getPrice();
             double  entryPrice    = cache.getEntryPrice();
             double  lastAddPrice  = cache.getLastAddPrice();
             // 多单：入场价下跌 N*10% 触发（10%、20%、30%…）
@@ -288,12 +299,12 @@ public class HalfAutoJob {
                         currentPrice, lastAddPrice,
                         (currentPrice - lastAddPrice) / lastAddPrice * 100);
 
-        telegramNotifier.send(String.format(
+        telegramNotifier.sendHtml(String.format(
                 "➕ <b>触发加仓</b>\n币种: %s\n方向: %s\n%s\n限价: %.4f\n加仓金额: %.2fU\n第 %d 次加仓",
                 symbol, side, triggerDesc, limitPrice, margin, cache.getAddCount() + 1));
 
         // 下限价单
-        bnApiService.placeOrder(symbol, buySell, side, TradeTypeEnum.LIMIT, quantity, limitPrice);
+        placeOrder(symbol, buySell, side, TradeTypeEnum.LIMIT, quantity, limitPrice);
 
         // 写入加仓记录
         HalfAutoAddRecord record = new HalfAutoAddRecord();
@@ -323,6 +334,12 @@ public class HalfAutoJob {
 
     // ── 工具方法 ──────────────────────────────────────────────────────────────
 
+    /** 币安下单走下单网关，WebSocket 可用时不经过 REST。 */
+    private void placeOrder(String symbol, BuySellEnum buySell, PositionSideEnum side, TradeTypeEnum type, double quantity, double price) {
+        HttpUtil.await(orderGateways.placeAsync(new LegOrder(bnApiService, ExchangeEnum.BINANCE.getAbbr(), symbol,
+                buySell, side, type, quantity, price)));
+    }
+
     private static String cacheKey(String symbol, PositionSideEnum side) {
         return symbol + "_" + side.name();
     }
@@ -1,16 +1,5 @@
 package com.strategy.test;
 
-import org.ta4j.core.BarSeries;
-import org.ta4j.core.BaseBar;
-import org.ta4j.core.BaseBarSeriesBuilder;
-
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.time.Duration;
-import java.time.Instant;
-import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -60,26 +49,27 @@ public abstract class AbstractBacktest {
     /**
      * Called at the start of each bar before any position logic.
      * Subclasses can override to inspect raw bar data (open, high, low, close).
+     * Use {@link BarColumns#toBarSeries()} when a ta4j indicator is needed.
      */
-    protected void onBar(BarSeries series, int barIndex) {}
+    protected void onBar(BarColumns bars, int barIndex) {}
 
     // ── Public entry point ────────────────────────────────────────────────────
 
     public final void run(String symbol, String interval, int limit) {
-        System.out.printf("=== 从 MySQL 加载K线: %s %s%s ===%n",
+        System.out.printf("=== 加载K线: %s %s%s ===%n",
                 symbol, interval, limit > 0 ? " x" + limit : " (全量)");
-        BarSeries series = loadKlinesFromDb(symbol, interval, limit);
-        System.out.printf("=== 加载成功，共 %d 根K线 ===%n%n", series.getBarCount());
-        runSimulation(symbol, series);
+        BarColumns bars = KlineLoader.load(symbol, interval, limit);
+        System.out.printf("=== 加载成功，共 %d 根K线 ===%n%n", bars.size());
+        runSimulation(symbol, bars);
     }
 
     // ── Simulation engine ─────────────────────────────────────────────────────
 
-    private void runSimulation(String symbol, BarSeries series) {
-        int barCount = series.getBarCount();
+    private void runSimulation(String symbol, BarColumns bars) {
+        int barCount = bars.size();
         BacktestContext ctx = new BacktestContext(getInitialBalance());
 
-        double price            = series.getBar(0).getClosePrice().doubleValue();
+        double price            = bars.close(0);
         double peakPrice        = price;
         double amount           = initialAmount(ctx);
         int    round            = 1;
@@ -88,20 +78,20 @@ public abstract class AbstractBacktest {
         int    takeProfitCount  = 0;
         int    stopLossCount    = 0;
 
-        System.out.printf("=== 策略启动 (%s, %d 根K线) ===%n", series.getName(), barCount);
+        System.out.printf("=== 策略启动 (%s, %d 根K线) ===%n", bars.name(), barCount);
         System.out.printf("回测时间范围: %s 至 %s%n%n",
-                fmt(series.getBar(0).getEndTime()),
-                fmt(series.getBar(barCount - 1).getEndTime()));
+                fmt(bars.endTime(0)),
+                fmt(bars.endTime(barCount - 1)));
 
         // Bar 0: open initial position
         double drawdown0 = 0;
         ctx.openPosition(price, amount, getLeverage(ctx, drawdown0));
-        log(round, 0, series.getBar(0).getEndTime(), price, 0, ctx);
+        log(round, 0, bars.endTime(0), price, 0, ctx);
 
         for (int i = 1; i < barCount; i++) {
-            onBar(series, i);
+            onBar(bars, i);
             double pnl = ctx.calculatePnL(price);
-            price = series.getBar(i).getClosePrice().doubleValue();
+            price = bars.close(i);
 
             // ── Reopen after close ────────────────────────────────────────
             if (ctx.positions.isEmpty()) {
@@ -110,7 +100,7 @@ public abstract class AbstractBacktest {
                 peakPrice = price;
                 ctx.openPosition(price, amount, getLeverage(ctx, 0));
                 System.out.printf("[第%d轮] Bar%-3d [%s] [重新开仓] 价格=%.4f  权益=%.2f  仓位数=%d  总额=%.2f%n",
-                        round, i, fmt(series.getBar(i).getEndTime()), price,
+                        round, i, fmt(bars.endTime(i)), price,
                         ctx.balance, ctx.positions.size(), ctx.totalNotional());
                 continue;
             }
@@ -124,7 +114,7 @@ public abstract class AbstractBacktest {
                 double chg = price != 0 ? (avg - price) / price * 100 : 0;
                 String dir = chg > 0 ? "上涨" : chg < 0 ? "下跌" : "持平";
                 System.out.printf("[第%d轮] Bar%-3d [%s] [加仓]  价格=%.4f  PnL=%.2f  权益=%.2f  仓位数=%d  总额=%.2f  均价=%.4f  距均价需%s%.2f%%%n",
-                        round, i, fmt(series.getBar(i).getEndTime()), price, pnl,
+                        round, i, fmt(bars.endTime(i)), price, pnl,
                         ctx.balance, ctx.positions.size(), ctx.totalNotional(),
                         avg, dir, Math.abs(chg));
             }
@@ -144,16 +134,15 @@ public abstract class AbstractBacktest {
             // ── Liquidation ───────────────────────────────────────────────
             double mm = ctx.calculateMM(price);
             if (equity <= mm) {
-                logDetailed(round, i, series.getBar(i).getEndTime(), price, pnl, equity, ctx, avg, dir, chg);
+                logDetailed(round, i, bars.endTime(i), price, pnl, equity, ctx, avg, dir, chg);
                 System.out.printf("💥 Bar%d 触发强平（爆仓）！权益=%.2f 维持保证金=%.2f%n%n", i, equity, mm);
-                ctx.balance = 0;
-                ctx.positions.clear();
+                ctx.liquidate();
                 break;
             }
 
             // ── Stop-loss ─────────────────────────────────────────────────
             if (shouldStopLoss(ctx, pnl, equity)) {
-                logDetailed(round, i, series.getBar(i).getEndTime(), price, pnl, equity, ctx, avg, dir, chg);
+                logDetailed(round, i, bars.endTime(i), price, pnl, equity, ctx, avg, dir, chg);
                 System.out.printf("⚠️  Bar%d 触发总止损，平仓%n%n", i);
                 stopLossCount++;
                 ctx.closeAll(price);
@@ -163,7 +152,7 @@ public abstract class AbstractBacktest {
             // ── Take-profit ───────────────────────────────────────────────
             if (shouldTakeProfit(ctx, pnl, equity)) {
                 System.out.printf("[第%d轮] Bar%-3d [%s] 达到止盈目标 价格=%.4f  PnL=%.2f  权益=%.2f  仓位数=%d  总额=%.2f  均价=%.4f%n%n",
-                        round, i, fmt(series.getBar(i).getEndTime()), price, pnl,
+                        round, i, fmt(bars.endTime(i)), price, pnl,
                         equity, ctx.positions.size(), ctx.totalNotional(), avg);
                 takeProfitCount++;
                 ctx.closeAll(price);
@@ -175,11 +164,11 @@ public abstract class AbstractBacktest {
 
         // ── Force close at last bar ───────────────────────────────────────────
         if (!ctx.positions.isEmpty()) {
-            double finalPrice = series.getBar(barCount - 1).getClosePrice().doubleValue();
+            double finalPrice = bars.close(barCount - 1);
             double finalPnl = ctx.calculatePnL(finalPrice);
             double finalEquity = ctx.balance + finalPnl;
             System.out.printf("[第%d轮] Bar%-3d [%s] [回测结束强制平仓] 价格=%.4f  PnL=%.2f  权益=%.2f  仓位数=%d  总额=%.2f  均价=%.4f%n%n",
-                    round, barCount - 1, fmt(series.getBar(barCount - 1).getEndTime()),
+                    round, barCount - 1, fmt(bars.endTime(barCount - 1)),
                     finalPrice, finalPnl, finalEquity, ctx.positions.size(),
                     ctx.totalNotional(), ctx.calculateAveragePrice());
             ctx.closeAll(finalPrice);
@@ -195,53 +184,7 @@ public abstract class AbstractBacktest {
                 takeProfitCount + stopLossCount > 0 ? (takeProfitCount * 100.0 / (takeProfitCount + stopLossCount)) : 0);
         System.out.printf("最大仓位数: %d  (Bar%d [%s])%n",
                 maxPositionCount, maxPositionBarIndex,
-                fmt(series.getBar(maxPositionBarIndex).getEndTime()));
-    }
-
-    // ── DB loading ────────────────────────────────────────────────────────────
-
-    private BarSeries loadKlinesFromDb(String symbol, String interval, int limit) {
-        BarSeries series = new BaseBarSeriesBuilder().withName(symbol + "_" + interval).build();
-
-        String sql = "SELECT open_time, open, high, low, close, volume, close_time " +
-                     "FROM kline " +
-                     "WHERE symbol = ? AND interval_type = ? AND open_time > ? " +
-                     "ORDER BY open_time ASC" +
-                     (limit > 0 ? " LIMIT ?" : "");
-
-        try (Connection conn = DriverManager.getConnection(DbConfig.URL, DbConfig.USER, DbConfig.PASS);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, symbol);
-            ps.setString(2, interval);
-            ps.setLong(3, 1609430400000L);
-            if (limit > 0) ps.setInt(4, limit);
-
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    long   openTime  = rs.getLong("open_time");
-                    long   closeTime = rs.getLong("close_time");
-                    double open      = rs.getDouble("open");
-                    double high      = rs.getDouble("high");
-                    double low       = rs.getDouble("low");
-                    double close     = rs.getDouble("close");
-                    double volume    = rs.getDouble("volume");
-
-                    Duration      duration = Duration.ofMillis(closeTime - openTime + 1);
-                    ZonedDateTime endTime  = ZonedDateTime.ofInstant(
-                            Instant.ofEpochMilli(closeTime), ZoneOffset.UTC);
-                    series.addBar(new BaseBar(duration, endTime, open, high, low, close, volume));
-                }
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to load klines from DB for " + symbol, e);
-        }
-
-        if (series.getBarCount() == 0) {
-            throw new RuntimeException("No klines found in DB for " + symbol + " " + interval +
-                    ". Run the app first to backfill data.");
-        }
-        return series;
+                fmt(bars.endTime(maxPositionBarIndex)));
     }
 
     // ── Logging helpers ───────────────────────────────────────────────────────
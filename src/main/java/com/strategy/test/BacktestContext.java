@@ -1,11 +1,21 @@
 package com.strategy.test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Holds all mutable trading state for one backtest run.
  * Passed to every strategy hook so strategies can inspect and drive positions.
+ * <p>
+ * Running sums over the open positions are kept on open/close, so PnL, maintenance
+ * margin, average price and total notional are O(1) per call regardless of how many
+ * martingale adds are open:
+ * <pre>
+ *   PnL(price) = Σ (price - entry) / entry * notional = price * Σ(notional / entry) - Σ notional
+ *   avgPrice   = Σ(entry * notional) / Σ notional
+ * </pre>
+ * {@link #positions} is read-only; positions change only through the methods below.
  */
 public class BacktestContext {
 
@@ -21,10 +31,15 @@ public class BacktestContext {
 
     public double             balance;
     public final double         initialBalance;  // 初始金额
-    public final List<Position> positions = new ArrayList<>();
+    private final List<Position> open     = new ArrayList<>();
+    public final List<Position> positions = Collections.unmodifiableList(open);
     public final double         mmr;      // maintenance margin rate
     public final double         feeRate;
 
+    private double sumNotional;          // Σ notional
+    private double sumNotionalOverEntry; // Σ notional / entry
+    private double sumEntryNotional;     // Σ entry * notional
+
     public BacktestContext(double initialBalance) {
         this.balance = initialBalance;
         this.initialBalance = initialBalance;
@@ -37,24 +52,37 @@ public class BacktestContext {
     public void openPosition(double price, double margin, double leverage) {
         double notional = margin * leverage;
         balance -= notional * feeRate;
-        positions.add(new Position(price, notional));
+        open.add(new Position(price, notional));
+        sumNotional          += notional;
+        sumNotionalOverEntry += notional / price;
+        sumEntryNotional     += price * notional;
     }
 
     public void closeAll(double price) {
         double pnl          = calculatePnL(price);
         double totalNotional = totalNotional();
         balance += pnl - totalNotional * feeRate;
-        positions.clear();
+        clear();
+    }
+
+    /** Forced liquidation: the whole balance is lost and all positions are dropped. */
+    public void liquidate() {
+        balance = 0;
+        clear();
+    }
+
+    private void clear() {
+        open.clear();
+        sumNotional          = 0;
+        sumNotionalOverEntry = 0;
+        sumEntryNotional     = 0;
     }
 
     // ── Calculations ──────────────────────────────────────────────────────────
 
     public double calculatePnL(double price) {
-        double pnl = 0;
-        for (Position p : positions) {
-            pnl += (price - p.entryPrice) / p.entryPrice * p.notional;
-        }
-        return pnl;
+        if (open.isEmpty()) return 0;
+        return price * sumNotionalOverEntry - sumNotional;
     }
 
     public double calculateMM(double price) {
@@ -62,23 +90,15 @@ public class BacktestContext {
     }
 
     public double calculateAveragePrice() {
-        if (positions.isEmpty()) return 0;
-        double totalNotional  = 0;
-        double weightedPrice  = 0;
-        for (Position p : positions) {
-            totalNotional += p.notional;
-            weightedPrice += p.entryPrice * p.notional;
-        }
-        return weightedPrice / totalNotional;
+        if (open.isEmpty()) return 0;
+        return sumEntryNotional / sumNotional;
     }
 
     public double totalNotional() {
-        double total = 0;
-        for (Position p : positions) total += p.notional;
-        return total;
+        return sumNotional;
     }
 
     public double lastEntryPrice() {
-        return positions.get(positions.size() - 1).entryPrice;
+        return open.get(open.size() - 1).entryPrice;
     }
 }
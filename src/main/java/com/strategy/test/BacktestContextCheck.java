@@ -0,0 +1,134 @@
+package com.strategy.test;
+
+import java.util.Random;
+
+/**
+ * {@link BacktestContext} 增量汇总与逐仓位累加的一致性校验。
+ * <p>
+ * 随机模拟若干轮马丁加仓 / 平仓 / 爆仓，每一步都用原来遍历 positions 的算法重新计算
+ * PnL、均价、总名义价值和维持保证金，与 O(1) 结果比较，相对误差超过 1e-9 即失败；
+ * 最后对比两种算法在多仓位下每根K线的耗时。
+ * <p>
+ * 用法：{@code java ... BacktestContextCheck [轮数] [随机种子]}
+ */
+public class BacktestContextCheck {
+
+    private static final double TOLERANCE = 1e-9;
+
+    public static void main(String[] args) {
+        int  rounds = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        long seed   = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+
+        long checks = verify(rounds, new Random(seed));
+        System.out.printf("=== 一致性校验通过：%d 轮，%d 次比较 ===%n", rounds, checks);
+        benchmark(64, 2_000_000);
+    }
+
+    private static long verify(int rounds, Random random) {
+        BacktestContext ctx = new BacktestContext(1_000_000);
+        long checks = 0;
+        for (int r = 0; r < rounds; r++) {
+            double price  = 0.0001 + random.nextDouble() * 100_000;
+            double amount = 1;
+            int adds = random.nextInt(20);
+            ctx.openPosition(price, amount, 1 + random.nextInt(50));
+            for (int a = 0; a < adds; a++) {
+                price  *= 0.9 + random.nextDouble() * 0.2;
+                amount *= 2;
+                ctx.openPosition(price, amount, 1 + random.nextInt(50));
+                checks += compare(ctx, price * (0.8 + random.nextDouble() * 0.4));
+            }
+            double exit = price * (0.8 + random.nextDouble() * 0.4);
+            checks += compare(ctx, exit);
+            if (random.nextInt(10) == 0) {
+                ctx.liquidate();
+                ctx.balance = 1_000_000;
+            } else {
+                ctx.closeAll(exit);
+            }
+            checks += compare(ctx, exit);
+        }
+        return checks;
+    }
+
+    private static int compare(BacktestContext ctx, double price) {
+        check("PnL",      ctx.calculatePnL(price),       referencePnL(ctx, price));
+        check("均价",      ctx.calculateAveragePrice(),   referenceAveragePrice(ctx));
+        check("总名义价值", ctx.totalNotional(),           referenceTotalNotional(ctx));
+        check("维持保证金", ctx.calculateMM(price),        referenceTotalNotional(ctx) * ctx.mmr);
+        return 4;
+    }
+
+    private static void check(String name, double actual, double expected) {
+        double scale = Math.max(1, Math.abs(expected));
+        if (Math.abs(actual - expected) / scale > TOLERANCE) {
+            throw new IllegalStateException(String.format("%s 不一致: 增量=%.12f 遍历=%.12f", name, actual, expected));
+        }
+    }
+
+    // ── 原遍历算法 ─────────────────────────────────────────────────────────────
+
+    private static double referencePnL(BacktestContext ctx, double price) {
+        double pnl = 0;
+        for (BacktestContext.Position p : ctx.positions) {
+            pnl += (price - p.entryPrice) / p.entryPrice * p.notional;
+        }
+        return pnl;
+    }
+
+    private static double referenceAveragePrice(BacktestContext ctx) {
+        if (ctx.positions.isEmpty()) return 0;
+        double totalNotional = 0;
+        double weightedPrice = 0;
+        for (BacktestContext.Position p : ctx.positions) {
+            totalNotional += p.notional;
+            weightedPrice += p.entryPrice * p.notional;
+        }
+        return weightedPrice / totalNotional;
+    }
+
+    private static double referenceTotalNotional(BacktestContext ctx) {
+        double total = 0;
+        for (BacktestContext.Position p : ctx.positions) total += p.notional;
+        return total;
+    }
+
+    // ── 耗时对比 ──────────────────────────────────────────────────────────────
+
+    /** 持有 positionCount 个仓位时，每根K线按 AbstractBacktest 的调用次数（PnL、MM、均价各一次）计算。 */
+    private static void benchmark(int positionCount, int bars) {
+        BacktestContext ctx = new BacktestContext(1_000_000);
+        for (int i = 0; i < positionCount; i++) {
+            ctx.openPosition(100 - i * 0.5, 1 << Math.min(i, 20), 10);
+        }
+        for (int warmup = 0; warmup < 3; warmup++) {
+            runIncremental(ctx, bars);
+            runReference(ctx, bars);
+        }
+        long t0 = System.nanoTime();
+        double sink = runIncremental(ctx, bars);
+        long t1 = System.nanoTime();
+        sink += runReference(ctx, bars);
+        long t2 = System.nanoTime();
+        System.out.printf("%d 个仓位，%d 根K线：增量 %.1f ns/bar，遍历 %.1f ns/bar (%s)%n",
+                positionCount, bars, (t1 - t0) / (double) bars, (t2 - t1) / (double) bars, sink != 0 ? "ok" : "-");
+    }
+
+    private static double runIncremental(BacktestContext ctx, int bars) {
+        double sum = 0;
+        for (int i = 0; i < bars; i++) {
+            double price = 80 + (i & 1023) * 0.01;
+            sum += ctx.calculatePnL(price) + ctx.calculateMM(price) + ctx.calculateAveragePrice();
+        }
+        return sum;
+    }
+
+    private static double runReference(BacktestContext ctx, int bars) {
+        double sum = 0;
+        for (int i = 0; i < bars; i++) {
+            double price = 80 + (i & 1023) * 0.01;
+            sum += referencePnL(ctx, price) + referenceTotalNotional(ctx) * ctx.mmr + referenceAveragePrice(ctx);
+        }
+        return sum;
+    }
+}
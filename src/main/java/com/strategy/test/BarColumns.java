@@ -0,0 +1,71 @@
+package com.strategy.test;
+
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.BaseBar;
+import org.ta4j.core.BaseBarSeriesBuilder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * 回测用的K线容器：每个字段一个基本类型数组，下标即 Bar 序号。
+ * <p>
+ * 回测循环每根只读几个 double，不再经过 ta4j 的 Bar 对象和 Num 装箱；
+ * 需要 ta4j 指标时用 {@link #toBarSeries()} 转换（首次调用时生成，之后复用）。
+ */
+public final class BarColumns {
+
+    private final String name;
+    private final long[]   openTime;
+    private final long[]   closeTime;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final double[] volume;
+
+    private BarSeries series;
+
+    BarColumns(String name, long[] openTime, long[] closeTime, double[] open, double[] high,
+               double[] low, double[] close, double[] volume) {
+        this.name      = name;
+        this.openTime  = openTime;
+        this.closeTime = closeTime;
+        this.open      = open;
+        this.high      = high;
+        this.low       = low;
+        this.close     = close;
+        this.volume    = volume;
+    }
+
+    public String name()              { return name; }
+    public int    size()              { return close.length; }
+    public long   openTime(int i)     { return openTime[i]; }
+    public long   closeTime(int i)    { return closeTime[i]; }
+    public double open(int i)         { return open[i]; }
+    public double high(int i)         { return high[i]; }
+    public double low(int i)          { return low[i]; }
+    public double close(int i)        { return close[i]; }
+    public double volume(int i)       { return volume[i]; }
+    public boolean bullish(int i)     { return close[i] >= open[i]; }
+
+    /** 收盘时间，仅用于打印。 */
+    public ZonedDateTime endTime(int i) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochMilli(closeTime[i]), ZoneOffset.UTC);
+    }
+
+    /** 转成 ta4j 的 BarSeries，供指标计算使用。 */
+    public BarSeries toBarSeries() {
+        if (series == null) {
+            BarSeries s = new BaseBarSeriesBuilder().withName(name).build();
+            for (int i = 0; i < size(); i++) {
+                Duration duration = Duration.ofMillis(closeTime[i] - openTime[i] + 1);
+                s.addBar(new BaseBar(duration, endTime(i), open[i], high[i], low[i], close[i], volume[i]));
+            }
+            series = s;
+        }
+        return series;
+    }
+}
@@ -1,14 +1,5 @@
 package com.strategy.test;
 
-import org.ta4j.core.BarSeries;
-import org.ta4j.core.BaseBar;
-import org.ta4j.core.BaseBarSeriesBuilder;
-
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
@@ -89,15 +80,15 @@ public abstract class BasePatternStrategy {
     public final void run(String symbol, String interval, int limit) {
         System.out.printf("=== %s: %s %s%s ===%n",
                 strategyName(), symbol, interval, limit > 0 ? " x" + limit : " (全量)");
-        BarSeries series = loadKlinesFromDb(symbol, interval, limit);
-        System.out.printf("=== 加载 %d 根K线 ===%n%n", series.getBarCount());
-        simulate(series);
+        BarColumns bars = KlineLoader.load(symbol, interval, limit);
+        System.out.printf("=== 加载 %d 根K线 ===%n%n", bars.size());
+        simulate(bars);
     }
 
     // ── 回测引擎 ────────────────────────────────────────────────────────────────
 
-    private void simulate(BarSeries series) {
-        int    barCount = series.getBarCount();
+    private void simulate(BarColumns bars) {
+        int    barCount = bars.size();
         double balance  = 1000.0;
 
         int round        = 0;
@@ -120,16 +111,14 @@ public abstract class BasePatternStrategy {
         System.out.println("-".repeat(100));
 
         for (int i = 1; i < barCount; i++) {
-            double open  = series.getBar(i).getOpenPrice().doubleValue();
-            double high  = series.getBar(i).getHighPrice().doubleValue();
-            double low   = series.getBar(i).getLowPrice().doubleValue();
-            double close = series.getBar(i).getClosePrice().doubleValue();
-            ZonedDateTime time = series.getBar(i).getEndTime();
+            double open  = bars.open(i);
+            double high  = bars.high(i);
+            double low   = bars.low(i);
+            double close = bars.close(i);
+            long   time  = bars.closeTime(i);   // 只在打印时格式化
 
             // 每Bar刷新上一根K线方向
-            double pOpen  = series.getBar(i - 1).getOpenPrice().doubleValue();
-            double pClose = series.getBar(i - 1).getClosePrice().doubleValue();
-            prevBull = pClose >= pOpen;
+            prevBull = bars.bullish(i - 1);
 
             // ── 止损后等待阳线续单 ───────────────────────────────────────────────
             if (waitingForBullish) {
@@ -324,7 +313,7 @@ public abstract class BasePatternStrategy {
 
     // ── 日志格式 ────────────────────────────────────────────────────────────────
 
-    private void printRow(int round, ZonedDateTime time, int bar, String event,
+    private void printRow(int round, long time, int bar, String event,
                           String side, String price, String margin, String pnl, String balance) {
         System.out.printf("[%3d轮] [%s] Bar%-4d  %-14s %-6s %-22s %-8s %-10s 余额=%-10s%n",
                 round, fmt(time), bar, event, side, price, margin + "U", pnl, balance);
@@ -332,48 +321,8 @@ public abstract class BasePatternStrategy {
 
     static String fmt(ZonedDateTime t) { return t.format(FMT); }
 
-    // ── 从 MySQL 加载K线 ────────────────────────────────────────────────────────
-
-    private BarSeries loadKlinesFromDb(String symbol, String interval, int limit) {
-        BarSeries series = new BaseBarSeriesBuilder().withName(symbol + "_" + interval).build();
-
-        String sql = "SELECT open_time, open, high, low, close, volume, close_time " +
-                     "FROM kline " +
-                     "WHERE symbol = ? AND interval_type = ? AND open_time > ? " +
-                     "ORDER BY open_time ASC" +
-                     (limit > 0 ? " LIMIT ?" : "");
-
-        try (Connection conn = DriverManager.getConnection(DbConfig.URL, DbConfig.USER, DbConfig.PASS);
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, symbol);
-            ps.setString(2, interval);
-            ps.setLong(3, 1609430400000L);
-            if (limit > 0) ps.setInt(4, limit);
-
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    long   openTime  = rs.getLong("open_time");
-                    long   closeTime = rs.getLong("close_time");
-                    double open      = rs.getDouble("open");
-                    double high      = rs.getDouble("high");
-                    double low       = rs.getDouble("low");
-                    double close     = rs.getDouble("close");
-                    double volume    = rs.getDouble("volume");
-
-                    Duration      duration = Duration.ofMillis(closeTime - openTime + 1);
-                    ZonedDateTime endTime  = ZonedDateTime.ofInstant(
-                            Instant.ofEpochMilli(closeTime), ZoneOffset.UTC);
-                    series.addBar(new BaseBar(duration, endTime, open, high, low, close, volume));
-                }
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to load klines from DB for " + symbol, e);
-        }
-
-        if (series.getBarCount() == 0) {
-            throw new RuntimeException("No klines found in DB for " + symbol + " " + interval);
-        }
-        return series;
+    static String fmt(long epochMillis) {
+        return fmt(ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC));
     }
+
 }
@@ -1,7 +1,5 @@
 package com.strategy.test;
 
-import org.ta4j.core.BarSeries;
-
 /**
  * Bullish Martingale strategy:
  * - Same as MartingaleStrategy, but no chain-opening within a single bar.
@@ -20,10 +18,8 @@ public class BullishMartingaleStrategy extends AbstractBacktest {
     }
 
     @Override
-    protected void onBar(BarSeries series, int barIndex) {
-        double open  = series.getBar(barIndex).getOpenPrice().doubleValue();
-        double close = series.getBar(barIndex).getClosePrice().doubleValue();
-        currentBarBullish = close >= open;
+    protected void onBar(BarColumns bars, int barIndex) {
+        currentBarBullish = bars.bullish(barIndex);
     }
 
     @Override
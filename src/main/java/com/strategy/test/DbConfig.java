@@ -4,6 +4,8 @@ public final class DbConfig {
     public static final String URL  = "jdbc:mysql://localhost:3306/bot?useUnicode=true&characterEncoding=utf8&serverTimezone=UTC";
     public static final String USER = "root";
     public static final String PASS = "123456";
+    /** 本地列式K线存储目录，与应用的 kline-store.dir 一致。 */
+    public static final String KLINE_STORE_DIR = System.getProperty("kline.store.dir", "data/kline");
 
     private DbConfig() {}
 }
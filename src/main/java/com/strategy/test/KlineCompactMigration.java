@@ -0,0 +1,158 @@
+package com.strategy.test;
+
+import com.strategy.arbitrage.kline.KlineCompact;
+import com.strategy.arbitrage.kline.KlineInterval;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把 kline 表迁移到紧凑布局 kline_compact（表结构见 schema.sql）。
+ * <p>
+ * 每个 symbol + 周期按自然月分段，用服务端 INSERT IGNORE ... SELECT 搬运，数据不经过客户端。
+ * 每个月先比较两张表的行数，相同的跳过，不同的整月重搬（已有的行被忽略），
+ * 所以之后回补进 kline 的缺口、迁移中断留下的半个月都会在下次执行时补上，可以反复执行。
+ * 搬运前先把 p_max 拆出覆盖数据范围的月分区。运行中的新数据由 KlineCompactWriter 同步写入。
+ * <p>
+ * 用法：{@code java ... KlineCompactMigration [symbol ...]}，不传参数时迁移全部。
+ */
+public class KlineCompactMigration {
+
+    private static final String COPY_SQL =
+            "INSERT IGNORE INTO kline_compact (symbol_id, interval_id, open_time, open, high, low, close, volume) " +
+            "SELECT ?, ?, open_time, " +
+            "ROUND(open * " + KlineCompact.PRICE_SCALE + "), ROUND(high * " + KlineCompact.PRICE_SCALE + "), " +
+            "ROUND(low * " + KlineCompact.PRICE_SCALE + "), ROUND(close * " + KlineCompact.PRICE_SCALE + "), " +
+            "volume " +
+            "FROM kline " +
+            "WHERE symbol = ? AND interval_type = ? AND open_time >= ? AND open_time < ?";
+    private static final String COUNT_SOURCE_SQL =
+            "SELECT COUNT(*) FROM kline WHERE symbol = ? AND interval_type = ? AND open_time >= ? AND open_time < ?";
+    private static final String COUNT_TARGET_SQL =
+            "SELECT COUNT(*) FROM kline_compact WHERE symbol_id = ? AND interval_id = ? AND open_time >= ? AND open_time < ?";
+
+    public static void main(String[] args) throws Exception {
+        try (Connection conn = DriverManager.getConnection(DbConfig.URL, DbConfig.USER, DbConfig.PASS)) {
+            List<String[]> series = listSeries(conn, args);
+            System.out.printf("=== 待迁移 %d 组 symbol/周期 ===%n", series.size());
+            long totalRows = 0;
+            long start = System.currentTimeMillis();
+            for (String[] s : series) {
+                totalRows += migrate(conn, s[0], s[1]);
+            }
+            long elapsed = Math.max(1, System.currentTimeMillis() - start);
+            System.out.printf("=== 迁移完成：%d 行，耗时 %.1fs，%d 行/s ===%n",
+                    totalRows, elapsed / 1000.0, totalRows * 1000 / elapsed);
+        }
+    }
+
+    private static List<String[]> listSeries(Connection conn, String[] symbols) throws Exception {
+        List<String[]> series = new ArrayList<>();
+        String sql = "SELECT DISTINCT symbol, interval_type FROM kline" +
+                     (symbols.length > 0 ? " WHERE symbol IN (" + "?,".repeat(symbols.length - 1) + "?)" : "");
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < symbols.length; i++) {
+                ps.setString(i + 1, symbols[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    series.add(new String[]{rs.getString(1), rs.getString(2)});
+                }
+            }
+        }
+        return series;
+    }
+
+    private static long migrate(Connection conn, String symbol, String interval) throws Exception {
+        int symbolId = KlineCompact.symbolId(conn, symbol);
+        int intervalId = KlineCompact.intervalId(interval);
+
+        long[] range = queryRange(conn,
+                "SELECT MIN(open_time), MAX(open_time) FROM kline WHERE symbol = ? AND interval_type = ?",
+                symbol, interval);
+        if (range == null) {
+            return 0;
+        }
+        ensurePartitions(conn, range[1]);
+
+        long rows = 0;
+        int skipped = 0;
+        long start = System.currentTimeMillis();
+        try (PreparedStatement copy = conn.prepareStatement(COPY_SQL);
+             PreparedStatement source = conn.prepareStatement(COUNT_SOURCE_SQL);
+             PreparedStatement target = conn.prepareStatement(COUNT_TARGET_SQL)) {
+            // 一次搬一个月，正好落在一个分区里；与写入方一样从 FIRST_MONTH 起算，第一个分区还收下更早的数据
+            for (YearMonth m = KlineCompact.FIRST_MONTH; !m.isAfter(KlineCompact.month(range[1])); m = m.plusMonths(1)) {
+                long monthStart = m.equals(KlineCompact.FIRST_MONTH) ? Long.MIN_VALUE
+                        : m.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+                long monthEnd = KlineCompact.partitionBound(m);
+                source.setString(1, symbol);
+                source.setString(2, interval);
+                source.setLong(3, monthStart);
+                source.setLong(4, monthEnd);
+                target.setInt(1, symbolId);
+                target.setInt(2, intervalId);
+                target.setLong(3, monthStart);
+                target.setLong(4, monthEnd);
+                if (count(source) == count(target)) {
+                    skipped++;
+                    continue;
+                }
+                copy.setInt(1, symbolId);
+                copy.setInt(2, intervalId);
+                copy.setString(3, symbol);
+                copy.setString(4, interval);
+                copy.setLong(5, monthStart);
+                copy.setLong(6, monthEnd);
+                rows += copy.executeUpdate();
+            }
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        System.out.printf("%-12s %-4s 迁移 %d 行，%d 行/s，%d 个月已一致跳过（跨度 %d 根）%n", symbol, interval, rows,
+                rows * 1000 / elapsed, skipped, (range[1] - range[0]) / KlineInterval.millis(interval) + 1);
+        return rows;
+    }
+
+    private static long count(PreparedStatement ps) throws Exception {
+        try (ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * 拆出从 {@link KlineCompact#FIRST_MONTH} 到 maxTime 再多一个月的分区，p_max 始终保持为空或很小。
+     * 下界与 KlineCompactWriter 一致，之后回补的更早历史也能落到各自的月分区。
+     */
+    private static void ensurePartitions(Connection conn, long maxTime) throws Exception {
+        Long existingBound = KlineCompact.partitionBound(conn);
+        String ddl = KlineCompact.reorganizeDdl(existingBound,
+                KlineCompact.FIRST_MONTH, KlineCompact.month(maxTime).plusMonths(1));
+        if (ddl != null) {
+            try (Statement st = conn.createStatement()) {
+                st.execute(ddl);
+            }
+            System.out.println("分区已扩展至 " + KlineCompact.month(maxTime).plusMonths(1));
+        }
+    }
+
+    private static long[] queryRange(Connection conn, String sql, String symbol, String interval) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, symbol);
+            ps.setString(2, interval);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getObject(1) == null) {
+                    return null;
+                }
+                return new long[]{rs.getLong(1), rs.getLong(2)};
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.strategy.test;
+
+import com.strategy.arbitrage.kline.KlineColumns;
+import com.strategy.arbitrage.kline.KlineCompact;
+import com.strategy.arbitrage.kline.KlineInterval;
+import com.strategy.arbitrage.kline.KlineStore;
+import com.strategy.arbitrage.model.Kline;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 回测K线加载：优先直接映射本地列式存储（{@link KlineStore}），不查数据库；
+ * 存储不存在时从 kline 表导入一次，之后的回测都走存储。
+ * 加 -Dkline.store.refresh=true 时先把表里比存储新的数据补进来。
+ */
+final class KlineLoader {
+
+    /** 只取这个时间之后的K线（2021-01-01）。 */
+    private static final long START_TIME = 1609430400000L;
+    private static final int IMPORT_PAGE_SIZE = 50_000;
+
+    private KlineLoader() {}
+
+    static BarColumns load(String symbol, String interval, int limit) {
+        long start = System.currentTimeMillis();
+        KlineColumns columns = openStore(symbol, interval);
+        if (columns == null) {
+            throw new RuntimeException("No klines found for " + symbol + " " + interval +
+                    ". Run the app first to backfill data.");
+        }
+
+        int from = columns.indexAfter(START_TIME);
+        int to   = limit > 0 ? Math.min(columns.size(), from + limit) : columns.size();
+        if (from >= to) {
+            throw new RuntimeException("No klines found for " + symbol + " " + interval +
+                    ". Run the app first to backfill data.");
+        }
+        BarColumns bars = new BarColumns(symbol + "_" + interval,
+                columns.openTimes(from, to), columns.closeTimes(from, to),
+                columns.opens(from, to), columns.highs(from, to), columns.lows(from, to),
+                columns.closes(from, to), columns.volumes(from, to));
+        System.out.printf("=== 本地存储读取 %d 根K线，耗时 %dms ===%n", bars.size(),
+                System.currentTimeMillis() - start);
+        return bars;
+    }
+
+    private static KlineColumns openStore(String symbol, String interval) {
+        Path root = Paths.get(DbConfig.KLINE_STORE_DIR);
+        try {
+            boolean refresh = Boolean.getBoolean("kline.store.refresh");
+            if (!refresh) {
+                KlineColumns columns = KlineColumns.open(root, symbol, interval);
+                if (columns != null) {
+                    return columns;
+                }
+            }
+            try (KlineStore store = KlineStore.open(root, symbol, interval)) {
+                long imported = importFromDb(store, symbol, interval);
+                System.out.printf("=== 从 MySQL 导入本地存储 %d 根K线，共 %d 根 ===%n", imported, store.size());
+                return store.size() == 0 ? null : store.map();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load klines for " + symbol, e);
+        }
+    }
+
+    /**
+     * 按 open_time 分页把表里比存储最后一根新的K线追加进存储。
+     * -Dkline.source=compact 时从 kline_compact 读（见 {@link KlineCompactMigration}）。
+     */
+    private static long importFromDb(KlineStore store, String symbol, String interval) throws Exception {
+        boolean compact = "compact".equals(System.getProperty("kline.source"));
+        String sql = compact
+                ? "SELECT k.open_time, k.open, k.high, k.low, k.close, k.volume " +
+                  "FROM kline_compact k JOIN kline_symbol s ON s.id = k.symbol_id " +
+                  "WHERE s.symbol = ? AND k.interval_id = ? AND k.open_time > ? " +
+                  "ORDER BY k.open_time ASC LIMIT ?"
+                : "SELECT open_time, open, high, low, close, volume, close_time " +
+                  "FROM kline " +
+                  "WHERE symbol = ? AND interval_type = ? AND open_time > ? " +
+                  "ORDER BY open_time ASC LIMIT ?";
+        long intervalMs = KlineInterval.millis(interval);
+
+        long imported = 0;
+        long after = store.size() == 0 ? -1 : store.lastOpenTime();
+        try (Connection conn = DriverManager.getConnection(DbConfig.URL, DbConfig.USER, DbConfig.PASS);
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            while (true) {
+                ps.setString(1, symbol);
+                if (compact) {
+                    ps.setInt(2, KlineCompact.intervalId(interval));
+                } else {
+                    ps.setString(2, interval);
+                }
+                ps.setLong(3, after);
+                ps.setInt(4, IMPORT_PAGE_SIZE);
+
+                List<Kline> page = new ArrayList<>(IMPORT_PAGE_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        long openTime = rs.getLong(1);
+                        page.add(compact
+                                ? new Kline(null, symbol, interval, openTime,
+                                        KlineCompact.price(rs.getLong(2)),
+                                        KlineCompact.price(rs.getLong(3)),
+                                        KlineCompact.price(rs.getLong(4)),
+                                        KlineCompact.price(rs.getLong(5)),
+                                        rs.getDouble(6),
+                                        openTime + intervalMs - 1)
+                                : new Kline(null, symbol, interval, openTime,
+                                        rs.getDouble(2),
+                                        rs.getDouble(3),
+                                        rs.getDouble(4),
+                                        rs.getDouble(5),
+                                        rs.getDouble(6),
+                                        rs.getLong(7)));
+                    }
+                }
+                if (page.isEmpty()) {
+                    break;
+                }
+                imported += store.append(page);
+                after = page.get(page.size() - 1).getOpenTime();
+                if (page.size() < IMPORT_PAGE_SIZE) {
+                    break;
+                }
+            }
+        }
+        return imported;
+    }
+}
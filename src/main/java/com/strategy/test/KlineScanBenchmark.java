@@ -0,0 +1,121 @@
+package com.strategy.test;
+
+import com.strategy.arbitrage.kline.KlineCompact;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Locale;
+
+/**
+ * 回测区间扫描对比：原 kline 表（VARCHAR 键 + DECIMAL）与 kline_compact（整数键 + BIGINT，按月分区）。
+ * <p>
+ * 两边都用流式结果集读出同一 symbol/周期 [from, to) 内的全部 K 线并累加收盘价校验结果一致，
+ * 输出每轮耗时、行/s，以及两张表的数据和索引大小。
+ * <p>
+ * 用法：{@code java ... KlineScanBenchmark [symbol] [interval] [fromMs] [toMs] [轮数]}
+ */
+public class KlineScanBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String symbol   = args.length > 0 ? args[0] : "BTCUSDT";
+        String interval = args.length > 1 ? args[1] : "1m";
+        long from       = args.length > 2 ? Long.parseLong(args[2]) : 0L;
+        long to         = args.length > 3 ? Long.parseLong(args[3]) : Long.MAX_VALUE;
+        int rounds      = args.length > 4 ? Integer.parseInt(args[4]) : 3;
+
+        try (Connection conn = DriverManager.getConnection(DbConfig.URL, DbConfig.USER, DbConfig.PASS)) {
+            int symbolId = symbolId(conn, symbol);
+            int intervalId = KlineCompact.intervalId(interval);
+            printSize(conn, "kline");
+            printSize(conn, "kline_compact");
+
+            System.out.printf("%-14s %6s %12s %10s %14s %20s%n", "table", "round", "rows", "ms", "rows/s", "sum(close)");
+            for (int r = 1; r <= rounds; r++) {
+                scan(conn, "kline", r,
+                        "SELECT open_time, open, high, low, close, volume FROM kline " +
+                        "WHERE symbol = ? AND interval_type = ? AND open_time >= ? AND open_time < ? ORDER BY open_time",
+                        ps -> {
+                            ps.setString(1, symbol);
+                            ps.setString(2, interval);
+                            ps.setLong(3, from);
+                            ps.setLong(4, to);
+                        }, false);
+                scan(conn, "kline_compact", r,
+                        "SELECT open_time, open, high, low, close, volume FROM kline_compact " +
+                        "WHERE symbol_id = ? AND interval_id = ? AND open_time >= ? AND open_time < ? ORDER BY open_time",
+                        ps -> {
+                            ps.setInt(1, symbolId);
+                            ps.setInt(2, intervalId);
+                            ps.setLong(3, from);
+                            ps.setLong(4, to);
+                        }, true);
+            }
+        }
+    }
+
+    private interface Binder {
+        void bind(PreparedStatement ps) throws Exception;
+    }
+
+    private static void scan(Connection conn, String table, int round, String sql, Binder binder, boolean scaled)
+            throws Exception {
+        long start = System.nanoTime();
+        long rows = 0;
+        double sumClose = 0;
+        try (PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // MySQL 驱动的流式读取，不把整个结果集放进内存
+            ps.setFetchSize(Integer.MIN_VALUE);
+            binder.bind(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rs.getLong(1);
+                    if (scaled) {
+                        rs.getLong(2);
+                        rs.getLong(3);
+                        rs.getLong(4);
+                        sumClose += KlineCompact.price(rs.getLong(5));
+                        rs.getLong(6);
+                    } else {
+                        rs.getDouble(2);
+                        rs.getDouble(3);
+                        rs.getDouble(4);
+                        sumClose += rs.getDouble(5);
+                        rs.getDouble(6);
+                    }
+                    rows++;
+                }
+            }
+        }
+        long nanos = Math.max(1, System.nanoTime() - start);
+        System.out.printf(Locale.ROOT, "%-14s %6d %12d %10d %14d %20.4f%n", table, round, rows,
+                nanos / 1_000_000, rows * 1_000_000_000L / nanos, sumClose);
+    }
+
+    private static int symbolId(Connection conn, String symbol) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT id FROM kline_symbol WHERE symbol = ?")) {
+            ps.setString(1, symbol);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new IllegalStateException(symbol + " 尚未迁移，先运行 KlineCompactMigration");
+                }
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private static void printSize(Connection conn, String table) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT TABLE_ROWS, DATA_LENGTH, INDEX_LENGTH FROM information_schema.TABLES " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?")) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    System.out.printf("%-14s 约 %d 行，数据 %d MB，索引 %d MB%n", table,
+                            rs.getLong(1), rs.getLong(2) >> 20, rs.getLong(3) >> 20);
+                }
+            }
+        }
+    }
+}
@@ -45,3 +45,44 @@ CREATE TABLE IF NOT EXISTS kline (
     PRIMARY KEY (id),
     UNIQUE KEY uk_symbol_interval_open_time (symbol, interval_type, open_time)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Kline / candlestick data';
+
+CREATE TABLE IF NOT EXISTS kline_backfill_checkpoint (
+    id             BIGINT      NOT NULL AUTO_INCREMENT,
+    symbol         VARCHAR(20) NOT NULL COMMENT 'Trading pair, e.g. BTCUSDT',
+    interval_type  VARCHAR(10) NOT NULL COMMENT 'Kline interval, e.g. 1m',
+    kind           VARCHAR(10) NOT NULL COMMENT 'RANGE = planned history range, GAP = hole found by continuity scan',
+    range_start    BIGINT      NOT NULL COMMENT 'First open time covered (Unix ms, inclusive)',
+    range_end      BIGINT      NOT NULL COMMENT 'Last open time covered (Unix ms, inclusive)',
+    next_open_time BIGINT      NOT NULL COMMENT 'Resume point: next open time to fetch',
+    saved          BIGINT      NOT NULL DEFAULT 0 COMMENT 'Candles written so far',
+    attempts       INT         NOT NULL DEFAULT 0 COMMENT 'Times this range has been run',
+    done           TINYINT(1)  NOT NULL DEFAULT 0,
+    updated_at     TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_symbol_interval_kind_range (symbol, interval_type, kind, range_start)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Kline backfill progress per time range';
+
+CREATE TABLE IF NOT EXISTS kline_symbol (
+    id          INT         NOT NULL AUTO_INCREMENT,
+    symbol      VARCHAR(20) NOT NULL COMMENT 'Trading pair, e.g. BTCUSDT',
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_symbol (symbol)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Symbol dictionary for kline_compact';
+
+-- Compact kline layout: integer ids, prices x 1e8 as BIGINT, volume kept as DECIMAL(30,8) (x 1e8 can overflow BIGINT),
+-- clustered by (symbol_id, interval_id, open_time). close_time is open_time + interval - 1.
+-- Written alongside kline by KlineCompactWriter; monthly partitions are split out of p_max on demand.
+CREATE TABLE IF NOT EXISTS kline_compact (
+    symbol_id   INT      NOT NULL COMMENT 'kline_symbol.id',
+    interval_id TINYINT  NOT NULL COMMENT 'KlineCompact interval id, 1 = 1m',
+    open_time   BIGINT   NOT NULL COMMENT 'Open time (Unix ms)',
+    open        BIGINT   NOT NULL COMMENT 'Price x 1e8',
+    high        BIGINT   NOT NULL COMMENT 'Price x 1e8',
+    low         BIGINT   NOT NULL COMMENT 'Price x 1e8',
+    close       BIGINT   NOT NULL COMMENT 'Price x 1e8',
+    volume      DECIMAL(30, 8) NOT NULL COMMENT 'Volume',
+    PRIMARY KEY (symbol_id, interval_id, open_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Compact kline storage partitioned by month'
+PARTITION BY RANGE (open_time) (
+    PARTITION p_max VALUES LESS THAN MAXVALUE
+);